@@ -0,0 +1,66 @@
+package org.cloudbus.cloudsim.benchmarks;
+
+/**
+ * A benchmark of one code path of the simulator, run by the {@link BenchmarkRunner}. A benchmark
+ * is parameterized by the number of hosts of the simulated fleet: it is set up once for each
+ * number of hosts, and then invoked repeatedly, each invocation being timed on its own. The state
+ * that an invocation consumes, e.g. the events of a queue, is rebuilt by {@link #prepare()}, which
+ * is not timed.
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public abstract class Benchmark {
+
+	/** The name. */
+	private final String name;
+
+	/**
+	 * Instantiates a new benchmark.
+	 * 
+	 * @param name the name, used to select the benchmark and to report its results
+	 */
+	public Benchmark(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Gets the name.
+	 * 
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Sets up the benchmark for a fleet.
+	 * 
+	 * @param hosts the number of hosts of the fleet
+	 * @throws Exception if the benchmark cannot be set up
+	 */
+	public abstract void setUp(int hosts) throws Exception;
+
+	/**
+	 * Prepares the next invocation. It does nothing by default.
+	 * 
+	 * @throws Exception if the invocation cannot be prepared
+	 */
+	public void prepare() throws Exception {
+	}
+
+	/**
+	 * Runs one invocation of the benchmarked code path. The result is consumed by the runner, so
+	 * that the work leading to it cannot be optimized away.
+	 * 
+	 * @return the result
+	 * @throws Exception if the invocation fails
+	 */
+	public abstract Object run() throws Exception;
+
+	/**
+	 * Releases the state built by {@link #setUp(int)}. It does nothing by default.
+	 */
+	public void tearDown() {
+	}
+
+}
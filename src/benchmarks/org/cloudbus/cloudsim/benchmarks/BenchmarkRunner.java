@@ -0,0 +1,206 @@
+package org.cloudbus.cloudsim.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.FutureQueueBenchmark;
+
+/**
+ * Runs the benchmarks of the simulation kernel and of the power-aware policies, and prints the
+ * time of their invocations. Each benchmark is set up for each fleet size, invoked a number of
+ * times to warm up the JVM, and then invoked a number of times that are measured. The mean,
+ * standard deviation and minimum of the measured times are printed in milliseconds, one CSV line
+ * per benchmark and fleet size, so that the results of two versions of the simulator can be
+ * compared.
+ * 
+ * The arguments are optional: -hosts followed by a comma-separated list of fleet sizes (100,1000,
+ * 10000 by default), -warmup and -iterations followed by the number of warm-up and measured
+ * invocations (5 and 10 by default), and the names of the benchmarks to run, or prefixes of these
+ * names (all the benchmarks by default).
+ * 
+ * Example: BenchmarkRunner -hosts 100,1000 -iterations 20 futureQueue cancelAll
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public class BenchmarkRunner {
+
+	/** The sink of the results of the invocations. */
+	private static volatile int sink;
+
+	/**
+	 * Gets the benchmarks.
+	 * 
+	 * @return the benchmarks
+	 */
+	public static List<Benchmark> getBenchmarks() {
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+		benchmarks.add(new FutureQueueBenchmark("futureQueue.treeSet", CloudSim.FUTURE_QUEUE_TREE_SET));
+		benchmarks.add(new FutureQueueBenchmark("futureQueue.binaryHeap", CloudSim.FUTURE_QUEUE_BINARY_HEAP));
+		benchmarks.add(new FutureQueueBenchmark(
+				"futureQueue.quaternaryHeap",
+				CloudSim.FUTURE_QUEUE_QUATERNARY_HEAP));
+		benchmarks.add(new FutureQueueBenchmark("futureQueue.calendar", CloudSim.FUTURE_QUEUE_CALENDAR));
+		benchmarks.add(new CancelAllBenchmark("cancelAll"));
+		benchmarks.add(new UpdateVmsProcessingBenchmark("updateVmsProcessing"));
+		benchmarks.add(new OptimizeAllocationBenchmark("optimizeAllocation.thrMmt", PowerFleet.THR_MMT));
+		benchmarks.add(new OptimizeAllocationBenchmark("optimizeAllocation.lrMc", PowerFleet.LR_MC));
+		benchmarks.add(new CorrelationCoefficientsBenchmark("correlationCoefficients"));
+		benchmarks.add(new LoessParameterEstimatesBenchmark("loessParameterEstimates"));
+		return benchmarks;
+	}
+
+	/**
+	 * The main method.
+	 * 
+	 * @param args the arguments
+	 * @throws Exception if a benchmark fails
+	 */
+	public static void main(String[] args) throws Exception {
+		int[] hosts = { 100, 1000, 10000 };
+		int warmup = 5;
+		int iterations = 10;
+		List<String> names = new ArrayList<String>();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-hosts")) {
+				String[] sizes = args[++i].split(",");
+				hosts = new int[sizes.length];
+				for (int j = 0; j < sizes.length; j++) {
+					hosts[j] = Integer.parseInt(sizes[j].trim());
+				}
+			} else if (args[i].equals("-warmup")) {
+				warmup = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-iterations")) {
+				iterations = Integer.parseInt(args[++i]);
+			} else {
+				names.add(args[i]);
+			}
+		}
+
+		System.out.println("benchmark,hosts,mean ms,stdev ms,min ms");
+		for (Benchmark benchmark : getBenchmarks()) {
+			if (!isSelected(benchmark, names)) {
+				continue;
+			}
+			for (int size : hosts) {
+				double[] times = run(benchmark, size, warmup, iterations);
+				System.out.println(String.format(
+						"%s,%d,%.4f,%.4f,%.4f",
+						benchmark.getName(),
+						size,
+						getMean(times),
+						getStandardDeviation(times),
+						getMin(times)));
+			}
+		}
+	}
+
+	/**
+	 * Runs a benchmark for a fleet size.
+	 * 
+	 * @param benchmark the benchmark
+	 * @param hosts the number of hosts of the fleet
+	 * @param warmup the number of warm-up invocations
+	 * @param iterations the number of measured invocations
+	 * @return the times of the measured invocations in milliseconds
+	 * @throws Exception if the benchmark fails
+	 */
+	public static double[] run(Benchmark benchmark, int hosts, int warmup, int iterations)
+			throws Exception {
+		double[] times = new double[iterations];
+		benchmark.setUp(hosts);
+		try {
+			for (int i = 0; i < warmup; i++) {
+				benchmark.prepare();
+				consume(benchmark.run());
+			}
+			for (int i = 0; i < iterations; i++) {
+				benchmark.prepare();
+				long start = System.nanoTime();
+				Object result = benchmark.run();
+				times[i] = (System.nanoTime() - start) / 1000000.0;
+				consume(result);
+			}
+		} finally {
+			benchmark.tearDown();
+		}
+		return times;
+	}
+
+	/**
+	 * Checks if a benchmark is selected by the names given as arguments.
+	 * 
+	 * @param benchmark the benchmark
+	 * @param names the names, or prefixes of names
+	 * @return true, if no name is given or the name of the benchmark starts with one of them
+	 */
+	private static boolean isSelected(Benchmark benchmark, List<String> names) {
+		if (names.isEmpty()) {
+			return true;
+		}
+		for (String name : names) {
+			if (benchmark.getName().startsWith(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Consumes the result of an invocation, so that the JIT compiler cannot drop the work.
+	 * 
+	 * @param result the result
+	 */
+	private static void consume(Object result) {
+		if (result != null) {
+			sink += result.hashCode();
+		}
+	}
+
+	/**
+	 * Gets the mean.
+	 * 
+	 * @param times the times
+	 * @return the mean
+	 */
+	private static double getMean(double[] times) {
+		double sum = 0;
+		for (double time : times) {
+			sum += time;
+		}
+		return sum / times.length;
+	}
+
+	/**
+	 * Gets the standard deviation.
+	 * 
+	 * @param times the times
+	 * @return the standard deviation
+	 */
+	private static double getStandardDeviation(double[] times) {
+		if (times.length < 2) {
+			return 0;
+		}
+		double mean = getMean(times);
+		double sum = 0;
+		for (double time : times) {
+			sum += (time - mean) * (time - mean);
+		}
+		return Math.sqrt(sum / (times.length - 1));
+	}
+
+	/**
+	 * Gets the minimum.
+	 * 
+	 * @param times the times
+	 * @return the minimum
+	 */
+	private static double getMin(double[] times) {
+		double min = Double.MAX_VALUE;
+		for (double time : times) {
+			min = Math.min(min, time);
+		}
+		return min;
+	}
+
+}
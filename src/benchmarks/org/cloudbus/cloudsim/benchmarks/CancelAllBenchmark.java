@@ -0,0 +1,92 @@
+package org.cloudbus.cloudsim.benchmarks;
+
+import java.util.Calendar;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.CloudSimTags;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+
+/**
+ * Benchmarks {@link CloudSim#cancelAll(int, org.cloudbus.cloudsim.core.predicates.Predicate)}.
+ * Before each invocation, a new simulation is initialised and each host of the fleet sends 10
+ * events, half of them being the scheduling events that a power datacenter cancels when it updates
+ * its hosts. The invocation cancels the scheduling events of every host.
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public class CancelAllBenchmark extends Benchmark {
+
+	/** The number of events per host. */
+	public static final int EVENTS_PER_HOST = 10;
+
+	/** The number of hosts. */
+	private int hosts;
+
+	/** The delays of the events. */
+	private double[] delays;
+
+	/**
+	 * Instantiates a new cancel all benchmark.
+	 * 
+	 * @param name the name
+	 */
+	public CancelAllBenchmark(String name) {
+		super(name);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.benchmarks.Benchmark#setUp(int)
+	 */
+	@Override
+	public void setUp(int hosts) {
+		this.hosts = hosts;
+		Random random = new Random(hosts);
+		delays = new double[hosts * EVENTS_PER_HOST];
+		for (int i = 0; i < delays.length; i++) {
+			delays[i] = Math.floor(random.nextDouble() * 100) * 3;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.benchmarks.Benchmark#prepare()
+	 */
+	@Override
+	public void prepare() {
+		Log.disable();
+		CloudSim.init(1, Calendar.getInstance(), false);
+		for (int i = 0; i < delays.length; i++) {
+			int tag = i % 2 == 0 ? CloudSimTags.VM_DATACENTER_EVENT : CloudSimTags.CLOUDLET_RETURN;
+			CloudSim.send(i % hosts, (i + 1) % hosts, delays[i], tag, null);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.benchmarks.Benchmark#run()
+	 */
+	@Override
+	public Object run() {
+		PredicateType predicate = new PredicateType(CloudSimTags.VM_DATACENTER_EVENT);
+		int cancelled = 0;
+		for (int i = 0; i < hosts; i++) {
+			if (CloudSim.cancelAll(i, predicate)) {
+				cancelled++;
+			}
+		}
+		return cancelled;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.benchmarks.Benchmark#tearDown()
+	 */
+	@Override
+	public void tearDown() {
+		delays = null;
+	}
+
+}
@@ -0,0 +1,117 @@
+package org.cloudbus.cloudsim.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.power.PowerHost;
+import org.cloudbus.cloudsim.power.PowerVm;
+import org.cloudbus.cloudsim.power.PowerVmSelectionPolicyMaximumCorrelation;
+import org.cloudbus.cloudsim.power.PowerVmSelectionPolicyMinimumMigrationTime;
+
+/**
+ * Benchmarks {@link PowerVmSelectionPolicyMaximumCorrelation#getCorrelationCoefficients(double[][])}.
+ * Each invocation computes the correlation coefficients of the vms of every host of a fleet that
+ * runs more than one vm, from the utilization matrices that the policy builds for these hosts.
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public class CorrelationCoefficientsBenchmark extends Benchmark {
+
+	/** The vm selection policy. */
+	private final Policy policy = new Policy();
+
+	/** The utilization matrices of the hosts. */
+	private List<double[][]> matrices;
+
+	/**
+	 * Instantiates a new correlation coefficients benchmark.
+	 * 
+	 * @param name the name
+	 */
+	public CorrelationCoefficientsBenchmark(String name) {
+		super(name);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.benchmarks.Benchmark#setUp(int)
+	 */
+	@Override
+	public void setUp(int hosts) {
+		PowerFleet fleet = new PowerFleet(hosts, PowerFleet.LR_MC);
+		matrices = new ArrayList<double[][]>();
+		for (PowerHost host : fleet.getHosts()) {
+			double[][] matrix = policy.getUtilizationMatrix(host);
+			if (matrix.length > 1) {
+				matrices.add(matrix);
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.benchmarks.Benchmark#run()
+	 */
+	@Override
+	public Object run() {
+		double sum = 0;
+		for (double[][] matrix : matrices) {
+			try {
+				for (double coefficient : policy.getCorrelationCoefficients(matrix)) {
+					sum += coefficient;
+				}
+			} catch (IllegalArgumentException e) { // as in the policy, when the regression fails
+				sum -= 1;
+			}
+		}
+		return sum;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.benchmarks.Benchmark#tearDown()
+	 */
+	@Override
+	public void tearDown() {
+		matrices = null;
+	}
+
+	/**
+	 * The maximum correlation policy, giving access to its matrices and coefficients.
+	 */
+	private static class Policy extends PowerVmSelectionPolicyMaximumCorrelation {
+
+		/**
+		 * Instantiates a new policy.
+		 */
+		public Policy() {
+			super(new PowerVmSelectionPolicyMinimumMigrationTime());
+		}
+
+		/**
+		 * Gets the utilization matrix of the vms of a host that can be migrated.
+		 * 
+		 * @param host the host
+		 * @return the utilization matrix
+		 */
+		public double[][] getUtilizationMatrix(PowerHost host) {
+			List<PowerVm> vms = getMigratableVms(host);
+			if (vms.isEmpty()) {
+				return new double[0][];
+			}
+			return getUtilizationMatrix(vms);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see org.cloudbus.cloudsim.power.PowerVmSelectionPolicyMaximumCorrelation#
+		 * getCorrelationCoefficients(double[][])
+		 */
+		@Override
+		public List<Double> getCorrelationCoefficients(double[][] data) {
+			return super.getCorrelationCoefficients(data);
+		}
+
+	}
+
+}
@@ -0,0 +1,69 @@
+package org.cloudbus.cloudsim.benchmarks;
+
+import org.cloudbus.cloudsim.power.PowerHost;
+import org.cloudbus.cloudsim.util.MathUtil;
+
+/**
+ * Benchmarks {@link MathUtil#getLoessParameterEstimates(double[])}. Each invocation computes the
+ * estimates of every host of a fleet from its utilization history, oldest value first, as the
+ * local regression policy does.
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public class LoessParameterEstimatesBenchmark extends Benchmark {
+
+	/** The utilization histories of the hosts, oldest value first. */
+	private double[][] histories;
+
+	/**
+	 * Instantiates a new loess parameter estimates benchmark.
+	 * 
+	 * @param name the name
+	 */
+	public LoessParameterEstimatesBenchmark(String name) {
+		super(name);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.benchmarks.Benchmark#setUp(int)
+	 */
+	@Override
+	public void setUp(int hosts) {
+		PowerFleet fleet = new PowerFleet(hosts, PowerFleet.LR_MC);
+		histories = new double[hosts][];
+		for (int i = 0; i < hosts; i++) {
+			PowerHost host = fleet.getHosts().get(i);
+			double[] history = fleet.getUtilizationHistory(host);
+			double[] historyReversed = new double[history.length];
+			for (int j = 0; j < history.length; j++) {
+				historyReversed[j] = history[history.length - 1 - j];
+			}
+			histories[i] = historyReversed;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.benchmarks.Benchmark#run()
+	 */
+	@Override
+	public Object run() {
+		double sum = 0;
+		for (double[] history : histories) {
+			double[] estimates = MathUtil.getLoessParameterEstimates(history);
+			sum += estimates[0] + estimates[1];
+		}
+		return sum;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.benchmarks.Benchmark#tearDown()
+	 */
+	@Override
+	public void tearDown() {
+		histories = null;
+	}
+
+}
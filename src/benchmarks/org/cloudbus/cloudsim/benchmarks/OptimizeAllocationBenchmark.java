@@ -0,0 +1,59 @@
+package org.cloudbus.cloudsim.benchmarks;
+
+import org.cloudbus.cloudsim.power.PowerVmAllocationPolicyMigrationAbstract;
+
+/**
+ * Benchmarks {@link PowerVmAllocationPolicyMigrationAbstract#optimizeAllocation(java.util.List)}
+ * with a given vm allocation policy. Each invocation computes the migrations of a fleet whose
+ * utilization histories are full. As the policy restores the allocation of the vms before
+ * returning the migrations, all the invocations work on the same fleet.
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public class OptimizeAllocationBenchmark extends Benchmark {
+
+	/** The factory of the vm allocation policy. */
+	private final PowerFleet.VmAllocationPolicyFactory factory;
+
+	/** The fleet. */
+	private PowerFleet fleet;
+
+	/**
+	 * Instantiates a new optimize allocation benchmark.
+	 * 
+	 * @param name the name
+	 * @param factory the factory of the vm allocation policy
+	 */
+	public OptimizeAllocationBenchmark(String name, PowerFleet.VmAllocationPolicyFactory factory) {
+		super(name);
+		this.factory = factory;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.benchmarks.Benchmark#setUp(int)
+	 */
+	@Override
+	public void setUp(int hosts) {
+		fleet = new PowerFleet(hosts, factory);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.benchmarks.Benchmark#run()
+	 */
+	@Override
+	public Object run() {
+		return fleet.getVmAllocationPolicy().optimizeAllocation(fleet.getVms()).size();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.benchmarks.Benchmark#tearDown()
+	 */
+	@Override
+	public void tearDown() {
+		fleet = null;
+	}
+
+}
@@ -0,0 +1,264 @@
+package org.cloudbus.cloudsim.benchmarks;
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.UtilizationModel;
+import org.cloudbus.cloudsim.UtilizationModelNull;
+import org.cloudbus.cloudsim.UtilizationModelPlanetLabInMemory;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.examples.power.Constants;
+import org.cloudbus.cloudsim.examples.power.Helper;
+import org.cloudbus.cloudsim.power.PowerHost;
+import org.cloudbus.cloudsim.power.PowerVm;
+import org.cloudbus.cloudsim.power.PowerVmAllocationPolicyMigrationAbstract;
+import org.cloudbus.cloudsim.power.PowerVmAllocationPolicyMigrationLocalRegression;
+import org.cloudbus.cloudsim.power.PowerVmAllocationPolicyMigrationStaticThreshold;
+import org.cloudbus.cloudsim.power.PowerVmSelectionPolicy;
+import org.cloudbus.cloudsim.power.PowerVmSelectionPolicyMaximumCorrelation;
+import org.cloudbus.cloudsim.power.PowerVmSelectionPolicyMinimumMigrationTime;
+
+/**
+ * A synthetic fleet of power-aware hosts running PlanetLab-like workloads, on which the power
+ * benchmarks run. The hosts and vms are those of the PlanetLab examples, with 1.3 vms per host as
+ * in their workloads. Each vm runs one cloudlet whose utilization follows one of a fixed number of
+ * random-walk traces, generated from a fixed seed so that every fleet of a given size is the same.
+ * <p>
+ * The fleet is driven without running the simulation: the vms are placed by the vm allocation
+ * policy, and the hosts are updated directly at each scheduling interval by {@link #advance()},
+ * which is done {@link PowerVm#HISTORY_LENGTH} times when the fleet is built so that the
+ * utilization histories used by the policies are full.
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public class PowerFleet {
+
+	/** The seed of the traces. */
+	public static final long SEED = 42;
+
+	/** The number of distinct traces, shared by the vms. */
+	public static final int NUMBER_OF_TRACES = 64;
+
+	/** The number of samples of a trace (5 min * 2016 = 7 days, plus one). */
+	public static final int NUMBER_OF_SAMPLES = 2017;
+
+	/** The static threshold policy with a threshold of 0.8 and the minimum migration time selection. */
+	public static final VmAllocationPolicyFactory THR_MMT = new VmAllocationPolicyFactory() {
+
+		@Override
+		public PowerVmAllocationPolicyMigrationAbstract create(List<PowerHost> hosts) {
+			return new PowerVmAllocationPolicyMigrationStaticThreshold(
+					hosts,
+					new PowerVmSelectionPolicyMinimumMigrationTime(),
+					0.8);
+		}
+	};
+
+	/**
+	 * The local regression policy with a safety parameter of 1.2 and the maximum correlation
+	 * selection, as in the PlanetLab examples.
+	 */
+	public static final VmAllocationPolicyFactory LR_MC = new VmAllocationPolicyFactory() {
+
+		@Override
+		public PowerVmAllocationPolicyMigrationAbstract create(List<PowerHost> hosts) {
+			PowerVmSelectionPolicy vmSelectionPolicy = new PowerVmSelectionPolicyMaximumCorrelation(
+					new PowerVmSelectionPolicyMinimumMigrationTime());
+			return new PowerVmAllocationPolicyMigrationLocalRegression(
+					hosts,
+					vmSelectionPolicy,
+					1.2,
+					Constants.SCHEDULING_INTERVAL,
+					new PowerVmAllocationPolicyMigrationStaticThreshold(hosts, vmSelectionPolicy, 0.7));
+		}
+	};
+
+	/** The length of the cloudlets, such that they do not finish before the end of the traces. */
+	private static final long CLOUDLET_LENGTH = 2500L * (long) (NUMBER_OF_SAMPLES * Constants.SCHEDULING_INTERVAL);
+
+	/** The traces. */
+	private final double[][] traces;
+
+	/** The hosts. */
+	private final List<PowerHost> hosts;
+
+	/** The vms. */
+	private final List<Vm> vms;
+
+	/** The vm allocation policy. */
+	private final PowerVmAllocationPolicyMigrationAbstract vmAllocationPolicy;
+
+	/** The index of the current sample. */
+	private int sample;
+
+	/**
+	 * Builds a fleet, initialising a new simulation with the log disabled.
+	 * 
+	 * @param numberOfHosts the number of hosts
+	 * @param factory the factory of the vm allocation policy
+	 */
+	public PowerFleet(int numberOfHosts, VmAllocationPolicyFactory factory) {
+		Log.disable();
+		CloudSim.init(1, Calendar.getInstance(), false);
+
+		traces = createTraces();
+		hosts = Helper.createHostList(numberOfHosts);
+		vms = Helper.createVmList(0, numberOfHosts * 13 / 10);
+		vmAllocationPolicy = factory.create(hosts);
+
+		UtilizationModel utilizationModelNull = new UtilizationModelNull();
+		for (Vm vm : vms) {
+			if (!vmAllocationPolicy.allocateHostForVm(vm)) {
+				throw new IllegalStateException("The fleet has no room for VM #" + vm.getId());
+			}
+			vm.updateVmProcessing(0, vm.getHost().getVmScheduler().getAllocatedMipsForVm(vm));
+
+			Cloudlet cloudlet = new Cloudlet(
+					vm.getId(),
+					CLOUDLET_LENGTH,
+					Constants.CLOUDLET_PES,
+					300,
+					300,
+					new UtilizationModelPlanetLabInMemory(
+							getTrace(vm),
+							Constants.SCHEDULING_INTERVAL),
+					utilizationModelNull,
+					utilizationModelNull);
+			cloudlet.setUserId(vm.getUserId());
+			cloudlet.setVmId(vm.getId());
+			cloudlet.setResourceParameter(0, 0, 0);
+			vm.getCloudletScheduler().cloudletSubmit(cloudlet, 0);
+		}
+
+		for (int i = 0; i < PowerVm.HISTORY_LENGTH; i++) {
+			advance();
+		}
+	}
+
+	/**
+	 * Generates the traces: random walks of the utilization between 0.01 and 1. The utilization is
+	 * kept above zero because the vms do not record a zero utilization in their history while the
+	 * simulation clock is 0, which it stays at in a fleet.
+	 * 
+	 * @return the traces
+	 */
+	private static double[][] createTraces() {
+		Random random = new Random(SEED);
+		double[][] traces = new double[NUMBER_OF_TRACES][NUMBER_OF_SAMPLES];
+		for (double[] trace : traces) {
+			double utilization = random.nextDouble();
+			for (int i = 0; i < NUMBER_OF_SAMPLES; i++) {
+				utilization = Math.min(1, Math.max(0.01, utilization + random.nextGaussian() * 0.05));
+				trace[i] = utilization;
+			}
+		}
+		return traces;
+	}
+
+	/**
+	 * Updates the processing of all the hosts at the next scheduling interval.
+	 * 
+	 * @return the earliest time at which a host has to be updated again
+	 */
+	public double advance() {
+		if (!canAdvance()) {
+			throw new IllegalStateException("The traces of the fleet are exhausted");
+		}
+		sample++;
+		double time = sample * Constants.SCHEDULING_INTERVAL + 0.1;
+		double minTime = Double.MAX_VALUE;
+		for (PowerHost host : hosts) {
+			double nextTime = host.updateVmsProcessing(time);
+			if (nextTime < minTime) {
+				minTime = nextTime;
+			}
+		}
+		return minTime;
+	}
+
+	/**
+	 * Checks if the fleet can be advanced to the next scheduling interval.
+	 * 
+	 * @return true, if the traces have samples left
+	 */
+	public boolean canAdvance() {
+		return sample + 2 < NUMBER_OF_SAMPLES;
+	}
+
+	/**
+	 * Gets the utilization history of a host over the last {@link PowerVm#HISTORY_LENGTH}
+	 * scheduling intervals, most recent first, computed from the traces of its vms in the same way
+	 * as the history kept by the hosts.
+	 * 
+	 * @param host the host
+	 * @return the utilization history
+	 */
+	public double[] getUtilizationHistory(PowerHost host) {
+		double[] utilizationHistory = new double[PowerVm.HISTORY_LENGTH];
+		double hostMips = host.getTotalMips();
+		for (Vm vm : host.getVmList()) {
+			double[] trace = getTrace(vm);
+			for (int i = 0; i < utilizationHistory.length; i++) {
+				utilizationHistory[i] += trace[sample - i] * vm.getMips() / hostMips;
+			}
+		}
+		return utilizationHistory;
+	}
+
+	/**
+	 * Gets the trace followed by a vm.
+	 * 
+	 * @param vm the vm
+	 * @return the trace
+	 */
+	private double[] getTrace(Vm vm) {
+		return traces[vm.getId() % NUMBER_OF_TRACES];
+	}
+
+	/**
+	 * Gets the hosts.
+	 * 
+	 * @return the hosts
+	 */
+	public List<PowerHost> getHosts() {
+		return hosts;
+	}
+
+	/**
+	 * Gets the vms.
+	 * 
+	 * @return the vms
+	 */
+	public List<Vm> getVms() {
+		return vms;
+	}
+
+	/**
+	 * Gets the vm allocation policy.
+	 * 
+	 * @return the vm allocation policy
+	 */
+	public PowerVmAllocationPolicyMigrationAbstract getVmAllocationPolicy() {
+		return vmAllocationPolicy;
+	}
+
+	/**
+	 * A factory of the vm allocation policy of a fleet.
+	 */
+	public interface VmAllocationPolicyFactory {
+
+		/**
+		 * Creates the vm allocation policy.
+		 * 
+		 * @param hosts the hosts of the fleet
+		 * @return the vm allocation policy
+		 */
+		PowerVmAllocationPolicyMigrationAbstract create(List<PowerHost> hosts);
+
+	}
+
+}
@@ -0,0 +1,68 @@
+package org.cloudbus.cloudsim.benchmarks;
+
+import org.cloudbus.cloudsim.HostDynamicWorkload;
+
+/**
+ * Benchmarks {@link HostDynamicWorkload#updateVmsProcessing(double)}. Each invocation updates all
+ * the hosts of a fleet at the next scheduling interval, as a power datacenter does. The fleet is
+ * rebuilt, outside of the timed invocations, when its traces are exhausted.
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public class UpdateVmsProcessingBenchmark extends Benchmark {
+
+	/** The number of hosts. */
+	private int hosts;
+
+	/** The fleet. */
+	private PowerFleet fleet;
+
+	/**
+	 * Instantiates a new update vms processing benchmark.
+	 * 
+	 * @param name the name
+	 */
+	public UpdateVmsProcessingBenchmark(String name) {
+		super(name);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.benchmarks.Benchmark#setUp(int)
+	 */
+	@Override
+	public void setUp(int hosts) {
+		this.hosts = hosts;
+		fleet = new PowerFleet(hosts, PowerFleet.THR_MMT);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.benchmarks.Benchmark#prepare()
+	 */
+	@Override
+	public void prepare() {
+		if (!fleet.canAdvance()) {
+			fleet = new PowerFleet(hosts, PowerFleet.THR_MMT);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.benchmarks.Benchmark#run()
+	 */
+	@Override
+	public Object run() {
+		return fleet.advance();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.benchmarks.Benchmark#tearDown()
+	 */
+	@Override
+	public void tearDown() {
+		fleet = null;
+	}
+
+}
@@ -0,0 +1,110 @@
+package org.cloudbus.cloudsim.core;
+
+import java.util.Random;
+
+import org.cloudbus.cloudsim.benchmarks.Benchmark;
+
+/**
+ * Benchmarks the adding and polling of a future event queue of a given type. Each invocation fills
+ * a new queue with 10 events per host of the fleet, then runs the classic hold model, polling the
+ * first event and adding it back a random time later once per event, and finally drains the
+ * queue. The benchmark is in the package of the queues to create the events directly.
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public class FutureQueueBenchmark extends Benchmark {
+
+	/** The number of events per host. */
+	public static final int EVENTS_PER_HOST = 10;
+
+	/** The type of the queue. */
+	private final int type;
+
+	/** The events. */
+	private SimEvent[] events;
+
+	/** The initial times of the events. */
+	private double[] times;
+
+	/** The delays after which the polled events are added back. */
+	private double[] delays;
+
+	/**
+	 * Instantiates a new future queue benchmark.
+	 * 
+	 * @param name the name
+	 * @param type the type of the queue, as given to {@link CloudSim#setFutureQueueType(int)}
+	 */
+	public FutureQueueBenchmark(String name, int type) {
+		super(name);
+		this.type = type;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.benchmarks.Benchmark#setUp(int)
+	 */
+	@Override
+	public void setUp(int hosts) {
+		CloudSim.setFutureQueueType(type);
+		Random random = new Random(hosts);
+		int n = hosts * EVENTS_PER_HOST;
+		events = new SimEvent[n];
+		times = new double[n];
+		delays = new double[n];
+		for (int i = 0; i < n; i++) {
+			events[i] = new SimEvent();
+			// as in the simulations, many events are due at the same time
+			times[i] = Math.floor(random.nextDouble() * 100) * 3;
+			delays[i] = -Math.log(1 - random.nextDouble()) * 300;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.benchmarks.Benchmark#prepare()
+	 */
+	@Override
+	public void prepare() {
+		for (int i = 0; i < events.length; i++) {
+			events[i].clear();
+			events[i].init(SimEvent.SEND, times[i], i % 100, i % 101, i % 7, null);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.benchmarks.Benchmark#run()
+	 */
+	@Override
+	public Object run() {
+		FutureQueue queue = CloudSim.createFutureQueue();
+		for (SimEvent event : events) {
+			queue.addEvent(event);
+		}
+		for (double delay : delays) {
+			SimEvent event = queue.poll();
+			double time = event.eventTime() + delay;
+			event.clear();
+			event.init(SimEvent.SEND, time, event.getSource(), event.getDestination(), event.getTag(), null);
+			queue.addEvent(event);
+		}
+		double time = 0;
+		while (queue.size() > 0) {
+			time = queue.poll().eventTime();
+		}
+		return time;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.benchmarks.Benchmark#tearDown()
+	 */
+	@Override
+	public void tearDown() {
+		events = null;
+		times = null;
+		delays = null;
+	}
+
+}
@@ -0,0 +1,357 @@
+package org.cloudbus.cloudsim.examples;
+
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation
+ *               of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
+import org.cloudbus.cloudsim.Datacenter;
+import org.cloudbus.cloudsim.DatacenterBroker;
+import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmAllocationPolicySimple;
+import org.cloudbus.cloudsim.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.CloudSimTags;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+
+/**
+ * Checks that event recycling reduces the memory allocated per event. Two simulations are
+ * measured, with and without event recycling: entities that send each other events carrying int
+ * and double values, and a broker that polls the status of a cloudlet from a datacenter, whose
+ * requests and replies carry int values. The bytes allocated per event are the difference between
+ * the bytes allocated by the simulation thread in a long and a short run, divided by the
+ * difference between their numbers of events, so that the creation of the entities is not
+ * counted.
+ * <p>
+ * The program prints one CSV line per simulation: the name of the simulation, the number of
+ * measured events, and the best bytes per event without and with recycling over the measured
+ * runs. It exits with the status 1 if recycling does not at least halve the bytes per event of a
+ * simulation. It needs a JVM that measures the allocations per thread, as HotSpot.
+ */
+public class EventRecyclingAllocationCheck {
+
+	/** The names of the simulations. */
+	private static final String[] SIMULATIONS = { "entities", "cloudlet status" };
+
+	/** The number of events of the short runs; the long runs have twice as many. */
+	private static final int EVENTS = 100000;
+
+	/** The number of runs before the measured ones. */
+	private static final int WARM_UP_RUNS = 3;
+
+	/** The number of measured runs. */
+	private static final int MEASURED_RUNS = 5;
+
+	/** The largest share of the bytes per event without recycling that is left with recycling. */
+	private static final double MAX_RECYCLED_SHARE = 0.5;
+
+	/** The number of pinging entities. */
+	private static final int PINGERS = 10;
+
+	/** The tag of the events of the pinging entities. */
+	private static final int TAG = 900000;
+
+	/**
+	 * Runs the check.
+	 *
+	 * @param args the args
+	 * @throws Exception if a simulation fails
+	 */
+	public static void main(String[] args) throws Exception {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (!(bean instanceof com.sun.management.ThreadMXBean)
+				|| !((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+			System.err.println("The JVM does not measure the allocations per thread");
+			System.exit(1);
+		}
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+
+		boolean reduced = true;
+		System.out.println("simulation,events,bytes per event,bytes per event with recycling");
+		for (int simulation = 0; simulation < SIMULATIONS.length; simulation++) {
+			double[] best = { Double.MAX_VALUE, Double.MAX_VALUE };
+			long events = 0;
+			for (int run = 0; run < WARM_UP_RUNS + MEASURED_RUNS; run++) {
+				for (int recycling = 0; recycling < 2; recycling++) {
+					long[] shortRun = run(threadBean, simulation, EVENTS, recycling == 1);
+					long[] longRun = run(threadBean, simulation, 2 * EVENTS, recycling == 1);
+					events = longRun[1] - shortRun[1];
+					if (run >= WARM_UP_RUNS) {
+						best[recycling] = Math.min(best[recycling], (double) (longRun[0] - shortRun[0]) / events);
+					}
+				}
+			}
+			System.out.println(SIMULATIONS[simulation] + "," + events + "," + Math.round(best[0]) + ","
+					+ Math.round(best[1]));
+			reduced &= best[1] <= MAX_RECYCLED_SHARE * best[0];
+		}
+
+		System.out.println(reduced ? "Recycling reduces the allocations" : "Recycling does NOT reduce the allocations");
+		if (!reduced) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Runs a simulation in a new context.
+	 *
+	 * @param threadBean the bean that measures the allocations of the current thread
+	 * @param simulation the index of the simulation
+	 * @param events the number of events to send
+	 * @param recycling whether the events are recycled
+	 * @return the bytes allocated by the simulation and the number of processed events
+	 * @throws Exception if the simulation fails
+	 */
+	private static long[] run(com.sun.management.ThreadMXBean threadBean, int simulation, int events,
+			boolean recycling) throws Exception {
+		CloudSim.setContext(new SimulationContext());
+		try {
+			Log.disable();
+			CloudSim.setEventRecycling(recycling);
+			CloudSim.init(1, Calendar.getInstance(), false);
+
+			List<Pinger> pingers = new ArrayList<Pinger>();
+			StatusPoller poller = null;
+			if (simulation == 0) {
+				for (int i = 0; i < PINGERS; i++) {
+					pingers.add(new Pinger("Pinger_" + i, events / PINGERS, pingers));
+				}
+			} else {
+				createDatacenter("Datacenter_0");
+				poller = new StatusPoller("Poller", events / 2);
+			}
+
+			long threadId = Thread.currentThread().getId();
+			long start = threadBean.getThreadAllocatedBytes(threadId);
+			CloudSim.startSimulation();
+			long bytes = threadBean.getThreadAllocatedBytes(threadId) - start;
+			CloudSim.stopSimulation();
+
+			long received = 0;
+			for (Pinger pinger : pingers) {
+				received += pinger.received;
+			}
+			if (poller != null) {
+				received += 2 * poller.replies;
+			}
+			return new long[] { bytes, received };
+		} finally {
+			CloudSim.setContext(null);
+		}
+	}
+
+	/**
+	 * Creates the datacenter, with one host of one PE.
+	 *
+	 * @param name the name
+	 * @return the datacenter
+	 * @throws Exception if the datacenter cannot be created
+	 */
+	private static Datacenter createDatacenter(String name) throws Exception {
+		List<Pe> peList = new ArrayList<Pe>();
+		peList.add(new Pe(0, new PeProvisionerSimple(1000)));
+		List<Host> hostList = new ArrayList<Host>();
+		hostList.add(new Host(
+				0,
+				new RamProvisionerSimple(2048),
+				new BwProvisionerSimple(10000),
+				1000000,
+				peList,
+				new VmSchedulerTimeShared(peList)));
+		DatacenterCharacteristics characteristics = new DatacenterCharacteristics(
+				"x86",
+				"Linux",
+				"Xen",
+				hostList,
+				10.0,
+				3.0,
+				0.05,
+				0.001,
+				0.0);
+		return new Datacenter(
+				name,
+				characteristics,
+				new VmAllocationPolicySimple(hostList),
+				new LinkedList<Storage>(),
+				0);
+	}
+
+	/**
+	 * An entity that sends an event to the next pinging entity at every tick, alternately carrying
+	 * three int values and a double value.
+	 */
+	private static class Pinger extends SimEntity {
+
+		/** The pinging entities. */
+		private final List<Pinger> pingers;
+
+		/** The number of events left to send. */
+		private int eventsLeft;
+
+		/** The number of received events. */
+		long received;
+
+		/**
+		 * Instantiates a new pinging entity.
+		 *
+		 * @param name the name
+		 * @param events the number of events to send
+		 * @param pingers the pinging entities, to which this entity is added
+		 */
+		public Pinger(String name, int events, List<Pinger> pingers) {
+			super(name);
+			eventsLeft = events;
+			this.pingers = pingers;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see org.cloudbus.cloudsim.core.SimEntity#startEntity()
+		 */
+		@Override
+		public void startEntity() {
+			ping();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see org.cloudbus.cloudsim.core.SimEntity#processEvent(org.cloudbus.cloudsim.core.SimEvent)
+		 */
+		@Override
+		public void processEvent(SimEvent ev) {
+			if (ev.getIntDataSize() > 0) {
+				received += ev.getIntData(2) >= 0 ? 1 : 0;
+			} else {
+				received += ev.getDoubleData() >= 0 ? 1 : 0;
+			}
+			ping();
+		}
+
+		/**
+		 * Sends an event to the next pinging entity, if there are events left to send.
+		 */
+		private void ping() {
+			if (eventsLeft > 0) {
+				Pinger peer = pingers.get((pingers.indexOf(this) + 1) % pingers.size());
+				if (eventsLeft % 2 == 0) {
+					send(peer.getId(), 1, TAG, getId(), peer.getId(), eventsLeft);
+				} else {
+					sendDouble(peer.getId(), 1, TAG, eventsLeft);
+				}
+				eventsLeft--;
+			}
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see org.cloudbus.cloudsim.core.SimEntity#shutdownEntity()
+		 */
+		@Override
+		public void shutdownEntity() {
+		}
+
+	}
+
+	/**
+	 * A broker that runs one long cloudlet, and polls its status from the datacenter at every tick
+	 * while it runs.
+	 */
+	private static class StatusPoller extends DatacenterBroker {
+
+		/** The number of polls left to send. */
+		private int pollsLeft;
+
+		/** The number of received replies. */
+		long replies;
+
+		/**
+		 * Instantiates a new polling broker.
+		 *
+		 * @param name the name
+		 * @param polls the number of polls to send
+		 * @throws Exception if the broker cannot be created
+		 */
+		public StatusPoller(String name, int polls) throws Exception {
+			super(name);
+			pollsLeft = polls;
+
+			List<Vm> vmList = new ArrayList<Vm>();
+			vmList.add(new Vm(0, getId(), 1000, 1, 512, 1000, 10000, "Xen", new CloudletSchedulerTimeShared()));
+			submitVmList(vmList);
+
+			Cloudlet cloudlet = new Cloudlet(
+					0,
+					1000L * (polls + 1),
+					1,
+					300,
+					300,
+					new UtilizationModelFull(),
+					new UtilizationModelFull(),
+					new UtilizationModelFull());
+			cloudlet.setUserId(getId());
+			List<Cloudlet> cloudletList = new ArrayList<Cloudlet>();
+			cloudletList.add(cloudlet);
+			submitCloudletList(cloudletList);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see org.cloudbus.cloudsim.DatacenterBroker#submitCloudlets()
+		 */
+		@Override
+		protected void submitCloudlets() {
+			super.submitCloudlets();
+			poll(getVmsToDatacentersMap().get(0));
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see org.cloudbus.cloudsim.DatacenterBroker#processOtherEvent(org.cloudbus.cloudsim.core.SimEvent)
+		 */
+		@Override
+		protected void processOtherEvent(SimEvent ev) {
+			if (ev.getTag() == CloudSimTags.CLOUDLET_STATUS && ev.getIntData(2) == Cloudlet.INEXEC) {
+				replies++;
+				poll(ev.getIntData(0));
+			}
+		}
+
+		/**
+		 * Sends a status request to the datacenter, if there are polls left to send.
+		 *
+		 * @param datacenterId the datacenter id
+		 */
+		private void poll(int datacenterId) {
+			if (pollsLeft > 0) {
+				send(datacenterId, 1, CloudSimTags.CLOUDLET_STATUS, 0, getId(), 0);
+				pollsLeft--;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,95 @@
+package org.cloudbus.cloudsim.examples;
+
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation
+ *               of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+import org.cloudbus.cloudsim.examples.power.Constants;
+import org.cloudbus.cloudsim.power.FuzzyVmSelectionEngine;
+
+/**
+ * Measures how far the ratings of the fuzzy vm selection engines on a lookup surface are from the
+ * ratings inferred by the jFuzzyLogic interpreter. For each rule base of the fuzzy policies, each
+ * RAM value of the vm types and each size of the surface grid, the ratings are compared over a
+ * grid of 250 points per domain, which is not aligned with the grids of the surfaces.
+ * <p>
+ * The program prints one CSV line per comparison: the FCL file, the load input, the RAM, the
+ * number of points of the surface grid per domain and the maximum absolute error. The arguments
+ * are the numbers of points of the surface grids to try, 11, 21, 51 and 101 by default. It must be
+ * run from the directory of the FCL files.
+ */
+public class FuzzyLookupSurfaceCheck {
+
+	/** The FCL files of the fuzzy policies. */
+	private static final String[] FILE_NAMES = { "fuzzyvmselection3.fcl", "fuzzyvmselection2.fcl" };
+
+	/** The load inputs of the FCL files. */
+	private static final String[] LOAD_VARIABLES = { "cpu", "Stddev" };
+
+	/** The upper bound of the correlation domain. */
+	private static final double MAX_CORRELATION = 1;
+
+	/** The upper bound of the load domain, the last point of the terms of the load inputs. */
+	private static final double MAX_LOAD = 100;
+
+	/** The number of points per domain of the grid on which the ratings are compared. */
+	private static final int SAMPLES = 250;
+
+	/**
+	 * Runs the check.
+	 *
+	 * @param args the numbers of points of the surface grids
+	 */
+	public static void main(String[] args) {
+		int[] gridPoints = { 11, 21, 51, 101 };
+		if (args.length > 0) {
+			gridPoints = new int[args.length];
+			for (int i = 0; i < args.length; i++) {
+				gridPoints[i] = Integer.parseInt(args[i]);
+			}
+		}
+
+		System.out.println("file,load input,ram,grid points,max abs error");
+		for (int f = 0; f < FILE_NAMES.length; f++) {
+			FuzzyVmSelectionEngine engine = FuzzyVmSelectionEngine.getEngine(FILE_NAMES[f], LOAD_VARIABLES[f]);
+			if (engine == null) {
+				System.err.println("Can't load file: '" + FILE_NAMES[f] + "'");
+				System.exit(1);
+			}
+			for (int points : gridPoints) {
+				engine.setLookupSurface(points, MAX_CORRELATION, points, MAX_LOAD);
+				for (int t = 0; t < Constants.VM_RAM.length; t++) {
+					int ram = Constants.VM_RAM[t];
+					if (isRepeated(Constants.VM_RAM, t)) {
+						continue;
+					}
+					System.out.println(FILE_NAMES[f] + "," + LOAD_VARIABLES[f] + "," + ram + "," + points + ","
+							+ engine.getLookupSurfaceError(ram, SAMPLES));
+				}
+			}
+			engine.clearLookupSurface();
+		}
+	}
+
+	/**
+	 * Checks if a value of an array is also before it in the array.
+	 *
+	 * @param values the values
+	 * @param index the index of the value
+	 * @return true, if the value is repeated
+	 */
+	private static boolean isRepeated(int[] values, int index) {
+		for (int i = 0; i < index; i++) {
+			if (values[i] == values[index]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,228 @@
+package org.cloudbus.cloudsim.examples;
+
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation
+ *               of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.core.SimulationContext;
+
+/**
+ * Measures the cost of the clock ticks of simulations where most of the entities are idle, as the
+ * switches of a large network datacenter. Each simulation has a few active entities that send each
+ * other events at every tick, among up to 10000 entities that never receive an event. Only the
+ * entities that have work are run in a tick, so the time per tick should follow the number of
+ * events per tick and stay flat when the number of idle entities grows.
+ * <p>
+ * The program prints one CSV line per simulation: the number of entities, the number of active
+ * entities, the number of ticks and events, and the best time per tick and per event over the
+ * measured runs. The arguments are the numbers of entities to try, 100, 1000 and 10000 by
+ * default.
+ */
+public class IdleEntitiesBenchmark {
+
+	/** The numbers of active entities. */
+	private static final int[] ACTIVE_ENTITIES = { 10, 100 };
+
+	/** The number of ticks of a simulation. */
+	private static final int TICKS = 20000;
+
+	/** The number of runs before the measured ones. */
+	private static final int WARM_UP_RUNS = 2;
+
+	/** The number of measured runs. */
+	private static final int MEASURED_RUNS = 5;
+
+	/** The tag of the events. */
+	private static final int TAG = 900000;
+
+	/**
+	 * Runs the benchmark.
+	 *
+	 * @param args the numbers of entities
+	 */
+	public static void main(String[] args) {
+		int[] entityCounts = { 100, 1000, 10000 };
+		if (args.length > 0) {
+			entityCounts = new int[args.length];
+			for (int i = 0; i < args.length; i++) {
+				entityCounts[i] = Integer.parseInt(args[i]);
+			}
+		}
+
+		System.out.println("entities,active,ticks,events,ns per tick,ns per event");
+		for (int active : ACTIVE_ENTITIES) {
+			for (int entities : entityCounts) {
+				if (active > entities) {
+					continue;
+				}
+				long best = Long.MAX_VALUE;
+				long events = 0;
+				for (int run = 0; run < WARM_UP_RUNS + MEASURED_RUNS; run++) {
+					long[] result = run(entities, active);
+					if (run >= WARM_UP_RUNS) {
+						best = Math.min(best, result[0]);
+					}
+					events = result[1];
+				}
+				System.out.println(entities + "," + active + "," + TICKS + "," + events + ","
+						+ best / TICKS + "," + best / events);
+			}
+		}
+	}
+
+	/**
+	 * Runs a simulation in a new context.
+	 *
+	 * @param entities the number of entities
+	 * @param active the number of active entities
+	 * @return the time of the simulation, in nanoseconds, and the number of processed events
+	 */
+	private static long[] run(int entities, int active) {
+		CloudSim.setContext(new SimulationContext());
+		try {
+			Log.disable();
+			CloudSim.init(1, Calendar.getInstance(), false);
+
+			List<Pinger> pingers = new ArrayList<Pinger>();
+			for (int i = 0; i < active; i++) {
+				pingers.add(new Pinger("Pinger_" + i, i, pingers));
+			}
+			for (int i = active; i < entities; i++) {
+				new Idle("Idle_" + i);
+			}
+
+			long start = System.nanoTime();
+			CloudSim.startSimulation();
+			long time = System.nanoTime() - start;
+			CloudSim.stopSimulation();
+
+			long events = 0;
+			for (Pinger pinger : pingers) {
+				events += pinger.received;
+			}
+			return new long[] { time, events };
+		} finally {
+			CloudSim.setContext(null);
+		}
+	}
+
+	/**
+	 * An entity that sends an event to a random active entity at every tick.
+	 */
+	private static class Pinger extends SimEntity {
+
+		/** The random generator. */
+		private final Random random;
+
+		/** The active entities. */
+		private final List<Pinger> pingers;
+
+		/** The number of received events. */
+		long received;
+
+		/**
+		 * Instantiates a new active entity.
+		 *
+		 * @param name the name
+		 * @param seed the seed of the random generator
+		 * @param pingers the active entities, to which this entity is added
+		 */
+		public Pinger(String name, long seed, List<Pinger> pingers) {
+			super(name);
+			random = new Random(seed);
+			this.pingers = pingers;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see org.cloudbus.cloudsim.core.SimEntity#startEntity()
+		 */
+		@Override
+		public void startEntity() {
+			ping();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see org.cloudbus.cloudsim.core.SimEntity#processEvent(org.cloudbus.cloudsim.core.SimEvent)
+		 */
+		@Override
+		public void processEvent(SimEvent ev) {
+			received++;
+			if (CloudSim.clock() < TICKS) {
+				ping();
+			}
+		}
+
+		/**
+		 * Sends an event to a random active entity at the next tick.
+		 */
+		private void ping() {
+			schedule(pingers.get(random.nextInt(pingers.size())).getId(), 1, TAG);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see org.cloudbus.cloudsim.core.SimEntity#shutdownEntity()
+		 */
+		@Override
+		public void shutdownEntity() {
+		}
+
+	}
+
+	/**
+	 * An entity that never receives an event.
+	 */
+	private static class Idle extends SimEntity {
+
+		/**
+		 * Instantiates a new idle entity.
+		 *
+		 * @param name the name
+		 */
+		public Idle(String name) {
+			super(name);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see org.cloudbus.cloudsim.core.SimEntity#startEntity()
+		 */
+		@Override
+		public void startEntity() {
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see org.cloudbus.cloudsim.core.SimEntity#processEvent(org.cloudbus.cloudsim.core.SimEvent)
+		 */
+		@Override
+		public void processEvent(SimEvent ev) {
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see org.cloudbus.cloudsim.core.SimEntity#shutdownEntity()
+		 */
+		@Override
+		public void shutdownEntity() {
+		}
+
+	}
+
+}
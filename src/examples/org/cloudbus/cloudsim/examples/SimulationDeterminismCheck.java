@@ -0,0 +1,360 @@
+package org.cloudbus.cloudsim.examples;
+
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation
+ *               of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
+import org.cloudbus.cloudsim.Datacenter;
+import org.cloudbus.cloudsim.DatacenterBroker;
+import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmAllocationPolicySimple;
+import org.cloudbus.cloudsim.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+
+/**
+ * Checks that the simulations are deterministic and isolated from each other. The same
+ * simulation is run with every type of future event queue, with and without event recycling,
+ * first one run after the other, then two runs at a time on parallel threads, each one with its
+ * own {@link SimulationContext}. The event trace and the log output of every run must be
+ * byte-identical to the ones of the sequential run on the tree set queue.
+ * <p>
+ * The simulation runs cloudlets on time-shared vms of a datacenter, next to entities that send
+ * each other seeded random events, many of them at the same time, and cancel some of them. The
+ * program exits with the status 1 if a run differs.
+ */
+public class SimulationDeterminismCheck {
+
+	/** The queue types that are checked. */
+	private static final int[] QUEUE_TYPES = {
+			CloudSim.FUTURE_QUEUE_TREE_SET,
+			CloudSim.FUTURE_QUEUE_BINARY_HEAP,
+			CloudSim.FUTURE_QUEUE_QUATERNARY_HEAP,
+			CloudSim.FUTURE_QUEUE_CALENDAR };
+
+	/** The names of the queue types, by type. */
+	private static final String[] QUEUE_NAMES = { "tree set", "binary heap", "4-ary heap", "calendar" };
+
+	/** The number of chatting entities. */
+	private static final int CHATTERS = 20;
+
+	/** The number of events sent by each chatting entity. */
+	private static final int EVENTS_PER_CHATTER = 2000;
+
+	/** The first tag of the chatting events. */
+	private static final int CHAT_TAG = 900000;
+
+	/** The tag of the chatting events that may be cancelled. */
+	private static final int CANCELLABLE_TAG = CHAT_TAG + 3;
+
+	/**
+	 * Runs the check.
+	 *
+	 * @param args the args
+	 * @throws Exception if a simulation fails
+	 */
+	public static void main(String[] args) throws Exception {
+		String reference = run(CloudSim.FUTURE_QUEUE_TREE_SET, false);
+		boolean identical = true;
+
+		for (int queueType : QUEUE_TYPES) {
+			for (int recycling = 0; recycling < 2; recycling++) {
+				identical &= compare(
+						"sequential, " + getName(queueType, recycling == 1),
+						reference,
+						run(queueType, recycling == 1));
+			}
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			for (int i = 0; i < QUEUE_TYPES.length; i++) {
+				int queueType1 = QUEUE_TYPES[i];
+				int queueType2 = QUEUE_TYPES[(i + 1) % QUEUE_TYPES.length];
+				Future<String> run1 = executor.submit(createRun(queueType1, false));
+				Future<String> run2 = executor.submit(createRun(queueType2, true));
+				identical &= compare("parallel, " + getName(queueType1, false), reference, run1.get());
+				identical &= compare("parallel, " + getName(queueType2, true), reference, run2.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		System.out.println(identical ? "All the runs are identical" : "Some runs differ");
+		if (!identical) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Gets the name of a configuration.
+	 *
+	 * @param queueType the queue type
+	 * @param recycling whether the events are recycled
+	 * @return the name
+	 */
+	private static String getName(int queueType, boolean recycling) {
+		return QUEUE_NAMES[queueType] + (recycling ? " with recycling" : "");
+	}
+
+	/**
+	 * Compares the output of a run with the reference output, and prints the result.
+	 *
+	 * @param name the name of the run
+	 * @param reference the reference output
+	 * @param output the output of the run
+	 * @return true, if the outputs are identical
+	 */
+	private static boolean compare(String name, String reference, String output) {
+		boolean identical = reference.equals(output);
+		System.out.println(name + ": " + (identical ? "identical" : "DIFFERENT") + " (" + output.length()
+				+ " chars)");
+		return identical;
+	}
+
+	/**
+	 * Creates a task that runs the simulation.
+	 *
+	 * @param queueType the queue type
+	 * @param recycling whether the events are recycled
+	 * @return the task, which returns the output of the simulation
+	 */
+	private static Callable<String> createRun(final int queueType, final boolean recycling) {
+		return new Callable<String>() {
+
+			@Override
+			public String call() throws Exception {
+				return run(queueType, recycling);
+			}
+		};
+	}
+
+	/**
+	 * Runs the simulation in a new context bound to the current thread.
+	 *
+	 * @param queueType the queue type
+	 * @param recycling whether the events are recycled
+	 * @return the log output of the simulation, followed by its event trace
+	 * @throws Exception if the simulation fails
+	 */
+	private static String run(int queueType, boolean recycling) throws Exception {
+		CloudSim.setContext(new SimulationContext());
+		try {
+			ByteArrayOutputStream log = new ByteArrayOutputStream();
+			Log.setOutput(log);
+			CloudSim.setFutureQueueType(queueType);
+			CloudSim.setEventRecycling(recycling);
+
+			Calendar calendar = Calendar.getInstance();
+			calendar.setTimeInMillis(0);
+			CloudSim.init(1, calendar, false);
+
+			createDatacenter("Datacenter_0");
+			DatacenterBroker broker = new DatacenterBroker("Broker");
+			submitWorkload(broker);
+
+			StringBuilder trace = new StringBuilder();
+			List<Chatter> chatters = new ArrayList<Chatter>();
+			for (int i = 0; i < CHATTERS; i++) {
+				chatters.add(new Chatter("Chatter_" + i, i, chatters, trace));
+			}
+
+			CloudSim.startSimulation();
+			CloudSim.stopSimulation();
+
+			DecimalFormat dft = new DecimalFormat("###.##");
+			for (Cloudlet cloudlet : broker.getCloudletReceivedList()) {
+				Log.printLine(cloudlet.getCloudletId() + " " + cloudlet.getCloudletStatusString() + " "
+						+ cloudlet.getVmId() + " " + dft.format(cloudlet.getExecStartTime()) + " "
+						+ dft.format(cloudlet.getFinishTime()));
+			}
+			Log.flush();
+			return log.toString() + trace;
+		} finally {
+			CloudSim.setContext(null);
+		}
+	}
+
+	/**
+	 * Creates the datacenter, with four hosts of two PEs.
+	 *
+	 * @param name the name
+	 * @return the datacenter
+	 * @throws Exception if the datacenter cannot be created
+	 */
+	private static Datacenter createDatacenter(String name) throws Exception {
+		List<Host> hostList = new ArrayList<Host>();
+		for (int hostId = 0; hostId < 4; hostId++) {
+			List<Pe> peList = new ArrayList<Pe>();
+			peList.add(new Pe(0, new PeProvisionerSimple(1000)));
+			peList.add(new Pe(1, new PeProvisionerSimple(1000)));
+			hostList.add(new Host(
+					hostId,
+					new RamProvisionerSimple(2048),
+					new BwProvisionerSimple(10000),
+					1000000,
+					peList,
+					new VmSchedulerTimeShared(peList)));
+		}
+		DatacenterCharacteristics characteristics = new DatacenterCharacteristics(
+				"x86",
+				"Linux",
+				"Xen",
+				hostList,
+				10.0,
+				3.0,
+				0.05,
+				0.001,
+				0.0);
+		return new Datacenter(
+				name,
+				characteristics,
+				new VmAllocationPolicySimple(hostList),
+				new LinkedList<Storage>(),
+				0);
+	}
+
+	/**
+	 * Submits eight vms and forty cloudlets of various lengths to the broker.
+	 *
+	 * @param broker the broker
+	 */
+	private static void submitWorkload(DatacenterBroker broker) {
+		List<Vm> vmList = new ArrayList<Vm>();
+		for (int vmId = 0; vmId < 8; vmId++) {
+			vmList.add(new Vm(vmId, broker.getId(), 500, 1, 512, 1000, 10000, "Xen", new CloudletSchedulerTimeShared()));
+		}
+		broker.submitVmList(vmList);
+
+		List<Cloudlet> cloudletList = new ArrayList<Cloudlet>();
+		for (int id = 0; id < 40; id++) {
+			Cloudlet cloudlet = new Cloudlet(
+					id,
+					10000 + 1000 * (id % 7),
+					1,
+					300,
+					300,
+					new UtilizationModelFull(),
+					new UtilizationModelFull(),
+					new UtilizationModelFull());
+			cloudlet.setUserId(broker.getId());
+			cloudletList.add(cloudlet);
+		}
+		broker.submitCloudletList(cloudletList);
+	}
+
+	/**
+	 * An entity that sends seeded random events to the other chatting entities, with integer
+	 * delays so that many events happen at the same time, and that cancels some of the events it
+	 * sent. It writes every event it receives to the trace.
+	 */
+	private static class Chatter extends SimEntity {
+
+		/** The random generator. */
+		private final Random random;
+
+		/** The chatting entities. */
+		private final List<Chatter> chatters;
+
+		/** The trace. */
+		private final StringBuilder trace;
+
+		/** The number of events left to send. */
+		private int eventsLeft = EVENTS_PER_CHATTER;
+
+		/**
+		 * Instantiates a new chatting entity.
+		 *
+		 * @param name the name
+		 * @param seed the seed of the random generator
+		 * @param chatters the chatting entities, to which this entity is added
+		 * @param trace the trace
+		 */
+		public Chatter(String name, long seed, List<Chatter> chatters, StringBuilder trace) {
+			super(name);
+			random = new Random(seed);
+			this.chatters = chatters;
+			this.trace = trace;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see org.cloudbus.cloudsim.core.SimEntity#startEntity()
+		 */
+		@Override
+		public void startEntity() {
+			for (int i = 0; i < 4; i++) {
+				chat();
+			}
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see org.cloudbus.cloudsim.core.SimEntity#processEvent(org.cloudbus.cloudsim.core.SimEvent)
+		 */
+		@Override
+		public void processEvent(SimEvent ev) {
+			trace.append(CloudSim.clock()).append(' ').append(getName()).append(' ').append(ev.getTag())
+					.append(' ').append(ev.getSource()).append(' ').append(ev.getData()).append('\n');
+			if (random.nextInt(10) == 0) {
+				CloudSim.cancelAll(getId(), new PredicateType(CANCELLABLE_TAG));
+			}
+			chat();
+			if (random.nextInt(4) == 0) {
+				chat();
+			}
+		}
+
+		/**
+		 * Sends an event to a random chatting entity, if there are events left to send.
+		 */
+		private void chat() {
+			if (eventsLeft > 0) {
+				Chatter peer = chatters.get(random.nextInt(chatters.size()));
+				schedule(peer.getId(), random.nextInt(5), CHAT_TAG + random.nextInt(4), eventsLeft);
+				eventsLeft--;
+			}
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see org.cloudbus.cloudsim.core.SimEntity#shutdownEntity()
+		 */
+		@Override
+		public void shutdownEntity() {
+		}
+
+	}
+
+}
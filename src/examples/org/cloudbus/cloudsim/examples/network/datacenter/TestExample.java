@@ -16,6 +16,7 @@ import org.cloudbus.cloudsim.Storage;
 import org.cloudbus.cloudsim.VmSchedulerTimeShared;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.network.datacenter.EdgeSwitch;
+import org.cloudbus.cloudsim.network.datacenter.FlowNetworkModel;
 import org.cloudbus.cloudsim.network.datacenter.NetDatacenterBroker;
 import org.cloudbus.cloudsim.network.datacenter.NetworkConstants;
 import org.cloudbus.cloudsim.network.datacenter.NetworkDatacenter;
@@ -53,6 +54,11 @@ public class TestExample {
 			// Datacenters are the resource providers in CloudSim. We need at
 			// list one of them to run a CloudSim simulation
 			NetworkDatacenter datacenter0 = createDatacenter("Datacenter_0");
+			// the packets are simulated as flows instead of one by one if the first argument is
+			// "flow"
+			if (args.length > 0 && args[0].equals("flow")) {
+				datacenter0.setNetworkModel(new FlowNetworkModel("FlowNetwork_0", datacenter0));
+			}
 
 			// Third step: Create Broker
 			NetDatacenterBroker broker = createBroker();
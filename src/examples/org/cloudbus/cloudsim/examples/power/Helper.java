@@ -4,6 +4,7 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -30,8 +31,8 @@ import org.cloudbus.cloudsim.Storage;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.VmAllocationPolicy;
 import org.cloudbus.cloudsim.VmSchedulerTimeSharedOverSubscription;
+import org.cloudbus.cloudsim.VmSlaAccumulator;
 import org.cloudbus.cloudsim.VmStateHistoryEntry;
-import org.cloudbus.cloudsim.examples.power.planetlab.PlanetLabConstants;
 import org.cloudbus.cloudsim.power.PowerDatacenter;
 import org.cloudbus.cloudsim.power.PowerDatacenterBroker;
 import org.cloudbus.cloudsim.power.PowerHost;
@@ -42,13 +43,7 @@ import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
 import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
 import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
 import org.cloudbus.cloudsim.util.MathUtil;
-import org.cloudbus.cloudsim.power.PowerVmAllocationPolicyMigrationInterQuartileRange;
-import org.cloudbus.cloudsim.power.PowerVmAllocationPolicyMigrationLocalRegression;
-import org.cloudbus.cloudsim.power.PowerVmAllocationPolicyMigrationLocalRegressionRobust;
-import org.cloudbus.cloudsim.power.PowerVmAllocationPolicyMigrationMedianAbsoluteDeviation;
-import org.cloudbus.cloudsim.power.PowerVmAllocationPolicyMigrationStaticThreshold;
-import org.cloudbus.cloudsim.power.PowerVmAllocationPolicyMigrationModifiedStddeviationMean;
-import org.cloudbus.cloudsim.power.PowerVmAllocationPolicyMigrationModifiedStddeviationMedian;
+
 /**
  * The Class Helper.
  * 
@@ -64,6 +59,37 @@ import org.cloudbus.cloudsim.power.PowerVmAllocationPolicyMigrationModifiedStdde
  */
 public class Helper {
 
+	/** The lock of the file of the combined results, to which the simulations append their rows. */
+	private static final Object COMBINED_RESULTS_LOCK = new Object();
+
+	/** The console of the simulations run by the current thread. */
+	private static final ThreadLocal<PrintStream> CONSOLE = new ThreadLocal<PrintStream>();
+
+	/**
+	 * Sets the console of the simulations run by the current thread, to which the results not
+	 * written to the log are printed. A sweep gives each of its simulations its own console, so that
+	 * the results of simulations run at the same time do not interleave.
+	 * 
+	 * @param console the console, or null for System.out
+	 */
+	public static void setConsole(PrintStream console) {
+		if (console == null) {
+			CONSOLE.remove();
+		} else {
+			CONSOLE.set(console);
+		}
+	}
+
+	/**
+	 * Gets the console of the simulations run by the current thread.
+	 * 
+	 * @return the console, System.out unless another one is set
+	 */
+	public static PrintStream getConsole() {
+		PrintStream console = CONSOLE.get();
+		return console == null ? System.out : console;
+	}
+
 	/**
 	 * Creates the vm list.
 	 * 
@@ -131,8 +157,7 @@ public class Helper {
 		try {
 			broker = new PowerDatacenterBroker("Broker");
 		} catch (Exception e) {
-			e.printStackTrace();
-			System.exit(0);
+			throw new IllegalStateException("The broker cannot be created", e);
 		}
 		return broker;
 	}
@@ -189,8 +214,7 @@ public class Helper {
 					new LinkedList<Storage>(),
 					Constants.SCHEDULING_INTERVAL);
 		} catch (Exception e) {
-			e.printStackTrace();
-			System.exit(0);
+			throw new IllegalStateException("The datacenter " + name + " cannot be created", e);
 		}
 
 		return datacenter;
@@ -392,6 +416,7 @@ public class Helper {
 
 		//} //else {
 			Log.setDisabled(false);
+                        synchronized (COMBINED_RESULTS_LOCK) {
                         try
                         {
                                 String path = "C:\\Users\\mmonil\\Documents\\NetBeansProjects\\cloudsim3.0.3\\output\\log\\Combined_result.csv";       
@@ -403,61 +428,47 @@ public class Helper {
                                 double slaFailCount=0;
                                 //System.out.println(experimentName.substring(9, 11));
                                 if (experimentName.substring(9, 12).equals("iqr")) {
-                                    slaFailCount=PowerVmAllocationPolicyMigrationInterQuartileRange.slaFailcount;
+                                    slaFailCount=getSlaFailCount(datacenter);
                                     fileWriter.append("\n"+"last,"+experimentName.substring(0, 8)+","+experimentName.substring(9, experimentName.length()-4)+","+dateformat.format(date)+","+numberOfHosts+","+numberOfVms+","+totalSimulationTime+","+energy+","+numberOfMigrations+","+sla * 100+","+energy*sla * 100+","+slaDegradationDueToMigration * 100+","+slaTimePerActiveHost * 100+","+slaOverall * 100+","+slaAverage * 100+","+numberOfHostShutdowns+","+slaFailCount);
-                                    PowerVmAllocationPolicyMigrationInterQuartileRange.slaFailcount=0;
 				} else if (experimentName.substring(9, 12).equals("mad")) {
-                                    slaFailCount=PowerVmAllocationPolicyMigrationMedianAbsoluteDeviation.slaFailcount;
+                                    slaFailCount=getSlaFailCount(datacenter);
                                     fileWriter.append("\n"+"last,"+experimentName.substring(0, 8)+","+experimentName.substring(9, experimentName.length()-4)+","+dateformat.format(date)+","+numberOfHosts+","+numberOfVms+","+totalSimulationTime+","+energy+","+numberOfMigrations+","+sla * 100+","+energy*sla * 100+","+slaDegradationDueToMigration * 100+","+slaTimePerActiveHost * 100+","+slaOverall * 100+","+slaAverage * 100+","+numberOfHostShutdowns+","+slaFailCount);
-                                    PowerVmAllocationPolicyMigrationMedianAbsoluteDeviation.slaFailcount=0;
                 		} else if (experimentName.substring(9, 12).equals("lr")) {
-                                    slaFailCount=PowerVmAllocationPolicyMigrationLocalRegression.slaFailcount;
+                                    slaFailCount=getSlaFailCount(datacenter);
                                     fileWriter.append("\n"+"last,"+experimentName.substring(0, 8)+","+experimentName.substring(9, experimentName.length()-4)+","+dateformat.format(date)+","+numberOfHosts+","+numberOfVms+","+totalSimulationTime+","+energy+","+numberOfMigrations+","+sla * 100+","+energy*sla * 100+","+slaDegradationDueToMigration * 100+","+slaTimePerActiveHost * 100+","+slaOverall * 100+","+slaAverage * 100+","+numberOfHostShutdowns+","+slaFailCount);
-                                    PowerVmAllocationPolicyMigrationLocalRegression.slaFailcount=0;
 		} else if (experimentName.substring(9, 12).equals("lrr")) {
-                                    slaFailCount=PowerVmAllocationPolicyMigrationLocalRegressionRobust.slaFailcount;
+                                    slaFailCount=getSlaFailCount(datacenter);
                                     fileWriter.append("\n"+"last,"+experimentName.substring(0, 8)+","+experimentName.substring(9, experimentName.length()-4)+","+dateformat.format(date)+","+numberOfHosts+","+numberOfVms+","+totalSimulationTime+","+energy+","+numberOfMigrations+","+sla * 100+","+energy*sla * 100+","+slaDegradationDueToMigration * 100+","+slaTimePerActiveHost * 100+","+slaOverall * 100+","+slaAverage * 100+","+numberOfHostShutdowns+","+slaFailCount);
-                                    PowerVmAllocationPolicyMigrationLocalRegressionRobust.slaFailcount=0;               
 		} else if (experimentName.substring(9, 12).equals("msm")) {
-                                    slaFailCount=PowerVmAllocationPolicyMigrationModifiedStddeviationMean.slaFailcount;
+                                    slaFailCount=getSlaFailCount(datacenter);
                                     fileWriter.append("\n"+"last,"+experimentName.substring(0, 8)+","+experimentName.substring(9, experimentName.length()-4)+","+dateformat.format(date)+","+numberOfHosts+","+numberOfVms+","+totalSimulationTime+","+energy+","+numberOfMigrations+","+sla * 100+","+energy*sla * 100+","+slaDegradationDueToMigration * 100+","+slaTimePerActiveHost * 100+","+slaOverall * 100+","+slaAverage * 100+","+numberOfHostShutdowns+","+slaFailCount);
-                                    PowerVmAllocationPolicyMigrationModifiedStddeviationMean.slaFailcount=0;                    
 		} else if (experimentName.substring(9, 12).equals("msmd")) {
-                                    slaFailCount=PowerVmAllocationPolicyMigrationModifiedStddeviationMedian.slaFailcount;
+                                    slaFailCount=getSlaFailCount(datacenter);
                                     fileWriter.append("\n"+"last with condition,"+experimentName.substring(0, 8)+","+experimentName.substring(9, experimentName.length()-4)+","+dateformat.format(date)+","+numberOfHosts+","+numberOfVms+","+totalSimulationTime+","+energy+","+numberOfMigrations+","+sla * 100+","+energy*sla * 100+","+slaDegradationDueToMigration * 100+","+slaTimePerActiveHost * 100+","+slaOverall * 100+","+slaAverage * 100+","+numberOfHostShutdowns+","+slaFailCount);
-                                    PowerVmAllocationPolicyMigrationModifiedStddeviationMedian.slaFailcount=0;                    
                 } else if (experimentName.substring(9, 12).equals("thr")) {
-                                    slaFailCount=PowerVmAllocationPolicyMigrationStaticThreshold.slaFailcount;
+                                    slaFailCount=getSlaFailCount(datacenter);
                                     fileWriter.append("\n"+"last,"+experimentName.substring(0, 8)+","+experimentName.substring(9, experimentName.length()-4)+","+dateformat.format(date)+","+numberOfHosts+","+numberOfVms+","+totalSimulationTime+","+energy+","+numberOfMigrations+","+sla * 100+","+energy*sla * 100+","+slaDegradationDueToMigration * 100+","+slaTimePerActiveHost * 100+","+slaOverall * 100+","+slaAverage * 100+","+numberOfHostShutdowns+","+slaFailCount);
-                                    PowerVmAllocationPolicyMigrationStaticThreshold.slaFailcount=0;                    
 		}else if (experimentName.substring(7, 10).equals("iqr")) {
-                                    slaFailCount=PowerVmAllocationPolicyMigrationInterQuartileRange.slaFailcount;
+                                    slaFailCount=getSlaFailCount(datacenter);
                                     fileWriter.append("\n"+"last,"+experimentName.substring(0, 8)+","+experimentName.substring(9, experimentName.length()-4)+","+dateformat.format(date)+","+numberOfHosts+","+numberOfVms+","+totalSimulationTime+","+energy+","+numberOfMigrations+","+sla * 100+","+energy*sla * 100+","+slaDegradationDueToMigration * 100+","+slaTimePerActiveHost * 100+","+slaOverall * 100+","+slaAverage * 100+","+numberOfHostShutdowns+","+slaFailCount);
-                                    PowerVmAllocationPolicyMigrationInterQuartileRange.slaFailcount=0;
 				} else if (experimentName.substring(7, 10).equals("mad")) {
-                                    slaFailCount=PowerVmAllocationPolicyMigrationMedianAbsoluteDeviation.slaFailcount;
+                                    slaFailCount=getSlaFailCount(datacenter);
                                     fileWriter.append("\n"+"last,"+experimentName.substring(0, 8)+","+experimentName.substring(9, experimentName.length()-4)+","+dateformat.format(date)+","+numberOfHosts+","+numberOfVms+","+totalSimulationTime+","+energy+","+numberOfMigrations+","+sla * 100+","+energy*sla * 100+","+slaDegradationDueToMigration * 100+","+slaTimePerActiveHost * 100+","+slaOverall * 100+","+slaAverage * 100+","+numberOfHostShutdowns+","+slaFailCount);
-                                    PowerVmAllocationPolicyMigrationMedianAbsoluteDeviation.slaFailcount=0;
                 		} else if (experimentName.substring(7, 10).equals("lr")) {
-                                    slaFailCount=PowerVmAllocationPolicyMigrationLocalRegression.slaFailcount;
+                                    slaFailCount=getSlaFailCount(datacenter);
                                     fileWriter.append("\n"+"last,"+experimentName.substring(0, 8)+","+experimentName.substring(9, experimentName.length()-4)+","+dateformat.format(date)+","+numberOfHosts+","+numberOfVms+","+totalSimulationTime+","+energy+","+numberOfMigrations+","+sla * 100+","+energy*sla * 100+","+slaDegradationDueToMigration * 100+","+slaTimePerActiveHost * 100+","+slaOverall * 100+","+slaAverage * 100+","+numberOfHostShutdowns+","+slaFailCount);
-                                    PowerVmAllocationPolicyMigrationLocalRegression.slaFailcount=0;
 		} else if (experimentName.substring(7, 10).equals("lrr")) {
-                                    slaFailCount=PowerVmAllocationPolicyMigrationLocalRegressionRobust.slaFailcount;
+                                    slaFailCount=getSlaFailCount(datacenter);
                                     fileWriter.append("\n"+"last,"+experimentName.substring(0, 8)+","+experimentName.substring(9, experimentName.length()-4)+","+dateformat.format(date)+","+numberOfHosts+","+numberOfVms+","+totalSimulationTime+","+energy+","+numberOfMigrations+","+sla * 100+","+energy*sla * 100+","+slaDegradationDueToMigration * 100+","+slaTimePerActiveHost * 100+","+slaOverall * 100+","+slaAverage * 100+","+numberOfHostShutdowns+","+slaFailCount);
-                                    PowerVmAllocationPolicyMigrationLocalRegressionRobust.slaFailcount=0;               
 		} else if (experimentName.substring(7, 10).equals("msm")) {
-                                    slaFailCount=PowerVmAllocationPolicyMigrationModifiedStddeviationMean.slaFailcount;
+                                    slaFailCount=getSlaFailCount(datacenter);
                                     fileWriter.append("\n"+"last,"+experimentName.substring(0, 8)+","+experimentName.substring(9, experimentName.length()-4)+","+dateformat.format(date)+","+numberOfHosts+","+numberOfVms+","+totalSimulationTime+","+energy+","+numberOfMigrations+","+sla * 100+","+energy*sla * 100+","+slaDegradationDueToMigration * 100+","+slaTimePerActiveHost * 100+","+slaOverall * 100+","+slaAverage * 100+","+numberOfHostShutdowns+","+slaFailCount);
-                                    PowerVmAllocationPolicyMigrationModifiedStddeviationMean.slaFailcount=0;                    
 		} else if (experimentName.substring(7, 10).equals("msmd")) {
-                                    slaFailCount=PowerVmAllocationPolicyMigrationModifiedStddeviationMedian.slaFailcount;
+                                    slaFailCount=getSlaFailCount(datacenter);
                                     fileWriter.append("\n"+"last with condition,"+experimentName.substring(0, 8)+","+experimentName.substring(9, experimentName.length()-4)+","+dateformat.format(date)+","+numberOfHosts+","+numberOfVms+","+totalSimulationTime+","+energy+","+numberOfMigrations+","+sla * 100+","+energy*sla * 100+","+slaDegradationDueToMigration * 100+","+slaTimePerActiveHost * 100+","+slaOverall * 100+","+slaAverage * 100+","+numberOfHostShutdowns+","+slaFailCount);
-                                    PowerVmAllocationPolicyMigrationModifiedStddeviationMedian.slaFailcount=0;                    
                 } else if (experimentName.substring(7, 10).equals("thr")) {
-                                    slaFailCount=PowerVmAllocationPolicyMigrationStaticThreshold.slaFailcount;
+                                    slaFailCount=getSlaFailCount(datacenter);
                                     fileWriter.append("\n"+"last,"+experimentName.substring(0, 8)+","+experimentName.substring(9, experimentName.length()-4)+","+dateformat.format(date)+","+numberOfHosts+","+numberOfVms+","+totalSimulationTime+","+energy+","+numberOfMigrations+","+sla * 100+","+energy*sla * 100+","+slaDegradationDueToMigration * 100+","+slaTimePerActiveHost * 100+","+slaOverall * 100+","+slaAverage * 100+","+numberOfHostShutdowns+","+slaFailCount);
-                                    PowerVmAllocationPolicyMigrationStaticThreshold.slaFailcount=0;                    
 		}
                                 
 			Log.printLine();
@@ -466,8 +477,11 @@ public class Helper {
 			Log.printLine(String.format("Number of VMs: " + numberOfVms));
 			Log.printLine(String.format("Total simulation time: %.2f sec", totalSimulationTime));
 			Log.printLine(String.format("Energy consumption: %.2f kWh", energy));
-                        System.out.println("Total number of singlepass "+ PlanetLabConstants.NUMBER_OF_singlepass);
-                        System.out.println("Total number of doublepass "+ PlanetLabConstants.NUMBER_OF_doublepass);
+                        if (datacenter.getVmAllocationPolicy() instanceof PowerVmAllocationPolicyMigrationAbstract) {
+                                PowerVmAllocationPolicyMigrationAbstract policy = (PowerVmAllocationPolicyMigrationAbstract) datacenter.getVmAllocationPolicy();
+                                getConsole().println("Total number of singlepass "+ (int) policy.getTotalSinglePassCount());
+                                getConsole().println("Total number of doublepass "+ (int) policy.getTotalDoublePassCount());
+                        }
 			Log.printLine(String.format("Number of VM migrations: %d", numberOfMigrations));
 			Log.printLine(String.format("SLA: %.5f%%", sla * 100));
 			Log.printLine(String.format(
@@ -543,17 +557,33 @@ public class Helper {
                         }
                             catch(FileNotFoundException exception)
                         {
-                        System.out.println("The file  was not found.");
+                        getConsole().println("The file  was not found.");
                         }
                         catch(IOException exception)
                         {
-                        System.out.println(exception);
+                        getConsole().println(exception);
+                        }
                         }
 		//}
 
 		Log.setDisabled(true);
 	}
 
+	/**
+	 * Gets the number of over-utilization checks that found a host at full utilization, counted by
+	 * the vm allocation policy of a datacenter.
+	 * 
+	 * @param datacenter the datacenter
+	 * @return the sla fail count, or 0 if the policy does not migrate vms
+	 */
+	private static double getSlaFailCount(PowerDatacenter datacenter) {
+		if (datacenter.getVmAllocationPolicy() instanceof PowerVmAllocationPolicyMigrationAbstract) {
+			return ((PowerVmAllocationPolicyMigrationAbstract) datacenter.getVmAllocationPolicy())
+					.getSlaFailCount();
+		}
+		return 0;
+	}
+
 	/**
 	 * Parses the experiment name.
 	 * 
@@ -654,7 +684,8 @@ public class Helper {
 	 */
 	protected static Map<String, Double> getSlaMetrics(List<Vm> vms) {
 		Map<String, Double> metrics = new HashMap<String, Double>();
-		List<Double> slaViolation = new LinkedList<Double>();
+		double slaViolationSum = 0;
+		int slaViolationCount = 0;
 		double totalAllocated = 0;
 		double totalRequested = 0;
                 double slaViolationtotaltime=0;
@@ -662,59 +693,25 @@ public class Helper {
                 double maxsla=0;
 
 		for (Vm vm : vms) {
-			double vmTotalAllocated = 0;
-			double vmTotalRequested = 0;
-                        double vmslaViolationtotaltime=0;
-			double vmUnderAllocatedDueToMigration = 0;
-                        double vmUnderAllocatedDueToMigrationTotal = 0;
-                        int numberOfMigration=0;
-			double previousTime = -1;
-			double previousAllocated = 0;
-			double previousRequested = 0;
-			boolean previousIsInMigration = false;
-			for (VmStateHistoryEntry entry : vm.getStateHistory()) {
-				if (previousTime != -1) {
-					double timeDiff = entry.getTime() - previousTime;
-					vmTotalAllocated += previousAllocated * timeDiff;
-					vmTotalRequested += previousRequested * timeDiff;
-
-					if (previousAllocated < previousRequested) {
-                                                vmslaViolationtotaltime+=timeDiff;
-						slaViolation.add((previousRequested - previousAllocated) / previousRequested);
-                                                vmUnderAllocatedDueToMigrationTotal += (previousRequested - previousAllocated)
-									* timeDiff;
-						if (previousIsInMigration) {
-							vmUnderAllocatedDueToMigration += (previousRequested - previousAllocated)
-									* timeDiff;
-                                                        numberOfMigration+=1;
-						}
-					}
-				}
-                                //System.out.println("VM ID: "+vm.getId() + " host ID: "+vm.getHost().getId()+" time: "+entry.getTime()+" ratio: "+previousAllocated/previousRequested+" previous Allocated: "+previousAllocated+" previousRequested: "+previousRequested+" previousTime: "+previousTime+" previousIsInMigration: "+previousIsInMigration);
-                                //System.out.println("VM ID: "+vm.getId() + " host ID: "+vm.getHost().getId()+" time: "+entry.getTime()+" ratio: "+previousAllocated/previousRequested+" previousIsInMigration: "+previousIsInMigration);
-                                previousAllocated = entry.getAllocatedMips();
-				previousRequested = entry.getRequestedMips();
-				previousTime = entry.getTime(); 
-				previousIsInMigration = entry.isInMigration();
-			}
-                        
-                        System.out.println("VM ID : "+vm.getId() + " :"+"VM priority "+vm.priority + "  :"+ (vmTotalRequested - vmTotalAllocated) / vmTotalRequested);
-                        if (maxsla <((vmTotalRequested - vmTotalAllocated) / vmTotalRequested)) maxsla=(vmTotalRequested - vmTotalAllocated) / vmTotalRequested;
-                        //System.out.println("VM ID "+vm.getId() + ":"+ vmUnderAllocatedDueToMigration / vmTotalRequested +":"+numberOfMigration+ ":"+ (vmTotalRequested - vmTotalAllocated) / vmTotalRequested);
-			totalAllocated += vmTotalAllocated;
-			totalRequested += vmTotalRequested;
-			totalUnderAllocatedDueToMigration += vmUnderAllocatedDueToMigration;
-                        slaViolationtotaltime+=vmslaViolationtotaltime;
-                        
+			VmSlaAccumulator accumulator = vm.getSlaAccumulator();
+                        double vmSlaViolation = accumulator.getSlaViolation();
+                        getConsole().println("VM ID : "+vm.getId() + " :"+"VM priority "+vm.priority + "  :"+ vmSlaViolation);
+                        if (maxsla < vmSlaViolation) maxsla=vmSlaViolation;
+			totalAllocated += accumulator.getTotalAllocatedMips();
+			totalRequested += accumulator.getTotalRequestedMips();
+			totalUnderAllocatedDueToMigration += accumulator.getUnderAllocatedMipsDueToMigration();
+                        slaViolationtotaltime+=accumulator.getSlaViolationTime();
+			slaViolationSum += accumulator.getUnderAllocationRatioSum();
+			slaViolationCount += accumulator.getUnderAllocationCount();
 		}
-                System.out.println("MAX SLA : "+maxsla);
+                getConsole().println("MAX SLA : "+maxsla);
 		metrics.put("overall", (totalRequested - totalAllocated) / totalRequested);
                 //System.out.println("Total :"+(totalRequested - totalAllocated) / totalRequested);
                 //System.out.println("Total :"+slaViolationtotaltime);
-		if (slaViolation.isEmpty()) {
+		if (slaViolationCount == 0) {
 			metrics.put("average", 0.);
 		} else {
-			metrics.put("average", MathUtil.mean(slaViolation));
+			metrics.put("average", slaViolationSum / slaViolationCount);
 		}
 		metrics.put("underallocated_migration", totalUnderAllocatedDueToMigration / totalRequested);
 		// metrics.put("sla_time_per_vm_with_migration", slaViolationTimePerVmWithMigration /
@@ -736,8 +733,7 @@ public class Helper {
 		try {
 			file.createNewFile();
 		} catch (IOException e1) {
-			e1.printStackTrace();
-			System.exit(0);
+			throw new IllegalStateException(e1);
 		}
 		try {
 			BufferedWriter writer = new BufferedWriter(new FileWriter(file));
@@ -746,8 +742,7 @@ public class Helper {
 			}
 			writer.close();
 		} catch (IOException e) {
-			e.printStackTrace();
-			System.exit(0);
+			throw new IllegalStateException(e);
 		}
 	}
 
@@ -762,16 +757,14 @@ public class Helper {
 		try {
 			file.createNewFile();
 		} catch (IOException e1) {
-			e1.printStackTrace();
-			System.exit(0);
+			throw new IllegalStateException(e1);
 		}
 		try {
 			BufferedWriter writer = new BufferedWriter(new FileWriter(file));
 			writer.write(data);
 			writer.close();
 		} catch (IOException e) {
-			e.printStackTrace();
-			System.exit(0);
+			throw new IllegalStateException(e);
 		}
 	}
 
@@ -797,8 +790,7 @@ public class Helper {
 			try {
 				file.createNewFile();
 			} catch (IOException e1) {
-				e1.printStackTrace();
-				System.exit(0);
+				throw new IllegalStateException(e1);
 			}
 			try {
 				BufferedWriter writer = new BufferedWriter(new FileWriter(file));
@@ -815,8 +807,7 @@ public class Helper {
 				}
 				writer.close();
 			} catch (IOException e) {
-				e.printStackTrace();
-				System.exit(0);
+				throw new IllegalStateException(e);
 			}
 		}
 	}
@@ -2,7 +2,6 @@ package org.cloudbus.cloudsim.examples.power;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.List;
 
@@ -38,6 +37,7 @@ import org.cloudbus.cloudsim.power.PowerVmSelectionPolicyRandomSelectionWithMigr
 import org.cloudbus.cloudsim.power.PowerVmSelectionPolicyRandomSelectionWithMigrationControlsd;
 import org.cloudbus.cloudsim.power.PowerFuzzyVmSelectionPolicy;
 import org.cloudbus.cloudsim.power.PowerFuzzyVmSelectionPolicy11;
+import org.cloudbus.cloudsim.util.AsyncFileOutputStream;
 /**
  * The Class RunnerAbstract.
  * 
@@ -54,19 +54,19 @@ import org.cloudbus.cloudsim.power.PowerFuzzyVmSelectionPolicy11;
 public abstract class RunnerAbstract {
 
 	/** The enable output. */
-	private static boolean enableOutput;
+	private boolean enableOutput;
 
 	/** The broker. */
-	protected static DatacenterBroker broker;
+	protected DatacenterBroker broker;
 
 	/** The cloudlet list. */
-	protected static List<Cloudlet> cloudletList;
+	protected List<Cloudlet> cloudletList;
 
 	/** The vm list. */
-	protected static List<Vm> vmList;
+	protected List<Vm> vmList;
 
 	/** The host list. */
-	protected static List<PowerHost> hostList;
+	protected List<PowerHost> hostList;
         protected boolean monil; // by monil
 	/**
 	 * Run.
@@ -99,8 +99,7 @@ public abstract class RunnerAbstract {
 					vmSelectionPolicy,
 					parameter);
 		} catch (Exception e) {
-			e.printStackTrace();
-			System.exit(0);
+			throw new IllegalStateException("The log output cannot be created", e);
 		}
 
 		init(inputFolder + "/" + workload);
@@ -150,7 +149,7 @@ public abstract class RunnerAbstract {
 			File file = new File(outputFolder + "/log/"
 					+ getExperimentName(workload, vmAllocationPolicy, vmSelectionPolicy, parameter) + ".txt");
 			file.createNewFile();
-			Log.setOutput(new FileOutputStream(file));
+			Log.setOutput(new AsyncFileOutputStream(file));
 		}
 	}
 
@@ -169,7 +168,7 @@ public abstract class RunnerAbstract {
 	 * @param vmAllocationPolicy the vm allocation policy
 	 */
 	protected void start(String experimentName, String outputFolder, VmAllocationPolicy vmAllocationPolicy) {
-		System.out.println("Starting " + experimentName);
+		Helper.getConsole().println("Starting " + experimentName);
 
 		try {
 			PowerDatacenter datacenter = (PowerDatacenter) Helper.createDatacenter(
@@ -200,12 +199,13 @@ public abstract class RunnerAbstract {
 					outputFolder);
 
 		} catch (Exception e) {
-			e.printStackTrace();
 			Log.printLine("The simulation has been terminated due to an unexpected error");
-			System.exit(0);
+			Log.flush();
+			throw new IllegalStateException("The simulation " + experimentName + " has failed", e);
 		}
 
 		Log.printLine("Finished " + experimentName);
+		Log.flush();
 	}
 
 	/**
@@ -319,8 +319,7 @@ public abstract class RunnerAbstract {
 		} else if (vmAllocationPolicyName.equals("dvfs")) {
 			vmAllocationPolicy = new PowerVmAllocationPolicySimple(hostList);
 		} else {
-			System.out.println("Unknown VM allocation policy: " + vmAllocationPolicyName);
-			System.exit(0);
+			throw new IllegalArgumentException("Unknown VM allocation policy: " + vmAllocationPolicyName);
 		}
 		return vmAllocationPolicy;
 	}
@@ -372,8 +371,7 @@ public abstract class RunnerAbstract {
 			vmSelectionPolicy = new PowerVmSelectionPolicyMaximumCorrelationWithMigrationControl( //by monil
                                         new PowerVmSelectionPolicyMinimumMigrationTime());
 		} else {
-			System.out.println("Unknown VM selection policy: " + vmSelectionPolicyName);
-			System.exit(0);
+			throw new IllegalArgumentException("Unknown VM selection policy: " + vmSelectionPolicyName);
 		}
 		return vmSelectionPolicy;
 	}
@@ -384,7 +382,7 @@ public abstract class RunnerAbstract {
 	 * @param enableOutput the new enable output
 	 */
 	public void setEnableOutput(boolean enableOutput) {
-		RunnerAbstract.enableOutput = enableOutput;
+		this.enableOutput = enableOutput;
 	}
 
 	/**
@@ -16,8 +16,6 @@ public class PlanetLabConstants {
 
 	public final static int NUMBER_OF_HOSTS = 800;
         public static int NUMBER_OF_overload = 0;
-        public static int NUMBER_OF_singlepass = 0;
-        public static int NUMBER_OF_doublepass = 0;
         public static int NUMBER_OF_underload = 0;
 
 }
@@ -1,16 +1,23 @@
 package org.cloudbus.cloudsim.examples.power.planetlab;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.UtilizationModel;
 import org.cloudbus.cloudsim.UtilizationModelNull;
 import org.cloudbus.cloudsim.UtilizationModelPlanetLabInMemory;
+import org.cloudbus.cloudsim.UtilizationModelPlanetLabMapped;
 import org.cloudbus.cloudsim.examples.power.Constants;
+import org.cloudbus.cloudsim.util.PlanetLabTraceStore;
 
 /**
  * A helper class for the running examples for the PlanetLab workload.
@@ -28,8 +35,18 @@ import org.cloudbus.cloudsim.examples.power.Constants;
  */
 public class PlanetLabHelper {
 
+	/** The number of utilization samples of a PlanetLab trace (5 min * 288 = 24 hours, plus one). */
+	private static final int NUMBER_OF_SAMPLES = 289;
+
+	/** The workloads that have been loaded in memory, by input folder name. */
+	private static final Map<String, double[][]> workloads = new ConcurrentHashMap<String, double[][]>();
+
 	/**
-	 * Creates the cloudlet list planet lab.
+	 * Creates the cloudlet list planet lab. The traces are taken from the workload loaded in memory
+	 * by {@link #loadWorkload(String)} if there is one, otherwise from the trace store created for
+	 * the input folder by {@link PlanetLabTraceConverter} if there is one, otherwise from the files
+	 * of the input folder. A trace store whose traces have changed since it was created is converted
+	 * again first.
 	 * 
 	 * @param brokerId the broker id
 	 * @param inputFolderName the input folder name
@@ -38,30 +55,52 @@ public class PlanetLabHelper {
 	 */
 	public static List<Cloudlet> createCloudletListPlanetLab(int brokerId, String inputFolderName)
 			throws FileNotFoundException {
+		if (!workloads.containsKey(inputFolderName)) {
+			File storeFile = new File(inputFolderName + PlanetLabTraceStore.FILE_EXTENSION);
+			if (storeFile.exists()) {
+				try {
+					return createCloudletListPlanetLab(
+							brokerId,
+							PlanetLabTraceStore.openUpToDate(inputFolderName, storeFile.getPath()));
+				} catch (IOException e) {
+					throw new IllegalStateException("The trace store " + storeFile + " cannot be read", e);
+				}
+			}
+		}
+
 		List<Cloudlet> list = new ArrayList<Cloudlet>();
 
 		long fileSize = 300;
 		long outputSize = 300;
 		UtilizationModel utilizationModelNull = new UtilizationModelNull();
 
+		double[][] workload = workloads.get(inputFolderName);
 		File inputFolder = new File(inputFolderName);
 		File[] files = inputFolder.listFiles();
                 Arrays.sort(files);  //// changed by Monil
-		for (int i = 0; i < files.length; i++) {
+		int numberOfCloudlets = workload != null ? workload.length : files.length;
+		for (int i = 0; i < numberOfCloudlets; i++) {
 			Cloudlet cloudlet = null;
 			try {
+				UtilizationModel utilizationModelCpu;
+				if (workload != null) {
+					utilizationModelCpu = new UtilizationModelPlanetLabInMemory(
+							workload[i],
+							Constants.SCHEDULING_INTERVAL);
+				} else {
+					utilizationModelCpu = new UtilizationModelPlanetLabInMemory(
+							files[i].getAbsolutePath(),
+							Constants.SCHEDULING_INTERVAL);
+				}
 				cloudlet = new Cloudlet(
 						i,
 						Constants.CLOUDLET_LENGTH,
 						Constants.CLOUDLET_PES,
 						fileSize,
 						outputSize,
-						new UtilizationModelPlanetLabInMemory(
-								files[i].getAbsolutePath(),
-								Constants.SCHEDULING_INTERVAL), utilizationModelNull, utilizationModelNull);
+						utilizationModelCpu, utilizationModelNull, utilizationModelNull);
 			} catch (Exception e) {
-				e.printStackTrace();
-				System.exit(0);
+				throw new IllegalStateException("The cloudlet " + i + " cannot be created", e);
 			}
 			cloudlet.setUserId(brokerId);
 			cloudlet.setVmId(i);
@@ -72,4 +111,79 @@ public class PlanetLabHelper {
                 return list;
 	}
 
+	/**
+	 * Creates the cloudlet list planet lab from a trace store, with one cloudlet per trace.
+	 * 
+	 * @param brokerId the broker id
+	 * @param store the trace store
+	 * @return the list
+	 */
+	public static List<Cloudlet> createCloudletListPlanetLab(int brokerId, PlanetLabTraceStore store) {
+		List<Cloudlet> list = new ArrayList<Cloudlet>();
+
+		long fileSize = 300;
+		long outputSize = 300;
+		UtilizationModel utilizationModelNull = new UtilizationModelNull();
+
+		for (int i = 0; i < store.getNumberOfTraces(); i++) {
+			Cloudlet cloudlet = new Cloudlet(
+					i,
+					Constants.CLOUDLET_LENGTH,
+					Constants.CLOUDLET_PES,
+					fileSize,
+					outputSize,
+					new UtilizationModelPlanetLabMapped(store, i, Constants.SCHEDULING_INTERVAL),
+					utilizationModelNull,
+					utilizationModelNull);
+			cloudlet.setUserId(brokerId);
+			cloudlet.setVmId(i);
+			list.add(cloudlet);
+		}
+		return list;
+	}
+
+	/**
+	 * Reads the traces of a workload into memory, so that the cloudlet lists subsequently created
+	 * for the same input folder share the data instead of reading the files again. The traces are
+	 * read in the same order as by {@link #createCloudletListPlanetLab(int, String)}. Loading a
+	 * workload that is already in memory, or that has a trace store, which is shared anyway, has no
+	 * effect.
+	 * 
+	 * @param inputFolderName the input folder name
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static void loadWorkload(String inputFolderName) throws IOException {
+		if (workloads.containsKey(inputFolderName)
+				|| new File(inputFolderName + PlanetLabTraceStore.FILE_EXTENSION).exists()) {
+			return;
+		}
+		File[] files = new File(inputFolderName).listFiles();
+		if (files == null) {
+			throw new FileNotFoundException(inputFolderName);
+		}
+		Arrays.sort(files);
+		double[][] workload = new double[files.length][];
+		for (int i = 0; i < files.length; i++) {
+			double[] data = new double[NUMBER_OF_SAMPLES];
+			BufferedReader input = new BufferedReader(new FileReader(files[i]));
+			try {
+				for (int j = 0; j < NUMBER_OF_SAMPLES - 1; j++) {
+					data[j] = Integer.valueOf(input.readLine()) / 100.0;
+				}
+				data[NUMBER_OF_SAMPLES - 1] = data[NUMBER_OF_SAMPLES - 2];
+			} finally {
+				input.close();
+			}
+			workload[i] = data;
+		}
+		workloads.put(inputFolderName, workload);
+	}
+
+	/**
+	 * Releases the workloads loaded in memory.
+	 */
+	public static void clearWorkloads() {
+		workloads.clear();
+	}
+
 }
@@ -65,6 +65,8 @@ public class PlanetLabRunner extends RunnerAbstract {
 	protected void init(String inputFolder) {
 		try {
 			CloudSim.init(1, Calendar.getInstance(), false);
+			// the entities of the power simulations keep no reference to the processed events
+			CloudSim.setEventRecycling(true);
 
 			broker = Helper.createBroker();
 			int brokerId = broker.getId();
@@ -73,9 +75,8 @@ public class PlanetLabRunner extends RunnerAbstract {
 			vmList = Helper.createVmList(brokerId, cloudletList.size());
 			hostList = Helper.createHostList(PlanetLabConstants.NUMBER_OF_HOSTS);
 		} catch (Exception e) {
-			e.printStackTrace();
 			Log.printLine("The simulation has been terminated due to an unexpected error");
-			System.exit(0);
+			throw new IllegalStateException("The simulation cannot be initialized", e);
 		}
 	}
 
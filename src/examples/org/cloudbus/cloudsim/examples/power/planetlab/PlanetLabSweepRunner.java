@@ -0,0 +1,333 @@
+package org.cloudbus.cloudsim.examples.power.planetlab;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.cloudbus.cloudsim.examples.power.Helper;
+
+/**
+ * Runs a sweep of the PlanetLab examples: every combination of a list of workloads, vm allocation
+ * policies, vm selection policies and parameters. The combinations are run in parallel on a fixed
+ * number of threads, each simulation with its own {@link SimulationContext}. The traces of each
+ * workload are read once and shared by all the simulations of the workload. When all the
+ * simulations have finished, the rows written by Helper.printResults to the stats folder are
+ * merged in the order of the sweep into the file sweep_stats.csv of the output folder. What a
+ * simulation prints to the console goes to its own file in the console folder of the output folder,
+ * so that the simulations run at the same time do not interleave their output. A simulation that
+ * fails does not stop the others, but the sweep ends with an exception once they have all finished.
+ * 
+ * The arguments are: the input folder, the output folder, and comma-separated lists of workloads,
+ * vm allocation policies, vm selection policies and parameters, followed by the number of threads
+ * (optional, the number of available processors by default). An empty element of a list stands
+ * for the absence of the policy or parameter, e.g. "" as the vm selection policies for "dvfs".
+ * 
+ * Example: PlanetLabSweepRunner planetlab output 20110303,20110306 thr,mad mu,mmt 0.8,2.5 4
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public class PlanetLabSweepRunner {
+
+	/** The header of the merged stats file, matching the rows of Helper.printResults. */
+	private static final String HEADER = "experiment,workload,vm allocation policy,"
+			+ "vm selection policy,parameter,hosts,vms,total simulation time,energy,migrations,sla,"
+			+ "sla time per active host,sla degradation due to migration,sla overall,sla average,"
+			+ "host shutdowns,mean time before host shutdown,stdev time before host shutdown,"
+			+ "mean time before vm migration,stdev time before vm migration,"
+			+ "vm selection time mean,vm selection time stdev,host selection time mean,"
+			+ "host selection time stdev,vm reallocation time mean,vm reallocation time stdev,"
+			+ "total time mean,total time stdev";
+
+	/**
+	 * The main method.
+	 * 
+	 * @param args the arguments
+	 * @throws Exception if the sweep cannot be run
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 6) {
+			System.err.println("Usage: PlanetLabSweepRunner <input folder> <output folder> <workloads> "
+					+ "<vm allocation policies> <vm selection policies> <parameters> [threads]");
+			System.exit(1);
+		}
+		String inputFolder = args[0];
+		String outputFolder = args[1];
+		String[] workloads = split(args[2]);
+		String[] vmAllocationPolicies = split(args[3]);
+		String[] vmSelectionPolicies = split(args[4]);
+		String[] parameters = split(args[5]);
+		int threads = Runtime.getRuntime().availableProcessors();
+		if (args.length >= 7) {
+			threads = Integer.parseInt(args[6]);
+		}
+
+		List<String> experimentNames = new ArrayList<String>();
+		try {
+			run(inputFolder,
+					outputFolder,
+					workloads,
+					vmAllocationPolicies,
+					vmSelectionPolicies,
+					parameters,
+					threads,
+					experimentNames);
+		} finally {
+			mergeStats(outputFolder, experimentNames, outputFolder + "/sweep_stats.csv");
+		}
+	}
+
+	/**
+	 * Runs the simulations of a sweep. A simulation that fails does not stop the others: the
+	 * failures are reported once all the simulations have finished.
+	 * 
+	 * @param inputFolder the input folder
+	 * @param outputFolder the output folder
+	 * @param workloads the workloads
+	 * @param vmAllocationPolicies the vm allocation policies
+	 * @param vmSelectionPolicies the vm selection policies
+	 * @param parameters the parameters
+	 * @param threads the number of simulations run at the same time
+	 * @return the experiment names of the simulations, in the order of the sweep
+	 * @throws IOException if a workload cannot be read
+	 * @throws InterruptedException if the thread is interrupted while waiting for the simulations
+	 * @throws IllegalStateException if some simulations have failed
+	 */
+	public static List<String> run(
+			String inputFolder,
+			String outputFolder,
+			String[] workloads,
+			String[] vmAllocationPolicies,
+			String[] vmSelectionPolicies,
+			String[] parameters,
+			int threads) throws IOException, InterruptedException {
+		List<String> experimentNames = new ArrayList<String>();
+		run(inputFolder,
+				outputFolder,
+				workloads,
+				vmAllocationPolicies,
+				vmSelectionPolicies,
+				parameters,
+				threads,
+				experimentNames);
+		return experimentNames;
+	}
+
+	/**
+	 * Runs the simulations of a sweep, adding their experiment names to a list in the order of the
+	 * sweep, so that the caller still has them if some simulations fail.
+	 * 
+	 * @param inputFolder the input folder
+	 * @param outputFolder the output folder
+	 * @param workloads the workloads
+	 * @param vmAllocationPolicies the vm allocation policies
+	 * @param vmSelectionPolicies the vm selection policies
+	 * @param parameters the parameters
+	 * @param threads the number of simulations run at the same time
+	 * @param experimentNames the list to which the experiment names are added
+	 * @throws IOException if a workload cannot be read
+	 * @throws InterruptedException if the thread is interrupted while waiting for the simulations
+	 * @throws IllegalStateException if some simulations have failed
+	 */
+	protected static void run(
+			final String inputFolder,
+			final String outputFolder,
+			String[] workloads,
+			String[] vmAllocationPolicies,
+			String[] vmSelectionPolicies,
+			String[] parameters,
+			int threads,
+			List<String> experimentNames) throws IOException, InterruptedException {
+		for (String workload : workloads) {
+			PlanetLabHelper.loadWorkload(inputFolder + "/" + workload);
+		}
+		new File(outputFolder).mkdirs();
+
+		List<Future<?>> results = new ArrayList<Future<?>>();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			for (final String workload : workloads) {
+				for (final String vmAllocationPolicy : vmAllocationPolicies) {
+					for (final String vmSelectionPolicy : vmSelectionPolicies) {
+						for (final String parameter : parameters) {
+							final String experimentName = getExperimentName(
+									workload,
+									vmAllocationPolicy,
+									vmSelectionPolicy,
+									parameter);
+							experimentNames.add(experimentName);
+							results.add(executor.submit(new Callable<Void>() {
+
+								@Override
+								public Void call() throws Exception {
+									runExperiment(
+											inputFolder,
+											outputFolder,
+											workload,
+											vmAllocationPolicy,
+											vmSelectionPolicy,
+											parameter);
+									return null;
+								}
+							}));
+						}
+					}
+				}
+			}
+
+			Throwable firstFailure = null;
+			int failures = 0;
+			for (int i = 0; i < results.size(); i++) {
+				try {
+					results.get(i).get();
+				} catch (ExecutionException e) {
+					System.err.println("The simulation " + experimentNames.get(i) + " has failed");
+					e.getCause().printStackTrace();
+					if (firstFailure == null) {
+						firstFailure = e.getCause();
+					}
+					failures++;
+				}
+			}
+			if (failures > 0) {
+				throw new IllegalStateException(failures + " of the " + results.size()
+						+ " simulations have failed", firstFailure);
+			}
+		} finally {
+			executor.shutdownNow();
+			PlanetLabHelper.clearWorkloads();
+		}
+	}
+
+	/**
+	 * Runs one simulation of a sweep in a new simulation context. The log of the simulation is
+	 * disabled, as it takes gigabytes for a day of PlanetLab traces: the results are the rows written
+	 * to the stats folder. The console output of the simulation is written to the file
+	 * console/&lt;experiment name&gt;.txt of the output folder.
+	 * 
+	 * @param inputFolder the input folder
+	 * @param outputFolder the output folder
+	 * @param workload the workload
+	 * @param vmAllocationPolicy the vm allocation policy
+	 * @param vmSelectionPolicy the vm selection policy
+	 * @param parameter the parameter
+	 * @throws IOException if the console file cannot be created
+	 */
+	protected static void runExperiment(
+			String inputFolder,
+			String outputFolder,
+			String workload,
+			String vmAllocationPolicy,
+			String vmSelectionPolicy,
+			String parameter) throws IOException {
+		File consoleFolder = new File(outputFolder + "/console");
+		consoleFolder.mkdirs();
+		PrintStream console = new PrintStream(new File(consoleFolder, getExperimentName(
+				workload,
+				vmAllocationPolicy,
+				vmSelectionPolicy,
+				parameter) + ".txt"));
+		Helper.setConsole(console);
+		CloudSim.setContext(new SimulationContext());
+		try {
+			new PlanetLabRunner(
+					false,
+					false,
+					inputFolder,
+					outputFolder,
+					workload,
+					vmAllocationPolicy,
+					vmSelectionPolicy,
+					parameter);
+		} finally {
+			CloudSim.setContext(null);
+			Helper.setConsole(null);
+			console.close();
+		}
+	}
+
+	/**
+	 * Merges the stats rows of the simulations of a sweep into one file.
+	 * 
+	 * @param outputFolder the output folder of the simulations
+	 * @param experimentNames the experiment names of the simulations
+	 * @param outputPath the path of the merged file
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static void mergeStats(String outputFolder, List<String> experimentNames, String outputPath)
+			throws IOException {
+		BufferedWriter writer = new BufferedWriter(new FileWriter(outputPath));
+		try {
+			writer.write(HEADER);
+			writer.newLine();
+			for (String experimentName : experimentNames) {
+				File file = new File(outputFolder + "/stats/" + experimentName + "_stats.csv");
+				if (!file.exists()) {
+					System.err.println("No results for the simulation " + experimentName);
+					continue;
+				}
+				BufferedReader reader = new BufferedReader(new FileReader(file));
+				try {
+					String line;
+					while ((line = reader.readLine()) != null) {
+						if (!line.isEmpty()) {
+							writer.write(line);
+							writer.newLine();
+						}
+					}
+				} finally {
+					reader.close();
+				}
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Gets the experiment name, in the same way as the runners.
+	 * 
+	 * @param args the workload, policies and parameter
+	 * @return the experiment name
+	 */
+	private static String getExperimentName(String... args) {
+		StringBuilder experimentName = new StringBuilder();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].isEmpty()) {
+				continue;
+			}
+			if (i != 0) {
+				experimentName.append("_");
+			}
+			experimentName.append(args[i]);
+		}
+		return experimentName.toString();
+	}
+
+	/**
+	 * Splits a comma-separated list, keeping the empty elements.
+	 * 
+	 * @param list the list
+	 * @return the elements
+	 */
+	private static String[] split(String list) {
+		String[] elements = list.split(",", -1);
+		for (int i = 0; i < elements.length; i++) {
+			elements[i] = elements[i].trim();
+		}
+		return elements;
+	}
+
+}
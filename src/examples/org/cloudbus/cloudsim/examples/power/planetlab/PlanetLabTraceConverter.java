@@ -0,0 +1,62 @@
+package org.cloudbus.cloudsim.examples.power.planetlab;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.cloudbus.cloudsim.util.PlanetLabTraceStore;
+
+/**
+ * Converts the PlanetLab workload folders into trace stores, which the PlanetLab examples then map
+ * in memory instead of parsing the text traces. The store of a workload folder is written next to
+ * it, e.g. planetlab/20110303.trace for planetlab/20110303.
+ * 
+ * The arguments are the input folder followed by the workloads to convert. If no workload is given,
+ * all the workloads of the input folder are converted.
+ * 
+ * Example: PlanetLabTraceConverter planetlab 20110303 20110306
+ * 
+ * @since CloudSim Toolkit 3.0
+ * @see PlanetLabTraceStore
+ */
+public class PlanetLabTraceConverter {
+
+	/**
+	 * The main method.
+	 * 
+	 * @param args the arguments
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static void main(String[] args) throws IOException {
+		String inputFolder;
+		if (args.length > 0) {
+			inputFolder = args[0];
+		} else {
+			inputFolder = Dvfs.class.getClassLoader().getResource("workload/planetlab").getPath();
+		}
+
+		String[] workloads;
+		if (args.length > 1) {
+			workloads = Arrays.copyOfRange(args, 1, args.length);
+		} else {
+			File[] folders = new File(inputFolder).listFiles();
+			Arrays.sort(folders);
+			workloads = new String[folders.length];
+			int n = 0;
+			for (File folder : folders) {
+				if (folder.isDirectory()) {
+					workloads[n++] = folder.getName();
+				}
+			}
+			workloads = Arrays.copyOf(workloads, n);
+		}
+
+		for (String workload : workloads) {
+			String inputFolderName = inputFolder + "/" + workload;
+			String outputPath = inputFolderName + PlanetLabTraceStore.FILE_EXTENSION;
+			int traces = PlanetLabTraceStore.convert(inputFolderName, outputPath);
+			System.out.println("Converted " + traces + " traces of " + workload + " to " + outputPath);
+		}
+	}
+
+}
@@ -62,6 +62,8 @@ public class RandomRunner extends RunnerAbstract {
 	protected void init(String inputFolder) {
 		try {
 			CloudSim.init(1, Calendar.getInstance(), false);
+			// the entities of the power simulations keep no reference to the processed events
+			CloudSim.setEventRecycling(true);
 
 			broker = Helper.createBroker();
 			int brokerId = broker.getId();
@@ -70,9 +72,8 @@ public class RandomRunner extends RunnerAbstract {
 			vmList = Helper.createVmList(brokerId, cloudletList.size());
 			hostList = Helper.createHostList(RandomConstants.NUMBER_OF_HOSTS);
 		} catch (Exception e) {
-			e.printStackTrace();
 			Log.printLine("The simulation has been terminated due to an unexpected error");
-			System.exit(0);
+			throw new IllegalStateException("The simulation cannot be initialized", e);
 		}
 	}
 
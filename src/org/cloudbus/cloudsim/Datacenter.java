@@ -187,12 +187,12 @@ public class Datacenter extends SimEntity {
 
 			// Moves a previously submitted Cloudlet to a different resource
 			case CloudSimTags.CLOUDLET_MOVE:
-				processCloudletMove((int[]) ev.getData(), CloudSimTags.CLOUDLET_MOVE);
+				processCloudletMove(ev, CloudSimTags.CLOUDLET_MOVE);
 				break;
 
 			// Moves a previously submitted Cloudlet to a different resource
 			case CloudSimTags.CLOUDLET_MOVE_ACK:
-				processCloudletMove((int[]) ev.getData(), CloudSimTags.CLOUDLET_MOVE_ACK);
+				processCloudletMove(ev, CloudSimTags.CLOUDLET_MOVE_ACK);
 				break;
 
 			// Checks the status of a Cloudlet
@@ -363,43 +363,31 @@ public class Datacenter extends SimEntity {
 		int status = -1;
 
 		try {
-			// if a sender using cloudletXXX() methods
-			int data[] = (int[]) ev.getData();
-			cloudletId = data[0];
-			userId = data[1];
-			vmId = data[2];
-
-			status = getVmAllocationPolicy().getHost(vmId, userId).getVm(vmId,userId).getCloudletScheduler()
-					.getCloudletStatus(cloudletId);
-		}
+			// if a sender using cloudletXXX() methods, the ids are read from the int values of the
+			// event, without building an int[]
+			if (ev.getIntDataSize() > 0) {
+				cloudletId = ev.getIntData(0);
+				userId = ev.getIntData(1);
+				vmId = ev.getIntData(2);
+			}
 
-		// if a sender using normal send() methods
-		catch (ClassCastException c) {
-			try {
+			// if a sender using normal send() methods
+			else {
 				Cloudlet cl = (Cloudlet) ev.getData();
 				cloudletId = cl.getCloudletId();
 				userId = cl.getUserId();
-
-				status = getVmAllocationPolicy().getHost(vmId, userId).getVm(vmId,userId)
-						.getCloudletScheduler().getCloudletStatus(cloudletId);
-			} catch (Exception e) {
-				Log.printLine(getName() + ": Error in processing CloudSimTags.CLOUDLET_STATUS");
-				Log.printLine(e.getMessage());
-				return;
 			}
+
+			status = getVmAllocationPolicy().getHost(vmId, userId).getVm(vmId,userId).getCloudletScheduler()
+					.getCloudletStatus(cloudletId);
 		} catch (Exception e) {
 			Log.printLine(getName() + ": Error in processing CloudSimTags.CLOUDLET_STATUS");
 			Log.printLine(e.getMessage());
 			return;
 		}
 
-		int[] array = new int[3];
-		array[0] = getId();
-		array[1] = cloudletId;
-		array[2] = status;
-
 		int tag = CloudSimTags.CLOUDLET_STATUS;
-		sendNow(userId, tag, array);
+		sendNow(userId, tag, getId(), cloudletId, status);
 	}
 
 	/**
@@ -431,16 +419,13 @@ public class Datacenter extends SimEntity {
 		boolean result = getVmAllocationPolicy().allocateHostForVm(vm);
 
 		if (ack) {
-			int[] data = new int[3];
-			data[0] = getId();
-			data[1] = vm.getId();
-
-			if (result) {
-				data[2] = CloudSimTags.TRUE;
-			} else {
-				data[2] = CloudSimTags.FALSE;
-			}
-			send(vm.getUserId(), CloudSim.getMinTimeBetweenEvents(), CloudSimTags.VM_CREATE_ACK, data);
+			send(
+					vm.getUserId(),
+					CloudSim.getMinTimeBetweenEvents(),
+					CloudSimTags.VM_CREATE_ACK,
+					getId(),
+					vm.getId(),
+					result ? CloudSimTags.TRUE : CloudSimTags.FALSE);
 		}
 
 		if (result) {
@@ -471,12 +456,12 @@ public class Datacenter extends SimEntity {
 		getVmAllocationPolicy().deallocateHostForVm(vm);
 
 		if (ack) {
-			int[] data = new int[3];
-			data[0] = getId();
-			data[1] = vm.getId();
-			data[2] = CloudSimTags.TRUE;
-
-			sendNow(vm.getUserId(), CloudSimTags.VM_DESTROY_ACK, data);
+			sendNow(
+					vm.getUserId(),
+					CloudSimTags.VM_DESTROY_ACK,
+					getId(),
+					vm.getId(),
+					CloudSimTags.TRUE);
 		}
 
 		getVmList().remove(vm);
@@ -507,20 +492,17 @@ public class Datacenter extends SimEntity {
 		boolean result = getVmAllocationPolicy().allocateHostForVm(vm, host);
 		if (!result) {
 			Log.printLine("[Datacenter.processVmMigrate] VM allocation to the destination host failed");
-			System.exit(0);
+			throw new IllegalStateException("Allocation of VM #" + vm.getId() + " to the destination Host #"
+					+ host.getId() + " failed");
 		}
 
 		if (ack) {
-			int[] data = new int[3];
-			data[0] = getId();
-			data[1] = vm.getId();
-
-			if (result) {
-				data[2] = CloudSimTags.TRUE;
-			} else {
-				data[2] = CloudSimTags.FALSE;
-			}
-			sendNow(ev.getSource(), CloudSimTags.VM_CREATE_ACK, data);
+			sendNow(
+					ev.getSource(),
+					CloudSimTags.VM_CREATE_ACK,
+					getId(),
+					vm.getId(),
+					result ? CloudSimTags.TRUE : CloudSimTags.FALSE);
 		}
 
 		Log.formatLine(
@@ -545,15 +527,20 @@ public class Datacenter extends SimEntity {
 		int userId = 0;
 		int vmId = 0;
 
-		try { // if the sender using cloudletXXX() methods
-			int data[] = (int[]) ev.getData();
-			cloudletId = data[0];
-			userId = data[1];
-			vmId = data[2];
+		if (ev.getIntDataSize() > 0) { // if the sender using cloudletXXX() methods
+			try {
+				cloudletId = ev.getIntData(0);
+				userId = ev.getIntData(1);
+				vmId = ev.getIntData(2);
+			} catch (Exception e) {
+				Log.printLine(super.getName() + ": Error in processing a Cloudlet.");
+				Log.printLine(e.getMessage());
+				return;
+			}
 		}
 
 		// if the sender using normal send() methods
-		catch (ClassCastException c) {
+		else {
 			try {
 				Cloudlet cl = (Cloudlet) ev.getData();
 				cloudletId = cl.getCloudletId();
@@ -564,10 +551,6 @@ public class Datacenter extends SimEntity {
 				Log.printLine(e.getMessage());
 				return;
 			}
-		} catch (Exception e) {
-			Log.printLine(super.getName() + ": Error in processing a Cloudlet.");
-			Log.printLine(e.getMessage());
-			return;
 		}
 
 		// begins executing ....
@@ -597,6 +580,27 @@ public class Datacenter extends SimEntity {
 
 	}
 
+	/**
+	 * Process the event for an User/Broker who wants to move a Cloudlet. The cloudlet id, the user
+	 * id, the vm id, the destination vm id and the destination datacenter id are read from the five
+	 * int values of the event, or from its <tt>int[]</tt> data.
+	 * 
+	 * @param ev a SimEvent object
+	 * @param type event tag
+	 * @pre ev != null
+	 * @pre type > 0
+	 * @post $none
+	 */
+	protected void processCloudletMove(SimEvent ev, int type) {
+		processCloudletMove(
+				ev.getIntData(0),
+				ev.getIntData(1),
+				ev.getIntData(2),
+				ev.getIntData(3),
+				ev.getIntData(4),
+				type);
+	}
+
 	/**
 	 * Process the event for an User/Broker who wants to move a Cloudlet.
 	 * 
@@ -607,14 +611,30 @@ public class Datacenter extends SimEntity {
 	 * @post $none
 	 */
 	protected void processCloudletMove(int[] receivedData, int type) {
-		updateCloudletProcessing();
+		processCloudletMove(
+				receivedData[0],
+				receivedData[1],
+				receivedData[2],
+				receivedData[3],
+				receivedData[4],
+				type);
+	}
 
-		int[] array = receivedData;
-		int cloudletId = array[0];
-		int userId = array[1];
-		int vmId = array[2];
-		int vmDestId = array[3];
-		int destId = array[4];
+	/**
+	 * Moves a Cloudlet to a different vm or resource.
+	 * 
+	 * @param cloudletId the cloudlet id
+	 * @param userId the user id
+	 * @param vmId the vm id
+	 * @param vmDestId the destination vm id
+	 * @param destId the destination resource id
+	 * @param type event tag
+	 * @pre type > 0
+	 * @post $none
+	 */
+	protected void processCloudletMove(int cloudletId, int userId, int vmId, int vmDestId, int destId,
+			int type) {
+		updateCloudletProcessing();
 
 		// get the cloudlet
 		Cloudlet cl = getVmAllocationPolicy().getHost(vmId, userId).getVm(vmId,userId)
@@ -626,11 +646,7 @@ public class Datacenter extends SimEntity {
 		} else {
 			// has the cloudlet already finished?
 			if (cl.getCloudletStatus() == Cloudlet.SUCCESS) {// if yes, send it back to user
-				int[] data = new int[3];
-				data[0] = getId();
-				data[1] = cloudletId;
-				data[2] = 0;
-				sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_SUBMIT_ACK, data);
+				sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_SUBMIT_ACK, getId(), cloudletId, 0);
 				sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_RETURN, cl);
 			}
 
@@ -655,15 +671,12 @@ public class Datacenter extends SimEntity {
 		}
 
 		if (type == CloudSimTags.CLOUDLET_MOVE_ACK) {// send ACK if requested
-			int[] data = new int[3];
-			data[0] = getId();
-			data[1] = cloudletId;
-			if (failed) {
-				data[2] = 0;
-			} else {
-				data[2] = 1;
-			}
-			sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_SUBMIT_ACK, data);
+			sendNow(
+					cl.getUserId(),
+					CloudSimTags.CLOUDLET_SUBMIT_ACK,
+					getId(),
+					cloudletId,
+					failed ? 0 : 1);
 		}
 	}
 
@@ -696,14 +709,9 @@ public class Datacenter extends SimEntity {
 				// Hence, this might cause CloudSim to be hanged since waiting
 				// for this Cloudlet back.
 				if (ack) {
-					int[] data = new int[3];
-					data[0] = getId();
-					data[1] = cl.getCloudletId();
-					data[2] = CloudSimTags.FALSE;
-
 					// unique tag = operation tag
 					int tag = CloudSimTags.CLOUDLET_SUBMIT_ACK;
-					sendNow(cl.getUserId(), tag, data);
+					sendNow(cl.getUserId(), tag, getId(), cl.getCloudletId(), CloudSimTags.FALSE);
 				}
 
 				sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_RETURN, cl);
@@ -733,14 +741,9 @@ public class Datacenter extends SimEntity {
 			}
 
 			if (ack) {
-				int[] data = new int[3];
-				data[0] = getId();
-				data[1] = cl.getCloudletId();
-				data[2] = CloudSimTags.TRUE;
-
 				// unique tag = operation tag
 				int tag = CloudSimTags.CLOUDLET_SUBMIT_ACK;
-				sendNow(cl.getUserId(), tag, data);
+				sendNow(cl.getUserId(), tag, getId(), cl.getCloudletId(), CloudSimTags.TRUE);
 			}
 		} catch (ClassCastException c) {
 			Log.printLine(getName() + ".processCloudletSubmit(): " + "ClassCastException error.");
@@ -800,15 +803,12 @@ public class Datacenter extends SimEntity {
 		}
 
 		if (ack) {
-			int[] data = new int[3];
-			data[0] = getId();
-			data[1] = cloudletId;
-			if (status) {
-				data[2] = CloudSimTags.TRUE;
-			} else {
-				data[2] = CloudSimTags.FALSE;
-			}
-			sendNow(userId, CloudSimTags.CLOUDLET_RESUME_ACK, data);
+			sendNow(
+					userId,
+					CloudSimTags.CLOUDLET_RESUME_ACK,
+					getId(),
+					cloudletId,
+					status ? CloudSimTags.TRUE : CloudSimTags.FALSE);
 		}
 	}
 
@@ -827,15 +827,12 @@ public class Datacenter extends SimEntity {
 				.getCloudletScheduler().cloudletPause(cloudletId);
 
 		if (ack) {
-			int[] data = new int[3];
-			data[0] = getId();
-			data[1] = cloudletId;
-			if (status) {
-				data[2] = CloudSimTags.TRUE;
-			} else {
-				data[2] = CloudSimTags.FALSE;
-			}
-			sendNow(userId, CloudSimTags.CLOUDLET_PAUSE_ACK, data);
+			sendNow(
+					userId,
+					CloudSimTags.CLOUDLET_PAUSE_ACK,
+					getId(),
+					cloudletId,
+					status ? CloudSimTags.TRUE : CloudSimTags.FALSE);
 		}
 	}
 
@@ -117,26 +117,30 @@ public class Host {
 			if (getStorage() < vm.getSize()) {
 				Log.printLine("[VmScheduler.addMigratingInVm] Allocation of VM #" + vm.getId() + " to Host #"
 						+ getId() + " failed by storage");
-				System.exit(0);
+				throw new IllegalStateException("Allocation of VM #" + vm.getId() + " to Host #" + getId()
+						+ " failed by storage");
 			}
 
 			if (!getRamProvisioner().allocateRamForVm(vm, vm.getCurrentRequestedRam())) {
 				Log.printLine("[VmScheduler.addMigratingInVm] Allocation of VM #" + vm.getId() + " to Host #"
 						+ getId() + " failed by RAM");
-				System.exit(0);
+				throw new IllegalStateException("Allocation of VM #" + vm.getId() + " to Host #" + getId()
+						+ " failed by RAM");
 			}
 
 			if (!getBwProvisioner().allocateBwForVm(vm, vm.getCurrentRequestedBw())) {
 				Log.printLine("[VmScheduler.addMigratingInVm] Allocation of VM #" + vm.getId() + " to Host #"
 						+ getId() + " failed by BW");
-				System.exit(0);
+				throw new IllegalStateException("Allocation of VM #" + vm.getId() + " to Host #" + getId()
+						+ " failed by BW");
 			}
 
 			getVmScheduler().getVmsMigratingIn().add(vm.getUid());
 			if (!getVmScheduler().allocatePesForVm(vm, vm.getCurrentRequestedMips())) {
 				Log.printLine("[VmScheduler.addMigratingInVm] Allocation of VM #" + vm.getId() + " to Host #"
 						+ getId() + " failed by MIPS");
-				System.exit(0);
+				throw new IllegalStateException("Allocation of VM #" + vm.getId() + " to Host #" + getId()
+						+ " failed by MIPS");
 			}
 
 			setStorage(getStorage() - vm.getSize());
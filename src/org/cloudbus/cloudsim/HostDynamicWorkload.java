@@ -79,12 +79,14 @@ public class HostDynamicWorkload extends Host {
 			getVmScheduler().allocatePesForVm(vm, vm.getCurrentRequestedMips());
 		}
 
+		boolean debug = Log.isEnabled(Log.DEBUG);
 		for (Vm vm : getVmList()) {
 			double totalRequestedMips = vm.getCurrentRequestedTotalMips();
 			double totalAllocatedMips = getVmScheduler().getTotalAllocatedMipsForVm(vm);
 
-			if (!Log.isDisabled()) {
+			if (debug) {
 				Log.formatLine(
+						Log.DEBUG,
 						"%.2f: [Host #" + getId() + "] Total allocated MIPS for VM #" + vm.getId()
 								+ " (Host #" + vm.getHost().getId()
 								+ ") is %.2f, was requested %.2f out of total %.2f (%.2f%%)",
@@ -101,6 +103,7 @@ public class HostDynamicWorkload extends Host {
 							.getTotalAllocatedMipsForVm(vm)));
 				}
 				Log.formatLine(
+						Log.DEBUG,
 						"%.2f: [Host #" + getId() + "] MIPS for VM #" + vm.getId() + " by PEs ("
 								+ getNumberOfPes() + " * " + getVmScheduler().getPeCapacity() + ")."
 								+ pesString,
@@ -108,19 +111,21 @@ public class HostDynamicWorkload extends Host {
 			}
 
 			if (getVmsMigratingIn().contains(vm)) {
-				Log.formatLine("%.2f: [Host #" + getId() + "] VM #" + vm.getId()
-						+ " is being migrated to Host #" + getId(), CloudSim.clock());
+				if (debug) {
+					Log.formatLine(Log.DEBUG, "%.2f: [Host #" + getId() + "] VM #" + vm.getId()
+							+ " is being migrated to Host #" + getId(), CloudSim.clock());
+				}
 			} else {
-				if (totalAllocatedMips + 0.1 < totalRequestedMips) {
-					Log.formatLine("%.2f: [Host #" + getId() + "] Under allocated MIPS for VM #" + vm.getId()
+				if (totalAllocatedMips + 0.1 < totalRequestedMips && debug) {
+					Log.formatLine(Log.DEBUG, "%.2f: [Host #" + getId() + "] Under allocated MIPS for VM #" + vm.getId()
 							+ ": %.2f", CloudSim.clock(), totalRequestedMips - totalAllocatedMips);
-                                        Log.formatLine("[Host #" + this.getUtilizationMips() + "  Host capacity"+ this.getTotalMips());
+                                        Log.formatLine(Log.DEBUG, "[Host #" + this.getUtilizationMips() + "  Host capacity"+ this.getTotalMips());
                                         double total=0;
                                         for (Vm vm1: this.getVmList()){
-                                            Log.formatLine("[Host #: "+ this.getId()+"vm: "+vm1.getId()+"VM priority: "+vm1.priority+" allocated mip "+this.getTotalAllocatedMipsForVm(vm1)+" requested :" + vm1.getCurrentRequestedMips()+" configured :" + vm1.getMips());
+                                            Log.formatLine(Log.DEBUG, "[Host #: "+ this.getId()+"vm: "+vm1.getId()+"VM priority: "+vm1.priority+" allocated mip "+this.getTotalAllocatedMipsForVm(vm1)+" requested :" + vm1.getCurrentRequestedMips()+" configured :" + vm1.getMips());
                                             total+=this.getTotalAllocatedMipsForVm(vm1);
                                         }
-                                        Log.formatLine("Total mips #: "+ total);
+                                        Log.formatLine(Log.DEBUG, "Total mips #: "+ total);
                                        
 				}
 
@@ -131,9 +136,12 @@ public class HostDynamicWorkload extends Host {
 						(vm.isInMigration() && !getVmsMigratingIn().contains(vm)));
 
 				if (vm.isInMigration()) {
-					Log.formatLine(
-							"%.2f: [Host #" + getId() + "] VM #" + vm.getId() + " is in migration",
-							CloudSim.clock());
+					if (debug) {
+						Log.formatLine(
+								Log.DEBUG,
+								"%.2f: [Host #" + getId() + "] VM #" + vm.getId() + " is in migration",
+								CloudSim.clock());
+					}
 					totalAllocatedMips /= 0.9; // performance degradation due to migration - 10%
 				}
 			}
@@ -154,40 +162,9 @@ public class HostDynamicWorkload extends Host {
                 //for (PowerHost host : this.<PowerHost> getHostList()) {
                     //System.out.println("host: "+host.getId());
                     for (Vm vm: getVmList()) {
-			double vmTotalAllocated = 0;
-			double vmTotalRequested = 0;
-                        double vmslaViolationtotaltime=0;
-			double vmUnderAllocatedDueToMigration = 0;
-                        double vmUnderAllocatedDueToMigrationTotal = 0;
-                        double number=0;
-			double previousTime = -1;
-			double previousAllocated = 0;
-			double previousRequested = 0;
-			boolean previousIsInMigration = false;
-			for (VmStateHistoryEntry entry : vm.getStateHistory()) {
-				if (previousTime != -1) {
-					double timeDiff = entry.getTime() - previousTime;
-					vmTotalAllocated += previousAllocated * timeDiff;
-					vmTotalRequested += previousRequested * timeDiff;
-
-					if (previousAllocated < previousRequested) {
-						if (previousIsInMigration) {
-							vmUnderAllocatedDueToMigration += (previousRequested - previousAllocated)
-									* timeDiff;
-                                                       
-						}
-					}
-				}
-                                //System.out.println("VM ID: "+vm.getId() + " host ID: "+vm.getHost().getId()+" time: "+entry.getTime()+" previous Allocated: "+previousAllocated+" previousRequested: "+previousRequested+" previousTime: "+previousTime+" previousIsInMigration: "+previousIsInMigration);
-                                previousAllocated = entry.getAllocatedMips();
-				previousRequested = entry.getRequestedMips();
-				previousTime = entry.getTime(); 
-				previousIsInMigration = entry.isInMigration();
-			}
-                        
-                        if (((vmTotalRequested - vmTotalAllocated) / vmTotalRequested)> (0.5 * Constants.SLA)) {
+                        if (vm.getSlaAccumulator().getSlaViolation() > (0.5 * Constants.SLA)) {
                             vm.priority=1;
-                            System.out.println("VM ID "+vm.getId() + "  sla:"+ (vmTotalRequested - vmTotalAllocated) / vmTotalRequested);
+                            System.out.println("VM ID "+vm.getId() + "  sla:"+ vm.getSlaAccumulator().getSlaViolation());
                         } else vm.priority=0;
                         
                     }
@@ -11,9 +11,24 @@ package org.cloudbus.cloudsim;
 import java.io.IOException;
 import java.io.OutputStream;
 
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
+
 /**
  * The Log class used for performing loggin of the simulation process. It provides the ability to
- * substitute the output stream by any OutputStream subclass.
+ * substitute the output stream by any OutputStream subclass. The output and the disable output flag
+ * belong to the simulation context of the current thread.
+ * <p>
+ * Each message has a level, {@link #INFO} for the methods without a level parameter, and is printed
+ * only if the output is enabled and the level is at most the log level, {@link #DEBUG} by default
+ * so that all the messages are printed. The methods taking a format and its arguments, or a
+ * {@link MessageSupplier}, build the message only when it is printed. Code that computes values
+ * only for a message, or that logs in loops run for every host or vm, should check
+ * {@link #isEnabled(int)} first, so that nothing is computed nor boxed when the level is off.
+ * <p>
+ * Writing many small messages to a file is slow, so the output of long simulations should be an
+ * {@link org.cloudbus.cloudsim.util.AsyncFileOutputStream}, which writes the messages to the file
+ * in batches from a background thread.
  * 
  * @author Anton Beloglazov
  * @since CloudSim Toolkit 2.0
@@ -23,11 +38,17 @@ public class Log {
 	/** The Constant LINE_SEPARATOR. */
 	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
 
-	/** The output. */
-	private static OutputStream output;
+	/** The level of the errors. */
+	public static final int ERROR = 1;
+
+	/** The level of the warnings. */
+	public static final int WARNING = 2;
 
-	/** The disable output flag. */
-	private static boolean disabled;
+	/** The level of the information messages, at which the methods without a level print. */
+	public static final int INFO = 3;
+
+	/** The level of the detailed messages, e.g. the state of every host at every interval. */
+	public static final int DEBUG = 4;
 
 	/**
 	 * Prints the message.
@@ -35,12 +56,8 @@ public class Log {
 	 * @param message the message
 	 */
 	public static void print(String message) {
-		if (!isDisabled()) {
-			try {
-				getOutput().write(message.getBytes());
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
+		if (isEnabled(INFO)) {
+			write(message);
 		}
 	}
 
@@ -50,7 +67,7 @@ public class Log {
 	 * @param message the message
 	 */
 	public static void print(Object message) {
-		if (!isDisabled()) {
+		if (isEnabled(INFO)) {
 			print(String.valueOf(message));
 		}
 	}
@@ -61,8 +78,8 @@ public class Log {
 	 * @param message the message
 	 */
 	public static void printLine(String message) {
-		if (!isDisabled()) {
-			print(message + LINE_SEPARATOR);
+		if (isEnabled(INFO)) {
+			write(message + LINE_SEPARATOR);
 		}
 	}
 
@@ -70,8 +87,8 @@ public class Log {
 	 * Prints the empty line.
 	 */
 	public static void printLine() {
-		if (!isDisabled()) {
-			print(LINE_SEPARATOR);
+		if (isEnabled(INFO)) {
+			write(LINE_SEPARATOR);
 		}
 	}
 
@@ -81,7 +98,7 @@ public class Log {
 	 * @param message the message
 	 */
 	public static void printLine(Object message) {
-		if (!isDisabled()) {
+		if (isEnabled(INFO)) {
 			printLine(String.valueOf(message));
 		}
 	}
@@ -93,8 +110,8 @@ public class Log {
 	 * @param args the args
 	 */
 	public static void format(String format, Object... args) {
-		if (!isDisabled()) {
-			print(String.format(format, args));
+		if (isEnabled(INFO)) {
+			write(String.format(format, args));
 		}
 	}
 
@@ -105,8 +122,72 @@ public class Log {
 	 * @param args the args
 	 */
 	public static void formatLine(String format, Object... args) {
-		if (!isDisabled()) {
-			printLine(String.format(format, args));
+		if (isEnabled(INFO)) {
+			write(String.format(format, args) + LINE_SEPARATOR);
+		}
+	}
+
+	/**
+	 * Prints the line at a level.
+	 * 
+	 * @param level the level
+	 * @param message the message
+	 */
+	public static void printLine(int level, String message) {
+		if (isEnabled(level)) {
+			write(message + LINE_SEPARATOR);
+		}
+	}
+
+	/**
+	 * Prints the line built by a supplier at a level. The supplier is called only if the level is
+	 * enabled.
+	 * 
+	 * @param level the level
+	 * @param message the supplier of the message
+	 */
+	public static void printLine(int level, MessageSupplier message) {
+		if (isEnabled(level)) {
+			write(message.get() + LINE_SEPARATOR);
+		}
+	}
+
+	/**
+	 * Prints a line formated as in String.format() at a level. The line is formated only if the
+	 * level is enabled.
+	 * 
+	 * @param level the level
+	 * @param format the format
+	 * @param args the args
+	 */
+	public static void formatLine(int level, String format, Object... args) {
+		if (isEnabled(level)) {
+			write(String.format(format, args) + LINE_SEPARATOR);
+		}
+	}
+
+	/**
+	 * Writes the message to the output.
+	 * 
+	 * @param message the message
+	 */
+	private static void write(String message) {
+		try {
+			getOutput().write(message.getBytes());
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Flushes the output, so that the messages written to a buffered or asynchronous output are in
+	 * its file.
+	 */
+	public static void flush() {
+		try {
+			getOutput().flush();
+		} catch (IOException e) {
+			e.printStackTrace();
 		}
 	}
 
@@ -116,7 +197,7 @@ public class Log {
 	 * @param _output the new output
 	 */
 	public static void setOutput(OutputStream _output) {
-		output = _output;
+		CloudSim.getContext().setLogOutput(_output);
 	}
 
 	/**
@@ -125,8 +206,10 @@ public class Log {
 	 * @return the output
 	 */
 	public static OutputStream getOutput() {
+		OutputStream output = CloudSim.getContext().getLogOutput();
 		if (output == null) {
-			setOutput(System.out);
+			output = System.out;
+			setOutput(output);
 		}
 		return output;
 	}
@@ -137,7 +220,7 @@ public class Log {
 	 * @param _disabled the new disabled
 	 */
 	public static void setDisabled(boolean _disabled) {
-		disabled = _disabled;
+		CloudSim.getContext().setLogDisabled(_disabled);
 	}
 
 	/**
@@ -146,7 +229,40 @@ public class Log {
 	 * @return true, if is disable
 	 */
 	public static boolean isDisabled() {
-		return disabled;
+		return CloudSim.getContext().isLogDisabled();
+	}
+
+	/**
+	 * Sets the log level. The messages of a higher level are not printed.
+	 * 
+	 * @param level one of {@link #ERROR}, {@link #WARNING}, {@link #INFO} or {@link #DEBUG}
+	 */
+	public static void setLevel(int level) {
+		if (level < ERROR || level > DEBUG) {
+			throw new IllegalArgumentException("Unknown log level: " + level);
+		}
+		CloudSim.getContext().setLogLevel(level);
+	}
+
+	/**
+	 * Gets the log level.
+	 * 
+	 * @return the log level
+	 */
+	public static int getLevel() {
+		return CloudSim.getContext().getLogLevel();
+	}
+
+	/**
+	 * Checks if the messages of a level are printed, i.e. the output is enabled and the level is at
+	 * most the log level.
+	 * 
+	 * @param level the level
+	 * @return true, if the messages of the level are printed
+	 */
+	public static boolean isEnabled(int level) {
+		SimulationContext context = CloudSim.getContext();
+		return !context.isLogDisabled() && level <= context.getLogLevel();
 	}
 
 	/**
@@ -163,4 +279,18 @@ public class Log {
 		setDisabled(false);
 	}
 
+	/**
+	 * A supplier of a message, which is called only if the message is printed.
+	 */
+	public interface MessageSupplier {
+
+		/**
+		 * Builds the message.
+		 * 
+		 * @return the message
+		 */
+		String get();
+
+	}
+
 }
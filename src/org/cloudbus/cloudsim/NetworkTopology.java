@@ -8,16 +8,17 @@
 
 package org.cloudbus.cloudsim;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.network.CompactTopologicalGraph;
 import org.cloudbus.cloudsim.network.DelayMatrix_Float;
+import org.cloudbus.cloudsim.network.DelayRows_Float;
 import org.cloudbus.cloudsim.network.GraphReaderBrite;
-import org.cloudbus.cloudsim.network.TopologicalGraph;
-import org.cloudbus.cloudsim.network.TopologicalLink;
-import org.cloudbus.cloudsim.network.TopologicalNode;
+import org.cloudbus.cloudsim.network.TopologyCache;
 
 /**
  * NetworkTopology is a class that implements network layer in CloudSim. It reads a BRITE file and
@@ -29,6 +30,18 @@ import org.cloudbus.cloudsim.network.TopologicalNode;
  * Nevertheless, each CloudSim entity must be mapped to one (and only one) BRITE node to allow
  * proper work of the network simulation. Each BRITE node can be mapped to only one entity at a
  * time.
+ * <p>
+ * The delays are computed on the first call to {@link #getDelay(int, int)}, not each time a link
+ * is added. Topologies of up to {@link #getDenseNodeLimit()} nodes, a limit of each topology, keep the delays between all the
+ * nodes in a {@link DelayMatrix_Float}, which is updated incrementally when a link is added
+ * afterwards. Larger topologies compute the delays from a node when they are needed, in a
+ * {@link DelayRows_Float}.
+ * <p>
+ * When a cache directory is set, the parsed BRITE files and their dense delay matrices are kept in
+ * a {@link TopologyCache}, so that the simulations that use the same file skip the parsing and the
+ * computation of the shortest paths.
+ * <p>
+ * The static methods work on the topology of the simulation context of the current thread.
  * 
  * @author Rodrigo N. Calheiros
  * @author Anton Beloglazov
@@ -36,17 +49,53 @@ import org.cloudbus.cloudsim.network.TopologicalNode;
  */
 public class NetworkTopology {
 
-	protected static int nextIdx = 0;
+	protected int nextIdx = 0;
+
+	private boolean networkEnabled = false;
 
-	private static boolean networkEnabled = false;
+	protected DelayMatrix_Float delayMatrix = null;
 
-	protected static DelayMatrix_Float delayMatrix = null;
+	/** The delays of a topology larger than the dense node limit. */
+	protected DelayRows_Float delayRows = null;
+
+	/**
+	 * The available bandwidth between two nodes, or null until {@link #getBwMatrix()} creates it.
+	 * 
+	 * @deprecated use {@link #getNodeBw(int, int)}, which does not need a matrix of all the nodes
+	 */
+	@Deprecated
+	protected double[][] bwMatrix = null;
 
-	protected static double[][] bwMatrix = null;
+	/** Whether the delays must be computed again from the graph. */
+	private boolean delaysStale = false;
 
-	protected static TopologicalGraph graph = null;
+	/** The default number of nodes up to which the delays are kept in a dense matrix. */
+	public static final int DEFAULT_DENSE_NODE_LIMIT = 1000;
 
-	protected static Map<Integer, Integer> map = null;
+	/** The number of nodes up to which the delays are kept in a dense matrix. */
+	private int denseNodeLimit = DEFAULT_DENSE_NODE_LIMIT;
+
+	/** The number of threads that compute a dense delay matrix. */
+	private int delayParallelism = Runtime.getRuntime().availableProcessors();
+
+	/** The cache of the topology files, or null. */
+	private static TopologyCache cache = null;
+
+	/** The key in the cache of the topology file of the graph, or null if the graph is not cached. */
+	private String cacheKey = null;
+
+	protected CompactTopologicalGraph graph = null;
+
+	protected Map<Integer, Integer> map = null;
+
+	/**
+	 * Gets the network topology of the simulation context of the current thread.
+	 * 
+	 * @return the network topology
+	 */
+	private static NetworkTopology getTopology() {
+		return CloudSim.getContext().getNetworkTopology();
+	}
 
 	/**
 	 * Creates the network topology if file exists and if file can be succesfully parsed. File is
@@ -57,15 +106,37 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static void buildNetworkTopology(String fileName) {
+		NetworkTopology topology = getTopology();
 		Log.printLine("Topology file: " + fileName);
 
 		// try to find the file
 		GraphReaderBrite reader = new GraphReaderBrite();
 
 		try {
-			graph = reader.readGraphFile(fileName);
-			map = new HashMap<Integer, Integer>();
-			generateMatrices();
+			TopologyCache.Entry entry = null;
+			String key = null;
+			TopologyCache topologyCache = getCache();
+			if (topologyCache != null) {
+				key = topologyCache.getKey(fileName);
+				entry = readCacheEntry(topologyCache, key);
+			}
+
+			if (entry == null) {
+				topology.graph = reader.readCompactGraphFile(fileName);
+				topology.map = new HashMap<Integer, Integer>();
+				topology.generateMatrices();
+				topology.cacheKey = key;
+				topology.writeCacheEntry(null);
+			} else {
+				topology.graph = entry.getGraph();
+				topology.map = new HashMap<Integer, Integer>();
+				topology.generateMatrices();
+				topology.cacheKey = key;
+				if (entry.getDelays() != null) {
+					topology.delayMatrix = new DelayMatrix_Float(entry.getDelays());
+					topology.delaysStale = false;
+				}
+			}
 		} catch (IOException e) {
 			// problem with the file. Does not simulate network
 			Log.printLine("Problem in processing BRITE file. Network simulation is disabled. Error: "
@@ -75,90 +146,256 @@ public class NetworkTopology {
 	}
 
 	/**
-	 * Generates the matrices used internally to set latency and bandwidth between elements
+	 * Invalidates the matrices used internally to set latency and bandwidth between elements. They
+	 * are generated again when they are needed.
 	 */
-	private static void generateMatrices() {
-		// creates the delay matrix
-		delayMatrix = new DelayMatrix_Float(graph, false);
-
-		// creates the bw matrix
-		bwMatrix = createBwMatrix(graph, false);
+	@SuppressWarnings("deprecation")
+	private void generateMatrices() {
+		delayMatrix = null;
+		delayRows = null;
+		bwMatrix = null;
+		delaysStale = true;
 
 		networkEnabled = true;
 	}
 
 	/**
-	 * Adds a new link in the network topology
+	 * Reads the entry of a topology file in the cache.
 	 * 
-	 * @param srcId ID of the link's source
-	 * @param destId ID of the link's destination
-	 * @param bw Link's bandwidth
-	 * @param lat link's latency
-	 * @pre srcId > 0
-	 * @pre destId > 0
-	 * @post $none
+	 * @param topologyCache the cache
+	 * @param key the key of the topology file
+	 * @return the entry, or null if there is none or it cannot be read
 	 */
-	public static void addLink(int srcId, int destId, double bw, double lat) {
+	private static TopologyCache.Entry readCacheEntry(TopologyCache topologyCache, String key) {
+		try {
+			return topologyCache.read(key);
+		} catch (IOException e) {
+			Log.printLine("Problem in reading the topology cache. The BRITE file is parsed. Error: "
+					+ e.getMessage());
+			return null;
+		}
+	}
 
-		if (graph == null) {
-			graph = new TopologicalGraph();
+	/**
+	 * Writes the graph and the delays in the cache, if the graph is the one of a cached topology
+	 * file.
+	 * 
+	 * @param delays the delays between all the nodes, or null
+	 */
+	private void writeCacheEntry(float[][] delays) {
+		TopologyCache topologyCache = getCache();
+		if (topologyCache == null || cacheKey == null) {
+			return;
+		}
+		try {
+			topologyCache.write(cacheKey, new TopologyCache.Entry(graph, delays));
+		} catch (IOException e) {
+			Log.printLine("Problem in writing the topology cache. Error: " + e.getMessage());
 		}
+	}
 
-		if (map == null) {
-			map = new HashMap<Integer, Integer>();
+	/**
+	 * Generates the delays between the nodes of the graph, if they are stale.
+	 */
+	private void generateDelays() {
+		if (!delaysStale) {
+			return;
+		}
+		if (graph.getNumberOfNodes() <= denseNodeLimit) {
+			delayMatrix = new DelayMatrix_Float(graph, false, delayParallelism);
+			delayRows = null;
+			writeCacheEntry(delayMatrix.getDelayMatrix());
+		} else {
+			delayRows = new DelayRows_Float(graph, false);
+			delayMatrix = null;
 		}
+		delaysStale = false;
+	}
 
-		// maybe add the nodes
-		if (!map.containsKey(srcId)) {
-			graph.addNode(new TopologicalNode(nextIdx));
-			map.put(srcId, nextIdx);
-			nextIdx++;
+	/**
+	 * Gets the delay between two nodes of the graph, generating the delays if they are stale.
+	 * 
+	 * @param srcNode the source node
+	 * @param destNode the destination node
+	 * @return the delay
+	 */
+	protected float getNodeDelay(int srcNode, int destNode) {
+		generateDelays();
+		if (delayMatrix != null) {
+			return delayMatrix.getDelay(srcNode, destNode);
+		}
+		return delayRows.getDelay(srcNode, destNode);
+	}
+
+	/**
+	 * Gets the available bandwidth between two nodes of the graph: the bandwidth of the last link
+	 * between them, in either direction.
+	 * 
+	 * @param srcNode the source node
+	 * @param destNode the destination node
+	 * @return the bandwidth, 0 if the nodes are not linked
+	 */
+	protected double getNodeBw(int srcNode, int destNode) {
+		int link = graph.findLastLink(srcNode, destNode, graph.getNumberOfLinks(), false);
+		return link < 0 ? 0.0 : graph.getLinkBw(link);
+	}
+
+	/**
+	 * Gets the matrix containing the available bandwidth between two nodes, creating it if needed.
+	 * 
+	 * @return the bandwidth matrix, or null if there is no graph
+	 * @deprecated use {@link #getNodeBw(int, int)}, which does not need a matrix of all the nodes
+	 */
+	@Deprecated
+	protected double[][] getBwMatrix() {
+		if (bwMatrix == null && graph != null) {
+			int nodes = graph.getNumberOfNodes();
+			double[][] mtx = new double[nodes][nodes];
+			for (int link = 0; link < graph.getNumberOfLinks(); link++) {
+				mtx[graph.getLinkSrc(link)][graph.getLinkDest(link)] = graph.getLinkBw(link);
+				mtx[graph.getLinkDest(link)][graph.getLinkSrc(link)] = graph.getLinkBw(link);
+			}
+			bwMatrix = mtx;
 		}
+		return bwMatrix;
+	}
 
-		if (!map.containsKey(destId)) {
-			graph.addNode(new TopologicalNode(nextIdx));
-			map.put(destId, nextIdx);
-			nextIdx++;
+	/**
+	 * Updates the delays with the last link added to the graph. The delay matrix is updated
+	 * incrementally if the link only makes paths shorter, otherwise the delays are generated again
+	 * when they are needed.
+	 */
+	@SuppressWarnings("deprecation")
+	private void updateDelays() {
+		// the graph is no longer the one of the topology file
+		cacheKey = null;
+		bwMatrix = null;
+		if (delaysStale || delayMatrix == null || graph.getNumberOfNodes() > denseNodeLimit) {
+			generateMatrices();
+			return;
 		}
+		int link = graph.getNumberOfLinks() - 1;
+		int srcNode = graph.getLinkSrc(link);
+		int destNode = graph.getLinkDest(link);
+		float delay = graph.getLinkDelay(link);
+		int previousLink = graph.findLastLink(srcNode, destNode, link, false);
+		float previousDelay = previousLink < 0 ? 0 : graph.getLinkDelay(previousLink);
+		if (previousDelay != 0 && (delay == 0 || delay > previousDelay)) {
+			// the link is longer than the one it replaces
+			generateMatrices();
+			return;
+		}
+		delayMatrix.addNodes(graph.getNumberOfNodes());
+		delayMatrix.addLink(srcNode, destNode, delay, false);
+	}
 
-		// generate a new link
-		graph.addLink(new TopologicalLink(map.get(srcId), map.get(destId), (float) lat, (float) bw));
+	/**
+	 * Gets the number of nodes up to which the delays of the topology are kept in a dense matrix,
+	 * instead of being computed from a node when they are needed.
+	 * 
+	 * @return the dense node limit, by default {@link #DEFAULT_DENSE_NODE_LIMIT}
+	 */
+	public static int getDenseNodeLimit() {
+		return getTopology().denseNodeLimit;
+	}
+
+	/**
+	 * Sets the number of nodes up to which the delays of the topology are kept in a dense matrix. It
+	 * applies to the delays generated afterwards, and not to the topologies of other simulation
+	 * contexts.
+	 * 
+	 * @param limit the dense node limit
+	 */
+	public static void setDenseNodeLimit(int limit) {
+		getTopology().denseNodeLimit = limit;
+	}
+
+	/**
+	 * Gets the number of threads that compute the dense delay matrix of the topology.
+	 * 
+	 * @return the delay parallelism, by default the number of processors
+	 */
+	public static int getDelayParallelism() {
+		return getTopology().delayParallelism;
+	}
 
-		generateMatrices();
+	/**
+	 * Sets the number of threads that compute the dense delay matrix of the topology. It applies to
+	 * the delays generated afterwards, and not to the topologies of other simulation contexts.
+	 * 
+	 * @param parallelism the delay parallelism
+	 * @throws IllegalArgumentException if the parallelism is not positive
+	 */
+	public static void setDelayParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("The parallelism must be positive");
+		}
+		getTopology().delayParallelism = parallelism;
+	}
 
+	/**
+	 * Gets the cache of the topology files.
+	 * 
+	 * @return the cache, or null if the topology files are not cached
+	 */
+	public static synchronized TopologyCache getCache() {
+		return cache;
 	}
 
 	/**
-	 * Creates the matrix containiing the available bandiwdth beteen two nodes
+	 * Sets the directory in which the parsed topology files and their delays are cached. The
+	 * directory is shared by the simulations of all the threads.
 	 * 
-	 * @param graph topological graph describing the topology
-	 * @param directed true if the graph is directed; false otherwise
-	 * @return the bandwidth graph
+	 * @param directory the directory, or null not to cache the topology files
 	 */
-	private static double[][] createBwMatrix(TopologicalGraph graph, boolean directed) {
-		int nodes = graph.getNumberOfNodes();
+	public static synchronized void setCacheDirectory(String directory) {
+		cache = directory == null ? null : new TopologyCache(new File(directory));
+	}
 
-		double[][] mtx = new double[nodes][nodes];
+	/**
+	 * Adds a new link in the network topology
+	 * 
+	 * @param srcId ID of the link's source
+	 * @param destId ID of the link's destination
+	 * @param bw Link's bandwidth
+	 * @param lat link's latency
+	 * @pre srcId > 0
+	 * @pre destId > 0
+	 * @post $none
+	 */
+	public static void addLink(int srcId, int destId, double bw, double lat) {
+		NetworkTopology topology = getTopology();
 
-		// cleanup matrix
-		for (int i = 0; i < nodes; i++) {
-			for (int j = 0; j < nodes; j++) {
-				mtx[i][j] = 0.0;
-			}
+		if (topology.graph == null) {
+			topology.graph = new CompactTopologicalGraph();
 		}
 
-		Iterator<TopologicalLink> iter = graph.getLinkIterator();
-		while (iter.hasNext()) {
-			TopologicalLink edge = iter.next();
+		if (topology.map == null) {
+			topology.map = new HashMap<Integer, Integer>();
+		}
 
-			mtx[edge.getSrcNodeID()][edge.getDestNodeID()] = edge.getLinkBw();
+		// maybe add the nodes
+		if (!topology.map.containsKey(srcId)) {
+			topology.graph.addNode(topology.nextIdx, 0, 0);
+			topology.map.put(srcId, topology.nextIdx);
+			topology.nextIdx++;
+		}
 
-			if (!directed) {
-				mtx[edge.getDestNodeID()][edge.getSrcNodeID()] = edge.getLinkBw();
-			}
+		if (!topology.map.containsKey(destId)) {
+			topology.graph.addNode(topology.nextIdx, 0, 0);
+			topology.map.put(destId, topology.nextIdx);
+			topology.nextIdx++;
 		}
 
-		return mtx;
+		// generate a new link
+		topology.graph.addLink(
+				topology.map.get(srcId),
+				topology.map.get(destId),
+				(float) lat,
+				(float) bw);
+
+		topology.updateDelays();
+
 	}
 
 	/**
@@ -171,12 +408,13 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static void mapNode(int cloudSimEntityID, int briteID) {
-		if (networkEnabled) {
+		NetworkTopology topology = getTopology();
+		if (topology.networkEnabled) {
 			try {
 				// this CloudSim entity was already mapped?
-				if (!map.containsKey(cloudSimEntityID)) {
-					if (!map.containsValue(briteID)) { // this BRITE node was already mapped?
-						map.put(cloudSimEntityID, briteID);
+				if (!topology.map.containsKey(cloudSimEntityID)) {
+					if (!topology.map.containsValue(briteID)) { // this BRITE node was already mapped?
+						topology.map.put(cloudSimEntityID, briteID);
 					} else {
 						Log.printLine("Error in network mapping. BRITE node " + briteID + " already in use.");
 					}
@@ -199,9 +437,10 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static void unmapNode(int cloudSimEntityID) {
-		if (networkEnabled) {
+		NetworkTopology topology = getTopology();
+		if (topology.networkEnabled) {
 			try {
-				map.remove(cloudSimEntityID);
+				topology.map.remove(cloudSimEntityID);
 			} catch (Exception e) {
 				Log.printLine("Error in network unmapping. CloudSim node: " + cloudSimEntityID);
 			}
@@ -219,10 +458,13 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static double getDelay(int srcID, int destID) {
-		if (networkEnabled) {
+		NetworkTopology topology = getTopology();
+		if (topology.networkEnabled) {
 			try {
 				// add the network latency
-				double delay = delayMatrix.getDelay(map.get(srcID), map.get(destID));
+				double delay = topology.getNodeDelay(
+						topology.map.get(srcID),
+						topology.map.get(destID));
 
 				return delay;
 			} catch (Exception e) {
@@ -242,7 +484,7 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static boolean isNetworkEnabled() {
-		return networkEnabled;
+		return getTopology().networkEnabled;
 	}
 
 }
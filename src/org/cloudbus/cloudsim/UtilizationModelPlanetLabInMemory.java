@@ -58,6 +58,19 @@ public class UtilizationModelPlanetLabInMemory implements UtilizationModel {
 		input.close();
 	}
 
+	/**
+	 * Instantiates a new utilization model PlanetLab with data samples that have already been read.
+	 * The array is not copied, so it can be shared by the models of several simulations as long as
+	 * it is not modified.
+	 * 
+	 * @param data the utilization samples
+	 * @param schedulingInterval the scheduling interval
+	 */
+	public UtilizationModelPlanetLabInMemory(double[] data, double schedulingInterval) {
+		setSchedulingInterval(schedulingInterval);
+		this.data = data;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see cloudsim.power.UtilizationModel#getUtilization(double)
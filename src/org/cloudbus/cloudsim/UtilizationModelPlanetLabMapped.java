@@ -0,0 +1,92 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import org.cloudbus.cloudsim.util.PlanetLabTraceStore;
+
+/**
+ * The UtilizationModelPlanetLabMapped class implements the same model as
+ * {@link UtilizationModelPlanetLabInMemory}, but reads the samples of its trace from a
+ * {@link PlanetLabTraceStore} mapped in memory instead of keeping its own copy of them.
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public class UtilizationModelPlanetLabMapped implements UtilizationModel {
+
+	/** The trace store. */
+	private final PlanetLabTraceStore store;
+
+	/** The index of the trace in the store. */
+	private final int trace;
+
+	/** The scheduling interval. */
+	private double schedulingInterval;
+
+	/**
+	 * Instantiates a new utilization model PlanetLab reading a trace of a store.
+	 * 
+	 * @param store the trace store
+	 * @param trace the index of the trace in the store
+	 * @param schedulingInterval the scheduling interval
+	 */
+	public UtilizationModelPlanetLabMapped(PlanetLabTraceStore store, int trace, double schedulingInterval) {
+		if (trace < 0 || trace >= store.getNumberOfTraces()) {
+			throw new IllegalArgumentException("Trace " + trace + " is not in the store");
+		}
+		this.store = store;
+		this.trace = trace;
+		setSchedulingInterval(schedulingInterval);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see cloudsim.power.UtilizationModel#getUtilization(double)
+	 */
+	@Override
+	public double getUtilization(double time) {
+		if (time % getSchedulingInterval() == 0) {
+			return store.getUtilization(trace, (int) time / (int) getSchedulingInterval());
+		}
+		int time1 = (int) Math.floor(time / getSchedulingInterval());
+		int time2 = (int) Math.ceil(time / getSchedulingInterval());
+		double utilization1 = store.getUtilization(trace, time1);
+		double utilization2 = store.getUtilization(trace, time2);
+		double delta = (utilization2 - utilization1) / ((time2 - time1) * getSchedulingInterval());
+		double utilization = utilization1 + delta * (time - time1 * getSchedulingInterval());
+		return utilization;
+	}
+
+	/**
+	 * Sets the scheduling interval.
+	 * 
+	 * @param schedulingInterval the new scheduling interval
+	 */
+	public void setSchedulingInterval(double schedulingInterval) {
+		this.schedulingInterval = schedulingInterval;
+	}
+
+	/**
+	 * Gets the scheduling interval.
+	 * 
+	 * @return the scheduling interval
+	 */
+	public double getSchedulingInterval() {
+		return schedulingInterval;
+	}
+
+	/**
+	 * Gets the index of the trace in the store.
+	 * 
+	 * @return the trace
+	 */
+	public int getTrace() {
+		return trace;
+	}
+
+}
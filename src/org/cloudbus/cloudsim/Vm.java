@@ -79,6 +79,12 @@ public class Vm {
 	/** The mips allocation history. */
 	private final List<VmStateHistoryEntry> stateHistory = new LinkedList<VmStateHistoryEntry>();
 
+	/** The running totals of the state history. */
+	private final VmSlaAccumulator slaAccumulator = new VmSlaAccumulator();
+
+	/** Whether the states are kept in the state history. */
+	private boolean stateHistoryEnabled = true;
+
 	/**
 	 * Creates a new VMCharacteristics object.
 	 * 
@@ -591,6 +597,38 @@ public class Vm {
 		return stateHistory;
 	}
 
+	/**
+	 * Gets the running totals of the state history, which are kept even if the state history is
+	 * disabled.
+	 * 
+	 * @return the SLA accumulator
+	 */
+	public VmSlaAccumulator getSlaAccumulator() {
+		return slaAccumulator;
+	}
+
+	/**
+	 * Checks if the states are kept in the state history.
+	 * 
+	 * @return true, if the state history is enabled
+	 */
+	public boolean isStateHistoryEnabled() {
+		return stateHistoryEnabled;
+	}
+
+	/**
+	 * Sets whether the states are kept in the state history. Disabling the state history clears it
+	 * and saves the memory of the states, of which only the running totals are then kept.
+	 * 
+	 * @param stateHistoryEnabled whether to keep the states
+	 */
+	public void setStateHistoryEnabled(boolean stateHistoryEnabled) {
+		this.stateHistoryEnabled = stateHistoryEnabled;
+		if (!stateHistoryEnabled) {
+			getStateHistory().clear();
+		}
+	}
+
 	/**
 	 * Adds the state history entry.
 	 * 
@@ -604,6 +642,10 @@ public class Vm {
 			double allocatedMips,
 			double requestedMips,
 			boolean isInMigration) {
+		getSlaAccumulator().add(time, allocatedMips, requestedMips, isInMigration);
+		if (!isStateHistoryEnabled()) {
+			return;
+		}
 		VmStateHistoryEntry newState = new VmStateHistoryEntry(
 				time,
 				allocatedMips,
@@ -0,0 +1,524 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.lists.PeList;
+import org.cloudbus.cloudsim.provisioners.PeProvisioner;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerIndexed;
+import org.cloudbus.cloudsim.util.VmSlotTable;
+
+/**
+ * A time-shared vm scheduler with the policy of {@link VmSchedulerTimeShared}, which keeps the
+ * requested and allocated MIPS of the vms in primitive arrays, by vm slot, instead of in maps of
+ * lists keyed by vm uid. Once the arrays are large enough, deallocating and allocating the PEs of
+ * the vms, as the hosts do at each scheduling interval, does not allocate memory. The PEs are
+ * provisioned through the int-keyed methods of {@link PeProvisionerIndexed} when the PEs have such
+ * provisioners.
+ * <p>
+ * The vms are allocated in the order in which their MIPS were requested, where
+ * {@link VmSchedulerTimeShared} follows the order of a hash map. The MIPS allocated to each vm are
+ * the same, but the vms may be provisioned on other PEs, and sums over the vms may differ in their
+ * last bits.
+ * <p>
+ * {@link #getPeMap()} and {@link #getMipsMap()} return copies of the allocation, built at each
+ * call.
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public class VmSchedulerTimeSharedIndexed extends VmScheduler {
+
+	/** The vms that have requested MIPS, by slot. */
+	private final VmSlotTable vms = new VmSlotTable(8);
+
+	/** The MIPS requested by the vms, by slot. */
+	private double[][] requestedMips = new double[8][];
+
+	/** The number of MIPS requested by the vms, by slot. */
+	private int[] requestedCount = new int[8];
+
+	/** The MIPS allocated to the vms, by slot. */
+	private double[][] allocatedMips = new double[8][];
+
+	/** The number of MIPS allocated to the vms, by slot. */
+	private int[] allocatedCount = new int[8];
+
+	/** Whether MIPS are allocated to the vms, by slot. */
+	private boolean[] allocated = new boolean[8];
+
+	/** Whether the vms have been provisioned on PEs, by slot. */
+	private boolean[] provisioned = new boolean[8];
+
+	/** The PEs the vms have been provisioned on, by slot. */
+	private final List<List<Pe>> pes = new ArrayList<List<Pe>>();
+
+	/** The buffer into which the requested MIPS are copied. */
+	private double[] requestBuffer = new double[4];
+
+	/** The pes in use. */
+	private int pesInUse;
+
+	/**
+	 * Instantiates a new vm scheduler time shared indexed.
+	 * 
+	 * @param pelist the pelist
+	 */
+	public VmSchedulerTimeSharedIndexed(List<? extends Pe> pelist) {
+		super(pelist);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.VmScheduler#allocatePesForVm(org.cloudbus.cloudsim.Vm, java.util.List)
+	 */
+	@Override
+	public boolean allocatePesForVm(Vm vm, List<Double> mipsShareRequested) {
+		int userId = vm.getUserId();
+		int vmId = vm.getId();
+		if (vm.isInMigration()) {
+			if (!isMigratingIn(userId, vmId) && !isMigratingOut(userId, vmId)) {
+				getVmsMigratingOut().add(vm.getUid());
+			}
+		} else {
+			if (isMigratingOut(userId, vmId)) {
+				getVmsMigratingOut().remove(vm.getUid());
+			}
+		}
+		int length = mipsShareRequested.size();
+		if (requestBuffer.length < length) {
+			requestBuffer = new double[length];
+		}
+		int i = 0;
+		for (Double mips : mipsShareRequested) {
+			requestBuffer[i++] = mips;
+		}
+		boolean result = allocatePesForVm(userId, vmId, requestBuffer, length);
+		updatePeProvisioning();
+		return result;
+	}
+
+	/**
+	 * Allocate pes for vm.
+	 * 
+	 * @param userId the user id of the vm
+	 * @param vmId the id of the vm
+	 * @param mipsShareRequested the mips share requested, which may be the array of the requested
+	 *            MIPS of the vm
+	 * @param length the number of requested MIPS
+	 * @return true, if successful
+	 */
+	protected boolean allocatePesForVm(int userId, int vmId, double[] mipsShareRequested, int length) {
+		double totalRequestedMips = 0;
+		double peMips = getPeCapacity();
+		for (int i = 0; i < length; i++) {
+			// each virtual PE of a VM must require not more than the capacity of a physical PE
+			if (mipsShareRequested[i] > peMips) {
+				return false;
+			}
+			totalRequestedMips += mipsShareRequested[i];
+		}
+
+		// This scheduler does not allow over-subscription
+		if (getAvailableMips() < totalRequestedMips) {
+			return false;
+		}
+
+		int slot = setRequestedMips(userId, vmId, mipsShareRequested, length);
+		setPesInUse(getPesInUse() + length);
+
+		boolean migratingIn = isMigratingIn(userId, vmId);
+		boolean migratingOut = isMigratingOut(userId, vmId);
+		if (migratingIn) {
+			// the destination host only experience 10% of the migrating VM's MIPS
+			totalRequestedMips *= 0.1;
+		}
+
+		double[] requested = getRequestedMips(slot);
+		double[] mipsShareAllocated = setAllocatedMips(slot, length);
+		for (int i = 0; i < length; i++) {
+			double mipsRequested = requested[i];
+			if (migratingOut) {
+				// performance degradation due to migration = 10% MIPS
+				mipsRequested *= 0.9;
+			} else if (migratingIn) {
+				// the destination host only experience 10% of the migrating VM's MIPS
+				mipsRequested *= 0.1;
+			}
+			mipsShareAllocated[i] = mipsRequested;
+		}
+
+		setAvailableMips(getAvailableMips() - totalRequestedMips);
+
+		return true;
+	}
+
+	/**
+	 * Update allocation of VMs on PEs.
+	 */
+	protected void updatePeProvisioning() {
+		List<Pe> peList = getPeList();
+		for (int i = 0; i < peList.size(); i++) {
+			peList.get(i).getPeProvisioner().deallocateMipsForAllVms();
+		}
+
+		int peIndex = 0;
+		Pe pe = peList.get(peIndex);
+		PeProvisioner peProvisioner = pe.getPeProvisioner();
+		double availableMips = peProvisioner.getAvailableMips();
+
+		for (int slot = vms.first(); slot != VmSlotTable.NONE; slot = vms.next(slot)) {
+			provisioned[slot] = allocated[slot];
+			if (!allocated[slot]) {
+				continue;
+			}
+			List<Pe> slotPes = pes.get(slot);
+			slotPes.clear();
+
+			for (int i = 0; i < allocatedCount[slot]; i++) {
+				double mips = allocatedMips[slot][i];
+				while (mips >= 0.1) {
+					if (availableMips >= mips) {
+						allocateMipsForVm(peProvisioner, slot, mips);
+						slotPes.add(pe);
+						availableMips -= mips;
+						break;
+					} else {
+						allocateMipsForVm(peProvisioner, slot, availableMips);
+						slotPes.add(pe);
+						mips -= availableMips;
+						if (mips <= 0.1) {
+							break;
+						}
+						if (peIndex + 1 >= peList.size()) {
+							Log.printLine("There is no enough MIPS (" + mips + ") to accommodate VM "
+									+ vms.getUid(slot));
+						}
+						pe = peList.get(++peIndex);
+						peProvisioner = pe.getPeProvisioner();
+						availableMips = peProvisioner.getAvailableMips();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Allocates MIPS of a PE to the vm of a slot.
+	 * 
+	 * @param peProvisioner the provisioner of the PE
+	 * @param slot the slot
+	 * @param mips the mips
+	 */
+	private void allocateMipsForVm(PeProvisioner peProvisioner, int slot, double mips) {
+		if (peProvisioner instanceof PeProvisionerIndexed) {
+			((PeProvisionerIndexed) peProvisioner).allocateMipsForVm(
+					vms.getUserId(slot),
+					vms.getVmId(slot),
+					mips);
+		} else {
+			peProvisioner.allocateMipsForVm(vms.getUid(slot), mips);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.VmScheduler#deallocatePesForVm(org.cloudbus.cloudsim.Vm)
+	 */
+	@Override
+	public void deallocatePesForVm(Vm vm) {
+		int slot = vms.find(vm);
+		if (slot != VmSlotTable.NONE) {
+			vms.remove(slot);
+		}
+		setPesInUse(0);
+		clearAllocatedMips();
+		setAvailableMips(PeList.getTotalMips(getPeList()));
+
+		List<Pe> peList = getPeList();
+		for (int i = 0; i < peList.size(); i++) {
+			peList.get(i).getPeProvisioner().deallocateMipsForVm(vm);
+		}
+
+		for (slot = vms.first(); slot != VmSlotTable.NONE; slot = vms.next(slot)) {
+			allocatePesForVm(vms.getUserId(slot), vms.getVmId(slot), requestedMips[slot], requestedCount[slot]);
+		}
+
+		updatePeProvisioning();
+	}
+
+	/**
+	 * Releases PEs allocated to all the VMs.
+	 * 
+	 * @pre $none
+	 * @post $none
+	 */
+	@Override
+	public void deallocatePesForAllVms() {
+		vms.clear();
+		setAvailableMips(PeList.getTotalMips(getPeList()));
+		for (Pe pe : getPeList()) {
+			pe.getPeProvisioner().deallocateMipsForAllVms();
+		}
+		setPesInUse(0);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.VmScheduler#getPesAllocatedForVM(org.cloudbus.cloudsim.Vm)
+	 */
+	@Override
+	public List<Pe> getPesAllocatedForVM(Vm vm) {
+		int slot = vms.find(vm);
+		if (slot == VmSlotTable.NONE || !provisioned[slot]) {
+			return null;
+		}
+		return pes.get(slot);
+	}
+
+	/**
+	 * Returns the MIPS share of each Pe that is allocated to a given VM, in a new list.
+	 * 
+	 * @param vm the vm
+	 * @return the MIPS share of each Pe, or null if no MIPS are allocated to the vm
+	 */
+	@Override
+	public List<Double> getAllocatedMipsForVm(Vm vm) {
+		int slot = vms.find(vm);
+		if (slot == VmSlotTable.NONE || !allocated[slot]) {
+			return null;
+		}
+		List<Double> mipsShare = new ArrayList<Double>(allocatedCount[slot]);
+		for (int i = 0; i < allocatedCount[slot]; i++) {
+			mipsShare.add(allocatedMips[slot][i]);
+		}
+		return mipsShare;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.VmScheduler#getTotalAllocatedMipsForVm(org.cloudbus.cloudsim.Vm)
+	 */
+	@Override
+	public double getTotalAllocatedMipsForVm(Vm vm) {
+		double allocated = 0;
+		int slot = vms.find(vm);
+		if (slot != VmSlotTable.NONE && this.allocated[slot]) {
+			for (int i = 0; i < allocatedCount[slot]; i++) {
+				allocated += allocatedMips[slot][i];
+			}
+		}
+		return allocated;
+	}
+
+	/**
+	 * Returns maximum available MIPS among all the PEs. For the time shared policy it is just all
+	 * the avaiable MIPS.
+	 * 
+	 * @return max mips
+	 */
+	@Override
+	public double getMaxAvailableMips() {
+		return getAvailableMips();
+	}
+
+	/**
+	 * Gets a copy of the map of the vms to the PEs they are provisioned on.
+	 * 
+	 * @return the pe map
+	 */
+	@Override
+	public Map<String, List<Pe>> getPeMap() {
+		Map<String, List<Pe>> peMap = new LinkedHashMap<String, List<Pe>>();
+		for (int slot = vms.first(); slot != VmSlotTable.NONE; slot = vms.next(slot)) {
+			if (provisioned[slot]) {
+				peMap.put(vms.getUid(slot), new ArrayList<Pe>(pes.get(slot)));
+			}
+		}
+		return peMap;
+	}
+
+	/**
+	 * Gets a copy of the map of the vms to the MIPS allocated to them.
+	 * 
+	 * @return the mips map
+	 */
+	@Override
+	protected Map<String, List<Double>> getMipsMap() {
+		Map<String, List<Double>> mipsMap = new LinkedHashMap<String, List<Double>>();
+		for (int slot = vms.first(); slot != VmSlotTable.NONE; slot = vms.next(slot)) {
+			if (allocated[slot]) {
+				List<Double> mipsShare = new ArrayList<Double>(allocatedCount[slot]);
+				for (int i = 0; i < allocatedCount[slot]; i++) {
+					mipsShare.add(allocatedMips[slot][i]);
+				}
+				mipsMap.put(vms.getUid(slot), mipsShare);
+			}
+		}
+		return mipsMap;
+	}
+
+	/**
+	 * Gets the vms that have requested MIPS, by slot.
+	 * 
+	 * @return the vms
+	 */
+	protected VmSlotTable getVms() {
+		return vms;
+	}
+
+	/**
+	 * Sets the MIPS requested by a vm, adding the vm after the others if it has not requested MIPS
+	 * yet.
+	 * 
+	 * @param userId the user id of the vm
+	 * @param vmId the id of the vm
+	 * @param mips the requested mips, which may be the array of the requested MIPS of the vm
+	 * @param length the number of requested MIPS
+	 * @return the slot of the vm
+	 */
+	protected int setRequestedMips(int userId, int vmId, double[] mips, int length) {
+		int size = vms.size();
+		int slot = vms.add(userId, vmId);
+		if (vms.size() != size) {
+			ensureCapacity(vms.getCapacity());
+			allocated[slot] = false;
+			provisioned[slot] = false;
+		}
+		if (requestedMips[slot] != mips) {
+			if (requestedMips[slot] == null || requestedMips[slot].length < length) {
+				requestedMips[slot] = new double[Math.max(4, length)];
+			}
+			System.arraycopy(mips, 0, requestedMips[slot], 0, length);
+		}
+		requestedCount[slot] = length;
+		return slot;
+	}
+
+	/**
+	 * Gets the MIPS requested by the vm of a slot. Only the first {@link #getRequestedCount(int)}
+	 * values are requested.
+	 * 
+	 * @param slot the slot
+	 * @return the requested mips
+	 */
+	protected double[] getRequestedMips(int slot) {
+		return requestedMips[slot];
+	}
+
+	/**
+	 * Gets the number of MIPS requested by the vm of a slot.
+	 * 
+	 * @param slot the slot
+	 * @return the number of requested mips
+	 */
+	protected int getRequestedCount(int slot) {
+		return requestedCount[slot];
+	}
+
+	/**
+	 * Marks MIPS as allocated to the vm of a slot, and gets the array to put them in.
+	 * 
+	 * @param slot the slot
+	 * @param length the number of allocated mips
+	 * @return the array of the allocated mips of the vm
+	 */
+	protected double[] setAllocatedMips(int slot, int length) {
+		if (allocatedMips[slot] == null || allocatedMips[slot].length < length) {
+			allocatedMips[slot] = new double[Math.max(4, length)];
+		}
+		allocatedCount[slot] = length;
+		allocated[slot] = true;
+		return allocatedMips[slot];
+	}
+
+	/**
+	 * Releases the MIPS allocated to all the vms, keeping their requests.
+	 */
+	protected void clearAllocatedMips() {
+		for (int slot = vms.first(); slot != VmSlotTable.NONE; slot = vms.next(slot)) {
+			allocated[slot] = false;
+		}
+	}
+
+	/**
+	 * Checks if a vm is migrating in.
+	 * 
+	 * @param userId the user id of the vm
+	 * @param vmId the id of the vm
+	 * @return true, if the vm is migrating in
+	 */
+	protected boolean isMigratingIn(int userId, int vmId) {
+		return VmSlotTable.containsUid(getVmsMigratingIn(), userId, vmId);
+	}
+
+	/**
+	 * Checks if a vm is migrating out.
+	 * 
+	 * @param userId the user id of the vm
+	 * @param vmId the id of the vm
+	 * @return true, if the vm is migrating out
+	 */
+	protected boolean isMigratingOut(int userId, int vmId) {
+		return VmSlotTable.containsUid(getVmsMigratingOut(), userId, vmId);
+	}
+
+	/**
+	 * Sets the pes in use.
+	 * 
+	 * @param pesInUse the new pes in use
+	 */
+	protected void setPesInUse(int pesInUse) {
+		this.pesInUse = pesInUse;
+	}
+
+	/**
+	 * Gets the pes in use.
+	 * 
+	 * @return the pes in use
+	 */
+	protected int getPesInUse() {
+		return pesInUse;
+	}
+
+	/**
+	 * Grows the arrays of the slots.
+	 * 
+	 * @param capacity the number of slots
+	 */
+	private void ensureCapacity(int capacity) {
+		if (requestedCount.length < capacity) {
+			double[][] mips = new double[capacity][];
+			System.arraycopy(requestedMips, 0, mips, 0, requestedMips.length);
+			requestedMips = mips;
+			mips = new double[capacity][];
+			System.arraycopy(allocatedMips, 0, mips, 0, allocatedMips.length);
+			allocatedMips = mips;
+			int[] count = new int[capacity];
+			System.arraycopy(requestedCount, 0, count, 0, requestedCount.length);
+			requestedCount = count;
+			count = new int[capacity];
+			System.arraycopy(allocatedCount, 0, count, 0, allocatedCount.length);
+			allocatedCount = count;
+			boolean[] flags = new boolean[capacity];
+			System.arraycopy(allocated, 0, flags, 0, allocated.length);
+			allocated = flags;
+			flags = new boolean[capacity];
+			System.arraycopy(provisioned, 0, flags, 0, provisioned.length);
+			provisioned = flags;
+		}
+		while (pes.size() < capacity) {
+			pes.add(new ArrayList<Pe>());
+		}
+	}
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import java.util.List;
+
+import org.cloudbus.cloudsim.lists.PeList;
+import org.cloudbus.cloudsim.util.VmSlotTable;
+
+/**
+ * A time-shared vm scheduler with the over-subscription policy of
+ * {@link VmSchedulerTimeSharedOverSubscription}, which keeps the requested and allocated MIPS of the
+ * vms in primitive arrays, by vm slot, as {@link VmSchedulerTimeSharedIndexed} does.
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public class VmSchedulerTimeSharedOverSubscriptionIndexed extends VmSchedulerTimeSharedIndexed {
+
+	/**
+	 * Instantiates a new vm scheduler time shared over subscription indexed.
+	 * 
+	 * @param pelist the pelist
+	 */
+	public VmSchedulerTimeSharedOverSubscriptionIndexed(List<? extends Pe> pelist) {
+		super(pelist);
+	}
+
+	/**
+	 * Allocate pes for vm. The policy allows over-subscription. In other words, the policy still
+	 * allows the allocation of VMs that require more CPU capacity that is available.
+	 * Oversubscription results in performance degradation. Each virtual PE cannot be allocated more
+	 * CPU capacity than MIPS of a single PE.
+	 * 
+	 * @param userId the user id of the vm
+	 * @param vmId the id of the vm
+	 * @param mipsShareRequested the mips share requested
+	 * @param length the number of requested MIPS
+	 * @return true, if successful
+	 */
+	@Override
+	protected boolean allocatePesForVm(int userId, int vmId, double[] mipsShareRequested, int length) {
+		int slot = setRequestedMips(userId, vmId, mipsShareRequested, length);
+		double[] requested = getRequestedMips(slot);
+
+		// if the requested mips is bigger than the capacity of a single PE, we cap
+		// the request to the PE's capacity
+		double totalRequestedMips = 0;
+		double peMips = getPeCapacity();
+		for (int i = 0; i < length; i++) {
+			totalRequestedMips += requested[i] > peMips ? peMips : requested[i];
+		}
+
+		setPesInUse(getPesInUse() + length);
+
+		boolean migratingIn = isMigratingIn(userId, vmId);
+		if (migratingIn) {
+			// the destination host only experience 10% of the migrating VM's MIPS
+			totalRequestedMips *= 0.1;
+		}
+
+		if (getAvailableMips() >= totalRequestedMips) {
+			boolean migratingOut = isMigratingOut(userId, vmId);
+			double[] mipsShareAllocated = setAllocatedMips(slot, length);
+			for (int i = 0; i < length; i++) {
+				double mipsRequested = requested[i] > peMips ? peMips : requested[i];
+				if (migratingOut) {
+					// performance degradation due to migration = 10% MIPS
+					mipsRequested *= 0.9;
+				} else if (migratingIn) {
+					// the destination host only experience 10% of the migrating VM's MIPS
+					mipsRequested *= 0.1;
+				}
+				mipsShareAllocated[i] = mipsRequested;
+			}
+
+			setAvailableMips(getAvailableMips() - totalRequestedMips);
+		} else {
+			redistributeMipsDueToOverSubscription();
+		}
+
+		return true;
+	}
+
+	/**
+	 * This method recalculates distribution of MIPs among VMs considering eventual shortage of MIPS
+	 * compared to the amount requested by VMs.
+	 */
+	protected void redistributeMipsDueToOverSubscription() {
+		VmSlotTable vms = getVms();
+		double peMips = getPeCapacity();
+
+		// First, we calculate the scaling factor - the MIPS allocation for all VMs will be scaled
+		// proportionally
+		double totalRequiredMipsByAllVms = 0;
+		for (int slot = vms.first(); slot != VmSlotTable.NONE; slot = vms.next(slot)) {
+			double requiredMipsByThisVm = 0.0;
+			double[] requested = getRequestedMips(slot);
+			for (int i = 0; i < getRequestedCount(slot); i++) {
+				requiredMipsByThisVm += requested[i] > peMips ? peMips : requested[i];
+			}
+			if (isMigratingIn(vms.getUserId(slot), vms.getVmId(slot))) {
+				// the destination host only experience 10% of the migrating VM's MIPS
+				requiredMipsByThisVm *= 0.1;
+			}
+			totalRequiredMipsByAllVms += requiredMipsByThisVm;
+		}
+
+		double totalAvailableMips = PeList.getTotalMips(getPeList());
+		double scalingFactor = totalAvailableMips / totalRequiredMipsByAllVms;
+
+		// Clear the old MIPS allocation
+		clearAllocatedMips();
+
+		// Update the actual MIPS allocated to the VMs
+		for (int slot = vms.first(); slot != VmSlotTable.NONE; slot = vms.next(slot)) {
+			boolean migratingOut = isMigratingOut(vms.getUserId(slot), vms.getVmId(slot));
+			boolean migratingIn = isMigratingIn(vms.getUserId(slot), vms.getVmId(slot));
+			double[] requested = getRequestedMips(slot);
+			int length = getRequestedCount(slot);
+			double[] updatedMipsAllocation = setAllocatedMips(slot, length);
+			for (int i = 0; i < length; i++) {
+				double mips = requested[i] > peMips ? peMips : requested[i];
+				if (migratingOut) {
+					// the original amount is scaled
+					mips *= scalingFactor;
+					// performance degradation due to migration = 10% MIPS
+					mips *= 0.9;
+				} else if (migratingIn) {
+					// the destination host only experiences 10% of the migrating VM's MIPS
+					mips *= 0.1;
+					// the final 10% of the requested MIPS are scaled
+					mips *= scalingFactor;
+				} else {
+					mips *= scalingFactor;
+				}
+				updatedMipsAllocation[i] = Math.floor(mips);
+			}
+		}
+
+		// As the host is oversubscribed, there no more available MIPS
+		setAvailableMips(0);
+	}
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+/**
+ * Running totals of the state history of a vm, from which the SLA metrics of the vm are read
+ * without walking its history. Each state holds from its time to the time of the next state, so a
+ * state is only accounted for once the next one is added. As in the state history, a state added
+ * at the time of the last state replaces it.
+ * <p>
+ * The totals are summed in the order of the history, and so are equal to the ones computed by
+ * walking the state history of the vm.
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public class VmSlaAccumulator {
+
+	/** The time of the last state, or -1 if no state has been added. */
+	private double lastTime = -1;
+
+	/** The allocated mips of the last state. */
+	private double lastAllocatedMips;
+
+	/** The requested mips of the last state. */
+	private double lastRequestedMips;
+
+	/** Whether the vm was in migration in the last state. */
+	private boolean lastInMigration;
+
+	/** The total allocated mips, multiplied by time. */
+	private double totalAllocatedMips;
+
+	/** The total requested mips, multiplied by time. */
+	private double totalRequestedMips;
+
+	/** The total under-allocated mips, multiplied by time. */
+	private double underAllocatedMips;
+
+	/** The total under-allocated mips while the vm was in migration, multiplied by time. */
+	private double underAllocatedMipsDueToMigration;
+
+	/** The total time during which the vm was under-allocated. */
+	private double slaViolationTime;
+
+	/** The number of under-allocated states. */
+	private int underAllocationCount;
+
+	/** The number of under-allocated states in which the vm was in migration. */
+	private int underAllocationDueToMigrationCount;
+
+	/** The sum of the under-allocated fractions of the requested mips of the under-allocated states. */
+	private double underAllocationRatioSum;
+
+	/**
+	 * Adds a state of the vm.
+	 * 
+	 * @param time the time
+	 * @param allocatedMips the allocated mips
+	 * @param requestedMips the requested mips
+	 * @param isInMigration the is in migration
+	 */
+	public void add(double time, double allocatedMips, double requestedMips, boolean isInMigration) {
+		if (lastTime != -1 && lastTime != time) {
+			double timeDiff = time - lastTime;
+			totalAllocatedMips += lastAllocatedMips * timeDiff;
+			totalRequestedMips += lastRequestedMips * timeDiff;
+			if (lastAllocatedMips < lastRequestedMips) {
+				double underAllocated = (lastRequestedMips - lastAllocatedMips) * timeDiff;
+				slaViolationTime += timeDiff;
+				underAllocatedMips += underAllocated;
+				underAllocationCount++;
+				underAllocationRatioSum += (lastRequestedMips - lastAllocatedMips) / lastRequestedMips;
+				if (lastInMigration) {
+					underAllocatedMipsDueToMigration += underAllocated;
+					underAllocationDueToMigrationCount++;
+				}
+			}
+		}
+		lastTime = time;
+		lastAllocatedMips = allocatedMips;
+		lastRequestedMips = requestedMips;
+		lastInMigration = isInMigration;
+	}
+
+	/**
+	 * Gets the SLA violation of the vm, i.e. the fraction of the requested mips that has not been
+	 * allocated.
+	 * 
+	 * @return the SLA violation, or NaN if no mips have been requested yet
+	 */
+	public double getSlaViolation() {
+		return (totalRequestedMips - totalAllocatedMips) / totalRequestedMips;
+	}
+
+	/**
+	 * Gets the total allocated mips, multiplied by time.
+	 * 
+	 * @return the total allocated mips
+	 */
+	public double getTotalAllocatedMips() {
+		return totalAllocatedMips;
+	}
+
+	/**
+	 * Gets the total requested mips, multiplied by time.
+	 * 
+	 * @return the total requested mips
+	 */
+	public double getTotalRequestedMips() {
+		return totalRequestedMips;
+	}
+
+	/**
+	 * Gets the total under-allocated mips, multiplied by time.
+	 * 
+	 * @return the under-allocated mips
+	 */
+	public double getUnderAllocatedMips() {
+		return underAllocatedMips;
+	}
+
+	/**
+	 * Gets the total under-allocated mips while the vm was in migration, multiplied by time.
+	 * 
+	 * @return the under-allocated mips due to migration
+	 */
+	public double getUnderAllocatedMipsDueToMigration() {
+		return underAllocatedMipsDueToMigration;
+	}
+
+	/**
+	 * Gets the total time during which the vm was under-allocated.
+	 * 
+	 * @return the SLA violation time
+	 */
+	public double getSlaViolationTime() {
+		return slaViolationTime;
+	}
+
+	/**
+	 * Gets the number of under-allocated states.
+	 * 
+	 * @return the under-allocation count
+	 */
+	public int getUnderAllocationCount() {
+		return underAllocationCount;
+	}
+
+	/**
+	 * Gets the number of under-allocated states in which the vm was in migration.
+	 * 
+	 * @return the under-allocation count due to migration
+	 */
+	public int getUnderAllocationDueToMigrationCount() {
+		return underAllocationDueToMigrationCount;
+	}
+
+	/**
+	 * Gets the sum of the under-allocated fractions of the requested mips of the under-allocated
+	 * states.
+	 * 
+	 * @return the under-allocation ratio sum
+	 */
+	public double getUnderAllocationRatioSum() {
+		return underAllocationRatioSum;
+	}
+
+}
@@ -9,18 +9,19 @@
 package org.cloudbus.cloudsim.core;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Calendar;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.core.predicates.Predicate;
 import org.cloudbus.cloudsim.core.predicates.PredicateAny;
 import org.cloudbus.cloudsim.core.predicates.PredicateNone;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
 
 /**
  * This class extends the CloudSimCore to enable network simulation in CloudSim. Also, it disables
@@ -39,32 +40,60 @@ public class CloudSim {
 	/** The Constant CLOUDSIM_VERSION_STRING. */
 	private static final String CLOUDSIM_VERSION_STRING = "3.0";
 
-	/** The id of CIS entity. */
-	private static int cisId = -1;
+	/** The Constant NOT_FOUND. */
+	private static final int NOT_FOUND = -1;
 
-	/** The id of CloudSimShutdown entity. */
-	@SuppressWarnings("unused")
-	private static int shutdownId = -1;
+	/** The maximum number of processed events kept for reuse when the events are recycled. */
+	private static final int MAX_EVENT_POOL_SIZE = 65536;
 
-	/** The CIS object. */
-	private static CloudInformationService cis = null;
+	/** The future event queue backed by a {@link java.util.TreeSet}. */
+	public static final int FUTURE_QUEUE_TREE_SET = 0;
 
-	/** The Constant NOT_FOUND. */
-	private static final int NOT_FOUND = -1;
+	/** The future event queue backed by a binary heap. */
+	public static final int FUTURE_QUEUE_BINARY_HEAP = 1;
 
-	/** The trace flag. */
-	@SuppressWarnings("unused")
-	private static boolean traceFlag = false;
+	/** The future event queue backed by a 4-ary heap. */
+	public static final int FUTURE_QUEUE_QUATERNARY_HEAP = 2;
 
-	/** The calendar. */
-	private static Calendar calendar = null;
+	/** The future event queue backed by a calendar queue. */
+	public static final int FUTURE_QUEUE_CALENDAR = 3;
 
-	/** The termination time. */
-	private static double terminateAt = -1;
+	/** The context used by the threads that have no context of their own. */
+	private static final SimulationContext DEFAULT_CONTEXT = new SimulationContext();
+
+	/** The context bound to each thread. */
+	private static final ThreadLocal<SimulationContext> CONTEXT = new ThreadLocal<SimulationContext>() {
+
+		@Override
+		protected SimulationContext initialValue() {
+			return DEFAULT_CONTEXT;
+		}
+	};
+
+	/**
+	 * Gets the simulation context bound to the current thread. All the static methods of this class
+	 * work on this context.
+	 * 
+	 * @return the simulation context of the current thread
+	 */
+	public static SimulationContext getContext() {
+		return CONTEXT.get();
+	}
+
+	/**
+	 * Binds a simulation context to the current thread, so that the simulation initialised and run
+	 * afterwards on this thread is independent from the simulations of the other threads.
+	 * 
+	 * @param context the simulation context, or null to go back to the default context
+	 */
+	public static void setContext(SimulationContext context) {
+		if (context == null) {
+			CONTEXT.remove();
+		} else {
+			CONTEXT.set(context);
+		}
+	}
 
-	/** The minimal time between events. Events within shorter periods after the last event are discarded. */
-	private static double minTimeBetweenEvents = 0.1;
-	
 	/**
 	 * Initialises all the common attributes.
 	 * 
@@ -78,21 +107,22 @@ public class CloudSim {
 	 */
 	private static void initCommonVariable(Calendar _calendar, boolean _traceFlag, int numUser) throws Exception 
         {
+		SimulationContext context = getContext();
 		initialize();
 		// NOTE: the order for the below 3 lines are important
-		traceFlag = _traceFlag;
+		context.traceFlag = _traceFlag;
 
 		// Set the current Wall clock time as the starting time of
 		// simulation
 		if (_calendar == null) {
-			calendar = Calendar.getInstance();
+			context.calendar = Calendar.getInstance();
 		} else {
-			calendar = _calendar;
+			context.calendar = _calendar;
 		}
 
 		// creates a CloudSimShutdown object
 		CloudSimShutdown shutdown = new CloudSimShutdown("CloudSimShutdown", numUser);
-		shutdownId = shutdown.getId();
+		context.shutdownId = shutdown.getId();
 	}
 
 	/**
@@ -117,14 +147,15 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static void init(int numUser, Calendar cal, boolean traceFlag) {
+		SimulationContext context = getContext();
 		try {
 			initCommonVariable(cal, traceFlag, numUser);
 
 			// create a GIS object
-			cis = new CloudInformationService("CloudInformationService");
+			context.cis = new CloudInformationService("CloudInformationService");
 
 			// set all the above entity IDs
-			cisId = cis.getId();
+			context.cisId = context.cis.getId();
 		} catch (IllegalArgumentException s) {
 			Log.printLine("CloudSim.init(): The simulation has been terminated due to an unexpected error");
 			Log.printLine(s.getMessage());
@@ -163,7 +194,7 @@ public class CloudSim {
 	    }
 	    
 	    init(numUser, cal, traceFlag);
-	    minTimeBetweenEvents = periodBetweenEvents;
+	    getContext().minTimeBetweenEvents = periodBetweenEvents;
 	}
 	
 	
@@ -183,16 +214,17 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static double startSimulation() throws NullPointerException {
+		SimulationContext context = getContext();
 		Log.printLine("Starting CloudSim version " + CLOUDSIM_VERSION_STRING);
 		try {
 			double clock = run();
 
 			// reset all static variables
-			cisId = -1;
-			shutdownId = -1;
-			cis = null;
-			calendar = null;
-			traceFlag = false;
+			context.cisId = -1;
+			context.shutdownId = -1;
+			context.cis = null;
+			context.calendar = null;
+			context.traceFlag = false;
 
 			return clock;
 		} catch (IllegalArgumentException e) {
@@ -229,7 +261,7 @@ public class CloudSim {
 	 * @return true, if successful; false otherwise.
 	 */
 	public static boolean terminateSimulation() {
-		running = false;
+		getContext().running = false;
 		printMessage("Simulation: Reached termination time.");
 		return true;
 	}
@@ -241,10 +273,11 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean terminateSimulation(double time) {
-		if (time <= clock) {
+		SimulationContext context = getContext();
+		if (time <= context.clock) {
 			return false;
 		} else {
-			terminateAt = time;
+			context.terminateAt = time;
 		}
 		return true;
 	}
@@ -255,7 +288,75 @@ public class CloudSim {
 	 * @return the minimum time between events.
 	 */
 	public static double getMinTimeBetweenEvents() {
-	    return minTimeBetweenEvents;
+	    return getContext().minTimeBetweenEvents;
+	}
+
+	/**
+	 * Sets the type of the future event queue used by the simulations initialised afterwards. All
+	 * the types deliver the events in exactly the same order, they only differ in performance.
+	 * 
+	 * @param type one of {@link #FUTURE_QUEUE_TREE_SET}, {@link #FUTURE_QUEUE_BINARY_HEAP},
+	 *            {@link #FUTURE_QUEUE_QUATERNARY_HEAP} or {@link #FUTURE_QUEUE_CALENDAR}
+	 */
+	public static void setFutureQueueType(int type) {
+		if (type < FUTURE_QUEUE_TREE_SET || type > FUTURE_QUEUE_CALENDAR) {
+			throw new IllegalArgumentException("Unknown future queue type: " + type);
+		}
+		getContext().futureQueueType = type;
+	}
+
+	/**
+	 * Gets the type of the future event queue used by the simulations initialised afterwards.
+	 * 
+	 * @return the future queue type
+	 */
+	public static int getFutureQueueType() {
+		return getContext().futureQueueType;
+	}
+
+	/**
+	 * Enables or disables event recycling. When it is enabled, an event is returned to a pool once
+	 * its destination entity has processed it, and reused for a later event instead of creating a
+	 * new one, which reduces the garbage produced by long simulations. Entities must then not keep
+	 * references to the events they process, nor to the <tt>int[]</tt> or {@link Double} returned
+	 * by {@link SimEvent#getData()} for the events carrying int or double values.
+	 * 
+	 * @param recycling true to recycle the events
+	 */
+	public static void setEventRecycling(boolean recycling) {
+		SimulationContext context = getContext();
+		context.eventRecycling = recycling;
+		if (!recycling) {
+			Arrays.fill(context.eventPool, 0, context.eventPoolSize, null);
+			context.eventPoolSize = 0;
+		}
+	}
+
+	/**
+	 * Checks if event recycling is enabled.
+	 * 
+	 * @return true, if the events are recycled
+	 */
+	public static boolean isEventRecycling() {
+		return getContext().eventRecycling;
+	}
+
+	/**
+	 * Creates a future event queue of the configured type.
+	 * 
+	 * @return the future event queue
+	 */
+	protected static FutureQueue createFutureQueue() {
+		switch (getContext().futureQueueType) {
+			case FUTURE_QUEUE_TREE_SET:
+				return new FutureQueueTreeSet();
+			case FUTURE_QUEUE_BINARY_HEAP:
+				return new FutureQueueHeap(2);
+			case FUTURE_QUEUE_CALENDAR:
+				return new FutureQueueCalendar();
+			default:
+				return new FutureQueueHeap(4);
+		}
 	}
 
 	/**
@@ -268,10 +369,11 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static Calendar getSimulationCalendar() {
+		SimulationContext context = getContext();
 		// make a new copy
-		Calendar clone = calendar;
-		if (calendar != null) {
-			clone = (Calendar) calendar.clone();
+		Calendar clone = context.calendar;
+		if (context.calendar != null) {
+			clone = (Calendar) context.calendar.clone();
 		}
 
 		return clone;
@@ -285,7 +387,7 @@ public class CloudSim {
 	 * @post $result >= -1
 	 */
 	public static int getCloudInfoServiceEntityId() {
-		return cisId;
+		return getContext().cisId;
 	}
 
 	/**
@@ -298,59 +400,31 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static List<Integer> getCloudResourceList() {
-		if (cis == null) {
+		SimulationContext context = getContext();
+		if (context.cis == null) {
 			return null;
 		}
 
-		return cis.getList();
+		return context.cis.getList();
 	}
 
 	// ======== SIMULATION METHODS ===============//
 
-	/** The entities. */
-	private static List<SimEntity> entities;
-
-	/** The future event queue. */
-	protected static FutureQueue future;
-
-	/** The deferred event queue. */
-	protected static DeferredQueue deferred;
-
-	/** The simulation clock. */
-	private static double clock;
-
-	/** Flag for checking if the simulation is running. */
-	private static boolean running;
-
-	/** The entities by name. */
-	private static Map<String, SimEntity> entitiesByName;
-
-	// The predicates used in entity wait methods
-	/** The wait predicates. */
-	private static Map<Integer, Predicate> waitPredicates;
-
-	/** The paused. */
-	private static boolean paused = false;
-
-	/** The pause at. */
-	private static long pauseAt = -1;
-
-	/** The abrupt terminate. */
-	private static boolean abruptTerminate = false;
-
 	/**
 	 * Initialise the simulation for stand alone simulations. This function should be called at the
 	 * start of the simulation.
 	 */
 	protected static void initialize() {
+		SimulationContext context = getContext();
 		Log.printLine("Initialising...");
-		entities = new ArrayList<SimEntity>();
-		entitiesByName = new LinkedHashMap<String, SimEntity>();
-		future = new FutureQueue();
-		deferred = new DeferredQueue();
-		waitPredicates = new HashMap<Integer, Predicate>();
-		clock = 0;
-		running = false;
+		context.entities = new ArrayList<SimEntity>();
+		context.entitiesByName = new LinkedHashMap<String, SimEntity>();
+		context.future = createFutureQueue();
+		context.deferred = new DeferredQueue();
+		context.runnable = new BitSet();
+		context.waitPredicates = new HashMap<Integer, Predicate>();
+		context.clock = 0;
+		context.running = false;
 	}
 
 	// The two standard predicates
@@ -369,7 +443,7 @@ public class CloudSim {
 	 * @return the simulation time
 	 */
 	public static double clock() {
-		return clock;
+		return getContext().clock;
 	}
 
 	/**
@@ -378,7 +452,7 @@ public class CloudSim {
 	 * @return The number of entities
 	 */
 	public static int getNumEntities() {
-		return entities.size();
+		return getContext().entities.size();
 	}
 
 	/**
@@ -388,7 +462,7 @@ public class CloudSim {
 	 * @return The entity, or if it could not be found
 	 */
 	public static SimEntity getEntity(int id) {
-		return entities.get(id);
+		return getContext().entities.get(id);
 	}
 
 	/**
@@ -398,7 +472,7 @@ public class CloudSim {
 	 * @return The entity
 	 */
 	public static SimEntity getEntity(String name) {
-		return entitiesByName.get(name);
+		return getContext().entitiesByName.get(name);
 	}
 
 	/**
@@ -408,7 +482,7 @@ public class CloudSim {
 	 * @return The entity's unique id number
 	 */
 	public static int getEntityId(String name) {
-		SimEntity obj = entitiesByName.get(name);
+		SimEntity obj = getContext().entitiesByName.get(name);
 		if (obj == null) {
 			return NOT_FOUND;
 		} else {
@@ -458,7 +532,7 @@ public class CloudSim {
 		// create a new list to prevent the user from changing
 		// the list of entities used by Simulation
 		List<SimEntity> list = new LinkedList<SimEntity>();
-		list.addAll(entities);
+		list.addAll(getContext().entities);
 		return list;
 	}
 
@@ -471,17 +545,18 @@ public class CloudSim {
 	 * @param e The new entity
 	 */
 	public static void addEntity(SimEntity e) {
+		SimulationContext context = getContext();
 		SimEvent evt;
-		if (running) {
+		if (context.running) {
 			// Post an event to make this entity
-			evt = new SimEvent(SimEvent.CREATE, clock, 1, 0, 0, e);
-			future.addEvent(evt);
+			evt = newEvent(context, SimEvent.CREATE, context.clock, 1, 0, 0, e);
+			context.future.addEvent(evt);
 		}
 		if (e.getId() == -1) { // Only add once!
-			int id = entities.size();
+			int id = context.entities.size();
 			e.setId(id);
-			entities.add(e);
-			entitiesByName.put(e.getName(), e);
+			context.entities.add(e);
+			context.entitiesByName.put(e.getName(), e);
 		}
 	}
 
@@ -507,53 +582,97 @@ public class CloudSim {
 	 * @return true, if successful otherwise
 	 */
 	public static boolean runClockTick() {
+		SimulationContext context = getContext();
 		SimEntity ent;
 		boolean queue_empty;
-		
-		int entities_size = entities.size();
 
-		for (int i = 0; i < entities_size; i++) {
-			ent = entities.get(i);
+		// Only the entities that were woken up or received a deferred event are visited
+		for (int i = context.runnable.nextSetBit(0); i >= 0; i = context.runnable.nextSetBit(i + 1)) {
+			context.runnable.clear(i);
+			ent = context.entities.get(i);
 			if (ent.getState() == SimEntity.RUNNABLE) {
 				ent.run();
 			}
 		}
-				
+
 		// If there are more future events then deal with them
-		if (future.size() > 0) {
-			List<SimEvent> toRemove = new ArrayList<SimEvent>();
-			Iterator<SimEvent> fit = future.iterator();
+		if (context.future.size() > 0) {
 			queue_empty = false;
-			SimEvent first = fit.next();
+			SimEvent first = context.future.poll();
+			double time = first.eventTime();
 			processEvent(first);
-			future.remove(first);
-
-			fit = future.iterator();
 
 			// Check if next events are at same time...
-			boolean trymore = fit.hasNext();
-			while (trymore) {
-				SimEvent next = fit.next();
-				if (next.eventTime() == first.eventTime()) {
-					processEvent(next);
-					toRemove.add(next);
-					trymore = fit.hasNext();
-				} else {
-					trymore = false;
-				}
+			SimEvent next = context.future.peek();
+			while (next != null && next.eventTime() == time) {
+				context.future.poll();
+				processEvent(next);
+				next = context.future.peek();
 			}
 
-			future.removeAll(toRemove);
-
 		} else {
 			queue_empty = true;
-			running = false;
+			context.running = false;
 			printMessage("Simulation: No more future events");
 		}
 
 		return queue_empty;
 	}
 
+	/**
+	 * Internal method used to mark an entity as runnable, so that it is run in the next clock tick.
+	 * It should <b>not</b> be called from user simulations.
+	 * 
+	 * @param id the entity id
+	 */
+	static void markRunnable(int id) {
+		SimulationContext context = getContext();
+		if (context.runnable != null) {
+			context.runnable.set(id);
+		}
+	}
+
+	/**
+	 * Creates an event, reusing a recycled one if event recycling is enabled.
+	 * 
+	 * @param context the simulation context
+	 * @param evtype the internal event type
+	 * @param time the time at which the event should occur
+	 * @param src the id of the entity who scheduled the event
+	 * @param dest the id of the entity the event will be sent to
+	 * @param tag the user defined type of the event
+	 * @param data the data the event is carrying
+	 * @return the event
+	 */
+	private static SimEvent newEvent(SimulationContext context, int evtype, double time, int src, int dest,
+			int tag, Object data) {
+		if (context.eventPoolSize == 0) {
+			return new SimEvent(evtype, time, src, dest, tag, data);
+		}
+		SimEvent e = context.eventPool[--context.eventPoolSize];
+		context.eventPool[context.eventPoolSize] = null;
+		e.init(evtype, time, src, dest, tag, data);
+		return e;
+	}
+
+	/**
+	 * Internal method used to return a processed event to the pool, if event recycling is enabled.
+	 * It should <b>not</b> be called from user simulations.
+	 * 
+	 * @param e the event
+	 */
+	static void releaseEvent(SimEvent e) {
+		SimulationContext context = getContext();
+		if (!context.eventRecycling || context.eventPoolSize == MAX_EVENT_POOL_SIZE) {
+			return;
+		}
+		e.clear();
+		if (context.eventPoolSize == context.eventPool.length) {
+			context.eventPool = Arrays.copyOf(context.eventPool, context.eventPoolSize * 2);
+		}
+		context.eventPool[context.eventPoolSize++] = e;
+	}
+
 	/**
 	 * Internal method used to stop the simulation. This method should <b>not</b> be used directly.
 	 */
@@ -568,9 +687,10 @@ public class CloudSim {
 	 * @param delay the delay
 	 */
 	public static void hold(int src, long delay) {
-		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, clock + delay, src);
-		future.addEvent(e);
-		entities.get(src).setState(SimEntity.HOLDING);
+		SimulationContext context = getContext();
+		SimEvent e = newEvent(context, SimEvent.HOLD_DONE, context.clock + delay, src, -1, -1, null);
+		context.future.addEvent(e);
+		context.entities.get(src).setState(SimEntity.HOLDING);
 	}
 
 	/**
@@ -580,9 +700,10 @@ public class CloudSim {
 	 * @param delay the delay
 	 */
 	public static void pause(int src, double delay) {
-		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, clock + delay, src);
-		future.addEvent(e);
-		entities.get(src).setState(SimEntity.HOLDING);
+		SimulationContext context = getContext();
+		SimEvent e = newEvent(context, SimEvent.HOLD_DONE, context.clock + delay, src, -1, -1, null);
+		context.future.addEvent(e);
+		context.entities.get(src).setState(SimEntity.HOLDING);
 	}
 
 	/**
@@ -595,12 +716,86 @@ public class CloudSim {
 	 * @param data the data
 	 */
 	public static void send(int src, int dest, double delay, int tag, Object data) {
+		SimulationContext context = getContext();
 		if (delay < 0) {
 			throw new IllegalArgumentException("Send delay can't be negative.");
 		}
 
-		SimEvent e = new SimEvent(SimEvent.SEND, clock + delay, src, dest, tag, data);
-		future.addEvent(e);
+		SimEvent e = newEvent(context, SimEvent.SEND, context.clock + delay, src, dest, tag, data);
+		context.future.addEvent(e);
+	}
+
+	/**
+	 * Used to send an event carrying three int values from one entity to another. The values are
+	 * returned by {@link SimEvent#getIntData(int)}, or as an <tt>int[]</tt> by
+	 * {@link SimEvent#getData()}.
+	 * 
+	 * @param src the src
+	 * @param dest the dest
+	 * @param delay the delay
+	 * @param tag the tag
+	 * @param data0 the first value
+	 * @param data1 the second value
+	 * @param data2 the third value
+	 */
+	public static void send(int src, int dest, double delay, int tag, int data0, int data1, int data2) {
+		SimulationContext context = getContext();
+		if (delay < 0) {
+			throw new IllegalArgumentException("Send delay can't be negative.");
+		}
+
+		SimEvent e = newEvent(context, SimEvent.SEND, context.clock + delay, src, dest, tag, null);
+		e.setIntData(data0, data1, data2);
+		context.future.addEvent(e);
+	}
+
+	/**
+	 * Used to send an event carrying five int values from one entity to another, as the
+	 * {@link CloudSimTags#CLOUDLET_MOVE} requests. The values are returned by
+	 * {@link SimEvent#getIntData(int)}, or as an <tt>int[]</tt> by {@link SimEvent#getData()}.
+	 * 
+	 * @param src the src
+	 * @param dest the dest
+	 * @param delay the delay
+	 * @param tag the tag
+	 * @param data0 the first value
+	 * @param data1 the second value
+	 * @param data2 the third value
+	 * @param data3 the fourth value
+	 * @param data4 the fifth value
+	 */
+	public static void send(int src, int dest, double delay, int tag, int data0, int data1, int data2,
+			int data3, int data4) {
+		SimulationContext context = getContext();
+		if (delay < 0) {
+			throw new IllegalArgumentException("Send delay can't be negative.");
+		}
+
+		SimEvent e = newEvent(context, SimEvent.SEND, context.clock + delay, src, dest, tag, null);
+		e.setIntData(data0, data1, data2, data3, data4);
+		context.future.addEvent(e);
+	}
+
+	/**
+	 * Used to send an event carrying a double value from one entity to another. The value is
+	 * returned by {@link SimEvent#getDoubleData()}, or as a {@link Double} by
+	 * {@link SimEvent#getData()}.
+	 * 
+	 * @param src the src
+	 * @param dest the dest
+	 * @param delay the delay
+	 * @param tag the tag
+	 * @param data the value
+	 */
+	public static void sendDouble(int src, int dest, double delay, int tag, double data) {
+		SimulationContext context = getContext();
+		if (delay < 0) {
+			throw new IllegalArgumentException("Send delay can't be negative.");
+		}
+
+		SimEvent e = newEvent(context, SimEvent.SEND, context.clock + delay, src, dest, tag, null);
+		e.setDoubleData(data);
+		context.future.addEvent(e);
 	}
 
 	/**
@@ -613,12 +808,13 @@ public class CloudSim {
 	 * @param data the data
 	 */
 	public static void sendFirst(int src, int dest, double delay, int tag, Object data) {
+		SimulationContext context = getContext();
 		if (delay < 0) {
 			throw new IllegalArgumentException("Send delay can't be negative.");
 		}
 
-		SimEvent e = new SimEvent(SimEvent.SEND, clock + delay, src, dest, tag, data);
-		future.addEventFirst(e);
+		SimEvent e = newEvent(context, SimEvent.SEND, context.clock + delay, src, dest, tag, data);
+		context.future.addEventFirst(e);
 	}
 
 	/**
@@ -630,112 +826,74 @@ public class CloudSim {
 	 * @param p the p
 	 */
 	public static void wait(int src, Predicate p) {
-		entities.get(src).setState(SimEntity.WAITING);
+		SimulationContext context = getContext();
+		context.entities.get(src).setState(SimEntity.WAITING);
 		if (p != SIM_ANY) {
 			// If a predicate has been used store it in order to check it
-			waitPredicates.put(src, p);
+			context.waitPredicates.put(src, p);
 		}
 	}
 
 	/**
-	 * Checks if events for a specific entity are present in the deferred event queue.
+	 * Checks if events for a specific entity are present in the deferred event queue. Only the
+	 * deferred events sent to the entity are visited.
 	 * 
 	 * @param d the d
 	 * @param p the p
 	 * @return the int
 	 */
 	public static int waiting(int d, Predicate p) {
-		int count = 0;
-		SimEvent event;
-		Iterator<SimEvent> iterator = deferred.iterator();
-		while (iterator.hasNext()) {
-			event = iterator.next();
-			if ((event.getDestination() == d) && (p.match(event))) {
-				count++;
-			}
-		}
-		return count;
+		return getContext().deferred.count(d, p);
 	}
 
 	/**
-	 * Selects an event matching a predicate.
+	 * Selects an event matching a predicate. Only the deferred events sent to the entity are
+	 * visited.
 	 * 
 	 * @param src the src
 	 * @param p the p
-	 * @return the sim event
+	 * @return the sim event, or null if no event matches
 	 */
 	public static SimEvent select(int src, Predicate p) {
-		SimEvent ev = null;
-		Iterator<SimEvent> iterator = deferred.iterator();
-		while (iterator.hasNext()) {
-			ev = iterator.next();
-			if (ev.getDestination() == src && p.match(ev)) {
-				iterator.remove();
-				break;
-			}
-		}
-		return ev;
+		return getContext().deferred.select(src, p);
 	}
 
 	/**
-	 * Find first deferred event matching a predicate.
+	 * Find first deferred event matching a predicate. Only the deferred events sent to the entity
+	 * are visited.
 	 * 
 	 * @param src the src
 	 * @param p the p
 	 * @return the sim event
 	 */
 	public static SimEvent findFirstDeferred(int src, Predicate p) {
-		SimEvent ev = null;
-		Iterator<SimEvent> iterator = deferred.iterator();
-		while (iterator.hasNext()) {
-			ev = iterator.next();
-			if (ev.getDestination() == src && p.match(ev)) {
-				break;
-			}
-		}
-		return ev;
+		return getContext().deferred.findFirst(src, p);
 	}
 
 	/**
-	 * Removes an event from the event queue.
+	 * Removes an event from the event queue. Only the events sent by the entity are visited, and
+	 * only those with the predicate tags for a {@link PredicateType}.
 	 * 
 	 * @param src the src
 	 * @param p the p
 	 * @return the sim event
 	 */
 	public static SimEvent cancel(int src, Predicate p) {
-		SimEvent ev = null;
-		Iterator<SimEvent> iter = future.iterator();
-		while (iter.hasNext()) {
-			ev = iter.next();
-			if (ev.getSource() == src && p.match(ev)) {
-				iter.remove();
-				break;
-			}
-		}
-
-		return ev;
+		return getContext().future.removeFirst(src, p);
 	}
 
 	/**
 	 * Removes all events that match a given predicate from the future event queue returns true if
-	 * at least one event has been cancelled; false otherwise.
+	 * at least one event has been cancelled; false otherwise. Only the events sent by the entity are
+	 * visited, and only those with the predicate tags for a {@link PredicateType}, so that the cost
+	 * is proportional to the number of cancelled events.
 	 * 
 	 * @param src the src
 	 * @param p the p
 	 * @return true, if successful
 	 */
 	public static boolean cancelAll(int src, Predicate p) {
-		SimEvent ev = null;
-		int previousSize = future.size();
-		Iterator<SimEvent> iter = future.iterator();
-		while (iter.hasNext()) {
-			ev = iter.next();
-			if (ev.getSource() == src && p.match(ev)) {
-				iter.remove();
-			}
-		}
-		return previousSize < future.size();
+		return getContext().future.removeAll(src, p);
 	}
 
 	//
@@ -748,13 +906,14 @@ public class CloudSim {
 	 * @param e the e
 	 */
 	private static void processEvent(SimEvent e) {
+		SimulationContext context = getContext();
 		int dest, src;
 		SimEntity dest_ent;
 		// Update the system's clock
-		if (e.eventTime() < clock) {
+		if (e.eventTime() < context.clock) {
 			throw new IllegalArgumentException("Past event detected.");
 		}
-		clock = e.eventTime();
+		context.clock = e.eventTime();
 
 		// Ok now process it
 		switch (e.getType()) {
@@ -764,6 +923,7 @@ public class CloudSim {
 			case SimEvent.CREATE:
 				SimEntity newe = (SimEntity) e.getData();
 				addEntityDynamically(newe);
+				releaseEvent(e);
 				break;
 
 			case SimEvent.SEND:
@@ -773,19 +933,21 @@ public class CloudSim {
 					throw new IllegalArgumentException("Attempt to send to a null entity detected.");
 				} else {
 					int tag = e.getTag();
-					dest_ent = entities.get(dest);
+					dest_ent = context.entities.get(dest);
 					if (dest_ent.getState() == SimEntity.WAITING) {
 						Integer destObj = Integer.valueOf(dest);
-						Predicate p = waitPredicates.get(destObj);
+						Predicate p = context.waitPredicates.get(destObj);
 						if ((p == null) || (tag == 9999) || (p.match(e))) {
-							dest_ent.setEventBuffer((SimEvent) e.clone());
+							dest_ent.setEventBuffer(context.eventRecycling ? e : (SimEvent) e.clone());
 							dest_ent.setState(SimEntity.RUNNABLE);
-							waitPredicates.remove(destObj);
+							context.waitPredicates.remove(destObj);
 						} else {
-							deferred.addEvent(e);
+							context.deferred.addEvent(e);
+							context.runnable.set(dest);
 						}
 					} else {
-						deferred.addEvent(e);
+						context.deferred.addEvent(e);
+						context.runnable.set(dest);
 					}
 				}
 				break;
@@ -795,8 +957,9 @@ public class CloudSim {
 				if (src < 0) {
 					throw new IllegalArgumentException("Null entity holding.");
 				} else {
-					entities.get(src).setState(SimEntity.RUNNABLE);
+					context.entities.get(src).setState(SimEntity.RUNNABLE);
 				}
+				releaseEvent(e);
 				break;
 
 			default:
@@ -809,9 +972,10 @@ public class CloudSim {
 	 * simulations.
 	 */
 	public static void runStart() {
-		running = true;
+		SimulationContext context = getContext();
+		context.running = true;
 		// Start all the entities
-		for (SimEntity ent : entities) {
+		for (SimEntity ent : context.entities) {
 			ent.startEntity();
 		}
 
@@ -825,7 +989,7 @@ public class CloudSim {
 	 * @return if the simulation is still running, otherwise
 	 */
 	public static boolean running() {
-		return running;
+		return getContext().running;
 	}
 
 	/**
@@ -834,8 +998,9 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean pauseSimulation() {
-		paused = true;
-		return paused;
+		SimulationContext context = getContext();
+		context.paused = true;
+		return context.paused;
 	}
 
 	/**
@@ -845,10 +1010,11 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean pauseSimulation(long time) {
-		if (time <= clock) {
+		SimulationContext context = getContext();
+		if (time <= context.clock) {
 			return false;
 		} else {
-			pauseAt = time;
+			context.pauseAt = time;
 		}
 		return true;
 	}
@@ -859,13 +1025,14 @@ public class CloudSim {
 	 * @return if the simulation has been restarted or or otherwise.
 	 */
 	public static boolean resumeSimulation() {
-		paused = false;
+		SimulationContext context = getContext();
+		context.paused = false;
 
-		if (pauseAt <= clock) {
-			pauseAt = -1;
+		if (context.pauseAt <= context.clock) {
+			context.pauseAt = -1;
 		}
 
-		return !paused;
+		return !context.paused;
 	}
 
 	/**
@@ -875,29 +1042,30 @@ public class CloudSim {
 	 * @return the double last clock value
 	 */
 	public static double run() {
-		if (!running) {
+		SimulationContext context = getContext();
+		if (!context.running) {
 			runStart();
 		}
 		while (true) {
-			if (runClockTick() || abruptTerminate) {
+			if (runClockTick() || context.abruptTerminate) {
 				break;
 			}
 
 			// this block allows termination of simulation at a specific time
-			if (terminateAt > 0.0 && clock >= terminateAt) {
+			if (context.terminateAt > 0.0 && context.clock >= context.terminateAt) {
 				terminateSimulation();
-				clock = terminateAt;
+				context.clock = context.terminateAt;
 				break;
 			}
 
-			if (pauseAt != -1
-					&& ((future.size() > 0 && clock <= pauseAt && pauseAt <= future.iterator().next()
-							.eventTime()) || future.size() == 0 && pauseAt <= clock)) {
+			if (context.pauseAt != -1
+					&& ((context.future.size() > 0 && context.clock <= context.pauseAt && context.pauseAt <= context.future.peek().eventTime()) || context.future
+							.size() == 0 && context.pauseAt <= context.clock)) {
 				pauseSimulation();
-				clock = pauseAt;
+				context.clock = context.pauseAt;
 			}
 
-			while (paused) {
+			while (context.paused) {
 				try {
 					Thread.sleep(100);
 				} catch (InterruptedException e) {
@@ -919,39 +1087,41 @@ public class CloudSim {
 	 * in user simulations.
 	 */
 	public static void finishSimulation() {
+		SimulationContext context = getContext();
 		// Allow all entities to exit their body method
-		if (!abruptTerminate) {
-			for (SimEntity ent : entities) {
+		if (!context.abruptTerminate) {
+			for (SimEntity ent : context.entities) {
 				if (ent.getState() != SimEntity.FINISHED) {
 					ent.run();
 				}
 			}
 		}
 
-		for (SimEntity ent : entities) {
+		for (SimEntity ent : context.entities) {
 			ent.shutdownEntity();
 		}
 
 		// reset all static variables
 		// Private data members
-		entities = null;
-		entitiesByName = null;
-		future = null;
-		deferred = null;
-		clock = 0L;
-		running = false;
-
-		waitPredicates = null;
-		paused = false;
-		pauseAt = -1;
-		abruptTerminate = false;
+		context.entities = null;
+		context.entitiesByName = null;
+		context.future = null;
+		context.deferred = null;
+		context.runnable = null;
+		context.clock = 0L;
+		context.running = false;
+
+		context.waitPredicates = null;
+		context.paused = false;
+		context.pauseAt = -1;
+		context.abruptTerminate = false;
 	}
 
 	/**
 	 * Abruptally terminate.
 	 */
 	public static void abruptallyTerminate() {
-		abruptTerminate = true;
+		getContext().abruptTerminate = true;
 	}
 
 	/**
@@ -969,7 +1139,7 @@ public class CloudSim {
 	 * @return true, if is paused
 	 */
 	public static boolean isPaused() {
-		return paused;
+		return getContext().paused;
 	}
 
 }
@@ -8,14 +8,24 @@
 
 package org.cloudbus.cloudsim.core;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateAny;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
 
 /**
- * This class implements the deferred event queue used by {@link Simulation}. The event queue uses a
- * linked list to store the events.
+ * This class implements the deferred event queue used by {@link Simulation}. The events are stored
+ * in one mailbox per destination entity, so that an entity only visits its own events. Each
+ * mailbox keeps its events in the order of the queue: by time, and by arrival for the events with
+ * the same time. An {@link EventIndex} finds the events of a destination with a given tag without
+ * scanning its mailbox.
  * 
  * @author Marcos Dias de Assuncao
  * @since CloudSim Toolkit 1.0
@@ -24,11 +34,31 @@ import java.util.ListIterator;
  */
 public class DeferredQueue {
 
-	/** The list. */
-	private final List<SimEvent> list = new LinkedList<SimEvent>();
+	/** The order of the events in the queue: time, then arrival. */
+	private static final Comparator<SimEvent> ORDER = new Comparator<SimEvent>() {
+
+		@Override
+		public int compare(SimEvent a, SimEvent b) {
+			if (a.eventTime() < b.eventTime()) {
+				return -1;
+			} else if (a.eventTime() > b.eventTime()) {
+				return 1;
+			}
+			return a.getSequence() < b.getSequence() ? -1 : (a.getSequence() > b.getSequence() ? 1 : 0);
+		}
+	};
+
+	/** The mailboxes, indexed by the destination entity id. */
+	private Mailbox[] mailboxes = new Mailbox[16];
 
-	/** The max time. */
-	private double maxTime = -1;
+	/** The size. */
+	private int size = 0;
+
+	/** The arrival sequence, which orders the events with the same time. */
+	private long sequence = 0;
+
+	/** The index of the events by destination entity and tag. */
+	private final EventIndex index = new EventIndex();
 
 	/**
 	 * Adds a new event to the queue. Adding a new event to the queue preserves the temporal order
@@ -37,36 +67,148 @@ public class DeferredQueue {
 	 * @param newEvent The event to be added to the queue.
 	 */
 	public void addEvent(SimEvent newEvent) {
-		// The event has to be inserted as the last of all events
-		// with the same event_time(). Yes, this matters.
-		double eventTime = newEvent.eventTime();
-		if (eventTime >= maxTime) {
-			list.add(newEvent);
-			maxTime = eventTime;
-			return;
-		}
-
-		ListIterator<SimEvent> iterator = list.listIterator();
-		SimEvent event;
-		while (iterator.hasNext()) {
-			event = iterator.next();
-			if (event.eventTime() > eventTime) {
-				iterator.previous();
-				iterator.add(newEvent);
-				return;
+		int destination = newEvent.getDestination();
+		newEvent.setSequence(sequence++);
+		getMailbox(destination, true).add(newEvent);
+		index.add(destination, newEvent);
+		size++;
+	}
+
+	/**
+	 * Removes the first event sent to an entity that matches a predicate.
+	 * 
+	 * @param destination the id of the entity the event is sent to
+	 * @param p the predicate
+	 * @return the removed event, or null if no event matches
+	 */
+	public SimEvent select(int destination, Predicate p) {
+		Mailbox mailbox = getMailbox(destination, false);
+		if (mailbox == null || mailbox.size() == 0) {
+			return null;
+		}
+
+		SimEvent ev;
+		if (p instanceof PredicateAny) {
+			ev = mailbox.removeAt(0);
+		} else if (p instanceof PredicateType) {
+			ev = index.findFirst(destination, p, ORDER);
+			if (ev == null) {
+				return null;
+			}
+			mailbox.remove(ev);
+		} else {
+			int position = mailbox.find(p);
+			if (position < 0) {
+				return null;
 			}
+			ev = mailbox.removeAt(position);
+		}
+
+		index.remove(destination, ev);
+		size--;
+		return ev;
+	}
+
+	/**
+	 * Finds the first event sent to an entity that matches a predicate. Only the events of the
+	 * entity are visited, and only those with the predicate tags for a {@link PredicateType}.
+	 * 
+	 * @param destination the id of the entity the event is sent to
+	 * @param p the predicate
+	 * @return the first matching event, or null if no event matches
+	 */
+	public SimEvent findFirst(int destination, Predicate p) {
+		Mailbox mailbox = getMailbox(destination, false);
+		if (mailbox == null || mailbox.size() == 0) {
+			return null;
+		}
+
+		if (p instanceof PredicateAny) {
+			return mailbox.get(0);
+		} else if (p instanceof PredicateType) {
+			return index.findFirst(destination, p, ORDER);
+		}
+		int position = mailbox.find(p);
+		return position < 0 ? null : mailbox.get(position);
+	}
+
+	/**
+	 * Counts the events sent to an entity that match a predicate.
+	 * 
+	 * @param destination the id of the entity the events are sent to
+	 * @param p the predicate
+	 * @return the number of matching events
+	 */
+	public int count(int destination, Predicate p) {
+		Mailbox mailbox = getMailbox(destination, false);
+		if (mailbox == null || mailbox.size() == 0) {
+			return 0;
 		}
 
-		list.add(newEvent);
+		if (p instanceof PredicateAny) {
+			return mailbox.size();
+		} else if (p instanceof PredicateType) {
+			return index.count(destination, p);
+		}
+		int count = 0;
+		for (int i = 0; i < mailbox.size(); i++) {
+			if (p.match(mailbox.get(i))) {
+				count++;
+			}
+		}
+		return count;
 	}
 
 	/**
-	 * Returns an iterator to the events in the queue.
+	 * Returns an iterator to the events in the queue, in the order of the queue. The iterator walks
+	 * a snapshot of the queue; removing through the iterator removes the event from the queue.
 	 * 
 	 * @return the iterator
 	 */
 	public Iterator<SimEvent> iterator() {
-		return list.iterator();
+		final List<SimEvent> snapshot = new ArrayList<SimEvent>(size);
+		for (Mailbox mailbox : mailboxes) {
+			if (mailbox != null) {
+				for (int i = 0; i < mailbox.size(); i++) {
+					snapshot.add(mailbox.get(i));
+				}
+			}
+		}
+		Collections.sort(snapshot, ORDER);
+
+		return new Iterator<SimEvent>() {
+
+			private int next = 0;
+
+			private SimEvent last;
+
+			@Override
+			public boolean hasNext() {
+				return next < snapshot.size();
+			}
+
+			@Override
+			public SimEvent next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				last = snapshot.get(next++);
+				return last;
+			}
+
+			@Override
+			public void remove() {
+				if (last == null) {
+					throw new IllegalStateException();
+				}
+				int destination = last.getDestination();
+				if (getMailbox(destination, false).remove(last)) {
+					index.remove(destination, last);
+					size--;
+				}
+				last = null;
+			}
+		};
 	}
 
 	/**
@@ -75,14 +217,159 @@ public class DeferredQueue {
 	 * @return the number of events in the queue.
 	 */
 	public int size() {
-		return list.size();
+		return size;
 	}
 
 	/**
 	 * Clears the queue.
 	 */
 	public void clear() {
-		list.clear();
+		mailboxes = new Mailbox[16];
+		index.clear();
+		size = 0;
+	}
+
+	/**
+	 * Gets the mailbox of an entity.
+	 * 
+	 * @param destination the entity id
+	 * @param create whether to create the mailbox if it does not exist
+	 * @return the mailbox, or null if it does not exist and is not created
+	 */
+	private Mailbox getMailbox(int destination, boolean create) {
+		if (destination < 0) {
+			throw new IllegalArgumentException("Attempt to send to a null entity detected.");
+		}
+		if (destination >= mailboxes.length) {
+			if (!create) {
+				return null;
+			}
+			mailboxes = Arrays.copyOf(mailboxes, Math.max(destination + 1, mailboxes.length * 2));
+		}
+		Mailbox mailbox = mailboxes[destination];
+		if (mailbox == null && create) {
+			mailbox = new Mailbox();
+			mailboxes[destination] = mailbox;
+		}
+		return mailbox;
+	}
+
+	/**
+	 * The events sent to one entity, in the order of the queue. Events are appended at the tail,
+	 * unless an event time goes backwards, in which case it is inserted after the last event with
+	 * the same or an earlier time.
+	 */
+	private static class Mailbox {
+
+		/** The events, stored between head (inclusive) and tail (exclusive). */
+		private SimEvent[] events = new SimEvent[4];
+
+		/** The head. */
+		private int head = 0;
+
+		/** The tail. */
+		private int tail = 0;
+
+		/**
+		 * Gets the number of events.
+		 * 
+		 * @return the number of events
+		 */
+		int size() {
+			return tail - head;
+		}
+
+		/**
+		 * Gets an event.
+		 * 
+		 * @param i the position of the event in the mailbox
+		 * @return the event
+		 */
+		SimEvent get(int i) {
+			return events[head + i];
+		}
+
+		/**
+		 * Adds an event in the order of the queue.
+		 * 
+		 * @param event the event
+		 */
+		void add(SimEvent event) {
+			if (tail == events.length) {
+				int length = tail - head;
+				SimEvent[] target = length * 2 > events.length ? new SimEvent[events.length * 2] : events;
+				System.arraycopy(events, head, target, 0, length);
+				if (target == events) {
+					Arrays.fill(events, length, tail, null);
+				}
+				events = target;
+				head = 0;
+				tail = length;
+			}
+
+			// The event has to be inserted as the last of all events
+			// with the same event_time(). Yes, this matters.
+			int position = tail;
+			double eventTime = event.eventTime();
+			while (position > head && events[position - 1].eventTime() > eventTime) {
+				position--;
+			}
+			System.arraycopy(events, position, events, position + 1, tail - position);
+			events[position] = event;
+			tail++;
+		}
+
+		/**
+		 * Finds the first event matching a predicate.
+		 * 
+		 * @param p the predicate
+		 * @return the position of the event in the mailbox, or -1 if no event matches
+		 */
+		int find(Predicate p) {
+			for (int i = head; i < tail; i++) {
+				if (p.match(events[i])) {
+					return i - head;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Removes an event.
+		 * 
+		 * @param i the position of the event in the mailbox
+		 * @return the event
+		 */
+		SimEvent removeAt(int i) {
+			int position = head + i;
+			SimEvent event = events[position];
+			if (position == head) {
+				events[head++] = null;
+			} else {
+				System.arraycopy(events, position + 1, events, position, tail - position - 1);
+				events[--tail] = null;
+			}
+			if (head == tail) {
+				head = 0;
+				tail = 0;
+			}
+			return event;
+		}
+
+		/**
+		 * Removes an event, found by binary search in the order of the queue.
+		 * 
+		 * @param event the event
+		 * @return true, if the event was in the mailbox
+		 */
+		boolean remove(SimEvent event) {
+			int position = Arrays.binarySearch(events, head, tail, event, ORDER);
+			if (position < 0 || events[position] != event) {
+				return false;
+			}
+			removeAt(position - head);
+			return true;
+		}
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,262 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+
+/**
+ * A secondary index of the events of a queue keyed by entity and tag. The future queue indexes its
+ * events by source entity and the deferred queue by destination entity. The events with the same
+ * entity and tag are kept in a doubly linked list threaded through the events themselves, so that
+ * adding and removing an event is O(1) and does not allocate.
+ * 
+ * @since CloudSim Toolkit 3.0
+ * @see FutureQueueAbstract
+ * @see DeferredQueue
+ */
+class EventIndex {
+
+	/** The lists of events of each entity, indexed by the entity id. */
+	private EntityLists[] entities = new EntityLists[16];
+
+	/**
+	 * Adds an event to the index.
+	 * 
+	 * @param entity the entity id the event is indexed by
+	 * @param event the event
+	 */
+	void add(int entity, SimEvent event) {
+		EntityLists lists = getEntityLists(entity, true);
+		int slot = lists.getOrCreateSlot(event.getTag());
+		SimEvent head = lists.heads[slot];
+		event.setIndexPrevious(null);
+		event.setIndexNext(head);
+		if (head != null) {
+			head.setIndexPrevious(event);
+		}
+		lists.heads[slot] = event;
+	}
+
+	/**
+	 * Removes an event from the index. The event must be in the index.
+	 * 
+	 * @param entity the entity id the event is indexed by
+	 * @param event the event
+	 */
+	void remove(int entity, SimEvent event) {
+		SimEvent previous = event.getIndexPrevious();
+		SimEvent next = event.getIndexNext();
+		if (previous != null) {
+			previous.setIndexNext(next);
+		} else {
+			EntityLists lists = getEntityLists(entity, false);
+			lists.heads[lists.getSlot(event.getTag())] = next;
+		}
+		if (next != null) {
+			next.setIndexPrevious(previous);
+		}
+		event.setIndexPrevious(null);
+		event.setIndexNext(null);
+	}
+
+	/**
+	 * Gets the first indexed event of an entity with a given tag. The other events are reached
+	 * through {@link SimEvent#getIndexNext()}, in no particular order.
+	 * 
+	 * @param entity the entity id
+	 * @param tag the tag
+	 * @return the first event, or null if there is none
+	 */
+	SimEvent getHead(int entity, int tag) {
+		EntityLists lists = getEntityLists(entity, false);
+		if (lists == null) {
+			return null;
+		}
+		int slot = lists.getSlot(tag);
+		return slot < 0 ? null : lists.heads[slot];
+	}
+
+	/**
+	 * Gets the number of tag lists of an entity.
+	 * 
+	 * @param entity the entity id
+	 * @return the number of lists
+	 */
+	int getNumberOfLists(int entity) {
+		EntityLists lists = getEntityLists(entity, false);
+		return lists == null ? 0 : lists.count;
+	}
+
+	/**
+	 * Gets the first event of a tag list of an entity.
+	 * 
+	 * @param entity the entity id
+	 * @param list the list number, between 0 and {@link #getNumberOfLists(int)}
+	 * @return the first event, or null if the list is empty
+	 */
+	SimEvent getHeadOfList(int entity, int list) {
+		return getEntityLists(entity, false).heads[list];
+	}
+
+	/**
+	 * Finds the first event of an entity matching a predicate according to the given order. Only
+	 * the lists of the predicate tags are visited for a {@link PredicateType}, otherwise all the
+	 * events of the entity are visited.
+	 * 
+	 * @param entity the entity id
+	 * @param p the predicate
+	 * @param order the order
+	 * @return the first matching event, or null if there is none
+	 */
+	SimEvent findFirst(int entity, Predicate p, Comparator<SimEvent> order) {
+		SimEvent first = null;
+		if (p instanceof PredicateType) {
+			for (int tag : ((PredicateType) p).getTags()) {
+				for (SimEvent ev = getHead(entity, tag); ev != null; ev = ev.getIndexNext()) {
+					if (first == null || order.compare(ev, first) < 0) {
+						first = ev;
+					}
+				}
+			}
+		} else {
+			int numberOfLists = getNumberOfLists(entity);
+			for (int list = 0; list < numberOfLists; list++) {
+				for (SimEvent ev = getHeadOfList(entity, list); ev != null; ev = ev.getIndexNext()) {
+					if (p.match(ev) && (first == null || order.compare(ev, first) < 0)) {
+						first = ev;
+					}
+				}
+			}
+		}
+		return first;
+	}
+
+	/**
+	 * Counts the events of an entity matching a predicate.
+	 * 
+	 * @param entity the entity id
+	 * @param p the predicate
+	 * @return the number of matching events
+	 */
+	int count(int entity, Predicate p) {
+		int count = 0;
+		if (p instanceof PredicateType) {
+			for (int tag : ((PredicateType) p).getTags()) {
+				for (SimEvent ev = getHead(entity, tag); ev != null; ev = ev.getIndexNext()) {
+					count++;
+				}
+			}
+		} else {
+			int numberOfLists = getNumberOfLists(entity);
+			for (int list = 0; list < numberOfLists; list++) {
+				for (SimEvent ev = getHeadOfList(entity, list); ev != null; ev = ev.getIndexNext()) {
+					if (p.match(ev)) {
+						count++;
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Removes all the events from the index.
+	 */
+	void clear() {
+		entities = new EntityLists[16];
+	}
+
+	/**
+	 * Gets the lists of an entity.
+	 * 
+	 * @param entity the entity id
+	 * @param create whether to create the lists if they do not exist
+	 * @return the lists, or null if they do not exist and are not created
+	 */
+	private EntityLists getEntityLists(int entity, boolean create) {
+		if (entity < 0) {
+			throw new IllegalArgumentException("Indexing an event of a null entity.");
+		}
+		if (entity >= entities.length) {
+			if (!create) {
+				return null;
+			}
+			entities = Arrays.copyOf(entities, Math.max(entity + 1, entities.length * 2));
+		}
+		EntityLists lists = entities[entity];
+		if (lists == null && create) {
+			lists = new EntityLists();
+			entities[entity] = lists;
+		}
+		return lists;
+	}
+
+	/**
+	 * The event lists of one entity, one list per tag. An entity only has a few tags in flight, so
+	 * the tags are searched linearly.
+	 */
+	private static class EntityLists {
+
+		/** The tag of each list. */
+		private int[] tags = new int[4];
+
+		/** The first event of each list. */
+		private SimEvent[] heads = new SimEvent[4];
+
+		/** The number of lists. */
+		private int count = 0;
+
+		/**
+		 * Gets the list of a tag.
+		 * 
+		 * @param tag the tag
+		 * @return the list number, or -1 if there is no list for the tag
+		 */
+		int getSlot(int tag) {
+			for (int i = 0; i < count; i++) {
+				if (tags[i] == tag) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Gets the list of a tag, reusing an empty list or creating a new one if needed.
+		 * 
+		 * @param tag the tag
+		 * @return the list number
+		 */
+		int getOrCreateSlot(int tag) {
+			int empty = -1;
+			for (int i = 0; i < count; i++) {
+				if (tags[i] == tag) {
+					return i;
+				}
+				if (empty < 0 && heads[i] == null) {
+					empty = i;
+				}
+			}
+			if (empty < 0) {
+				if (count == tags.length) {
+					tags = Arrays.copyOf(tags, count * 2);
+					heads = Arrays.copyOf(heads, count * 2);
+				}
+				empty = count++;
+			}
+			tags[empty] = tag;
+			return empty;
+		}
+	}
+
+}
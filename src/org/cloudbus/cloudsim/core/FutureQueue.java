@@ -10,25 +10,21 @@ package org.cloudbus.cloudsim.core;
 
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.SortedSet;
-import java.util.TreeSet;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
 
 /**
- * This class implements the future event queue used by {@link Simulation}. The event queue uses a
- * {@link TreeSet} in order to store the events.
+ * The interface of the future event queue used by {@link CloudSim}. Implementations must keep the
+ * events ordered by their time and then by the serial assigned on insertion, i.e. the same order
+ * defined by {@link SimEvent#compareTo(SimEvent)}. Events with equal time and serial are kept in
+ * insertion order.
  * 
  * @author Marcos Dias de Assuncao
  * @since CloudSim Toolkit 1.0
- * @see Simulation
- * @see java.util.TreeSet
+ * @see CloudSim
+ * @see FutureQueueAbstract
  */
-public class FutureQueue {
-
-	/** The sorted set. */
-	private final SortedSet<SimEvent> sortedSet = new TreeSet<SimEvent>();
-
-	/** The serial. */
-	private long serial = 0;
+public interface FutureQueue {
 
 	/**
 	 * Add a new event to the queue. Adding a new event to the queue preserves the temporal order of
@@ -36,38 +32,42 @@ public class FutureQueue {
 	 * 
 	 * @param newEvent The event to be put in the queue.
 	 */
-	public void addEvent(SimEvent newEvent) {
-		newEvent.setSerial(serial++);
-		sortedSet.add(newEvent);
-	}
+	void addEvent(SimEvent newEvent);
 
 	/**
 	 * Add a new event to the head of the queue.
 	 * 
 	 * @param newEvent The event to be put in the queue.
 	 */
-	public void addEventFirst(SimEvent newEvent) {
-		newEvent.setSerial(0);
-		sortedSet.add(newEvent);
-	}
+	void addEventFirst(SimEvent newEvent);
+
+	/**
+	 * Returns the first event of the queue without removing it.
+	 * 
+	 * @return the first event, or null if the queue is empty
+	 */
+	SimEvent peek();
 
 	/**
-	 * Returns an iterator to the queue.
+	 * Removes and returns the first event of the queue.
+	 * 
+	 * @return the first event, or null if the queue is empty
+	 */
+	SimEvent poll();
+
+	/**
+	 * Returns an iterator to the queue. The events are returned in queue order.
 	 * 
 	 * @return the iterator
 	 */
-	public Iterator<SimEvent> iterator() {
-		return sortedSet.iterator();
-	}
+	Iterator<SimEvent> iterator();
 
 	/**
 	 * Returns the size of this event queue.
 	 * 
 	 * @return the size
 	 */
-	public int size() {
-		return sortedSet.size();
-	}
+	int size();
 
 	/**
 	 * Removes the event from the queue.
@@ -75,9 +75,7 @@ public class FutureQueue {
 	 * @param event the event
 	 * @return true, if successful
 	 */
-	public boolean remove(SimEvent event) {
-		return sortedSet.remove(event);
-	}
+	boolean remove(SimEvent event);
 
 	/**
 	 * Removes all the events from the queue.
@@ -85,15 +83,29 @@ public class FutureQueue {
 	 * @param events the events
 	 * @return true, if successful
 	 */
-	public boolean removeAll(Collection<SimEvent> events) {
-		return sortedSet.removeAll(events);
-	}
+	boolean removeAll(Collection<SimEvent> events);
+
+	/**
+	 * Removes the first event sent by an entity that matches a predicate.
+	 * 
+	 * @param source the id of the entity that sent the event
+	 * @param p the predicate
+	 * @return the removed event, or null if no event matches
+	 */
+	SimEvent removeFirst(int source, Predicate p);
+
+	/**
+	 * Removes all the events sent by an entity that match a predicate.
+	 * 
+	 * @param source the id of the entity that sent the events
+	 * @param p the predicate
+	 * @return true, if at least one event has been removed
+	 */
+	boolean removeAll(int source, Predicate p);
 
 	/**
 	 * Clears the queue.
 	 */
-	public void clear() {
-		sortedSet.clear();
-	}
+	void clear();
 
-}
\ No newline at end of file
+}
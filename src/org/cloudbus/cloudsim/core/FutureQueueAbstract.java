@@ -0,0 +1,304 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+
+/**
+ * The base class of the future event queues. It assigns the serials of the events, which define
+ * their order together with the event time, and provides the ordering shared by all the
+ * implementations. It also keeps an {@link EventIndex} of the events by source entity and tag, so
+ * that the events of an entity are cancelled without scanning the whole queue.
+ * 
+ * @since CloudSim Toolkit 3.0
+ * @see FutureQueue
+ */
+public abstract class FutureQueueAbstract implements FutureQueue {
+
+	/**
+	 * The order of the events in the queue: time, then serial and then insertion sequence. The
+	 * insertion sequence only breaks the ties left by {@link #addEventFirst(SimEvent)}, which
+	 * reuses serial 0, exactly as a {@link java.util.TreeSet} ordered by
+	 * {@link SimEvent#compareTo(SimEvent)} does.
+	 */
+	public static final Comparator<SimEvent> EVENT_ORDER = new Comparator<SimEvent>() {
+
+		@Override
+		public int compare(SimEvent a, SimEvent b) {
+			return FutureQueueAbstract.compare(a, b);
+		}
+	};
+
+	/** The serial. */
+	private long serial = 0;
+
+	/** The insertion sequence. */
+	private long sequence = 0;
+
+	/** The index of the events by source entity and tag. */
+	private final EventIndex index = new EventIndex();
+
+	/**
+	 * Compares two events according to the order of the queue.
+	 * 
+	 * @param a the first event
+	 * @param b the second event
+	 * @return a negative number, zero or a positive number as the first event is before, the same
+	 *         as or after the second one
+	 */
+	static int compare(SimEvent a, SimEvent b) {
+		double timeA = a.eventTime();
+		double timeB = b.eventTime();
+		if (timeA < timeB) {
+			return -1;
+		} else if (timeA > timeB) {
+			return 1;
+		}
+		long serialA = a.getSerial();
+		long serialB = b.getSerial();
+		if (serialA < serialB) {
+			return -1;
+		} else if (serialA > serialB) {
+			return 1;
+		}
+		long sequenceA = a.getSequence();
+		long sequenceB = b.getSequence();
+		if (sequenceA < sequenceB) {
+			return -1;
+		} else if (sequenceA > sequenceB) {
+			return 1;
+		}
+		return 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.core.FutureQueue#addEvent(org.cloudbus.cloudsim.core.SimEvent)
+	 */
+	@Override
+	public void addEvent(SimEvent newEvent) {
+		newEvent.setSerial(serial++);
+		newEvent.setSequence(sequence++);
+		insert(newEvent);
+		index.add(newEvent.getSource(), newEvent);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.core.FutureQueue#addEventFirst(org.cloudbus.cloudsim.core.SimEvent)
+	 */
+	@Override
+	public void addEventFirst(SimEvent newEvent) {
+		newEvent.setSerial(0);
+		newEvent.setSequence(sequence++);
+		insert(newEvent);
+		index.add(newEvent.getSource(), newEvent);
+	}
+
+	/**
+	 * Returns an iterator over a sorted snapshot of the queue. Removing through the iterator
+	 * removes the event from the queue.
+	 * 
+	 * @return the iterator
+	 */
+	@Override
+	public Iterator<SimEvent> iterator() {
+		List<SimEvent> snapshot = new ArrayList<SimEvent>(size());
+		collect(snapshot);
+		Collections.sort(snapshot, EVENT_ORDER);
+		return new SnapshotIterator(snapshot);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.core.FutureQueue#poll()
+	 */
+	@Override
+	public SimEvent poll() {
+		SimEvent first = pollFirst();
+		if (first != null) {
+			index.remove(first.getSource(), first);
+		}
+		return first;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.core.FutureQueue#remove(org.cloudbus.cloudsim.core.SimEvent)
+	 */
+	@Override
+	public boolean remove(SimEvent event) {
+		if (!removeEvent(event)) {
+			return false;
+		}
+		index.remove(event.getSource(), event);
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.core.FutureQueue#removeFirst(int,
+	 * org.cloudbus.cloudsim.core.predicates.Predicate)
+	 */
+	@Override
+	public SimEvent removeFirst(int source, Predicate p) {
+		SimEvent first = index.findFirst(source, p, EVENT_ORDER);
+		if (first != null) {
+			remove(first);
+		}
+		return first;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.core.FutureQueue#removeAll(int,
+	 * org.cloudbus.cloudsim.core.predicates.Predicate)
+	 */
+	@Override
+	public boolean removeAll(int source, Predicate p) {
+		boolean removed = false;
+		if (p instanceof PredicateType) {
+			for (int tag : ((PredicateType) p).getTags()) {
+				SimEvent ev = index.getHead(source, tag);
+				while (ev != null) {
+					SimEvent next = ev.getIndexNext();
+					removed |= remove(ev);
+					ev = next;
+				}
+			}
+		} else {
+			int numberOfLists = index.getNumberOfLists(source);
+			for (int list = 0; list < numberOfLists; list++) {
+				SimEvent ev = index.getHeadOfList(source, list);
+				while (ev != null) {
+					SimEvent next = ev.getIndexNext();
+					if (p.match(ev)) {
+						removed |= remove(ev);
+					}
+					ev = next;
+				}
+			}
+		}
+		return removed;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.core.FutureQueue#clear()
+	 */
+	@Override
+	public void clear() {
+		clearEvents();
+		index.clear();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.core.FutureQueue#removeAll(java.util.Collection)
+	 */
+	@Override
+	public boolean removeAll(Collection<SimEvent> events) {
+		boolean removed = false;
+		for (SimEvent event : events) {
+			removed |= remove(event);
+		}
+		return removed;
+	}
+
+	/**
+	 * Inserts an event whose serial and sequence have already been assigned.
+	 * 
+	 * @param event the event
+	 */
+	protected abstract void insert(SimEvent event);
+
+	/**
+	 * Removes and returns the first event of the queue storage.
+	 * 
+	 * @return the first event, or null if the queue is empty
+	 */
+	protected abstract SimEvent pollFirst();
+
+	/**
+	 * Removes an event from the queue storage.
+	 * 
+	 * @param event the event
+	 * @return true, if the event was in the queue
+	 */
+	protected abstract boolean removeEvent(SimEvent event);
+
+	/**
+	 * Removes all the events from the queue storage.
+	 */
+	protected abstract void clearEvents();
+
+	/**
+	 * Adds all the events of the queue, in any order, to the given list.
+	 * 
+	 * @param list the list
+	 */
+	protected abstract void collect(List<SimEvent> list);
+
+	/**
+	 * An iterator over a snapshot of the queue that removes from the queue itself.
+	 */
+	private class SnapshotIterator implements Iterator<SimEvent> {
+
+		/** The snapshot. */
+		private final List<SimEvent> snapshot;
+
+		/** The position of the next event. */
+		private int next = 0;
+
+		/** The last returned event. */
+		private SimEvent last = null;
+
+		/**
+		 * Instantiates a new snapshot iterator.
+		 * 
+		 * @param snapshot the sorted snapshot
+		 */
+		SnapshotIterator(List<SimEvent> snapshot) {
+			this.snapshot = snapshot;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next < snapshot.size();
+		}
+
+		@Override
+		public SimEvent next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			last = snapshot.get(next++);
+			return last;
+		}
+
+		@Override
+		public void remove() {
+			if (last == null) {
+				throw new IllegalStateException();
+			}
+			FutureQueueAbstract.this.remove(last);
+			last = null;
+		}
+	}
+
+}
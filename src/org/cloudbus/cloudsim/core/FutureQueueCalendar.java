@@ -0,0 +1,408 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class implements the future event queue used by {@link CloudSim} as a calendar queue (R.
+ * Brown, "Calendar queues: a fast O(1) priority queue implementation for the simulation event set
+ * problem", Communications of the ACM, 1988). Events are hashed by time into buckets of a fixed
+ * width, each bucket being a sorted array. The number of buckets follows the number of events and
+ * the bucket width is re-estimated from the separation of the first events on every resize.
+ * 
+ * @since CloudSim Toolkit 3.0
+ * @see CloudSim
+ */
+public class FutureQueueCalendar extends FutureQueueAbstract {
+
+	/** The minimal number of buckets. */
+	private static final int MIN_BUCKETS = 16;
+
+	/** The number of events sampled to estimate the bucket width. */
+	private static final int WIDTH_SAMPLE_SIZE = 25;
+
+	/** The buckets, their number is always a power of two. */
+	private Bucket[] buckets;
+
+	/** The width of a bucket in simulation time. */
+	private double width;
+
+	/** The virtual bucket (time divided by width) of the current position of the calendar. */
+	private long current;
+
+	/** The size. */
+	private int size;
+
+	/** Whether the number of buckets can be changed, false while resizing. */
+	private boolean resizeEnabled;
+
+	/**
+	 * Instantiates a new calendar queue.
+	 */
+	public FutureQueueCalendar() {
+		init(MIN_BUCKETS, 1.0);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.core.FutureQueueAbstract#insert(org.cloudbus.cloudsim.core.SimEvent)
+	 */
+	@Override
+	protected void insert(SimEvent event) {
+		long virtualBucket = getVirtualBucket(event.eventTime());
+		if (size == 0 || virtualBucket < current) {
+			current = virtualBucket;
+		}
+		getBucket(virtualBucket).insert(event);
+		size++;
+		if (resizeEnabled && size > 2 * buckets.length) {
+			resize(2 * buckets.length);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.core.FutureQueue#peek()
+	 */
+	@Override
+	public SimEvent peek() {
+		Bucket bucket = locateFirst();
+		return bucket == null ? null : bucket.first();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.core.FutureQueueAbstract#pollFirst()
+	 */
+	@Override
+	protected SimEvent pollFirst() {
+		Bucket bucket = locateFirst();
+		if (bucket == null) {
+			return null;
+		}
+		SimEvent first = bucket.pollFirst();
+		size--;
+		shrinkIfNeeded();
+		return first;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.core.FutureQueue#size()
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.core.FutureQueueAbstract#removeEvent(org.cloudbus.cloudsim.core.SimEvent)
+	 */
+	@Override
+	protected boolean removeEvent(SimEvent event) {
+		if (size == 0 || !getBucket(getVirtualBucket(event.eventTime())).remove(event)) {
+			return false;
+		}
+		size--;
+		shrinkIfNeeded();
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.core.FutureQueueAbstract#clearEvents()
+	 */
+	@Override
+	protected void clearEvents() {
+		init(MIN_BUCKETS, width);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.core.FutureQueueAbstract#collect(java.util.List)
+	 */
+	@Override
+	protected void collect(List<SimEvent> list) {
+		for (Bucket bucket : buckets) {
+			bucket.collect(list);
+		}
+	}
+
+	/**
+	 * Initialises an empty calendar.
+	 * 
+	 * @param numberOfBuckets the number of buckets
+	 * @param bucketWidth the bucket width
+	 */
+	private void init(int numberOfBuckets, double bucketWidth) {
+		buckets = new Bucket[numberOfBuckets];
+		for (int i = 0; i < numberOfBuckets; i++) {
+			buckets[i] = new Bucket();
+		}
+		width = bucketWidth;
+		current = 0;
+		size = 0;
+		resizeEnabled = true;
+	}
+
+	/**
+	 * Gets the virtual bucket of a time, i.e. the number of whole bucket widths before it.
+	 * 
+	 * @param time the time
+	 * @return the virtual bucket
+	 */
+	private long getVirtualBucket(double time) {
+		return (long) Math.floor(time / width);
+	}
+
+	/**
+	 * Gets the bucket that stores the given virtual bucket.
+	 * 
+	 * @param virtualBucket the virtual bucket
+	 * @return the bucket
+	 */
+	private Bucket getBucket(long virtualBucket) {
+		return buckets[(int) (virtualBucket & (buckets.length - 1))];
+	}
+
+	/**
+	 * Finds the bucket holding the first event, advancing the current position of the calendar.
+	 * 
+	 * @return the bucket, or null if the queue is empty
+	 */
+	private Bucket locateFirst() {
+		if (size == 0) {
+			return null;
+		}
+
+		// All the events are at or after the current position, so the first event found in its
+		// own virtual bucket during one turn of the calendar is the first event of the queue
+		for (int i = 0; i < buckets.length; i++) {
+			Bucket bucket = getBucket(current);
+			if (!bucket.isEmpty() && getVirtualBucket(bucket.first().eventTime()) == current) {
+				return bucket;
+			}
+			current++;
+		}
+
+		// The calendar is sparse: jump directly to the first event
+		Bucket firstBucket = null;
+		for (Bucket bucket : buckets) {
+			if (!bucket.isEmpty()
+					&& (firstBucket == null || compare(bucket.first(), firstBucket.first()) < 0)) {
+				firstBucket = bucket;
+			}
+		}
+		current = getVirtualBucket(firstBucket.first().eventTime());
+		return firstBucket;
+	}
+
+	/**
+	 * Halves the number of buckets if the queue has become too small for them.
+	 */
+	private void shrinkIfNeeded() {
+		if (resizeEnabled && buckets.length > MIN_BUCKETS && size < buckets.length / 2) {
+			resize(buckets.length / 2);
+		}
+	}
+
+	/**
+	 * Rebuilds the calendar with a new number of buckets and a width estimated from the average
+	 * separation of the first events.
+	 * 
+	 * @param numberOfBuckets the new number of buckets
+	 */
+	private void resize(int numberOfBuckets) {
+		resizeEnabled = false;
+
+		int sampleSize = Math.min(size, WIDTH_SAMPLE_SIZE);
+		SimEvent[] sample = new SimEvent[sampleSize];
+		for (int i = 0; i < sampleSize; i++) {
+			sample[i] = pollFirst();
+		}
+		double newWidth = estimateWidth(sample);
+
+		List<SimEvent> events = new ArrayList<SimEvent>(size + sampleSize);
+		events.addAll(Arrays.asList(sample));
+		collect(events);
+
+		init(numberOfBuckets, newWidth);
+		resizeEnabled = false;
+		for (SimEvent event : events) {
+			insert(event);
+		}
+		resizeEnabled = true;
+	}
+
+	/**
+	 * Estimates the bucket width as three times the average separation of the sampled events,
+	 * ignoring the separations larger than twice the average. The current width is kept if the
+	 * sampled events are not separated.
+	 * 
+	 * @param sample the first events of the queue, in order
+	 * @return the bucket width
+	 */
+	private double estimateWidth(SimEvent[] sample) {
+		if (sample.length < 2) {
+			return width;
+		}
+		double total = sample[sample.length - 1].eventTime() - sample[0].eventTime();
+		double average = total / (sample.length - 1);
+		double sum = 0;
+		int count = 0;
+		for (int i = 1; i < sample.length; i++) {
+			double separation = sample[i].eventTime() - sample[i - 1].eventTime();
+			if (separation <= 2 * average) {
+				sum += separation;
+				count++;
+			}
+		}
+		double newWidth = count == 0 ? 0 : 3 * sum / count;
+		if (newWidth <= 0 || Double.isInfinite(newWidth) || Double.isNaN(newWidth)) {
+			return width;
+		}
+		return newWidth;
+	}
+
+	/**
+	 * A bucket of the calendar: the events of the bucket sorted in an array.
+	 */
+	private static class Bucket {
+
+		/** The events, stored between head (inclusive) and tail (exclusive). */
+		private SimEvent[] events = new SimEvent[4];
+
+		/** The head. */
+		private int head = 0;
+
+		/** The tail. */
+		private int tail = 0;
+
+		/**
+		 * Checks if the bucket is empty.
+		 * 
+		 * @return true, if empty
+		 */
+		boolean isEmpty() {
+			return head == tail;
+		}
+
+		/**
+		 * Gets the first event of the bucket.
+		 * 
+		 * @return the first event
+		 */
+		SimEvent first() {
+			return events[head];
+		}
+
+		/**
+		 * Removes the first event of the bucket.
+		 * 
+		 * @return the first event
+		 */
+		SimEvent pollFirst() {
+			SimEvent first = events[head];
+			events[head++] = null;
+			if (head == tail) {
+				head = 0;
+				tail = 0;
+			}
+			return first;
+		}
+
+		/**
+		 * Inserts an event keeping the bucket sorted. Events are usually appended at the tail.
+		 * 
+		 * @param event the event
+		 */
+		void insert(SimEvent event) {
+			if (tail == events.length) {
+				int length = tail - head;
+				SimEvent[] target = length * 2 > events.length ? new SimEvent[events.length * 2] : events;
+				System.arraycopy(events, head, target, 0, length);
+				if (target == events) {
+					Arrays.fill(events, length, tail, null);
+				}
+				events = target;
+				head = 0;
+				tail = length;
+			}
+			int position = tail;
+			if (tail > head && compare(event, events[tail - 1]) < 0) {
+				position = search(event);
+				if (position < 0) {
+					position = -position - 1;
+				}
+				System.arraycopy(events, position, events, position + 1, tail - position);
+			}
+			events[position] = event;
+			tail++;
+		}
+
+		/**
+		 * Removes an event from the bucket.
+		 * 
+		 * @param event the event
+		 * @return true, if the event was in the bucket
+		 */
+		boolean remove(SimEvent event) {
+			int position = search(event);
+			if (position < 0 || events[position] != event) {
+				return false;
+			}
+			if (position == head) {
+				pollFirst();
+				return true;
+			}
+			System.arraycopy(events, position + 1, events, position, tail - position - 1);
+			events[--tail] = null;
+			return true;
+		}
+
+		/**
+		 * Adds all the events of the bucket to the given list.
+		 * 
+		 * @param list the list
+		 */
+		void collect(List<SimEvent> list) {
+			for (int i = head; i < tail; i++) {
+				list.add(events[i]);
+			}
+		}
+
+		/**
+		 * Binary search of an event in the bucket.
+		 * 
+		 * @param event the event
+		 * @return the position of the event, or (-(insertion point) - 1) if it is not found
+		 */
+		private int search(SimEvent event) {
+			int low = head;
+			int high = tail - 1;
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+				int comparison = compare(events[middle], event);
+				if (comparison < 0) {
+					low = middle + 1;
+				} else if (comparison > 0) {
+					high = middle - 1;
+				} else {
+					return middle;
+				}
+			}
+			return -(low + 1);
+		}
+	}
+
+}
@@ -0,0 +1,212 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class implements the future event queue used by {@link CloudSim} as an implicit d-ary heap
+ * stored in an array. Each event keeps its position in the heap, so that arbitrary events are
+ * removed in O(log n) without searching for them. A 4-ary heap is usually faster than a binary one
+ * because it is shallower and its children share cache lines.
+ * 
+ * @since CloudSim Toolkit 3.0
+ * @see CloudSim
+ */
+public class FutureQueueHeap extends FutureQueueAbstract {
+
+	/** The default initial capacity. */
+	private static final int DEFAULT_CAPACITY = 64;
+
+	/** The number of children of each node. */
+	private final int arity;
+
+	/** The heap. */
+	private SimEvent[] heap;
+
+	/** The size. */
+	private int size;
+
+	/**
+	 * Instantiates a new 4-ary heap queue.
+	 */
+	public FutureQueueHeap() {
+		this(4);
+	}
+
+	/**
+	 * Instantiates a new heap queue.
+	 * 
+	 * @param arity the number of children of each node, 2 for a binary heap
+	 */
+	public FutureQueueHeap(int arity) {
+		if (arity < 2) {
+			throw new IllegalArgumentException("The arity of the heap should be at least 2, but is: " + arity);
+		}
+		this.arity = arity;
+		heap = new SimEvent[DEFAULT_CAPACITY];
+		size = 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.core.FutureQueueAbstract#insert(org.cloudbus.cloudsim.core.SimEvent)
+	 */
+	@Override
+	protected void insert(SimEvent event) {
+		if (size == heap.length) {
+			heap = Arrays.copyOf(heap, heap.length * 2);
+		}
+		siftUp(size++, event);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.core.FutureQueue#peek()
+	 */
+	@Override
+	public SimEvent peek() {
+		return size == 0 ? null : heap[0];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.core.FutureQueueAbstract#pollFirst()
+	 */
+	@Override
+	protected SimEvent pollFirst() {
+		if (size == 0) {
+			return null;
+		}
+		SimEvent first = heap[0];
+		removeAt(0);
+		return first;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.core.FutureQueue#size()
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.core.FutureQueueAbstract#removeEvent(org.cloudbus.cloudsim.core.SimEvent)
+	 */
+	@Override
+	protected boolean removeEvent(SimEvent event) {
+		int index = event.getQueueIndex();
+		if (index < 0 || index >= size || heap[index] != event) {
+			return false;
+		}
+		removeAt(index);
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.core.FutureQueueAbstract#clearEvents()
+	 */
+	@Override
+	protected void clearEvents() {
+		for (int i = 0; i < size; i++) {
+			heap[i].setQueueIndex(-1);
+			heap[i] = null;
+		}
+		size = 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.core.FutureQueueAbstract#collect(java.util.List)
+	 */
+	@Override
+	protected void collect(List<SimEvent> list) {
+		for (int i = 0; i < size; i++) {
+			list.add(heap[i]);
+		}
+	}
+
+	/**
+	 * Removes the event at the given position of the heap.
+	 * 
+	 * @param index the position
+	 */
+	private void removeAt(int index) {
+		heap[index].setQueueIndex(-1);
+		int last = --size;
+		if (index == last) {
+			heap[last] = null;
+			return;
+		}
+		SimEvent moved = heap[last];
+		heap[last] = null;
+		siftDown(index, moved);
+		if (heap[index] == moved) {
+			siftUp(index, moved);
+		}
+	}
+
+	/**
+	 * Moves an event up from the given position until its parent is not after it.
+	 * 
+	 * @param index the initial position
+	 * @param event the event
+	 */
+	private void siftUp(int index, SimEvent event) {
+		while (index > 0) {
+			int parent = (index - 1) / arity;
+			SimEvent parentEvent = heap[parent];
+			if (compare(event, parentEvent) >= 0) {
+				break;
+			}
+			heap[index] = parentEvent;
+			parentEvent.setQueueIndex(index);
+			index = parent;
+		}
+		heap[index] = event;
+		event.setQueueIndex(index);
+	}
+
+	/**
+	 * Moves an event down from the given position until none of its children is before it.
+	 * 
+	 * @param index the initial position
+	 * @param event the event
+	 */
+	private void siftDown(int index, SimEvent event) {
+		while (true) {
+			int firstChild = index * arity + 1;
+			if (firstChild >= size) {
+				break;
+			}
+			int lastChild = Math.min(firstChild + arity, size);
+			int minChild = firstChild;
+			for (int child = firstChild + 1; child < lastChild; child++) {
+				if (compare(heap[child], heap[minChild]) < 0) {
+					minChild = child;
+				}
+			}
+			SimEvent minEvent = heap[minChild];
+			if (compare(event, minEvent) <= 0) {
+				break;
+			}
+			heap[index] = minEvent;
+			minEvent.setQueueIndex(index);
+			index = minChild;
+		}
+		heap[index] = event;
+		event.setQueueIndex(index);
+	}
+
+}
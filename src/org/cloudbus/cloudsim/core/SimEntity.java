@@ -8,7 +8,6 @@
 
 package org.cloudbus.cloudsim.core;
 
-import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.NetworkTopology;
 import org.cloudbus.cloudsim.core.predicates.Predicate;
 
@@ -348,10 +347,7 @@ public abstract class SimEntity implements Cloneable {
 		if (!CloudSim.running()) {
 			return null;
 		}
-		if (numEventsWaiting(p) > 0) {
-			return selectEvent(p);
-		}
-		return null;
+		return selectEvent(p);
 	}
 
 	/**
@@ -399,11 +395,17 @@ public abstract class SimEntity implements Cloneable {
 	 */
 	public abstract void shutdownEntity();
 
+	/**
+	 * Processes the events waiting for the entity while it is runnable. This method is only invoked
+	 * in the clock ticks after an event was deferred for the entity or it became runnable, so an
+	 * idle entity costs nothing per tick.
+	 */
 	public void run() {
 		SimEvent ev = evbuf != null ? evbuf : getNextEvent();
 
 		while (ev != null) {
 			processEvent(ev);
+			CloudSim.releaseEvent(ev);
 			if (state != RUNNABLE) {
 				break;
 			}
@@ -481,6 +483,9 @@ public abstract class SimEntity implements Cloneable {
 	 */
 	protected void setState(int state) {
 		this.state = state;
+		if (state == RUNNABLE && id >= 0) {
+			CloudSim.markRunnable(id);
+		}
 	}
 
 	/**
@@ -522,6 +527,95 @@ public abstract class SimEntity implements Cloneable {
 			return;
 		}
 
+		schedule(entityId, getSendDelay(entityId, delay), cloudSimTag, data);
+	}
+
+	/**
+	 * Sends an event/message carrying three int values to another entity by <tt>delaying</tt> the
+	 * simulation time from the current time, with a tag representing the event type. The values
+	 * need no boxing or array; the receiver gets them with {@link SimEvent#getIntData(int)}, or as
+	 * an <tt>int[]</tt> with {@link SimEvent#getData()}.
+	 * 
+	 * @param entityId the id number of the destination entity
+	 * @param delay how long from the current simulation time the event should be sent. If delay is
+	 *            a negative number, then it will be changed to 0
+	 * @param cloudSimTag an user-defined number representing the type of an event/message
+	 * @param data0 the first value
+	 * @param data1 the second value
+	 * @param data2 the third value
+	 * @pre entityID > 0
+	 * @pre delay >= 0.0
+	 * @post $none
+	 */
+	protected void send(int entityId, double delay, int cloudSimTag, int data0, int data1, int data2) {
+		if (entityId < 0 || !CloudSim.running()) {
+			return;
+		}
+
+		CloudSim.send(id, entityId, getSendDelay(entityId, delay), cloudSimTag, data0, data1, data2);
+	}
+
+	/**
+	 * Sends an event/message carrying five int values to another entity by <tt>delaying</tt> the
+	 * simulation time from the current time, with a tag representing the event type, as the
+	 * {@link CloudSimTags#CLOUDLET_MOVE} requests. The receiver gets the values with
+	 * {@link SimEvent#getIntData(int)}, or as an <tt>int[]</tt> with {@link SimEvent#getData()}.
+	 * 
+	 * @param entityId the id number of the destination entity
+	 * @param delay how long from the current simulation time the event should be sent. If delay is
+	 *            a negative number, then it will be changed to 0
+	 * @param cloudSimTag an user-defined number representing the type of an event/message
+	 * @param data0 the first value
+	 * @param data1 the second value
+	 * @param data2 the third value
+	 * @param data3 the fourth value
+	 * @param data4 the fifth value
+	 * @pre entityID > 0
+	 * @pre delay >= 0.0
+	 * @post $none
+	 */
+	protected void send(int entityId, double delay, int cloudSimTag, int data0, int data1, int data2,
+			int data3, int data4) {
+		if (entityId < 0 || !CloudSim.running()) {
+			return;
+		}
+
+		CloudSim.send(id, entityId, getSendDelay(entityId, delay), cloudSimTag, data0, data1, data2, data3,
+				data4);
+	}
+
+	/**
+	 * Sends an event/message carrying a double value to another entity by <tt>delaying</tt> the
+	 * simulation time from the current time, with a tag representing the event type. The receiver
+	 * gets the value with {@link SimEvent#getDoubleData()}, or as a {@link Double} with
+	 * {@link SimEvent#getData()}.
+	 * 
+	 * @param entityId the id number of the destination entity
+	 * @param delay how long from the current simulation time the event should be sent. If delay is
+	 *            a negative number, then it will be changed to 0
+	 * @param cloudSimTag an user-defined number representing the type of an event/message
+	 * @param data the value
+	 * @pre entityID > 0
+	 * @pre delay >= 0.0
+	 * @post $none
+	 */
+	protected void sendDouble(int entityId, double delay, int cloudSimTag, double data) {
+		if (entityId < 0 || !CloudSim.running()) {
+			return;
+		}
+
+		CloudSim.sendDouble(id, entityId, getSendDelay(entityId, delay), cloudSimTag, data);
+	}
+
+	/**
+	 * Gets the delay of an event sent to another entity, including the network delay.
+	 * 
+	 * @param entityId the id number of the destination entity
+	 * @param delay how long from the current simulation time the event should be sent. If delay is
+	 *            a negative number, then it will be changed to 0
+	 * @return the delay of the event
+	 */
+	private double getSendDelay(int entityId, double delay) {
 		// if delay is -ve, then it doesn't make sense. So resets to 0.0
 		if (delay < 0) {
 			delay = 0;
@@ -531,17 +625,11 @@ public abstract class SimEntity implements Cloneable {
 			throw new IllegalArgumentException("The specified delay is infinite value");
 		}
 
-		if (entityId < 0) {
-			Log.printLine(getName() + ".send(): Error - " + "invalid entity id " + entityId);
-			return;
-		}
-
 		int srcId = getId();
 		if (entityId != srcId) {// does not delay self messages
 			delay += getNetworkDelay(srcId, entityId);
 		}
-
-		schedule(entityId, delay, cloudSimTag, data);
+		return delay;
 	}
 
 	/**
@@ -628,6 +716,41 @@ public abstract class SimEntity implements Cloneable {
 		send(entityId, 0, cloudSimTag, null);
 	}
 
+	/**
+	 * Sends an event/message carrying three int values to another entity, with a tag representing
+	 * the event type.
+	 * 
+	 * @param entityId the id number of the destination entity
+	 * @param cloudSimTag an user-defined number representing the type of an event/message
+	 * @param data0 the first value
+	 * @param data1 the second value
+	 * @param data2 the third value
+	 * @pre entityID > 0
+	 * @post $none
+	 */
+	protected void sendNow(int entityId, int cloudSimTag, int data0, int data1, int data2) {
+		send(entityId, 0, cloudSimTag, data0, data1, data2);
+	}
+
+	/**
+	 * Sends an event/message carrying five int values to another entity, with a tag representing
+	 * the event type.
+	 * 
+	 * @param entityId the id number of the destination entity
+	 * @param cloudSimTag an user-defined number representing the type of an event/message
+	 * @param data0 the first value
+	 * @param data1 the second value
+	 * @param data2 the third value
+	 * @param data3 the fourth value
+	 * @param data4 the fifth value
+	 * @pre entityID > 0
+	 * @post $none
+	 */
+	protected void sendNow(int entityId, int cloudSimTag, int data0, int data1, int data2, int data3,
+			int data4) {
+		send(entityId, 0, cloudSimTag, data0, data1, data2, data3, data4);
+	}
+
 	/**
 	 * Sends an event/message to another entity by <tt>delaying</tt> the simulation time from the
 	 * current time, with a tag representing the event type.
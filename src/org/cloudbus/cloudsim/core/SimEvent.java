@@ -10,6 +10,10 @@ package org.cloudbus.cloudsim.core;
 
 /**
  * This class represents a simulation event which is passed between the entities in the simulation.
+ * Besides a reference to any data, an event can carry up to three int values and one double value,
+ * so that the ids and results exchanged between the entities need no boxing or array. When event
+ * recycling is enabled with {@link CloudSim#setEventRecycling(boolean)}, events are reused after
+ * they have been processed by their destination.
  * 
  * @author Costas Simatos
  * @see Simulation
@@ -18,10 +22,10 @@ package org.cloudbus.cloudsim.core;
 public class SimEvent implements Cloneable, Comparable<SimEvent> {
 
 	/** internal event type **/
-	private final int etype;
+	private int etype;
 
 	/** time at which event should occur **/
-	private final double time;
+	private double time;
 
 	/** time that the event was removed from the queue for service **/
 	private double endWaitingTime;
@@ -33,13 +37,37 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	private int entDst;
 
 	/** the user defined type of the event **/
-	private final int tag;
+	private int tag;
 
 	/** any data the event is carrying **/
-	private final Object data;
+	private Object data;
+
+	/** the number of int values the event is carrying **/
+	private int intDataSize;
+
+	/** the int values the event is carrying **/
+	private int intData0, intData1, intData2, intData3, intData4;
+
+	/** the double value the event is carrying **/
+	private double doubleData;
+
+	/** whether the event is carrying a double value **/
+	private boolean doubleDataSet;
 
 	private long serial = -1;
 
+	/** insertion order used by the future queue to break ties between equal serials **/
+	private long sequence = -1;
+
+	/** position of this event inside the future queue storage, or -1 if not queued **/
+	private int queueIndex = -1;
+
+	/** previous event with the same entity and tag in the event index of its queue **/
+	private SimEvent indexPrevious;
+
+	/** next event with the same entity and tag in the event index of its queue **/
+	private SimEvent indexNext;
+
 	// Internal event types
 
 	public static final int ENULL = 0;
@@ -82,10 +110,168 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 		data = null;
 	}
 
+	/**
+	 * Reinitialises a recycled event, as if it had just been created.
+	 * 
+	 * @param evtype the internal event type
+	 * @param time the time at which the event should occur
+	 * @param src the id of the entity who scheduled the event
+	 * @param dest the id of the entity the event will be sent to
+	 * @param tag the user defined type of the event
+	 * @param edata the data the event is carrying
+	 */
+	void init(int evtype, double time, int src, int dest, int tag, Object edata) {
+		etype = evtype;
+		this.time = time;
+		endWaitingTime = 0;
+		entSrc = src;
+		entDst = dest;
+		this.tag = tag;
+		data = edata;
+	}
+
+	/**
+	 * Clears the event before it is recycled, so that it does not keep references to its data or to
+	 * other events.
+	 */
+	void clear() {
+		data = null;
+		intDataSize = 0;
+		doubleDataSet = false;
+		serial = -1;
+		sequence = -1;
+		queueIndex = -1;
+		indexPrevious = null;
+		indexNext = null;
+	}
+
+	/**
+	 * Sets the int values the event is carrying.
+	 * 
+	 * @param data0 the first value
+	 * @param data1 the second value
+	 * @param data2 the third value
+	 */
+	void setIntData(int data0, int data1, int data2) {
+		intData0 = data0;
+		intData1 = data1;
+		intData2 = data2;
+		intDataSize = 3;
+	}
+
+	/**
+	 * Sets the five int values the event is carrying.
+	 * 
+	 * @param data0 the first value
+	 * @param data1 the second value
+	 * @param data2 the third value
+	 * @param data3 the fourth value
+	 * @param data4 the fifth value
+	 */
+	void setIntData(int data0, int data1, int data2, int data3, int data4) {
+		intData0 = data0;
+		intData1 = data1;
+		intData2 = data2;
+		intData3 = data3;
+		intData4 = data4;
+		intDataSize = 5;
+	}
+
+	/**
+	 * Sets the double value the event is carrying.
+	 * 
+	 * @param value the value
+	 */
+	void setDoubleData(double value) {
+		doubleData = value;
+		doubleDataSet = true;
+	}
+
 	protected void setSerial(long serial) {
 		this.serial = serial;
 	}
 
+	/**
+	 * Gets the serial assigned by the future queue.
+	 * 
+	 * @return the serial
+	 */
+	long getSerial() {
+		return serial;
+	}
+
+	/**
+	 * Sets the insertion sequence assigned by the future queue.
+	 * 
+	 * @param sequence the insertion sequence
+	 */
+	void setSequence(long sequence) {
+		this.sequence = sequence;
+	}
+
+	/**
+	 * Gets the insertion sequence assigned by the future queue.
+	 * 
+	 * @return the insertion sequence
+	 */
+	long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Sets the position of this event inside the future queue storage.
+	 * 
+	 * @param queueIndex the position, or -1 if the event is not queued
+	 */
+	void setQueueIndex(int queueIndex) {
+		this.queueIndex = queueIndex;
+	}
+
+	/**
+	 * Gets the position of this event inside the future queue storage.
+	 * 
+	 * @return the position, or -1 if the event is not queued
+	 */
+	int getQueueIndex() {
+		return queueIndex;
+	}
+
+	/**
+	 * Sets the previous event with the same entity and tag in the event index.
+	 * 
+	 * @param indexPrevious the previous event
+	 */
+	void setIndexPrevious(SimEvent indexPrevious) {
+		this.indexPrevious = indexPrevious;
+	}
+
+	/**
+	 * Gets the previous event with the same entity and tag in the event index.
+	 * 
+	 * @return the previous event, or null if this event is the first one
+	 */
+	SimEvent getIndexPrevious() {
+		return indexPrevious;
+	}
+
+	/**
+	 * Sets the next event with the same entity and tag in the event index.
+	 * 
+	 * @param indexNext the next event
+	 */
+	void setIndexNext(SimEvent indexNext) {
+		this.indexNext = indexNext;
+	}
+
+	/**
+	 * Gets the next event with the same entity and tag in the event index.
+	 * 
+	 * @return the next event, or null if this event is the last one
+	 */
+	SimEvent getIndexNext() {
+		return indexNext;
+	}
+
 	/**
 	 * Used to set the time at which this event finished waiting in the event
 	 * 
@@ -196,14 +382,85 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	}
 
 	/**
-	 * Get the data passed in this event.
+	 * Get the data passed in this event. If the event only carries int values, they are returned
+	 * as an <tt>int[]</tt>; if it only carries a double value, it is returned as a {@link Double}.
 	 * 
 	 * @return A reference to the data
 	 */
 	public Object getData() {
+		if (data == null) {
+			if (intDataSize == 3) {
+				data = new int[] { intData0, intData1, intData2 };
+			} else if (intDataSize == 5) {
+				data = new int[] { intData0, intData1, intData2, intData3, intData4 };
+			} else if (doubleDataSet) {
+				data = Double.valueOf(doubleData);
+			}
+		}
 		return data;
 	}
 
+	/**
+	 * Gets the number of int values passed in this event, either as int values or as an
+	 * <tt>int[]</tt> data.
+	 * 
+	 * @return the number of int values
+	 */
+	public int getIntDataSize() {
+		if (intDataSize > 0) {
+			return intDataSize;
+		} else if (data instanceof int[]) {
+			return ((int[]) data).length;
+		}
+		return 0;
+	}
+
+	/**
+	 * Gets an int value passed in this event, either as an int value or as an element of an
+	 * <tt>int[]</tt> data.
+	 * 
+	 * @param index the index of the value
+	 * @return the value
+	 * @throws IllegalStateException if the event does not carry int values
+	 */
+	public int getIntData(int index) {
+		if (index >= 0 && index < intDataSize) {
+			switch (index) {
+				case 0:
+					return intData0;
+				case 1:
+					return intData1;
+				case 2:
+					return intData2;
+				case 3:
+					return intData3;
+				default:
+					return intData4;
+			}
+		} else if (intDataSize > 0) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", size: " + intDataSize);
+		} else if (data instanceof int[]) {
+			return ((int[]) data)[index];
+		}
+		throw new IllegalStateException("The event does not carry int values");
+	}
+
+	/**
+	 * Gets the double value passed in this event, either as a double value or as a {@link Double}
+	 * data.
+	 * 
+	 * @return the value
+	 * @throws IllegalStateException if the event does not carry a double value
+	 */
+	public double getDoubleData() {
+		if (doubleDataSet) {
+			return doubleData;
+		} else if (data instanceof Double) {
+			return ((Double) data).doubleValue();
+		}
+		throw new IllegalStateException("The event does not carry a double value");
+	}
+
 	/**
 	 * Create an exact copy of this event.
 	 * 
@@ -211,7 +468,16 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	 */
 	@Override
 	public Object clone() {
-		return new SimEvent(etype, time, entSrc, entDst, tag, data);
+		SimEvent copy = new SimEvent(etype, time, entSrc, entDst, tag, data);
+		if (intDataSize == 3) {
+			copy.setIntData(intData0, intData1, intData2);
+		} else if (intDataSize == 5) {
+			copy.setIntData(intData0, intData1, intData2, intData3, intData4);
+		}
+		if (doubleDataSet) {
+			copy.setDoubleData(doubleData);
+		}
+		return copy;
 	}
 
 	/**
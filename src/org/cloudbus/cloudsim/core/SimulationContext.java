@@ -0,0 +1,196 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.OutputStream;
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.NetworkTopology;
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * The state of one simulation: its entities, event queues, clock and flags, together with the
+ * state of the modules used by the simulation, i.e. the log output, the network topology and the
+ * execution time measurements.
+ * <p>
+ * The static methods of {@link CloudSim}, {@link org.cloudbus.cloudsim.Log},
+ * {@link NetworkTopology} and {@link org.cloudbus.cloudsim.util.ExecutionTimeMeasurer} work on
+ * the context bound to the current thread. Threads use a shared default context unless another
+ * context is bound with {@link CloudSim#setContext(SimulationContext)}, so that a single
+ * simulation works exactly as before, while independent simulations can run in parallel in the
+ * same JVM, each one on its own thread and with its own context.
+ *
+ * @since CloudSim Toolkit 3.0
+ * @see CloudSim#getContext()
+ * @see CloudSim#setContext(SimulationContext)
+ */
+public class SimulationContext {
+
+	/** The id of CIS entity. */
+	int cisId = -1;
+
+	/** The id of CloudSimShutdown entity. */
+	int shutdownId = -1;
+
+	/** The CIS object. */
+	CloudInformationService cis = null;
+
+	/** The trace flag. */
+	boolean traceFlag = false;
+
+	/** The calendar. */
+	Calendar calendar = null;
+
+	/** The termination time. */
+	double terminateAt = -1;
+
+	/** The minimal time between events. Events within shorter periods after the last event are discarded. */
+	double minTimeBetweenEvents = 0.1;
+
+	/** The type of the future event queue created when the simulation is initialised. */
+	int futureQueueType = CloudSim.FUTURE_QUEUE_QUATERNARY_HEAP;
+
+	/** The entities. */
+	List<SimEntity> entities;
+
+	/** The future event queue. */
+	FutureQueue future;
+
+	/** The deferred event queue. */
+	DeferredQueue deferred;
+
+	/** The entities that may have events to process in the next clock tick, by entity id. */
+	BitSet runnable;
+
+	/** The simulation clock. */
+	double clock;
+
+	/** Flag for checking if the simulation is running. */
+	boolean running;
+
+	/** The entities by name. */
+	Map<String, SimEntity> entitiesByName;
+
+	/** The wait predicates. */
+	Map<Integer, Predicate> waitPredicates;
+
+	/** The paused flag, which may be changed by another thread. */
+	volatile boolean paused = false;
+
+	/** The pause at. */
+	long pauseAt = -1;
+
+	/** The abrupt terminate. */
+	boolean abruptTerminate = false;
+
+	/** Whether the events are recycled after they have been processed. */
+	boolean eventRecycling = false;
+
+	/** The processed events available for reuse when the events are recycled. */
+	SimEvent[] eventPool = new SimEvent[64];
+
+	/** The number of events in the pool. */
+	int eventPoolSize = 0;
+
+	/** The log output. */
+	private OutputStream logOutput;
+
+	/** The log disable output flag. */
+	private boolean logDisabled;
+
+	/** The log level. */
+	private int logLevel = Log.DEBUG;
+
+	/** The network topology. */
+	private NetworkTopology networkTopology;
+
+	/** The start times of the execution time measurements, by name. */
+	private final Map<String, Long> executionTimes = new HashMap<String, Long>();
+
+	/**
+	 * Gets the log output.
+	 *
+	 * @return the log output, or null if it has not been set
+	 */
+	public OutputStream getLogOutput() {
+		return logOutput;
+	}
+
+	/**
+	 * Sets the log output.
+	 *
+	 * @param logOutput the new log output
+	 */
+	public void setLogOutput(OutputStream logOutput) {
+		this.logOutput = logOutput;
+	}
+
+	/**
+	 * Checks if the log is disabled.
+	 *
+	 * @return true, if the log is disabled
+	 */
+	public boolean isLogDisabled() {
+		return logDisabled;
+	}
+
+	/**
+	 * Sets the log disable output flag.
+	 *
+	 * @param logDisabled the new log disable output flag
+	 */
+	public void setLogDisabled(boolean logDisabled) {
+		this.logDisabled = logDisabled;
+	}
+
+	/**
+	 * Gets the log level.
+	 *
+	 * @return the log level
+	 */
+	public int getLogLevel() {
+		return logLevel;
+	}
+
+	/**
+	 * Sets the log level.
+	 *
+	 * @param logLevel the new log level
+	 */
+	public void setLogLevel(int logLevel) {
+		this.logLevel = logLevel;
+	}
+
+	/**
+	 * Gets the network topology, creating an empty one the first time.
+	 *
+	 * @return the network topology
+	 */
+	public NetworkTopology getNetworkTopology() {
+		if (networkTopology == null) {
+			networkTopology = new NetworkTopology();
+		}
+		return networkTopology;
+	}
+
+	/**
+	 * Gets the start times of the execution time measurements.
+	 *
+	 * @return the execution times
+	 */
+	public Map<String, Long> getExecutionTimes() {
+		return executionTimes;
+	}
+
+}
@@ -33,12 +33,35 @@ public class PredicateType extends Predicate {
 	}
 
 	/**
-	 * Constructor used to select events with a tag value equal to any of the specified tags.
+	 * Constructor used to select events with a tag value equal to any of the specified tags. A tag
+	 * given several times is kept once.
 	 * 
 	 * @param tags the list of tags
 	 */
 	public PredicateType(int[] tags) {
-		this.tags = tags.clone();
+		int[] distinct = new int[tags.length];
+		int count = 0;
+		for (int tag : tags) {
+			boolean duplicate = false;
+			for (int i = 0; i < count && !duplicate; i++) {
+				duplicate = distinct[i] == tag;
+			}
+			if (!duplicate) {
+				distinct[count++] = tag;
+			}
+		}
+		this.tags = new int[count];
+		System.arraycopy(distinct, 0, this.tags, 0, count);
+	}
+
+	/**
+	 * Gets the distinct tags matched by this predicate, so that the events of a tag are visited once
+	 * when the events of each tag are visited. The returned array must not be modified.
+	 * 
+	 * @return the tags
+	 */
+	public int[] getTags() {
+		return tags;
 	}
 
 	/**
@@ -0,0 +1,336 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.network;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * A graph of nodes and links, as {@link TopologicalGraph}, which keeps the nodes and the links in
+ * primitive arrays, in the order in which they are added, instead of one object per node and per
+ * link. The arrays grow as nodes and links are added.
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public class CompactTopologicalGraph {
+
+	/** The number of nodes. */
+	private int nodeCount;
+
+	/** The ids of the nodes. */
+	private int[] nodeIds;
+
+	/** The x coordinates of the nodes. */
+	private int[] nodeX;
+
+	/** The y coordinates of the nodes. */
+	private int[] nodeY;
+
+	/** The number of links. */
+	private int linkCount;
+
+	/** The source nodes of the links. */
+	private int[] linkSrc;
+
+	/** The destination nodes of the links. */
+	private int[] linkDest;
+
+	/** The delays of the links. */
+	private float[] linkDelay;
+
+	/** The bandwidths of the links. */
+	private float[] linkBw;
+
+	/**
+	 * Creates an empty graph.
+	 */
+	public CompactTopologicalGraph() {
+		this(16, 16);
+	}
+
+	/**
+	 * Creates an empty graph.
+	 * 
+	 * @param nodeCapacity the initial capacity of the node arrays
+	 * @param linkCapacity the initial capacity of the link arrays
+	 */
+	public CompactTopologicalGraph(int nodeCapacity, int linkCapacity) {
+		nodeCapacity = Math.max(nodeCapacity, 1);
+		linkCapacity = Math.max(linkCapacity, 1);
+		nodeIds = new int[nodeCapacity];
+		nodeX = new int[nodeCapacity];
+		nodeY = new int[nodeCapacity];
+		linkSrc = new int[linkCapacity];
+		linkDest = new int[linkCapacity];
+		linkDelay = new float[linkCapacity];
+		linkBw = new float[linkCapacity];
+	}
+
+	/**
+	 * Creates the compact graph of a graph.
+	 * 
+	 * @param graph the graph
+	 * @return the compact graph
+	 */
+	public static CompactTopologicalGraph fromGraph(TopologicalGraph graph) {
+		CompactTopologicalGraph compact = new CompactTopologicalGraph(
+				graph.getNumberOfNodes(),
+				graph.getNumberOfLinks());
+		Iterator<TopologicalNode> nodes = graph.getNodeIterator();
+		while (nodes.hasNext()) {
+			TopologicalNode node = nodes.next();
+			compact.addNode(node.getNodeID(), node.getCoordinateX(), node.getCoordinateY());
+		}
+		Iterator<TopologicalLink> links = graph.getLinkIterator();
+		while (links.hasNext()) {
+			TopologicalLink link = links.next();
+			compact.addLink(link.getSrcNodeID(), link.getDestNodeID(), link.getLinkDelay(), link.getLinkBw());
+		}
+		return compact;
+	}
+
+	/**
+	 * Creates a graph of node and link objects with the nodes and links of this graph.
+	 * 
+	 * @return the graph
+	 */
+	public TopologicalGraph toGraph() {
+		TopologicalGraph graph = new TopologicalGraph();
+		for (int node = 0; node < nodeCount; node++) {
+			graph.addNode(new TopologicalNode(
+					nodeIds[node],
+					Integer.toString(nodeIds[node]),
+					nodeX[node],
+					nodeY[node]));
+		}
+		for (int link = 0; link < linkCount; link++) {
+			graph.addLink(new TopologicalLink(linkSrc[link], linkDest[link], linkDelay[link], linkBw[link]));
+		}
+		return graph;
+	}
+
+	/**
+	 * Adds a node.
+	 * 
+	 * @param nodeId the id of the node
+	 * @param x the x coordinate of the node
+	 * @param y the y coordinate of the node
+	 */
+	public void addNode(int nodeId, int x, int y) {
+		if (nodeCount == nodeIds.length) {
+			int capacity = nodeCount * 2;
+			nodeIds = grow(nodeIds, capacity);
+			nodeX = grow(nodeX, capacity);
+			nodeY = grow(nodeY, capacity);
+		}
+		nodeIds[nodeCount] = nodeId;
+		nodeX[nodeCount] = x;
+		nodeY[nodeCount] = y;
+		nodeCount++;
+	}
+
+	/**
+	 * Adds a link.
+	 * 
+	 * @param srcNode the id of the source node
+	 * @param destNode the id of the destination node
+	 * @param delay the delay of the link
+	 * @param bw the bandwidth of the link
+	 */
+	public void addLink(int srcNode, int destNode, float delay, float bw) {
+		if (linkCount == linkSrc.length) {
+			growLinks(linkCount * 2);
+		}
+		linkSrc[linkCount] = srcNode;
+		linkDest[linkCount] = destNode;
+		linkDelay[linkCount] = delay;
+		linkBw[linkCount] = bw;
+		linkCount++;
+	}
+
+	/**
+	 * Gets the number of nodes.
+	 * 
+	 * @return the number of nodes
+	 */
+	public int getNumberOfNodes() {
+		return nodeCount;
+	}
+
+	/**
+	 * Gets the number of links.
+	 * 
+	 * @return the number of links
+	 */
+	public int getNumberOfLinks() {
+		return linkCount;
+	}
+
+	/**
+	 * Gets the id of a node.
+	 * 
+	 * @param node the index of the node
+	 * @return the id of the node
+	 */
+	public int getNodeID(int node) {
+		return nodeIds[node];
+	}
+
+	/**
+	 * Gets the source node of a link.
+	 * 
+	 * @param link the index of the link
+	 * @return the id of the source node
+	 */
+	public int getLinkSrc(int link) {
+		return linkSrc[link];
+	}
+
+	/**
+	 * Gets the destination node of a link.
+	 * 
+	 * @param link the index of the link
+	 * @return the id of the destination node
+	 */
+	public int getLinkDest(int link) {
+		return linkDest[link];
+	}
+
+	/**
+	 * Gets the delay of a link.
+	 * 
+	 * @param link the index of the link
+	 * @return the delay
+	 */
+	public float getLinkDelay(int link) {
+		return linkDelay[link];
+	}
+
+	/**
+	 * Gets the bandwidth of a link.
+	 * 
+	 * @param link the index of the link
+	 * @return the bandwidth
+	 */
+	public float getLinkBw(int link) {
+		return linkBw[link];
+	}
+
+	/**
+	 * Finds the last link between two nodes, before a link.
+	 * 
+	 * @param srcNode the id of the source node
+	 * @param destNode the id of the destination node
+	 * @param before the index of the link before which the link is looked for
+	 * @param directed true if only the links from the source node count, false if the links in
+	 *            both directions count
+	 * @return the index of the link, or -1 if there is none
+	 */
+	public int findLastLink(int srcNode, int destNode, int before, boolean directed) {
+		for (int link = before - 1; link >= 0; link--) {
+			if (linkSrc[link] == srcNode && linkDest[link] == destNode
+					|| !directed && linkSrc[link] == destNode && linkDest[link] == srcNode) {
+				return link;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Writes the graph.
+	 * 
+	 * @param out the output
+	 * @throws IOException if the graph cannot be written
+	 */
+	public void write(DataOutput out) throws IOException {
+		out.writeInt(nodeCount);
+		for (int node = 0; node < nodeCount; node++) {
+			out.writeInt(nodeIds[node]);
+			out.writeInt(nodeX[node]);
+			out.writeInt(nodeY[node]);
+		}
+		out.writeInt(linkCount);
+		for (int link = 0; link < linkCount; link++) {
+			out.writeInt(linkSrc[link]);
+			out.writeInt(linkDest[link]);
+			out.writeFloat(linkDelay[link]);
+			out.writeFloat(linkBw[link]);
+		}
+	}
+
+	/**
+	 * Reads a graph written by {@link #write(DataOutput)}.
+	 * 
+	 * @param in the input
+	 * @return the graph
+	 * @throws IOException if the graph cannot be read
+	 */
+	public static CompactTopologicalGraph read(DataInput in) throws IOException {
+		int nodes = in.readInt();
+		if (nodes < 0) {
+			throw new IOException("Invalid number of nodes: " + nodes);
+		}
+		CompactTopologicalGraph graph = new CompactTopologicalGraph(nodes, 1);
+		for (int node = 0; node < nodes; node++) {
+			graph.addNode(in.readInt(), in.readInt(), in.readInt());
+		}
+		int links = in.readInt();
+		if (links < 0) {
+			throw new IOException("Invalid number of links: " + links);
+		}
+		graph.growLinks(links);
+		for (int link = 0; link < links; link++) {
+			graph.addLink(in.readInt(), in.readInt(), in.readFloat(), in.readFloat());
+		}
+		return graph;
+	}
+
+	/**
+	 * Grows the link arrays, if they are smaller than a capacity.
+	 * 
+	 * @param capacity the capacity
+	 */
+	private void growLinks(int capacity) {
+		if (capacity > linkSrc.length) {
+			linkSrc = grow(linkSrc, capacity);
+			linkDest = grow(linkDest, capacity);
+			linkDelay = grow(linkDelay, capacity);
+			linkBw = grow(linkBw, capacity);
+		}
+	}
+
+	/**
+	 * Grows an array.
+	 * 
+	 * @param array the array
+	 * @param capacity the new capacity
+	 * @return the grown array
+	 */
+	private static int[] grow(int[] array, int capacity) {
+		int[] grown = new int[capacity];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+
+	/**
+	 * Grows an array.
+	 * 
+	 * @param array the array
+	 * @param capacity the new capacity
+	 * @return the grown array
+	 */
+	private static float[] grow(float[] array, int capacity) {
+		float[] grown = new float[capacity];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+
+}
@@ -8,8 +8,6 @@
 
 package org.cloudbus.cloudsim.network;
 
-import java.util.Iterator;
-
 /**
  * This class represents an delay-topology storing every distance between connected nodes
  * 
@@ -42,12 +40,45 @@ public class DelayMatrix_Float {
 	 * @param directed true if an directed matrix should be computed, false otherwise
 	 */
 	public DelayMatrix_Float(TopologicalGraph graph, boolean directed) {
+		this(CompactTopologicalGraph.fromGraph(graph), directed);
+	}
+
+	/**
+	 * this constructor creates an correct initialized Float-Delay-Matrix
+	 * 
+	 * @param graph the topological graph as source-information
+	 * @param directed true if an directed matrix should be computed, false otherwise
+	 */
+	public DelayMatrix_Float(CompactTopologicalGraph graph, boolean directed) {
+		this(graph, directed, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * this constructor creates an correct initialized Float-Delay-Matrix, calculating the delays
+	 * with a given number of threads
+	 * 
+	 * @param graph the topological graph as source-information
+	 * @param directed true if an directed matrix should be computed, false otherwise
+	 * @param parallelism the number of threads that calculate the delays
+	 */
+	public DelayMatrix_Float(CompactTopologicalGraph graph, boolean directed, int parallelism) {
 
 		// lets preinitialize the Delay-Matrix
 		createDelayMatrix(graph, directed);
 
 		// now its time to calculate all possible connection-delays
-		calculateShortestPath();
+		calculateShortestPath(parallelism);
+	}
+
+	/**
+	 * this constructor creates a Float-Delay-Matrix from delays computed before, such as the ones
+	 * of a {@link TopologyCache}
+	 * 
+	 * @param delayMatrix the delays between all the nodes, which are not copied
+	 */
+	public DelayMatrix_Float(float[][] delayMatrix) {
+		mDelayMatrix = delayMatrix;
+		mTotalNodeNum = delayMatrix.length;
 	}
 
 	/**
@@ -64,6 +95,88 @@ public class DelayMatrix_Float {
 		return mDelayMatrix[srcID][destID];
 	}
 
+	/**
+	 * Adds nodes to the matrix, which are not connected to any node yet.
+	 * 
+	 * @param totalNodeNum the new number of nodes
+	 */
+	public void addNodes(int totalNodeNum) {
+		if (totalNodeNum <= mTotalNodeNum) {
+			return;
+		}
+		float[][] delayMatrix = new float[totalNodeNum][];
+		for (int row = 0; row < totalNodeNum; ++row) {
+			delayMatrix[row] = new float[totalNodeNum];
+			if (row < mTotalNodeNum) {
+				System.arraycopy(mDelayMatrix[row], 0, delayMatrix[row], 0, mTotalNodeNum);
+			}
+			int from = row < mTotalNodeNum ? mTotalNodeNum : 0;
+			for (int col = from; col < totalNodeNum; ++col) {
+				delayMatrix[row][col] = row == col ? 0 : Float.MAX_VALUE;
+			}
+		}
+		mDelayMatrix = delayMatrix;
+		mTotalNodeNum = totalNodeNum;
+	}
+
+	/**
+	 * Updates the shortest paths with a new link, or a link whose delay has decreased, in O(n^2):
+	 * a path can only become shorter by going through the link. The delays may differ in their
+	 * last bits from the ones of a full computation, which sums the delays of a path in another
+	 * order. As in the full computation, a link with a delay of 0 is no link.
+	 * 
+	 * @param srcID the id of the source-node
+	 * @param destID the id of the destination-node
+	 * @param delay the delay of the link
+	 * @param directed true if the matrix is directed, false otherwise
+	 */
+	public void addLink(int srcID, int destID, float delay, boolean directed) {
+		if (delay == 0 || srcID == destID) {
+			return;
+		}
+		// the rows of the ends of the link, before they are updated
+		float[] fromDest = mDelayMatrix[destID].clone();
+		float[] fromSrc = directed ? null : mDelayMatrix[srcID].clone();
+		for (int row = 0; row < mTotalNodeNum; ++row) {
+			float[] delays = mDelayMatrix[row];
+			float toSrc = delays[srcID];
+			float toDest = delays[destID];
+			for (int col = 0; col < mTotalNodeNum; ++col) {
+				if (row == col) {
+					continue;
+				}
+				float throughLink = toSrc + delay + fromDest[col];
+				if (throughLink < delays[col]) {
+					delays[col] = throughLink;
+				}
+				if (!directed) {
+					throughLink = toDest + delay + fromSrc[col];
+					if (throughLink < delays[col]) {
+						delays[col] = throughLink;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the delays between all the nodes, which are not copied.
+	 * 
+	 * @return the delay matrix
+	 */
+	public float[][] getDelayMatrix() {
+		return mDelayMatrix;
+	}
+
+	/**
+	 * Gets the number of nodes.
+	 * 
+	 * @return the number of nodes
+	 */
+	public int getTotalNodeNum() {
+		return mTotalNodeNum;
+	}
+
 	/**
 	 * creates all internal necessary network-distance structures from the given graph for
 	 * similarity we assume all kommunikation-distances are symmetrical thus leads to an undirected
@@ -72,7 +185,7 @@ public class DelayMatrix_Float {
 	 * @param graph this graph contains all node and link information
 	 * @param directed defines to preinitialize an directed or undirected Delay-Matrix!
 	 */
-	private void createDelayMatrix(TopologicalGraph graph, boolean directed) {
+	private void createDelayMatrix(CompactTopologicalGraph graph, boolean directed) {
 
 		// number of nodes inside the network
 		mTotalNodeNum = graph.getNumberOfNodes();
@@ -86,17 +199,12 @@ public class DelayMatrix_Float {
 			}
 		}
 
-		Iterator<TopologicalLink> itr = graph.getLinkIterator();
-
-		TopologicalLink edge;
-		while (itr.hasNext()) {
-			edge = itr.next();
-
-			mDelayMatrix[edge.getSrcNodeID()][edge.getDestNodeID()] = edge.getLinkDelay();
+		for (int link = 0; link < graph.getNumberOfLinks(); link++) {
+			mDelayMatrix[graph.getLinkSrc(link)][graph.getLinkDest(link)] = graph.getLinkDelay(link);
 
 			if (!directed) {
 				// according to aproximity of symmetry to all kommunication-paths
-				mDelayMatrix[edge.getDestNodeID()][edge.getSrcNodeID()] = edge.getLinkDelay();
+				mDelayMatrix[graph.getLinkDest(link)][graph.getLinkSrc(link)] = graph.getLinkDelay(link);
 			}
 
 		}
@@ -104,12 +212,26 @@ public class DelayMatrix_Float {
 
 	/**
 	 * just calculates all pairs shortest paths
+	 * 
+	 * @param parallelism the number of threads
 	 */
-	private void calculateShortestPath() {
+	private void calculateShortestPath(int parallelism) {
 		FloydWarshall_Float floyd = new FloydWarshall_Float();
+		floyd.setParallelism(parallelism);
 
 		floyd.initialize(mTotalNodeNum);
-		mDelayMatrix = floyd.allPairsShortestPaths(mDelayMatrix);
+
+		// the rows are released as they are copied, to keep a single matrix in memory
+		float[] delays = new float[mTotalNodeNum * mTotalNodeNum];
+		for (int row = 0; row < mTotalNodeNum; ++row) {
+			System.arraycopy(mDelayMatrix[row], 0, delays, row * mTotalNodeNum, mTotalNodeNum);
+			mDelayMatrix[row] = null;
+		}
+		floyd.allPairsShortestPaths(delays);
+		for (int row = 0; row < mTotalNodeNum; ++row) {
+			mDelayMatrix[row] = new float[mTotalNodeNum];
+			System.arraycopy(delays, row * mTotalNodeNum, mDelayMatrix[row], 0, mTotalNodeNum);
+		}
 	}
 
 	/**
@@ -0,0 +1,276 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.network;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A delay-topology for large sparse graphs, which does not store a dense matrix of the delays
+ * between all the nodes. The delays from a node are computed with Dijkstra's algorithm on the
+ * adjacency lists of the graph the first time they are needed, and kept in a bounded cache of
+ * distance rows, from which the least recently used rows are evicted.
+ * <p>
+ * The links are read as {@link DelayMatrix_Float} reads them: the last link between two nodes
+ * gives their delay, and a link with a delay of 0 is no link. The delays are the ones of the
+ * shortest paths, but may differ in their last bits from the ones of a Floyd-Warshall
+ * computation, which sums the delays of a path in another order.
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public class DelayRows_Float {
+
+	/** The default number of delays kept in the cache, over all the rows. */
+	public static final int DEFAULT_CACHE_SIZE = 1 << 24;
+
+	/** The number of nodes. */
+	private final int totalNodeNum;
+
+	/** The index of the first link of each node in the link arrays, and the number of links. */
+	private final int[] linkStart;
+
+	/** The destination nodes of the links, by source node. */
+	private final int[] linkDest;
+
+	/** The delays of the links, by source node. */
+	private final float[] linkDelay;
+
+	/** The cached rows of delays, by source node, in the order of access. */
+	private final Map<Integer, float[]> rows;
+
+	/** The binary heap of the nodes to visit, used by Dijkstra's algorithm. */
+	private final int[] heap;
+
+	/** The position of the nodes in the heap, or -1 if they are not in it. */
+	private final int[] heapPosition;
+
+	/**
+	 * Creates the delay-topology of a graph, with the default cache size.
+	 * 
+	 * @param graph the topological graph as source-information
+	 * @param directed true if the links are directed, false otherwise
+	 */
+	public DelayRows_Float(TopologicalGraph graph, boolean directed) {
+		this(CompactTopologicalGraph.fromGraph(graph), directed, DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * Creates the delay-topology of a graph, with the default cache size.
+	 * 
+	 * @param graph the topological graph as source-information
+	 * @param directed true if the links are directed, false otherwise
+	 */
+	public DelayRows_Float(CompactTopologicalGraph graph, boolean directed) {
+		this(graph, directed, DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * Creates the delay-topology of a graph.
+	 * 
+	 * @param graph the topological graph as source-information
+	 * @param directed true if the links are directed, false otherwise
+	 * @param cacheSize the number of delays kept in the cache, over all the rows; at least one row
+	 *            is kept
+	 */
+	public DelayRows_Float(CompactTopologicalGraph graph, boolean directed, int cacheSize) {
+		totalNodeNum = graph.getNumberOfNodes();
+
+		// the last link between two nodes gives their delay
+		Map<Long, Float> delays = new LinkedHashMap<Long, Float>();
+		for (int link = 0; link < graph.getNumberOfLinks(); link++) {
+			int src = graph.getLinkSrc(link);
+			int dest = graph.getLinkDest(link);
+			if (!directed && dest < src) {
+				int node = src;
+				src = dest;
+				dest = node;
+			}
+			delays.put(((long) src << 32) | dest, graph.getLinkDelay(link));
+		}
+
+		linkStart = new int[totalNodeNum + 1];
+		for (Map.Entry<Long, Float> entry : delays.entrySet()) {
+			if (isLink(entry)) {
+				linkStart[(int) (entry.getKey() >>> 32)]++;
+				if (!directed) {
+					linkStart[(int) entry.getKey().longValue()]++;
+				}
+			}
+		}
+		for (int node = 0, start = 0; node <= totalNodeNum; node++) {
+			int count = linkStart[node];
+			linkStart[node] = start;
+			start += count;
+		}
+
+		linkDest = new int[linkStart[totalNodeNum]];
+		linkDelay = new float[linkDest.length];
+		int[] next = new int[totalNodeNum];
+		System.arraycopy(linkStart, 0, next, 0, totalNodeNum);
+		for (Map.Entry<Long, Float> entry : delays.entrySet()) {
+			if (isLink(entry)) {
+				int src = (int) (entry.getKey() >>> 32);
+				int dest = (int) entry.getKey().longValue();
+				linkDest[next[src]] = dest;
+				linkDelay[next[src]++] = entry.getValue();
+				if (!directed) {
+					linkDest[next[dest]] = src;
+					linkDelay[next[dest]++] = entry.getValue();
+				}
+			}
+		}
+
+		final int maxRows = Math.max(1, cacheSize / Math.max(1, totalNodeNum));
+		rows = new LinkedHashMap<Integer, float[]>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, float[]> eldest) {
+				return size() > maxRows;
+			}
+		};
+
+		heap = new int[totalNodeNum];
+		heapPosition = new int[totalNodeNum];
+	}
+
+	/**
+	 * @param srcID the id of the source-node
+	 * @param destID the id of the destination-node
+	 * @return the delay-count between the given two nodes
+	 */
+	public float getDelay(int srcID, int destID) {
+		// check the nodeIDs against internal array-boundarys
+		if (srcID >= totalNodeNum || destID >= totalNodeNum) {
+			throw new ArrayIndexOutOfBoundsException("srcID or destID is higher than highest stored node-ID!");
+		}
+		if (srcID == destID) {
+			return 0;
+		}
+
+		float[] row = rows.get(srcID);
+		if (row == null) {
+			row = calculateShortestPaths(srcID);
+			rows.put(srcID, row);
+		}
+		return row[destID];
+	}
+
+	/**
+	 * Gets the number of nodes.
+	 * 
+	 * @return the number of nodes
+	 */
+	public int getTotalNodeNum() {
+		return totalNodeNum;
+	}
+
+	/**
+	 * Checks if an entry of the delays between two nodes is a link.
+	 * 
+	 * @param entry the entry
+	 * @return true, if the nodes are linked
+	 */
+	private static boolean isLink(Map.Entry<Long, Float> entry) {
+		return entry.getValue() != 0 && (int) (entry.getKey() >>> 32) != (int) entry.getKey().longValue();
+	}
+
+	/**
+	 * Calculates the delays of the shortest paths from a node with Dijkstra's algorithm.
+	 * 
+	 * @param srcID the id of the source-node
+	 * @return the delays to all the nodes, {@link Float#MAX_VALUE} for unreachable nodes
+	 */
+	private float[] calculateShortestPaths(int srcID) {
+		float[] delays = new float[totalNodeNum];
+		Arrays.fill(delays, Float.MAX_VALUE);
+		Arrays.fill(heapPosition, -1);
+		delays[srcID] = 0;
+
+		int heapSize = 0;
+		heapPosition[srcID] = 0;
+		heap[heapSize++] = srcID;
+		while (heapSize > 0) {
+			int node = heap[0];
+			heapPosition[node] = -1;
+			if (--heapSize > 0) {
+				heap[0] = heap[heapSize];
+				heapPosition[heap[0]] = 0;
+				siftDown(delays, heapSize);
+			}
+
+			float delay = delays[node];
+			for (int link = linkStart[node]; link < linkStart[node + 1]; link++) {
+				int dest = linkDest[link];
+				float throughNode = delay + linkDelay[link];
+				if (throughNode < delays[dest]) {
+					delays[dest] = throughNode;
+					if (heapPosition[dest] < 0) {
+						heapPosition[dest] = heapSize;
+						heap[heapSize++] = dest;
+					}
+					siftUp(delays, heapPosition[dest]);
+				}
+			}
+		}
+		return delays;
+	}
+
+	/**
+	 * Moves a node of the heap up to its place.
+	 * 
+	 * @param delays the delays of the nodes
+	 * @param position the position of the node in the heap
+	 */
+	private void siftUp(float[] delays, int position) {
+		int node = heap[position];
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			if (delays[heap[parent]] <= delays[node]) {
+				break;
+			}
+			heap[position] = heap[parent];
+			heapPosition[heap[position]] = position;
+			position = parent;
+		}
+		heap[position] = node;
+		heapPosition[node] = position;
+	}
+
+	/**
+	 * Moves the first node of the heap down to its place.
+	 * 
+	 * @param delays the delays of the nodes
+	 * @param heapSize the number of nodes in the heap
+	 */
+	private void siftDown(float[] delays, int heapSize) {
+		int position = 0;
+		int node = heap[0];
+		while (true) {
+			int child = 2 * position + 1;
+			if (child >= heapSize) {
+				break;
+			}
+			if (child + 1 < heapSize && delays[heap[child + 1]] < delays[heap[child]]) {
+				child++;
+			}
+			if (delays[node] <= delays[heap[child]]) {
+				break;
+			}
+			heap[position] = heap[child];
+			heapPosition[heap[position]] = position;
+			position = child;
+		}
+		heap[position] = node;
+		heapPosition[node] = position;
+	}
+
+}
@@ -8,6 +8,15 @@
 
 package org.cloudbus.cloudsim.network;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
 /**
  * FloydWarshall algorithm to calculate all pairs delay and predecessor matrix.
  * 
@@ -18,6 +27,27 @@ package org.cloudbus.cloudsim.network;
  */
 public class FloydWarshall_Float {
 
+	/**
+	 * Number of rows of a block of the blocked computation
+	 */
+	private static final int BLOCK_SIZE = 32;
+
+	/**
+	 * Number of vertices from which the blocked computation is parallel
+	 */
+	private static final int PARALLEL_THRESHOLD = 256;
+
+	/**
+	 * Executor of the blocks computed by threads other than the calling one, shared by all the
+	 * instances and never shut down, as other simulations may be using it
+	 */
+	private static ExecutorService executor;
+
+	/**
+	 * Number of threads of the blocked computation
+	 */
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
 	/**
 	 * Number of vertices (when initialized)
 	 */
@@ -32,14 +62,14 @@ public class FloydWarshall_Float {
 	// private float[][] adjMatrix;
 
 	/**
-	 * Matrices used in dynamic programming
+	 * Matrix used in dynamic programming, updated in place
 	 */
-	private float[][] Dk, Dk_minus_one;
+	private float[][] Dk;
 
 	/**
-	 * Matrices used in dynamic programming
+	 * Matrix used in dynamic programming, updated in place
 	 */
-	private int[][] Pk, Pk_minus_one;
+	private int[][] Pk;
 
 	/**
 	 * initialization matrix
@@ -48,41 +78,33 @@ public class FloydWarshall_Float {
 	 */
 	public void initialize(int numVertices) {
 		this.numVertices = numVertices;
-
-		// Initialize Dk matrices.
-		Dk = new float[numVertices][];
-		Dk_minus_one = new float[numVertices][];
-		for (int i = 0; i < numVertices; i++) {
-			Dk[i] = new float[numVertices];
-			Dk_minus_one[i] = new float[numVertices];
-		}
-
-		// Initialize Pk matrices.
-		Pk = new int[numVertices][];
-		Pk_minus_one = new int[numVertices][];
-		for (int i = 0; i < numVertices; i++) {
-			Pk[i] = new int[numVertices];
-			Pk_minus_one[i] = new int[numVertices];
-		}
-
+		Dk = null;
+		Pk = null;
 	}
 
 	/**
-	 * calculates all pairs delay
+	 * calculates all pairs delay and predecessor matrix. Dk and Pk are updated in place: at step
+	 * k, the row and the column of k do not change, so the previous step needs no copy.
 	 * 
 	 * @param adjMatrix original delay matrix
 	 * @return all pairs delay matrix
 	 */
 	public float[][] allPairsShortestPaths(float[][] adjMatrix) {
-		// Dk_minus_one = weights when k = -1
+		Dk = new float[numVertices][numVertices];
+		Pk = new int[numVertices][numVertices];
+
+		// Dk = weights when k = -1
 		for (int i = 0; i < numVertices; i++) {
 			for (int j = 0; j < numVertices; j++) {
-				if (adjMatrix[i][j] != 0) {
-					Dk_minus_one[i][j] = adjMatrix[i][j];
-					Pk_minus_one[i][j] = i;
+				if (i == j) {
+					Dk[i][j] = 0;
+					Pk[i][j] = -1;
+				} else if (adjMatrix[i][j] != 0) {
+					Dk[i][j] = adjMatrix[i][j];
+					Pk[i][j] = i;
 				} else {
-					Dk_minus_one[i][j] = Float.MAX_VALUE;
-					Pk_minus_one[i][j] = -1;
+					Dk[i][j] = Float.MAX_VALUE;
+					Pk[i][j] = -1;
 				}
 				// NOTE: we have set the value to infinity and will exploit
 				// this to avoid a comparison.
@@ -95,36 +117,219 @@ public class FloydWarshall_Float {
 
 			// Compute Dk[i][j], for each i,j
 
+			float[] Dk_k = Dk[k];
+			int[] Pk_k = Pk[k];
 			for (int i = 0; i < numVertices; i++) {
+				float[] Dk_i = Dk[i];
+				int[] Pk_i = Pk[i];
+				float Dk_ik = Dk_i[k];
 				for (int j = 0; j < numVertices; j++) {
 					if (i != j) {
 
 						// D_k[i][j] = min ( D_k-1[i][j], D_k-1[i][k] + D_k-1[k][j].
-						if (Dk_minus_one[i][j] <= Dk_minus_one[i][k] + Dk_minus_one[k][j]) {
-							Dk[i][j] = Dk_minus_one[i][j];
-							Pk[i][j] = Pk_minus_one[i][j];
-						} else {
-							Dk[i][j] = Dk_minus_one[i][k] + Dk_minus_one[k][j];
-							Pk[i][j] = Pk_minus_one[k][j];
+						if (Dk_i[j] > Dk_ik + Dk_k[j]) {
+							Dk_i[j] = Dk_ik + Dk_k[j];
+							Pk_i[j] = Pk_k[j];
 						}
-					} else {
-						Pk[i][j] = -1;
 					}
 				}
 			}
 
-			// Now store current Dk into D_k-1
-			for (int i = 0; i < numVertices; i++) {
-				for (int j = 0; j < numVertices; j++) {
-					Dk_minus_one[i][j] = Dk[i][j];
-					Pk_minus_one[i][j] = Pk[i][j];
+		} // end-outermost-for
+
+		return Dk;
+
+	}
+
+	/**
+	 * calculates all pairs delay in place, without the predecessor matrix. The delays are the same
+	 * as the ones of {@link #allPairsShortestPaths(float[][])}, for non-negative delays.
+	 * <p>
+	 * The steps are done by blocks of k. The rows of a block are first updated for the steps of the
+	 * block, keeping a copy of the row of each k as it is at step k. Each of the other rows is then
+	 * updated for all the steps of the block while it is in the cache, from these copies. The other
+	 * rows are independent, and are updated in parallel for large matrices.
+	 * 
+	 * @param delays the original delay matrix, row after row, where 0 stands for no link; it is
+	 *            replaced by the all pairs delay matrix
+	 * @return the all pairs delay matrix, which is the given array
+	 */
+	public float[] allPairsShortestPaths(float[] delays) {
+		final int n = numVertices;
+		if (delays.length != n * n) {
+			throw new IllegalArgumentException("The delay matrix must have " + n + " x " + n + " entries");
+		}
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				if (i == j) {
+					delays[i * n + j] = 0;
+				} else if (delays[i * n + j] == 0) {
+					delays[i * n + j] = Float.MAX_VALUE;
 				}
 			}
+		}
 
-		} // end-outermost-for
+		int threads = n < PARALLEL_THRESHOLD ? 1 : Math.min(parallelism, (n + BLOCK_SIZE - 1) / BLOCK_SIZE);
+		for (int blockStart = 0; blockStart < n; blockStart += BLOCK_SIZE) {
+			int blockEnd = Math.min(blockStart + BLOCK_SIZE, n);
+			final float[] pivotRows = new float[(blockEnd - blockStart) * n];
+			for (int k = blockStart; k < blockEnd; k++) {
+				System.arraycopy(delays, k * n, pivotRows, (k - blockStart) * n, n);
+				updateRows(delays, n, pivotRows, blockStart, k, k + 1, blockStart, blockEnd);
+			}
 
-		return Dk;
+			if (threads == 1) {
+				updateRows(delays, n, pivotRows, blockStart, blockStart, blockEnd, 0, blockStart);
+				updateRows(delays, n, pivotRows, blockStart, blockStart, blockEnd, blockEnd, n);
+				continue;
+			}
 
+			// the other rows, split in as many parts as threads
+			int others = n - (blockEnd - blockStart);
+			List<Future<Object>> futures = new ArrayList<Future<Object>>();
+			for (int thread = 1; thread < threads; thread++) {
+				final int[] rows = getRows(thread, threads, others, blockStart, blockEnd);
+				final int firstK = blockStart;
+				final int lastK = blockEnd;
+				final float[] matrix = delays;
+				futures.add(getExecutor().submit(new Callable<Object>() {
+
+					@Override
+					public Object call() {
+						updateRows(matrix, n, pivotRows, firstK, firstK, lastK, rows[0], rows[1]);
+						updateRows(matrix, n, pivotRows, firstK, firstK, lastK, rows[2], rows[3]);
+						return null;
+					}
+				}));
+			}
+			int[] rows = getRows(0, threads, others, blockStart, blockEnd);
+			updateRows(delays, n, pivotRows, blockStart, blockStart, blockEnd, rows[0], rows[1]);
+			updateRows(delays, n, pivotRows, blockStart, blockStart, blockEnd, rows[2], rows[3]);
+			for (Future<Object> future : futures) {
+				try {
+					future.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted while calculating all pairs delay", e);
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof RuntimeException) {
+						throw (RuntimeException) e.getCause();
+					}
+					if (e.getCause() instanceof Error) {
+						throw (Error) e.getCause();
+					}
+					throw new IllegalStateException(e.getCause());
+				}
+			}
+		}
+
+		return delays;
+	}
+
+	/**
+	 * Updates rows of the delay matrix for steps of k.
+	 * 
+	 * @param delays the delay matrix
+	 * @param n the number of vertices
+	 * @param pivotRows the rows of the k of the block, as they are at their step
+	 * @param blockStart the first k of the block
+	 * @param firstK the first step
+	 * @param lastK the step after the last one
+	 * @param firstRow the first row
+	 * @param lastRow the row after the last one
+	 */
+	private static void updateRows(
+			float[] delays,
+			int n,
+			float[] pivotRows,
+			int blockStart,
+			int firstK,
+			int lastK,
+			int firstRow,
+			int lastRow) {
+		for (int i = firstRow; i < lastRow; i++) {
+			int row = i * n;
+			for (int k = firstK; k < lastK; k++) {
+				float delayToK = delays[row + k];
+				if (delayToK == Float.MAX_VALUE) {
+					// no delay through k can be lower
+					continue;
+				}
+				int pivotRow = (k - blockStart) * n;
+				for (int j = 0; j < n; j++) {
+					float throughK = delayToK + pivotRows[pivotRow + j];
+					if (throughK < delays[row + j]) {
+						delays[row + j] = throughK;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the rows out of a block that a thread updates.
+	 * 
+	 * @param thread the index of the thread
+	 * @param threads the number of threads
+	 * @param others the number of rows out of the block
+	 * @param blockStart the first row of the block
+	 * @param blockEnd the row after the last one of the block
+	 * @return the first and after the last rows before the block, then after the block
+	 */
+	private static int[] getRows(int thread, int threads, int others, int blockStart, int blockEnd) {
+		int first = (int) ((long) others * thread / threads);
+		int last = (int) ((long) others * (thread + 1) / threads);
+		return new int[] {
+				Math.min(first, blockStart),
+				Math.min(last, blockStart),
+				Math.max(first, blockStart) + blockEnd - blockStart,
+				Math.max(last, blockStart) + blockEnd - blockStart };
+	}
+
+	/**
+	 * Gets the executor of the blocks, creating it if needed. Its threads, one less than the
+	 * processors as the calling thread computes blocks too, are daemon threads. A computation with
+	 * more threads than the executor has queues its extra blocks.
+	 * 
+	 * @return the executor
+	 */
+	private static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+			executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "FloydWarshall");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return executor;
+	}
+
+	/**
+	 * Sets the number of threads that calculate all pairs delay in
+	 * {@link #allPairsShortestPaths(float[])}. It is the number of processors by default.
+	 * 
+	 * @param parallelism the number of threads
+	 * @throws IllegalArgumentException if the parallelism is not positive
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("The parallelism must be positive");
+		}
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Gets the number of threads that calculate all pairs delay.
+	 * 
+	 * @return the parallelism
+	 */
+	public int getParallelism() {
+		return parallelism;
 	}
 
 	/**
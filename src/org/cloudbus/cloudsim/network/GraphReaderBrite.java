@@ -11,7 +11,6 @@ package org.cloudbus.cloudsim.network;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.StringTokenizer;
 
 /**
  * This class is just an file-reader for the special brite-format! the brite-file is structured as
@@ -30,10 +29,6 @@ public class GraphReaderBrite implements GraphReaderIF {
 
 	private static final int PARSE_EDGES = 2;
 
-	private int state = PARSE_NOTHING;
-
-	private TopologicalGraph graph = null;
-
 	/**
 	 * this method just reads the file and creates an TopologicalGraph object
 	 * 
@@ -43,162 +38,177 @@ public class GraphReaderBrite implements GraphReaderIF {
 	 */
 	@Override
 	public TopologicalGraph readGraphFile(String filename) throws IOException {
+		return readCompactGraphFile(filename).toGraph();
+	}
 
-		graph = new TopologicalGraph();
+	/**
+	 * this method reads the file line by line, and puts the nodes and links in the arrays of a
+	 * CompactTopologicalGraph as they are parsed, without creating an object per node or link
+	 * 
+	 * @param filename name of the file to read
+	 * @return created CompactTopologicalGraph
+	 * @throws IOException
+	 */
+	public CompactTopologicalGraph readCompactGraphFile(String filename) throws IOException {
+		CompactTopologicalGraph graph = new CompactTopologicalGraph();
+		int state = PARSE_NOTHING;
 
 		// lets read the file
-		FileReader fr = new FileReader(filename);
-		BufferedReader br = new BufferedReader(fr);
-
-		String lineSep = System.getProperty("line.separator");
-		String nextLine = null;
-		StringBuffer sb = new StringBuffer();
-
-		while ((nextLine = br.readLine()) != null) {
-			sb.append(nextLine);
-			//
-			// note:
-			// BufferedReader strips the EOL character.
-			//
-			sb.append(lineSep);
-
-			// functionality to diferentiate between all the parsing-states
-			// state that should just find the start of node-declaration
-			if (state == PARSE_NOTHING) {
-				if (nextLine.contains("Nodes:")) {
-					// Log.printLine("found start of Nodes... switch to parse nodes!");
-					state = PARSE_NODES;
+		BufferedReader br = new BufferedReader(new FileReader(filename), 1 << 16);
+		try {
+			String nextLine = null;
+			while ((nextLine = br.readLine()) != null) {
+				// functionality to diferentiate between all the parsing-states
+				// state that should just find the start of node-declaration
+				if (state == PARSE_NOTHING) {
+					if (nextLine.contains("Nodes:")) {
+						state = PARSE_NODES;
+					}
 				}
-			}
 
-			// the state to retrieve all node-information
-			else if (state == PARSE_NODES) {
-				// perform the parsing of this node-line
-				parseNodeString(nextLine);
-			}
+				// the state to retrieve all node-information
+				else if (state == PARSE_NODES) {
+					// first test to step to the next parsing-state (edges)
+					if (nextLine.contains("Edges:")) {
+						state = PARSE_EDGES;
+					} else {
+						parseNodeString(nextLine, graph);
+					}
+				}
 
-			// the state to retrieve all edges-information
-			else if (state == PARSE_EDGES) {
-				parseEdgesString(nextLine);
+				// the state to retrieve all edges-information
+				else if (state == PARSE_EDGES) {
+					parseEdgesString(nextLine, graph);
+				}
 			}
-
+		} finally {
+			br.close();
 		}
 
-		br.close();
-
-		// Log.printLine("read file successfully...");
-		// Log.printLine(sb.toString());
-
 		return graph;
 	}
 
-	private void parseNodeString(String nodeLine) {
-
-		StringTokenizer tokenizer = new StringTokenizer(nodeLine);
-
-		// number of node parameters to parse (counts at linestart)
-		int parameters = 3;
-
-		// first test to step to the next parsing-state (edges)
-		if (nodeLine.contains("Edges:")) {
-			// Log.printLine("found start of Edges... switch to parse edges!");
-			state = PARSE_EDGES;
-
-			return;
-		}
-
+	/**
+	 * parses a node line: NodeID, xpos, ypos, indegree, outdegree, ASid, type(router/AS); the
+	 * missing parameters are 0
+	 * 
+	 * @param nodeLine the line
+	 * @param graph the graph to which the node is added
+	 */
+	private static void parseNodeString(String nodeLine, CompactTopologicalGraph graph) {
 		// test against an empty line
-		if (!tokenizer.hasMoreElements()) {
-			// Log.printLine("this line contains no tokens...");
+		int start = nextToken(nodeLine, 0);
+		if (start == nodeLine.length()) {
 			return;
 		}
 
-		// parse this string-line to read all node-parameters
-		// NodeID, xpos, ypos, indegree, outdegree, ASid, type(router/AS)
-
 		int nodeID = 0;
-		String nodeLabel = "";
 		int xPos = 0;
 		int yPos = 0;
 
-		for (int actualParam = 0; tokenizer.hasMoreElements() && actualParam < parameters; actualParam++) {
-			String token = tokenizer.nextToken();
+		for (int actualParam = 0; start < nodeLine.length() && actualParam < 3; actualParam++) {
+			int end = tokenEnd(nodeLine, start);
+			int value = Integer.parseInt(nodeLine.substring(start, end));
 			switch (actualParam) {
-				case 0:	// Log.printLine("nodeID: "+token);
-						// Log.printLine("nodeLabel: "+token);
-					nodeID = Integer.valueOf(token);
-					nodeLabel = Integer.toString(nodeID);
+				case 0:
+					nodeID = value;
 					break;
 
-				case 1:	// Log.printLine("x-Pos: "+token);
-					xPos = Integer.valueOf(token);
+				case 1:
+					xPos = value;
 					break;
 
-				case 2:	// Log.printLine("y-Pos: "+token);
-					yPos = Integer.valueOf(token);
+				case 2:
+					yPos = value;
 					break;
 			}
+			start = nextToken(nodeLine, end);
 		}
 
-		// instanciate an new node-object with previous parsed parameters
-		TopologicalNode topoNode = new TopologicalNode(nodeID, nodeLabel, xPos, yPos);
-		graph.addNode(topoNode);
-
-	}// parseNodeString-END
-
-	private void parseEdgesString(String nodeLine) {
-		StringTokenizer tokenizer = new StringTokenizer(nodeLine);
-
-		// number of node parameters to parse (counts at linestart)
-		int parameters = 6;
+		graph.addNode(nodeID, xPos, yPos);
+	}
 
+	/**
+	 * parses an edge line: EdgeID, fromNode, toNode, euclideanLength, linkDelay, linkBandwith,
+	 * AS_from, AS_to, type; the missing parameters are 0
+	 * 
+	 * @param edgeLine the line
+	 * @param graph the graph to which the link is added
+	 */
+	private static void parseEdgesString(String edgeLine, CompactTopologicalGraph graph) {
 		// test against an empty line
-		if (!tokenizer.hasMoreElements()) {
-			// Log.printLine("this line contains no tokens...");
+		int start = nextToken(edgeLine, 0);
+		if (start == edgeLine.length()) {
 			return;
 		}
 
-		// parse this string-line to read all node-parameters
-		// EdgeID, fromNode, toNode, euclideanLength, linkDelay, linkBandwith, AS_from, AS_to, type
-
-		// int edgeID = 0;
 		int fromNode = 0;
 		int toNode = 0;
-		// float euclideanLength = 0;
 		float linkDelay = 0;
 		int linkBandwith = 0;
 
-		for (int actualParam = 0; tokenizer.hasMoreElements() && actualParam < parameters; actualParam++) {
-			String token = tokenizer.nextToken();
+		for (int actualParam = 0; start < edgeLine.length() && actualParam < 6; actualParam++) {
+			int end = tokenEnd(edgeLine, start);
 			switch (actualParam) {
-				case 0:	// Log.printLine("edgeID: "+token);
-						// edgeID = Integer.valueOf(token);
+				case 1:
+					fromNode = Integer.parseInt(edgeLine.substring(start, end));
 					break;
 
-				case 1:	// Log.printLine("fromNode: "+token);
-					fromNode = Integer.valueOf(token);
+				case 2:
+					toNode = Integer.parseInt(edgeLine.substring(start, end));
 					break;
 
-				case 2:	// Log.printLine("toNode: "+token);
-					toNode = Integer.valueOf(token);
+				case 4:
+					linkDelay = Float.parseFloat(edgeLine.substring(start, end));
 					break;
 
-				case 3:	// Log.printLine("euclideanLength: "+token);
-						// euclideanLength = Float.valueOf(token);
+				case 5:
+					linkBandwith = (int) Float.parseFloat(edgeLine.substring(start, end));
 					break;
+			}
+			start = nextToken(edgeLine, end);
+		}
 
-				case 4:	// Log.printLine("linkDelay: "+token);
-					linkDelay = Float.valueOf(token);
-					break;
+		graph.addLink(fromNode, toNode, linkDelay, linkBandwith);
+	}
 
-				case 5:	// Log.printLine("linkBandwith: "+token);
-					linkBandwith = Float.valueOf(token).intValue();
-					break;
-			}// switch-END
-		}// for-END
+	/**
+	 * Gets the start of the next token of a line, the tokens being separated by white space as
+	 * for a {@link java.util.StringTokenizer}.
+	 * 
+	 * @param line the line
+	 * @param from the index from which the token is looked for
+	 * @return the index of the token, or the length of the line if there is none
+	 */
+	private static int nextToken(String line, int from) {
+		while (from < line.length() && isDelimiter(line.charAt(from))) {
+			from++;
+		}
+		return from;
+	}
 
-		graph.addLink(new TopologicalLink(fromNode, toNode, linkDelay, linkBandwith));
+	/**
+	 * Gets the end of a token of a line.
+	 * 
+	 * @param line the line
+	 * @param start the start of the token
+	 * @return the index after the last character of the token
+	 */
+	private static int tokenEnd(String line, int start) {
+		while (start < line.length() && !isDelimiter(line.charAt(start))) {
+			start++;
+		}
+		return start;
+	}
 
+	/**
+	 * Checks if a character separates tokens.
+	 * 
+	 * @param c the character
+	 * @return true, if it is a delimiter
+	 */
+	private static boolean isDelimiter(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
 	}
 
 }
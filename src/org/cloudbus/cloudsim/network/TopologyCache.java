@@ -0,0 +1,234 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.network;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * An on-disk cache of parsed topology files, and of the delays between all their nodes once they
+ * are computed, so that the simulations that use the same topology file skip the parsing and the
+ * computation of the shortest paths. The entries are binary files in a directory, named after the
+ * SHA-1 hash of the content of the topology file, so that an entry does not outlive a change of
+ * the file.
+ * <p>
+ * An entry is written in a temporary file that is then renamed, so that simulations running at
+ * the same time never read a partial entry.
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public class TopologyCache {
+
+	/** The first int of an entry. */
+	private static final int MAGIC = 0x43535450;
+
+	/** The version of the format of the entries. */
+	private static final int VERSION = 1;
+
+	/** The extension of the entry files. */
+	private static final String EXTENSION = ".topology";
+
+	/** The directory of the entries. */
+	private final File directory;
+
+	/**
+	 * An entry of the cache: the graph of a topology file, and the delays between all its nodes if
+	 * they were computed.
+	 */
+	public static class Entry {
+
+		/** The graph. */
+		private final CompactTopologicalGraph graph;
+
+		/** The delays between all the nodes, or null. */
+		private final float[][] delays;
+
+		/**
+		 * Instantiates a new entry.
+		 * 
+		 * @param graph the graph
+		 * @param delays the delays between all the nodes, or null
+		 */
+		public Entry(CompactTopologicalGraph graph, float[][] delays) {
+			this.graph = graph;
+			this.delays = delays;
+		}
+
+		/**
+		 * Gets the graph.
+		 * 
+		 * @return the graph
+		 */
+		public CompactTopologicalGraph getGraph() {
+			return graph;
+		}
+
+		/**
+		 * Gets the delays between all the nodes.
+		 * 
+		 * @return the delays, or null if they were not computed
+		 */
+		public float[][] getDelays() {
+			return delays;
+		}
+
+	}
+
+	/**
+	 * Instantiates a new topology cache.
+	 * 
+	 * @param directory the directory of the entries, which is created if needed
+	 */
+	public TopologyCache(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Gets the key of a topology file: the hexadecimal SHA-1 hash of its content.
+	 * 
+	 * @param filename the name of the topology file
+	 * @return the key
+	 * @throws IOException if the file cannot be read
+	 */
+	public String getKey(String filename) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		InputStream in = new FileInputStream(filename);
+		try {
+			byte[] buffer = new byte[1 << 16];
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				digest.update(buffer, 0, read);
+			}
+		} finally {
+			in.close();
+		}
+		StringBuilder key = new StringBuilder();
+		for (byte b : digest.digest()) {
+			key.append(Character.forDigit((b >> 4) & 0xf, 16));
+			key.append(Character.forDigit(b & 0xf, 16));
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Reads an entry.
+	 * 
+	 * @param key the key of the topology file
+	 * @return the entry, or null if there is none
+	 * @throws IOException if the entry cannot be read
+	 */
+	public Entry read(String key) throws IOException {
+		DataInputStream in;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(getFile(key)), 1 << 16));
+		} catch (FileNotFoundException e) {
+			return null;
+		}
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				return null;
+			}
+			CompactTopologicalGraph graph = CompactTopologicalGraph.read(in);
+			float[][] delays = null;
+			if (in.readBoolean()) {
+				int nodes = in.readInt();
+				if (nodes != graph.getNumberOfNodes()) {
+					throw new IOException("Invalid number of nodes of the delays: " + nodes);
+				}
+				delays = new float[nodes][nodes];
+				for (float[] row : delays) {
+					for (int col = 0; col < nodes; col++) {
+						row[col] = in.readFloat();
+					}
+				}
+			}
+			return new Entry(graph, delays);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Writes an entry, replacing the previous one.
+	 * 
+	 * @param key the key of the topology file
+	 * @param entry the entry
+	 * @throws IOException if the entry cannot be written
+	 */
+	public void write(String key, Entry entry) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+			throw new IOException("Cannot create the directory " + directory);
+		}
+		File temp = File.createTempFile(key, ".tmp", directory);
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(temp),
+					1 << 16));
+			try {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				entry.getGraph().write(out);
+				float[][] delays = entry.getDelays();
+				out.writeBoolean(delays != null);
+				if (delays != null) {
+					out.writeInt(delays.length);
+					for (float[] row : delays) {
+						for (float delay : row) {
+							out.writeFloat(delay);
+						}
+					}
+				}
+			} finally {
+				out.close();
+			}
+			File file = getFile(key);
+			// the rename fails on some platforms if the file exists
+			if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file))) {
+				throw new IOException("Cannot rename " + temp + " to " + file);
+			}
+		} finally {
+			temp.delete();
+		}
+	}
+
+	/**
+	 * Gets the directory of the entries.
+	 * 
+	 * @return the directory
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Gets the file of an entry.
+	 * 
+	 * @param key the key of the topology file
+	 * @return the file
+	 */
+	private File getFile(String key) {
+		return new File(directory, key + EXTENSION);
+	}
+
+}
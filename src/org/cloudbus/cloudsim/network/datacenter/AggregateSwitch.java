@@ -73,7 +73,7 @@ public class AggregateSwitch extends Switch {
 		if (level == NetworkConstants.Agg_LEVEL) {
 			// packet is coming from root so need to be sent to edgelevel swich
 			// find the id for edgelevel switch
-			int switchid = dc.VmToSwitchid.get(recvVMid);
+			int switchid = dc.getSwitchIdOfVm(recvVMid);
 			List<NetworkPacket> pktlist = downlinkswitchpktlist.get(switchid);
 			if (pktlist == null) {
 				pktlist = new ArrayList<NetworkPacket>();
@@ -107,14 +107,8 @@ public class AggregateSwitch extends Switch {
 			// packet is coming from edge level router so need to be sent to
 			// either root or another edge level swich
 			// find the id for edgelevel switch
-			int switchid = dc.VmToSwitchid.get(recvVMid);
-			boolean flagtoswtich = false;
-			for (Switch sw : downlinkswitches) {
-				if (switchid == sw.getId()) {
-					flagtoswtich = true;
-				}
-			}
-			if (flagtoswtich) {
+			int switchid = dc.getSwitchIdOfVm(recvVMid);
+			if (getDownlinkSwitchId(switchid) == switchid) {
 				List<NetworkPacket> pktlist = downlinkswitchpktlist.get(switchid);
 				if (pktlist == null) {
 					pktlist = new ArrayList<NetworkPacket>();
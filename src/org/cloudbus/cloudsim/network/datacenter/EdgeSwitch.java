@@ -76,12 +76,11 @@ public class EdgeSwitch extends Switch {
 		// packet is recieved from host
 		// packet is to be sent to aggregate level or to another host in the same level
 
-		int hostid = dc.VmtoHostlist.get(recvVMid);
-		NetworkHost hs = hostlist.get(hostid);
+		int hostid = dc.getHostIdOfVm(recvVMid);
 		hspkt.recieverhostid = hostid;
 
 		// packet needs to go to a host which is connected directly to switch
-		if (hs != null) {
+		if (dc.getSwitchIdOfVm(recvVMid) == getId()) {
 			// packet to be sent to host connected to the switch
 			List<NetworkPacket> pktlist = packetTohost.get(hostid);
 			if (pktlist == null) {
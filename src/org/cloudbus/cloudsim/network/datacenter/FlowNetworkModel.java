@@ -0,0 +1,393 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.network.datacenter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.CloudSimTags;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+import org.cloudbus.cloudsim.lists.HostList;
+
+/**
+ * A network model of a {@link NetworkDatacenter} which simulates flows instead of packets. Every
+ * packet sent between two hosts is a flow over the links of the path between them, from the uplink
+ * of the sending host, up and down through the switches, to the downlink of the receiving host.
+ * The bandwidth of the links is shared among their flows with max-min fairness, by progressive
+ * filling, and the rates of the flows are only computed again when a flow starts or finishes: the
+ * model needs one event per flow completion, instead of several events per packet and switch.
+ * <p>
+ * The transfers have the units of {@link PacketNetworkModel}: transferring <tt>data</tt> at a
+ * bandwidth <tt>bw</tt> takes <tt>1000 * data / bw</tt>. Once its data is transferred, a packet
+ * reaches the receiving host after the delays of the switches of its path, as in the packet model:
+ * a switch adds its <tt>switching_delay</tt> to the packets going up, and its <tt>latency</tt> to
+ * the packets going down. Unlike in the packet model, a flow crosses all its links at once instead
+ * of one after the other, so the packets that go through several switches arrive earlier.
+ * <p>
+ * The model is a simulation entity, so it must be created after the initialization of CloudSim. The
+ * bandwidth of a link is read from the host or switch the first time a flow uses it.
+ * 
+ * @see NetworkDatacenter#setNetworkModel(NetworkModel)
+ * @since CloudSim Toolkit 3.0
+ */
+public class FlowNetworkModel extends SimEntity implements NetworkModel {
+
+	/** The fraction of its data under which a flow is finished, for the rounding errors. */
+	private static final double EPSILON = 1e-9;
+
+	/** The datacenter. */
+	private final NetworkDatacenter datacenter;
+
+	/** The flows being transferred. */
+	private final List<Flow> flows = new ArrayList<Flow>();
+
+	/** The links from the hosts to their edge switch, by host id. */
+	private final Map<Integer, Link> hostUplinks = new HashMap<Integer, Link>();
+
+	/** The links from the edge switches to their hosts, by host id. */
+	private final Map<Integer, Link> hostDownlinks = new HashMap<Integer, Link>();
+
+	/** The links from the switches to their uplink switch, by switch id. */
+	private final Map<Integer, Link> switchUplinks = new HashMap<Integer, Link>();
+
+	/** The links from the uplink switch of the switches to them, by switch id. */
+	private final Map<Integer, Link> switchDownlinks = new HashMap<Integer, Link>();
+
+	/** The time up to which the data transferred by the flows is accounted. */
+	private double lastUpdateTime;
+
+	/**
+	 * A link of the network, shared by the flows that go through it.
+	 */
+	private static class Link {
+
+		/** The bandwidth. */
+		final double bandwidth;
+
+		/** The flows going through the link. */
+		final List<Flow> flows = new ArrayList<Flow>();
+
+		/** The bandwidth not allocated yet, while the rates are allocated. */
+		double freeBandwidth;
+
+		/** The number of flows without a rate yet, while the rates are allocated. */
+		int unfixedFlows;
+
+		/** Whether the link is in the links of the allocation, while the rates are allocated. */
+		boolean listed;
+
+		/**
+		 * Instantiates a new link.
+		 * 
+		 * @param bandwidth the bandwidth
+		 */
+		Link(double bandwidth) {
+			this.bandwidth = bandwidth;
+		}
+
+	}
+
+	/**
+	 * The flow of a packet.
+	 */
+	private static class Flow {
+
+		/** The packet. */
+		final NetworkPacket packet;
+
+		/** The links of the path of the packet. */
+		final Link[] links;
+
+		/** The delay of the switches of the path. */
+		final double delay;
+
+		/** The data left to transfer. */
+		double remaining;
+
+		/** The rate, as a bandwidth. */
+		double rate;
+
+		/** Whether the rate is allocated, while the rates are allocated. */
+		boolean fixed;
+
+		/**
+		 * Instantiates a new flow.
+		 * 
+		 * @param packet the packet
+		 * @param links the links of the path of the packet
+		 * @param delay the delay of the switches of the path
+		 */
+		Flow(NetworkPacket packet, Link[] links, double delay) {
+			this.packet = packet;
+			this.links = links;
+			this.delay = delay;
+			remaining = packet.pkt.data;
+		}
+
+	}
+
+	/**
+	 * Instantiates a new flow network model.
+	 * 
+	 * @param name the name of the entity
+	 * @param datacenter the datacenter
+	 */
+	public FlowNetworkModel(String name, NetworkDatacenter datacenter) {
+		super(name);
+		this.datacenter = datacenter;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.network.datacenter.NetworkModel#sendPackets(NetworkHost, List)
+	 */
+	@Override
+	public void sendPackets(NetworkHost host, List<NetworkPacket> packets) {
+		if (packets.isEmpty()) {
+			return;
+		}
+		updateFlows();
+		for (NetworkPacket packet : packets) {
+			Flow flow = createFlow(host, packet);
+			if (flow != null) {
+				flows.add(flow);
+				for (Link link : flow.links) {
+					link.flows.add(flow);
+				}
+			}
+		}
+		allocateRates();
+		scheduleNextCompletion();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.core.SimEntity#startEntity()
+	 */
+	@Override
+	public void startEntity() {
+		Log.printLine(getName() + " is starting...");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.core.SimEntity#processEvent(org.cloudbus.cloudsim.core.SimEvent)
+	 */
+	@Override
+	public void processEvent(SimEvent ev) {
+		switch (ev.getTag()) {
+			// the next flow finishes
+			case CloudSimTags.Network_Event_send:
+				processFlowCompletion();
+				break;
+
+			// a packet reaches its host
+			case CloudSimTags.Network_Event_Host:
+				processPacketArrival(ev);
+				break;
+
+			default:
+				Log.printLine(getName() + ": unknown event type");
+				break;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.core.SimEntity#shutdownEntity()
+	 */
+	@Override
+	public void shutdownEntity() {
+		Log.printLine(getName() + " is shutting down...");
+	}
+
+	/**
+	 * Removes the finished flows, sends their packet to the receiving host after the delay of the
+	 * switches, and allocates the rates of the other flows again.
+	 */
+	protected void processFlowCompletion() {
+		updateFlows();
+		boolean finished = false;
+		Iterator<Flow> it = flows.iterator();
+		while (it.hasNext()) {
+			Flow flow = it.next();
+			if (flow.remaining <= EPSILON * flow.packet.pkt.data) {
+				it.remove();
+				for (Link link : flow.links) {
+					link.flows.remove(flow);
+				}
+				send(getId(), flow.delay, CloudSimTags.Network_Event_Host, flow.packet);
+				finished = true;
+			}
+		}
+		if (finished) {
+			allocateRates();
+		}
+		scheduleNextCompletion();
+	}
+
+	/**
+	 * Adds a packet to the received packets of its host, and wakes the datacenter up so that the
+	 * host processes it.
+	 * 
+	 * @param ev the event of the packet
+	 */
+	protected void processPacketArrival(SimEvent ev) {
+		NetworkPacket packet = (NetworkPacket) ev.getData();
+		NetworkHost host = HostList.getById(datacenter.<NetworkHost> getHostList(), packet.recieverhostid);
+		host.packetrecieved.add(packet);
+		sendNow(datacenter.getId(), CloudSimTags.VM_DATACENTER_EVENT);
+	}
+
+	/**
+	 * Creates the flow of a packet, along the path from the sending host up to the first switch
+	 * shared with the receiving host, and down to the receiving host.
+	 * 
+	 * @param host the sending host
+	 * @param packet the packet
+	 * @return the flow, or null if there is no path to the receiving host
+	 */
+	private Flow createFlow(NetworkHost host, NetworkPacket packet) {
+		int receiverId = datacenter.getHostIdOfVm(packet.pkt.reciever);
+		NetworkHost receiver = null;
+		if (receiverId >= 0) {
+			receiver = HostList.getById(datacenter.<NetworkHost> getHostList(), receiverId);
+		}
+		if (receiver == null || receiver.sw == null || host.sw == null) {
+			Log.printLine(getName() + ": No destination for the packet to VM #" + packet.pkt.reciever);
+			return null;
+		}
+		packet.recieverhostid = receiverId;
+
+		List<Link> links = new ArrayList<Link>();
+		links.add(getLink(hostUplinks, host.getId(), host.bandwidth));
+		Switch up = host.sw;
+		Switch down = receiver.sw;
+		double delay = up.switching_delay;
+		while (up != down) {
+			// ASSUMPTION EACH SWITCH is Connected to one switch at the level above
+			if (up.uplinkswitches == null || up.uplinkswitches.isEmpty() || down.uplinkswitches == null
+					|| down.uplinkswitches.isEmpty()) {
+				Log.printLine(getName() + ": No destination for the packet to VM #" + packet.pkt.reciever);
+				return null;
+			}
+			Switch downParent = down.uplinkswitches.get(0);
+			links.add(getLink(switchUplinks, up.getId(), up.uplinkbandwidth));
+			links.add(getLink(switchDownlinks, down.getId(), downParent.downlinkbandwidth));
+			delay += down.latency;
+			up = up.uplinkswitches.get(0);
+			down = downParent;
+			delay += up.switching_delay;
+		}
+		links.add(getLink(hostDownlinks, receiver.getId(), receiver.sw.downlinkbandwidth));
+		return new Flow(packet, links.toArray(new Link[links.size()]), delay);
+	}
+
+	/**
+	 * Gets a link, which is created if needed.
+	 * 
+	 * @param links the links of the kind of the link
+	 * @param id the id of the host or switch of the link
+	 * @param bandwidth the bandwidth of the link, if it is created
+	 * @return the link
+	 */
+	private static Link getLink(Map<Integer, Link> links, int id, double bandwidth) {
+		Link link = links.get(id);
+		if (link == null) {
+			link = new Link(bandwidth);
+			links.put(id, link);
+		}
+		return link;
+	}
+
+	/**
+	 * Subtracts the data transferred since the last update from the data left to the flows.
+	 */
+	private void updateFlows() {
+		double elapsed = CloudSim.clock() - lastUpdateTime;
+		if (elapsed > 0) {
+			for (Flow flow : flows) {
+				flow.remaining = Math.max(0, flow.remaining - flow.rate * elapsed / 1000);
+			}
+		}
+		lastUpdateTime = CloudSim.clock();
+	}
+
+	/**
+	 * Allocates the max-min fair rates of the flows by progressive filling: the link that offers the
+	 * smallest even share of its free bandwidth to its flows without a rate is the bottleneck of
+	 * these flows, which get this share, until every flow has a rate.
+	 */
+	private void allocateRates() {
+		List<Link> links = new ArrayList<Link>();
+		for (Flow flow : flows) {
+			flow.fixed = false;
+			for (Link link : flow.links) {
+				if (!link.listed) {
+					link.listed = true;
+					link.freeBandwidth = link.bandwidth;
+					link.unfixedFlows = link.flows.size();
+					links.add(link);
+				}
+			}
+		}
+
+		int unfixedFlows = flows.size();
+		while (unfixedFlows > 0) {
+			Link bottleneck = null;
+			double share = Double.MAX_VALUE;
+			for (Link link : links) {
+				if (link.unfixedFlows > 0 && link.freeBandwidth / link.unfixedFlows < share) {
+					share = link.freeBandwidth / link.unfixedFlows;
+					bottleneck = link;
+				}
+			}
+			for (Flow flow : bottleneck.flows) {
+				if (!flow.fixed) {
+					flow.fixed = true;
+					flow.rate = share;
+					unfixedFlows--;
+					for (Link link : flow.links) {
+						link.freeBandwidth = Math.max(0, link.freeBandwidth - share);
+						link.unfixedFlows--;
+					}
+				}
+			}
+		}
+
+		for (Link link : links) {
+			link.listed = false;
+		}
+	}
+
+	/**
+	 * Schedules the completion of the flow that finishes first at the current rates, discarding the
+	 * previous one.
+	 */
+	private void scheduleNextCompletion() {
+		CloudSim.cancelAll(getId(), new PredicateType(CloudSimTags.Network_Event_send));
+		double next = Double.MAX_VALUE;
+		for (Flow flow : flows) {
+			if (flow.rate > 0) {
+				next = Math.min(next, 1000 * flow.remaining / flow.rate);
+			}
+		}
+		if (next < Double.MAX_VALUE) {
+			schedule(getId(), next, CloudSimTags.Network_Event_send);
+		}
+	}
+
+}
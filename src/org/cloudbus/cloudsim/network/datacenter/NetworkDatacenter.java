@@ -8,6 +8,7 @@
 
 package org.cloudbus.cloudsim.network.datacenter;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -78,6 +79,7 @@ public class NetworkDatacenter extends Datacenter {
 		HostToSwitchid = new HashMap<Integer, Integer>();
 		VmtoHostlist = new HashMap<Integer, Integer>();
 		Switchlist = new HashMap<Integer, Switch>();
+		networkModel = new PacketNetworkModel();
 	}
 
 	public Map<Integer, Integer> VmToSwitchid;
@@ -88,6 +90,92 @@ public class NetworkDatacenter extends Datacenter {
 
 	public Map<Integer, Integer> VmtoHostlist;
 
+	/** The network model, which moves the packets between the hosts. */
+	private NetworkModel networkModel;
+
+	/**
+	 * Gets the network model, which moves the packets between the hosts.
+	 * 
+	 * @return the network model
+	 */
+	public NetworkModel getNetworkModel() {
+		return networkModel;
+	}
+
+	/**
+	 * Sets the network model, which moves the packets between the hosts. The default is a
+	 * {@link PacketNetworkModel}, which simulates every packet through the switches; a
+	 * {@link FlowNetworkModel} simulates the packets as flows, which is faster when many packets
+	 * are sent.
+	 * 
+	 * @param networkModel the new network model
+	 */
+	public void setNetworkModel(NetworkModel networkModel) {
+		this.networkModel = networkModel;
+	}
+
+	/** The ids of the hosts of the VMs, by VM id, or -1. */
+	private int[] vmHostIds = new int[0];
+
+	/** The ids of the edge switches of the VMs, by VM id, or -1. */
+	private int[] vmSwitchIds = new int[0];
+
+	/**
+	 * Gets the id of the host of a VM, without the boxing of {@link #VmtoHostlist}.
+	 * 
+	 * @param vmId the id of the VM
+	 * @return the id of the host, or -1 if the VM is not placed
+	 */
+	public int getHostIdOfVm(int vmId) {
+		return vmId >= 0 && vmId < vmHostIds.length ? vmHostIds[vmId] : -1;
+	}
+
+	/**
+	 * Gets the id of the edge switch of a VM, without the boxing of {@link #VmToSwitchid}.
+	 * 
+	 * @param vmId the id of the VM
+	 * @return the id of the edge switch, or -1 if the VM is not placed
+	 */
+	public int getSwitchIdOfVm(int vmId) {
+		return vmId >= 0 && vmId < vmSwitchIds.length ? vmSwitchIds[vmId] : -1;
+	}
+
+	/**
+	 * Records the host and the edge switch of a VM after its placement or migration, in
+	 * {@link #VmtoHostlist} and {@link #VmToSwitchid} and in the arrays read by the switches to
+	 * route the packets.
+	 * 
+	 * @param vm the VM
+	 */
+	protected void updateVmRoute(Vm vm) {
+		int vmId = vm.getId();
+		NetworkHost host = (NetworkHost) vm.getHost();
+		VmToSwitchid.put(vmId, host.sw.getId());
+		VmtoHostlist.put(vmId, host.getId());
+
+		if (vmId >= vmHostIds.length) {
+			int capacity = Math.max(vmId + 1, 2 * vmHostIds.length);
+			vmHostIds = grow(vmHostIds, capacity);
+			vmSwitchIds = grow(vmSwitchIds, capacity);
+		}
+		vmHostIds[vmId] = host.getId();
+		vmSwitchIds[vmId] = host.sw.getId();
+	}
+
+	/**
+	 * Grows an array, filling the new entries with -1.
+	 * 
+	 * @param array the array
+	 * @param capacity the new capacity
+	 * @return the grown array
+	 */
+	private static int[] grow(int[] array, int capacity) {
+		int[] grown = new int[capacity];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		Arrays.fill(grown, array.length, capacity, -1);
+		return grown;
+	}
+
 	/**
 	 * Get list of all EdgeSwitches in the Datacenter network One can design similar functions for
 	 * other type of switches.
@@ -115,8 +203,7 @@ public class NetworkDatacenter extends Datacenter {
 		boolean result = getVmAllocationPolicy().allocateHostForVm(vm);
 
 		if (result) {
-			VmToSwitchid.put(vm.getId(), ((NetworkHost) vm.getHost()).sw.getId());
-			VmtoHostlist.put(vm.getId(), vm.getHost().getId());
+			updateVmRoute(vm);
 			System.out.println(vm.getId() + " VM is created on " + vm.getHost().getId());
 
 			getVmList().add(vm);
@@ -127,6 +214,21 @@ public class NetworkDatacenter extends Datacenter {
 		return result;
 	}
 
+	/**
+	 * Processes the migration of a VM, and records its new host and edge switch.
+	 * 
+	 * @param ev a SimEvent object
+	 * @param ack an acknowledgement
+	 */
+	@Override
+	protected void processVmMigrate(SimEvent ev, boolean ack) {
+		super.processVmMigrate(ev, ack);
+
+		@SuppressWarnings("unchecked")
+		Map<String, Object> migrate = (Map<String, Object>) ev.getData();
+		updateVmRoute((Vm) migrate.get("vm"));
+	}
+
 	/**
 	 * Processes a Cloudlet submission.
 	 * 
@@ -158,14 +260,9 @@ public class NetworkDatacenter extends Datacenter {
 				// Hence, this might cause CloudSim to be hanged since waiting
 				// for this Cloudlet back.
 				if (ack) {
-					int[] data = new int[3];
-					data[0] = getId();
-					data[1] = cl.getCloudletId();
-					data[2] = CloudSimTags.FALSE;
-
 					// unique tag = operation tag
 					int tag = CloudSimTags.CLOUDLET_SUBMIT_ACK;
-					sendNow(cl.getUserId(), tag, data);
+					sendNow(cl.getUserId(), tag, getId(), cl.getCloudletId(), CloudSimTags.FALSE);
 				}
 
 				sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_RETURN, cl);
@@ -198,14 +295,9 @@ public class NetworkDatacenter extends Datacenter {
 			}
 
 			if (ack) {
-				int[] data = new int[3];
-				data[0] = getId();
-				data[1] = cl.getCloudletId();
-				data[2] = CloudSimTags.TRUE;
-
 				// unique tag = operation tag
 				int tag = CloudSimTags.CLOUDLET_SUBMIT_ACK;
-				sendNow(cl.getUserId(), tag, data);
+				sendNow(cl.getUserId(), tag, getId(), cl.getCloudletId(), CloudSimTags.TRUE);
 			}
 		} catch (ClassCastException c) {
 			Log.printLine(getName() + ".processCloudletSubmit(): " + "ClassCastException error.");
@@ -17,7 +17,6 @@ import org.cloudbus.cloudsim.Pe;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.VmScheduler;
 import org.cloudbus.cloudsim.core.CloudSim;
-import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.lists.PeList;
 import org.cloudbus.cloudsim.lists.VmList;
 import org.cloudbus.cloudsim.provisioners.BwProvisioner;
@@ -182,16 +181,13 @@ public class NetworkHost extends Host {
 			}
 		}
 
-		// Sending packet to other VMs therefore packet is forwarded to a Edge switch
+		// Sending packet to other VMs therefore packet is handed to the network model of the
+		// datacenter
 		packetTosendLocal.clear();
-		double avband = bandwidth / packetTosendGlobal.size();
 		for (NetworkPacket hs : packetTosendGlobal) {
-			double delay = (1000 * hs.pkt.data) / avband;
 			NetworkConstants.totaldatatransfer += hs.pkt.data;
-
-			CloudSim.send(getDatacenter().getId(), sw.getId(), delay, CloudSimTags.Network_Event_UP, hs);
-			// send to switch with delay
 		}
+		((NetworkDatacenter) getDatacenter()).getNetworkModel().sendPackets(this, packetTosendGlobal);
 		packetTosendGlobal.clear();
 	}
 
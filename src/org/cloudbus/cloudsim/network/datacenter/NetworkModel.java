@@ -0,0 +1,32 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.network.datacenter;
+
+import java.util.List;
+
+/**
+ * The network model of a {@link NetworkDatacenter} decides how the packets sent between VMs of
+ * different hosts travel through the switches, and when they reach the receiving host.
+ * 
+ * @see PacketNetworkModel
+ * @see FlowNetworkModel
+ * @since CloudSim Toolkit 3.0
+ */
+public interface NetworkModel {
+
+	/**
+	 * Sends packets from a host to VMs running on other hosts. The packets must be added to the
+	 * {@link NetworkHost#packetrecieved} list of their receiving host when they arrive.
+	 * 
+	 * @param host the sending host
+	 * @param packets the packets, which the caller may clear after the call
+	 */
+	void sendPackets(NetworkHost host, List<NetworkPacket> packets);
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.network.datacenter;
+
+import java.util.List;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.CloudSimTags;
+
+/**
+ * The default network model of a {@link NetworkDatacenter}, which simulates every packet: the
+ * packets are sent to the edge switch of the host, and forwarded from switch to switch until they
+ * reach the receiving host. Every switch shares the bandwidth of its ports evenly among the packets
+ * it forwards at once.
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public class PacketNetworkModel implements NetworkModel {
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.network.datacenter.NetworkModel#sendPackets(NetworkHost, List)
+	 */
+	@Override
+	public void sendPackets(NetworkHost host, List<NetworkPacket> packets) {
+		// Sending packet to other VMs therefore packet is forwarded to a Edge switch
+		double avband = host.bandwidth / packets.size();
+		for (NetworkPacket hs : packets) {
+			double delay = (1000 * hs.pkt.data) / avband;
+
+			CloudSim.send(host.getDatacenter().getId(), host.sw.getId(), delay, CloudSimTags.Network_Event_UP, hs);
+			// send to switch with delay
+		}
+	}
+
+}
@@ -9,6 +9,7 @@
 package org.cloudbus.cloudsim.network.datacenter;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -72,6 +73,12 @@ public class Switch extends SimEntity {
 
 	public Map<Integer, NetworkVm> Vmlist;
 
+	/**
+	 * The routing table: the id of the downlink switch through which each switch below this one is
+	 * reached, by switch id, or -1 for the switches that are not below this one.
+	 */
+	private int[] routes;
+
 	public Switch(String name, int level, NetworkDatacenter dc) {
 		super(name);
 		this.level = level;
@@ -135,7 +142,7 @@ public class Switch extends SimEntity {
 		schedule(getId(), latency, CloudSimTags.Network_Event_send);
 		if (level == NetworkConstants.EDGE_LEVEL) {
 			// packet is to be recieved by host
-			int hostid = dc.VmtoHostlist.get(recvVMid);
+			int hostid = dc.getHostIdOfVm(recvVMid);
 			hspkt.recieverhostid = hostid;
 			List<NetworkPacket> pktlist = packetTohost.get(hostid);
 			if (pktlist == null) {
@@ -148,7 +155,7 @@ public class Switch extends SimEntity {
 		if (level == NetworkConstants.Agg_LEVEL) {
 			// packet is coming from root so need to be sent to edgelevel swich
 			// find the id for edgelevel switch
-			int switchid = dc.VmToSwitchid.get(recvVMid);
+			int switchid = dc.getSwitchIdOfVm(recvVMid);
 			List<NetworkPacket> pktlist = downlinkswitchpktlist.get(switchid);
 			if (pktlist == null) {
 				pktlist = new ArrayList<NetworkPacket>();
@@ -176,10 +183,9 @@ public class Switch extends SimEntity {
 			// packet is to be sent to aggregate level or to another host in the
 			// same level
 
-			int hostid = dc.VmtoHostlist.get(recvVMid);
-			NetworkHost hs = hostlist.get(hostid);
+			int hostid = dc.getHostIdOfVm(recvVMid);
 			hspkt.recieverhostid = hostid;
-			if (hs != null) {
+			if (dc.getSwitchIdOfVm(recvVMid) == getId()) {
 				// packet to be sent to host connected to the switch
 				List<NetworkPacket> pktlist = packetTohost.get(hostid);
 				if (pktlist == null) {
@@ -206,14 +212,8 @@ public class Switch extends SimEntity {
 			// packet is coming from edge level router so need to be sent to
 			// either root or another edge level swich
 			// find the id for edgelevel switch
-			int switchid = dc.VmToSwitchid.get(recvVMid);
-			boolean flagtoswtich = false;
-			for (Switch sw : downlinkswitches) {
-				if (switchid == sw.getId()) {
-					flagtoswtich = true;
-				}
-			}
-			if (flagtoswtich) {
+			int switchid = dc.getSwitchIdOfVm(recvVMid);
+			if (getDownlinkSwitchId(switchid) == switchid) {
 				List<NetworkPacket> pktlist = downlinkswitchpktlist.get(switchid);
 				if (pktlist == null) {
 					pktlist = new ArrayList<NetworkPacket>();
@@ -233,18 +233,9 @@ public class Switch extends SimEntity {
 		}
 		if (level == NetworkConstants.ROOT_LEVEL) {
 			// get id of edge router
-			int edgeswitchid = dc.VmToSwitchid.get(recvVMid);
+			int edgeswitchid = dc.getSwitchIdOfVm(recvVMid);
 			// search which aggregate switch has it
-			int aggSwtichid = -1;
-			;
-			for (Switch sw : downlinkswitches) {
-				for (Switch edge : sw.downlinkswitches) {
-					if (edge.getId() == edgeswitchid) {
-						aggSwtichid = sw.getId();
-						break;
-					}
-				}
-			}
+			int aggSwtichid = getDownlinkSwitchId(edgeswitchid);
 			if (aggSwtichid < 0) {
 				System.out.println(" No destination for this packet");
 			} else {
@@ -336,6 +327,58 @@ public class Switch extends SimEntity {
 
 	}
 
+	/**
+	 * Builds the routing table of the switch from the switches below it. The table is built when
+	 * the first packet is routed, so this method only has to be called again if the switches below
+	 * this one change during the simulation.
+	 */
+	public void buildRoutingTable() {
+		int[] table = new int[0];
+		if (downlinkswitches != null) {
+			for (Switch sw : downlinkswitches) {
+				table = addRoutes(table, sw, sw.getId());
+			}
+		}
+		routes = table;
+	}
+
+	/**
+	 * Adds the routes to a switch and to the switches below it to a routing table.
+	 * 
+	 * @param table the routing table
+	 * @param sw the switch
+	 * @param downlinkSwitchId the id of the downlink switch through which the switch is reached
+	 * @return the routing table, which is grown if needed
+	 */
+	private static int[] addRoutes(int[] table, Switch sw, int downlinkSwitchId) {
+		if (sw.getId() >= table.length) {
+			int[] grown = new int[Math.max(sw.getId() + 1, 2 * table.length)];
+			System.arraycopy(table, 0, grown, 0, table.length);
+			Arrays.fill(grown, table.length, grown.length, -1);
+			table = grown;
+		}
+		table[sw.getId()] = downlinkSwitchId;
+		if (sw.downlinkswitches != null) {
+			for (Switch below : sw.downlinkswitches) {
+				table = addRoutes(table, below, downlinkSwitchId);
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * Gets the downlink switch through which a switch below this one is reached.
+	 * 
+	 * @param switchId the id of the switch, usually the edge switch of the receiving VM
+	 * @return the id of the downlink switch, or -1 if the switch is not below this one
+	 */
+	protected int getDownlinkSwitchId(int switchId) {
+		if (routes == null) {
+			buildRoutingTable();
+		}
+		return switchId >= 0 && switchId < routes.length ? routes[switchId] : -1;
+	}
+
 	//
 	// R: We changed visibility of the below methods from private to protected.
 	//
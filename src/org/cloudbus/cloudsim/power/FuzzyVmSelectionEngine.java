@@ -0,0 +1,237 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.power;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import net.sourceforge.jFuzzyLogic.FIS;
+import net.sourceforge.jFuzzyLogic.FunctionBlock;
+
+/**
+ * The fuzzy inference of the fuzzy vm selection policies, which rate a vm from its RAM, the
+ * correlation of its utilization with the other vms of its host and a load input, such as its CPU
+ * utilization or the standard deviation of it. The FCL file of an engine is parsed once, and the
+ * engines are shared by all the policies that use the same file and inputs.
+ * <p>
+ * An engine evaluates the rule base with the jFuzzyLogic interpreter, one vm at a time, as the
+ * function block keeps the inputs and the output of the last evaluation. An engine can also build a
+ * lookup surface of the rule base, over a grid of the correlation and load domains for each RAM
+ * value it is asked for, on which the rating of a vm is interpolated from the four nearest points
+ * of the grid instead of being inferred. The rating is then close to the inferred one, not equal;
+ * {@link #getLookupSurfaceError(int, int)} measures how close.
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public class FuzzyVmSelectionEngine {
+
+	/** The name of the RAM input. */
+	public static final String RAM = "Ram";
+
+	/** The name of the correlation input. */
+	public static final String CORRELATION = "Correlation";
+
+	/** The name of the output. */
+	public static final String VM_SELECTION = "Vmselection";
+
+	/** The shared engines, by file name and load input. */
+	private static final Map<String, FuzzyVmSelectionEngine> ENGINES =
+			new HashMap<String, FuzzyVmSelectionEngine>();
+
+	/** The function block of the rule base. */
+	private final FunctionBlock functionBlock;
+
+	/** The name of the load input. */
+	private final String loadVariable;
+
+	/** The lookup surface, by RAM value, or null if the engine infers the ratings. */
+	private Map<Integer, double[][]> surfaces;
+
+	/** The number of points of the grid in the correlation domain. */
+	private int correlationPoints;
+
+	/** The upper bound of the correlation domain. */
+	private double maxCorrelation;
+
+	/** The number of points of the grid in the load domain. */
+	private int loadPoints;
+
+	/** The upper bound of the load domain. */
+	private double maxLoad;
+
+	/**
+	 * Instantiates a new engine.
+	 * 
+	 * @param functionBlock the function block of the rule base
+	 * @param loadVariable the name of the load input
+	 */
+	protected FuzzyVmSelectionEngine(FunctionBlock functionBlock, String loadVariable) {
+		this.functionBlock = functionBlock;
+		this.loadVariable = loadVariable;
+	}
+
+	/**
+	 * Gets the shared engine of a FCL file, loading the file the first time.
+	 * 
+	 * @param fileName the name of the FCL file
+	 * @param loadVariable the name of the load input
+	 * @return the engine, or null if the file cannot be loaded
+	 */
+	public static synchronized FuzzyVmSelectionEngine getEngine(String fileName, String loadVariable) {
+		String key = fileName + "#" + loadVariable;
+		FuzzyVmSelectionEngine engine = ENGINES.get(key);
+		if (engine == null) {
+			FIS fis = FIS.load(fileName, true);
+			if (fis == null) {
+				return null;
+			}
+			engine = new FuzzyVmSelectionEngine(fis.getFunctionBlock(null), loadVariable);
+			ENGINES.put(key, engine);
+		}
+		return engine;
+	}
+
+	/**
+	 * Rates a vm, on the lookup surface if the engine has one.
+	 * 
+	 * @param ram the RAM of the vm
+	 * @param correlation the correlation of the vm
+	 * @param load the load of the vm
+	 * @return the rating of the vm
+	 */
+	public synchronized double evaluate(int ram, double correlation, double load) {
+		if (surfaces == null) {
+			return infer(ram, correlation, load);
+		}
+		double[][] surface = surfaces.get(ram);
+		if (surface == null) {
+			surface = new double[correlationPoints][loadPoints];
+			for (int i = 0; i < correlationPoints; i++) {
+				for (int j = 0; j < loadPoints; j++) {
+					surface[i][j] = infer(
+							ram,
+							maxCorrelation * i / (correlationPoints - 1),
+							maxLoad * j / (loadPoints - 1));
+				}
+			}
+			surfaces.put(ram, surface);
+		}
+		double x = clamp(correlation / maxCorrelation, 0, 1) * (correlationPoints - 1);
+		double y = clamp(load / maxLoad, 0, 1) * (loadPoints - 1);
+		int i = Math.min((int) x, correlationPoints - 2);
+		int j = Math.min((int) y, loadPoints - 2);
+		double dx = x - i;
+		double dy = y - j;
+		return (1 - dx) * ((1 - dy) * surface[i][j] + dy * surface[i][j + 1])
+				+ dx * ((1 - dy) * surface[i + 1][j] + dy * surface[i + 1][j + 1]);
+	}
+
+	/**
+	 * Rates a vm with the interpreter.
+	 * 
+	 * @param ram the RAM of the vm
+	 * @param correlation the correlation of the vm
+	 * @param load the load of the vm
+	 * @return the rating of the vm
+	 */
+	public synchronized double infer(int ram, double correlation, double load) {
+		functionBlock.setVariable(RAM, ram);
+		functionBlock.setVariable(loadVariable, load);
+		functionBlock.setVariable(CORRELATION, correlation);
+		functionBlock.evaluate();
+		functionBlock.getVariable(VM_SELECTION).defuzzify();
+		return functionBlock.getVariable(VM_SELECTION).getValue();
+	}
+
+	/**
+	 * Makes the engine rate the vms on a lookup surface, built over the correlation domain
+	 * [0, maxCorrelation] and the load domain [0, maxLoad]. The inputs out of the domains are
+	 * clamped to them, so the domains must cover all the points of the terms of the inputs.
+	 * 
+	 * @param correlationPoints the number of points of the grid in the correlation domain
+	 * @param maxCorrelation the upper bound of the correlation domain
+	 * @param loadPoints the number of points of the grid in the load domain
+	 * @param maxLoad the upper bound of the load domain
+	 * @throws IllegalArgumentException if a domain has less than two points or is empty
+	 */
+	public synchronized void setLookupSurface(
+			int correlationPoints,
+			double maxCorrelation,
+			int loadPoints,
+			double maxLoad) {
+		if (correlationPoints < 2 || loadPoints < 2 || maxCorrelation <= 0 || maxLoad <= 0) {
+			throw new IllegalArgumentException("The grid must have at least two points per domain");
+		}
+		this.correlationPoints = correlationPoints;
+		this.maxCorrelation = maxCorrelation;
+		this.loadPoints = loadPoints;
+		this.maxLoad = maxLoad;
+		surfaces = new HashMap<Integer, double[][]>();
+	}
+
+	/**
+	 * Gets the largest difference between the rating of a vm on the lookup surface and the one
+	 * inferred by the interpreter, over a grid of the correlation and load domains of the surface.
+	 * The grid should not be aligned with the one of the surface, so that most of its points fall
+	 * between the points of the surface, where the ratings are interpolated.
+	 * 
+	 * @param ram the RAM of the vms
+	 * @param samples the number of points of the grid in each domain
+	 * @return the maximum absolute error of the lookup surface
+	 * @throws IllegalStateException if the engine has no lookup surface
+	 * @throws IllegalArgumentException if the grid has less than two points per domain
+	 */
+	public synchronized double getLookupSurfaceError(int ram, int samples) {
+		if (surfaces == null) {
+			throw new IllegalStateException("The engine has no lookup surface");
+		}
+		if (samples < 2) {
+			throw new IllegalArgumentException("The grid must have at least two points per domain");
+		}
+		double maxError = 0;
+		for (int i = 0; i < samples; i++) {
+			double correlation = maxCorrelation * i / (samples - 1);
+			for (int j = 0; j < samples; j++) {
+				double load = maxLoad * j / (samples - 1);
+				maxError = Math.max(maxError, Math.abs(evaluate(ram, correlation, load)
+						- infer(ram, correlation, load)));
+			}
+		}
+		return maxError;
+	}
+
+	/**
+	 * Makes the engine infer the ratings with the interpreter again.
+	 */
+	public synchronized void clearLookupSurface() {
+		surfaces = null;
+	}
+
+	/**
+	 * Checks if the engine rates the vms on a lookup surface.
+	 * 
+	 * @return true, if the engine has a lookup surface
+	 */
+	public synchronized boolean hasLookupSurface() {
+		return surfaces != null;
+	}
+
+	/**
+	 * Clamps a value to a range.
+	 * 
+	 * @param value the value
+	 * @param min the lower bound
+	 * @param max the upper bound
+	 * @return the clamped value
+	 */
+	private static double clamp(double value, double min, double max) {
+		return Math.max(min, Math.min(max, value));
+	}
+
+}
@@ -0,0 +1,404 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.power;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmScheduler;
+import org.cloudbus.cloudsim.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.VmSchedulerTimeSharedIndexed;
+import org.cloudbus.cloudsim.VmSchedulerTimeSharedOverSubscription;
+import org.cloudbus.cloudsim.VmSchedulerTimeSharedOverSubscriptionIndexed;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerIndexed;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerIndexed;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+
+/**
+ * A what-if model of the capacity of a host, on which the vm allocation policies try placements
+ * without creating and destroying the vms on the host. The model starts from the current allocation
+ * of the host. Vms are then added to and removed from the model, which keeps track of the storage,
+ * RAM, bandwidth and MIPS left on the host and of the vms the host would run, in the order in which
+ * {@link Host#vmCreate(Vm)} and {@link Host#vmDestroy(Vm)} would leave them. The host itself is
+ * never modified, and {@link #rollback()} returns the model to the current allocation of the host.
+ * A model is only valid as long as the host is not modified, and can be reused for many placements
+ * until then, as it indexes the vms of the host once.
+ * <p>
+ * The capacity checks mirror {@link Host#vmCreate(Vm)} for the simple and indexed RAM and bandwidth
+ * provisioners and the time-shared vm schedulers, including the vms migrating in, which use 10% of
+ * their MIPS on the host. For other provisioners or schedulers the model is not supported, and
+ * placements have to be tried on the host.
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public class HostCapacityModel {
+
+	/** The host. */
+	private final Host host;
+
+	/** The vms of the host, which the model does not copy. */
+	private final List<? extends Vm> hostVmList;
+
+	/** The indexes of the vms in the vm list of the host, by identity. */
+	private final Map<Vm, Integer> hostVmIndexes;
+
+	/** Whether each vm of the host has been removed from the model. */
+	private final boolean[] removed;
+
+	/** Whether the provisioners and the vm scheduler of the host are supported. */
+	private final boolean supported;
+
+	/** The vms added to the model. */
+	private final List<Vm> addedVms = new ArrayList<Vm>(2);
+
+	/** The indexes in the vm list of the host of the vms removed from the model, in ascending order. */
+	private int[] removedIndexes = new int[2];
+
+	/** The number of vms of the host removed from the model. */
+	private int removedCount;
+
+	/** The vms the host would run. */
+	private final List<Vm> vmList = new VmList();
+
+	/** The storage left. */
+	private long storage;
+
+	/** The RAM left. */
+	private int ram;
+
+	/** The bandwidth left. */
+	private long bw;
+
+	/** The MIPS left, which only the vm schedulers without over-subscription limit. */
+	private double mips;
+
+	/** The resource that the host lacked to run the last vm that could not be added, or null. */
+	private String missingResource;
+
+	/**
+	 * Instantiates a new model of the current allocation of a host.
+	 * 
+	 * @param host the host
+	 */
+	public HostCapacityModel(Host host) {
+		this.host = host;
+		hostVmList = host.getVmList();
+		hostVmIndexes = new IdentityHashMap<Vm, Integer>(hostVmList.size());
+		for (int i = hostVmList.size() - 1; i >= 0; i--) {
+			hostVmIndexes.put(hostVmList.get(i), i);
+		}
+		removed = new boolean[hostVmList.size()];
+		supported = isSupported(host);
+		rollback();
+	}
+
+	/**
+	 * Checks if the provisioners and the vm scheduler of a host are supported by the model.
+	 * 
+	 * @param host the host
+	 * @return true, if the host is supported
+	 */
+	public static boolean isSupported(Host host) {
+		Class<?> ramProvisionerClass = host.getRamProvisioner().getClass();
+		Class<?> bwProvisionerClass = host.getBwProvisioner().getClass();
+		Class<?> vmSchedulerClass = host.getVmScheduler().getClass();
+		return (ramProvisionerClass == RamProvisionerSimple.class
+				|| ramProvisionerClass == RamProvisionerIndexed.class)
+				&& (bwProvisionerClass == BwProvisionerSimple.class
+						|| bwProvisionerClass == BwProvisionerIndexed.class)
+				&& (isTimeSharedWithoutOverSubscription(host.getVmScheduler())
+						|| vmSchedulerClass == VmSchedulerTimeSharedOverSubscription.class
+						|| vmSchedulerClass == VmSchedulerTimeSharedOverSubscriptionIndexed.class);
+	}
+
+	/**
+	 * Checks if a vm scheduler is one of the supported time-shared schedulers that do not allow
+	 * over-subscription, and so limit the MIPS of the vms.
+	 * 
+	 * @param vmScheduler the vm scheduler
+	 * @return true, if the scheduler does not allow over-subscription
+	 */
+	private static boolean isTimeSharedWithoutOverSubscription(VmScheduler vmScheduler) {
+		return vmScheduler.getClass() == VmSchedulerTimeShared.class
+				|| vmScheduler.getClass() == VmSchedulerTimeSharedIndexed.class;
+	}
+
+	/**
+	 * Checks if the allocation of a host is the one that creating the vms in order on the emptied
+	 * host would give them, i.e. the host runs exactly these vms, in this order, and the RAM and
+	 * bandwidth allocated to each vm are its current requests. The MIPS are not checked, as the
+	 * hosts allocate the MIPS of their vms again in order at each scheduling interval.
+	 * 
+	 * @param host the host
+	 * @param vms the vms
+	 * @return true, if the host has the allocation of the vms; false if it has another allocation,
+	 *         or its provisioners are not supported
+	 */
+	public static boolean isAllocationOf(Host host, List<? extends Vm> vms) {
+		if (!isSupported(host) || !host.getVmsMigratingIn().isEmpty()) {
+			return false;
+		}
+		List<? extends Vm> hostVmList = host.getVmList();
+		if (hostVmList.size() != vms.size()) {
+			return false;
+		}
+		for (int i = 0; i < vms.size(); i++) {
+			Vm vm = vms.get(i);
+			if (hostVmList.get(i) != vm || vm.getHost() != host
+					|| host.getRamProvisioner().getAllocatedRamForVm(vm) != getRequestedRam(vm)
+					|| host.getBwProvisioner().getAllocatedBwForVm(vm) != vm.getCurrentRequestedBw()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the RAM that {@link RamProvisionerSimple} allocates to a vm.
+	 * 
+	 * @param vm the vm
+	 * @return the requested RAM, capped to the RAM of the vm
+	 */
+	private static int getRequestedRam(Vm vm) {
+		return Math.min(vm.getCurrentRequestedRam(), vm.getRam());
+	}
+
+	/**
+	 * Returns the model to the current allocation of the host.
+	 */
+	public void rollback() {
+		addedVms.clear();
+		for (int r = 0; r < removedCount; r++) {
+			removed[removedIndexes[r]] = false;
+		}
+		removedCount = 0;
+		missingResource = null;
+		storage = host.getStorage();
+		ram = host.getRamProvisioner().getAvailableRam();
+		bw = host.getBwProvisioner().getAvailableBw();
+		mips = host.getVmScheduler().getAvailableMips();
+	}
+
+	/**
+	 * Adds a vm to the model, if the host can run it as well as the vms of the model, i.e. if
+	 * {@link Host#vmCreate(Vm)} would succeed. The vm is added after the other vms.
+	 * 
+	 * @param vm the vm
+	 * @return true, if the vm has been added; false if the host cannot run it, in which case the
+	 *         model is left unchanged and {@link #getMissingResource()} tells why
+	 * @throws UnsupportedOperationException if the host is not supported
+	 */
+	public boolean addVm(Vm vm) {
+		checkSupported();
+		missingResource = null;
+		if (storage < vm.getSize()) {
+			missingResource = "storage";
+			return false;
+		}
+		// the provisioners release what the vm already has before allocating its request
+		boolean running = getHostVmIndex(vm) >= 0;
+		int requestedRam = getRequestedRam(vm);
+		int freedRam = running ? host.getRamProvisioner().getAllocatedRamForVm(vm) : 0;
+		if (ram + freedRam < requestedRam) {
+			missingResource = "RAM";
+			return false;
+		}
+		long requestedBw = vm.getCurrentRequestedBw();
+		long freedBw = running ? host.getBwProvisioner().getAllocatedBwForVm(vm) : 0;
+		if (bw + freedBw < requestedBw) {
+			missingResource = "BW";
+			return false;
+		}
+		// the over-subscription scheduler accepts every vm, sharing the MIPS of the host
+		double requestedMips = 0;
+		VmScheduler vmScheduler = host.getVmScheduler();
+		if (isTimeSharedWithoutOverSubscription(vmScheduler)) {
+			for (Double peMips : vm.getCurrentRequestedMips()) {
+				if (peMips > vmScheduler.getPeCapacity()) {
+					missingResource = "MIPS";
+					return false;
+				}
+				requestedMips += peMips;
+			}
+			if (mips < requestedMips) {
+				missingResource = "MIPS";
+				return false;
+			}
+			// a vm migrating in needs all its MIPS to be accepted, but only uses 10% of them
+			if (vmScheduler.getVmsMigratingIn().contains(vm.getUid())) {
+				requestedMips *= 0.1;
+			}
+		}
+
+		storage -= vm.getSize();
+		ram -= requestedRam - freedRam;
+		bw -= requestedBw - freedBw;
+		mips -= requestedMips;
+		addedVms.add(vm);
+		return true;
+	}
+
+	/**
+	 * Removes a vm from the model, as {@link Host#vmDestroy(Vm)} would. The first occurrence of the
+	 * vm in {@link #getVmList()} is removed and its resources are released.
+	 * 
+	 * @param vm the vm
+	 * @throws UnsupportedOperationException if the host is not supported
+	 */
+	public void removeVm(Vm vm) {
+		checkSupported();
+		int index = getHostVmIndex(vm);
+		if (index >= 0) {
+			if (removedCount == removedIndexes.length) {
+				int[] indexes = new int[removedCount * 2];
+				System.arraycopy(removedIndexes, 0, indexes, 0, removedCount);
+				removedIndexes = indexes;
+			}
+			int i = removedCount;
+			while (i > 0 && removedIndexes[i - 1] > index) {
+				removedIndexes[i] = removedIndexes[i - 1];
+				i--;
+			}
+			removedIndexes[i] = index;
+			removedCount++;
+			removed[index] = true;
+			storage += vm.getSize();
+			ram += host.getRamProvisioner().getAllocatedRamForVm(vm);
+			bw += host.getBwProvisioner().getAllocatedBwForVm(vm);
+			if (isTimeSharedWithoutOverSubscription(host.getVmScheduler())) {
+				mips += host.getVmScheduler().getTotalAllocatedMipsForVm(vm);
+			}
+		} else if (addedVms.remove(vm)) {
+			storage += vm.getSize();
+			ram += getRequestedRam(vm);
+			bw += vm.getCurrentRequestedBw();
+			if (isTimeSharedWithoutOverSubscription(host.getVmScheduler())) {
+				for (Double peMips : vm.getCurrentRequestedMips()) {
+					mips += peMips;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the vms the host would run, in the order of its vm list. The list is a view of the model
+	 * and cannot be modified.
+	 * 
+	 * @return the vm list
+	 */
+	public List<Vm> getVmList() {
+		return vmList;
+	}
+
+	/**
+	 * Checks if the host would run a vm, i.e. if {@link #getVmList()} contains it.
+	 * 
+	 * @param vm the vm
+	 * @return true, if the vm is one of the vms of the model
+	 */
+	public boolean contains(Vm vm) {
+		return getHostVmIndex(vm) >= 0 || addedVms.contains(vm);
+	}
+
+	/**
+	 * Gets the resource that the host lacked to run the last vm that could not be added, named as
+	 * in the log of {@link Host#vmCreate(Vm)}: storage, RAM, BW or MIPS.
+	 * 
+	 * @return the missing resource, or null if the last vm has been added
+	 */
+	public String getMissingResource() {
+		return missingResource;
+	}
+
+	/**
+	 * Gets the host.
+	 * 
+	 * @return the host
+	 */
+	public Host getHost() {
+		return host;
+	}
+
+	/**
+	 * Checks if the model is supported for the host.
+	 * 
+	 * @return true, if supported
+	 */
+	public boolean isSupported() {
+		return supported;
+	}
+
+	/**
+	 * Gets the index in the vm list of the host of a vm that has not been removed from the model.
+	 * 
+	 * @param vm the vm
+	 * @return the index, or -1 if the host does not run the vm or it has been removed
+	 */
+	private int getHostVmIndex(Vm vm) {
+		Integer index = hostVmIndexes.get(vm);
+		if (index == null || removed[index]) {
+			return -1;
+		}
+		return index;
+	}
+
+	/**
+	 * Checks that the host is supported.
+	 * 
+	 * @throws UnsupportedOperationException if the host is not supported
+	 */
+	private void checkSupported() {
+		if (!supported) {
+			throw new UnsupportedOperationException("The provisioners or the vm scheduler of host #"
+					+ host.getId() + " are not supported");
+		}
+	}
+
+	/**
+	 * The vms of the host that have not been removed, followed by the added vms.
+	 */
+	private class VmList extends AbstractList<Vm> {
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.util.AbstractList#get(int)
+		 */
+		@Override
+		public Vm get(int index) {
+			int hostVms = hostVmList.size() - removedCount;
+			if (index < 0 || index >= hostVms + addedVms.size()) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+			}
+			if (index >= hostVms) {
+				return addedVms.get(index - hostVms);
+			}
+			for (int r = 0; r < removedCount && removedIndexes[r] <= index; r++) {
+				index++;
+			}
+			return hostVmList.get(index);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.util.AbstractCollection#size()
+		 */
+		@Override
+		public int size() {
+			return hostVmList.size() - removedCount + addedVms.size();
+		}
+
+	}
+
+}
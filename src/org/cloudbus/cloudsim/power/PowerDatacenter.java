@@ -94,8 +94,6 @@ public class PowerDatacenter extends Datacenter {
 
 		// if some time passed since last processing
 		if (currentTime > getLastProcessTime()) {
-			System.out.print(currentTime + " ");
-
 			double minTime = updateCloudetProcessingWithoutSchedulingFutureEventsForce();
 
 			if (!isDisableMigrations()) {
@@ -172,22 +170,29 @@ public class PowerDatacenter extends Datacenter {
 		double timeDiff = currentTime - getLastProcessTime();
 		double timeFrameDatacenterEnergy = 0.0;
 
+		boolean debug = Log.isEnabled(Log.DEBUG);
+
 		Log.printLine("\n\n--------------------------------------------------------------\n\n");
 		Log.formatLine("New resource usage for the time frame starting at %.2f:", currentTime);
 
 		for (PowerHost host : this.<PowerHost> getHostList()) {
-			Log.printLine();
+			if (debug) {
+				Log.printLine(Log.DEBUG, "");
+			}
 
 			double time = host.updateVmsProcessing(currentTime); // inform VMs to update processing
 			if (time < minTime) {
 				minTime = time;
 			}
 
-			Log.formatLine(
-					"%.2f: [Host #%d] utilization is %.2f%%",
-					currentTime,
-					host.getId(),
-					host.getUtilizationOfCpu() * 100);
+			if (debug) {
+				Log.formatLine(
+						Log.DEBUG,
+						"%.2f: [Host #%d] utilization is %.2f%%",
+						currentTime,
+						host.getId(),
+						host.getUtilizationOfCpu() * 100);
+			}
 		}
 
 		if (timeDiff > 0) {
@@ -196,28 +201,50 @@ public class PowerDatacenter extends Datacenter {
 					getLastProcessTime(),
 					currentTime);
 
-			for (PowerHost host : this.<PowerHost> getHostList()) {
-				double previousUtilizationOfCpu = host.getPreviousUtilizationOfCpu();
-				double utilizationOfCpu = host.getUtilizationOfCpu();
+			List<PowerHost> hosts = this.<PowerHost> getHostList();
+			int hostCount = hosts.size();
+			double[] previousUtilizations = new double[hostCount];
+			double[] utilizations = new double[hostCount];
+			for (int i = 0; i < hostCount; i++) {
+				PowerHost host = hosts.get(i);
+				previousUtilizations[i] = host.getPreviousUtilizationOfCpu();
+				utilizations[i] = host.getUtilizationOfCpu();
+			}
+			// the hosts that share a power model are evaluated together
+			double[] previousPowers = new double[hostCount];
+			double[] powers = new double[hostCount];
+			PowerHost.getPower(hosts, previousUtilizations, previousPowers);
+			PowerHost.getPower(hosts, utilizations, powers);
+
+			for (int i = 0; i < hostCount; i++) {
+				PowerHost host = hosts.get(i);
+				double previousUtilizationOfCpu = previousUtilizations[i];
+				double utilizationOfCpu = utilizations[i];
 				double timeFrameHostEnergy = host.getEnergyLinearInterpolation(
 						previousUtilizationOfCpu,
 						utilizationOfCpu,
+						previousPowers[i],
+						powers[i],
 						timeDiff);
 				timeFrameDatacenterEnergy += timeFrameHostEnergy;
 
-				Log.printLine();
-				Log.formatLine(
-						"%.2f: [Host #%d] utilization at %.2f was %.2f%%, now is %.2f%%",
-						currentTime,
-						host.getId(),
-						getLastProcessTime(),
-						previousUtilizationOfCpu * 100,
-						utilizationOfCpu * 100);
-				Log.formatLine(
-						"%.2f: [Host #%d] energy is %.2f W*sec",
-						currentTime,
-						host.getId(),
-						timeFrameHostEnergy);
+				if (debug) {
+					Log.printLine(Log.DEBUG, "");
+					Log.formatLine(
+							Log.DEBUG,
+							"%.2f: [Host #%d] utilization at %.2f was %.2f%%, now is %.2f%%",
+							currentTime,
+							host.getId(),
+							getLastProcessTime(),
+							previousUtilizationOfCpu * 100,
+							utilizationOfCpu * 100);
+					Log.formatLine(
+							Log.DEBUG,
+							"%.2f: [Host #%d] energy is %.2f W*sec",
+							currentTime,
+							host.getId(),
+							timeFrameHostEnergy);
+				}
 			}
 
 			Log.formatLine(
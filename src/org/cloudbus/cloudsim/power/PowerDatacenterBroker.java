@@ -46,15 +46,15 @@ public class PowerDatacenterBroker extends DatacenterBroker {
 	 */
 	@Override
 	protected void processVmCreate(SimEvent ev) {
-		int[] data = (int[]) ev.getData();
-		int result = data[2];
+		int result = ev.getIntData(2);
 
 		if (result != CloudSimTags.TRUE) {
-			int datacenterId = data[0];
-			int vmId = data[1];
+			int datacenterId = ev.getIntData(0);
+			int vmId = ev.getIntData(1);
 			System.out.println(CloudSim.clock() + ": " + getName() + ": Creation of VM #" + vmId
 					+ " failed in Datacenter #" + datacenterId);
-			System.exit(0);
+			throw new IllegalStateException("Creation of VM #" + vmId + " failed in Datacenter #"
+					+ datacenterId);
 		}
 		super.processVmCreate(ev);
 	}
@@ -9,14 +9,10 @@
 package org.cloudbus.cloudsim.power;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
-import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.util.MathUtil;
-import net.sourceforge.jFuzzyLogic.FIS;
-import net.sourceforge.jFuzzyLogic.FunctionBlock;
 import org.cloudbus.cloudsim.core.CloudSim;
 /**
  * The Maximum Correlation (MC) VM selection policy.
@@ -85,15 +81,12 @@ public class PowerFuzzyVmSelectionPolicy extends PowerVmSelectionPolicy {
 	@Override
 	public Vm getVmToMigrate(final PowerHost host) {
             	String filename = "fuzzyvmselection3.fcl";
-		FIS fis = FIS.load(filename, true);
+		FuzzyVmSelectionEngine engine = FuzzyVmSelectionEngine.getEngine(filename, "cpu");
 
-		if (fis == null) {
+		if (engine == null) {
 			System.err.println("Can't load file: '" + filename + "'");
-			System.exit(1);
+			throw new IllegalStateException("Can't load file: '" + filename + "'");
 		}
-
-		// Get default function block
-		FunctionBlock fb = fis.getFunctionBlock(null);
 		
                 
                 List<PowerVm> migratableVms = getMigratableVms(host);
@@ -114,7 +107,6 @@ public class PowerFuzzyVmSelectionPolicy extends PowerVmSelectionPolicy {
                 double metric5=0;
 		for (int i = 0; i < metrics.size(); i++) {
                         vm=migratableVms.get(i);
-                        fb.setVariable("Ram", vm.getRam());
 
                         // Evaluate
                         metric5=0;
@@ -164,7 +156,6 @@ public class PowerFuzzyVmSelectionPolicy extends PowerVmSelectionPolicy {
                         metric5=(float)((metric0+metric1+metric2+metric3+metric4)/5);
 */
                         
-                        fb.setVariable("cpu", metric5);                        
                         //fb.setVariable("Stddev", metric5);                        
                         /*
                         float metric0 = (float)(vm.getTotalUtilizationOfCpuMips(CloudSim.clock()) / vm.getMips())*100;/// Monil
@@ -179,11 +170,7 @@ public class PowerFuzzyVmSelectionPolicy extends PowerVmSelectionPolicy {
                                 metric3+" "+metric4+" average: "+ metric5);/// Monil */
                         
 			double metric = metrics.get(i);
-                        fb.setVariable("Correlation", metrics.get(i));
-                        fb.evaluate();
-                        // Show output variable's chart
-                        fb.getVariable("Vmselection").defuzzify();
-                        metric=fb.getVariable("Vmselection").getValue();
+                        metric = engine.evaluate(vm.getRam(), metrics.get(i), metric5);
                         //System.out.println(" ram: " + vm.getRam()+" cpu: " + metric5+" correlation: " + metrics.get(i)+" Vmselection: " + metric);   
                         
 			if (metric > maxMetric) {
@@ -241,25 +228,7 @@ public class PowerFuzzyVmSelectionPolicy extends PowerVmSelectionPolicy {
 	 * @return the correlation coefficients
 	 */
 	protected List<Double> getCorrelationCoefficients(final double[][] data) {
-		int n = data.length;
-		int m = data[0].length;
-		List<Double> correlationCoefficients = new LinkedList<Double>();
-		for (int i = 0; i < n; i++) {
-			double[][] x = new double[n - 1][m];
-			int k = 0;
-			for (int j = 0; j < n; j++) {
-				if (j != i) {
-					x[k++] = data[j];
-				}
-			}
-
-			// Transpose the matrix so that it fits the linear model
-			double[][] xT = new Array2DRowRealMatrix(x).transpose().getData();
-
-			// RSquare is the "coefficient of determination"
-			correlationCoefficients.add(MathUtil.createLinearRegression(xT,	data[i]).calculateRSquared());
-		}
-		return correlationCoefficients;
+		return MathUtil.getCoefficientsOfDetermination(data);
 	}
 
 	/**
@@ -14,6 +14,7 @@ import org.cloudbus.cloudsim.HostDynamicWorkload;
 import org.cloudbus.cloudsim.Pe;
 import org.cloudbus.cloudsim.VmScheduler;
 import org.cloudbus.cloudsim.power.models.PowerModel;
+import org.cloudbus.cloudsim.power.models.PowerModelBatch;
 import org.cloudbus.cloudsim.provisioners.BwProvisioner;
 import org.cloudbus.cloudsim.provisioners.RamProvisioner;
 
@@ -72,16 +73,10 @@ public class PowerHost extends HostDynamicWorkload {
 	 * 
 	 * @param utilization the utilization
 	 * @return the power
+	 * @throws IllegalArgumentException if the utilization is out of the range of the power model
 	 */
 	protected double getPower(double utilization) {
-		double power = 0;
-		try {
-			power = getPowerModel().getPower(utilization);
-		} catch (Exception e) {
-			e.printStackTrace();
-			System.exit(0);
-		}
-		return power;
+		return getPowerModel().getPower(utilization);
 	}
 
 	/**
@@ -90,14 +85,7 @@ public class PowerHost extends HostDynamicWorkload {
 	 * @return the max power
 	 */
 	public double getMaxPower() {
-		double power = 0;
-		try {
-			power = getPowerModel().getPower(1);
-		} catch (Exception e) {
-			e.printStackTrace();
-			System.exit(0);
-		}
-		return power;
+		return getPowerModel().getPower(1);
 	}
 
 	/**
@@ -116,11 +104,84 @@ public class PowerHost extends HostDynamicWorkload {
                     double toPower = getPower(toUtilization);
                     return toPower;
 		}*/
-		double fromPower = getPower(fromUtilization);
-		double toPower = getPower(toUtilization);
+		return getEnergyLinearInterpolation(
+				fromUtilization,
+				toUtilization,
+				getPower(fromUtilization),
+				getPower(toUtilization),
+				time);
+	}
+
+	/**
+	 * Gets the energy consumption using linear interpolation of the utilization change, from the
+	 * powers at the two utilizations, e.g. as evaluated for many hosts at once by
+	 * {@link #getPower(List, double[], double[])}.
+	 * 
+	 * @param fromUtilization the from utilization
+	 * @param toUtilization the to utilization
+	 * @param fromPower the power at the from utilization
+	 * @param toPower the power at the to utilization
+	 * @param time the time
+	 * @return the energy
+	 */
+	public double getEnergyLinearInterpolation(
+			double fromUtilization,
+			double toUtilization,
+			double fromPower,
+			double toPower,
+			double time) {
+		if (fromUtilization == 0 && toUtilization == 0) {
+			return 0;
+		}
 		return (fromPower + (toPower - fromPower) / 2) * time;
 	}
 
+	/**
+	 * Gets the powers of many hosts. The hosts that share a power model able to evaluate many
+	 * utilizations at once are evaluated together, in one call to the model; the others are
+	 * evaluated one by one. The powers are the same as the ones given by {@link #getPower(double)}.
+	 * 
+	 * @param hosts the hosts
+	 * @param utilizations the utilizations of the hosts, in the order of the hosts
+	 * @param powers the array in which the powers of the hosts are put, in the order of the hosts
+	 * @throws IllegalArgumentException if a utilization is out of the range of the power model of its
+	 *             host
+	 */
+	public static void getPower(
+			List<? extends PowerHost> hosts,
+			double[] utilizations,
+			double[] powers) {
+		int size = hosts.size();
+		boolean[] evaluated = new boolean[size];
+		int[] groupIndices = new int[size];
+		double[] groupUtilizations = new double[size];
+		double[] groupPowers = new double[size];
+		for (int i = 0; i < size; i++) {
+			if (evaluated[i]) {
+				continue;
+			}
+			PowerHost host = hosts.get(i);
+			PowerModel powerModel = host.getPowerModel();
+			if (!(powerModel instanceof PowerModelBatch)) {
+				powers[i] = host.getPower(utilizations[i]);
+				continue;
+			}
+			int length = 0;
+			for (int j = i; j < size; j++) {
+				if (!evaluated[j] && hosts.get(j).getPowerModel() == powerModel) {
+					evaluated[j] = true;
+					groupIndices[length] = j;
+					groupUtilizations[length] = utilizations[j];
+					length++;
+				}
+			}
+			((PowerModelBatch) powerModel).getPower(groupUtilizations, groupPowers, length);
+			for (int k = 0; k < length; k++) {
+				powers[groupIndices[k]] = groupPowers[k];
+			}
+		}
+	}
+
 	/**
 	 * Sets the power model.
 	 * 
@@ -8,13 +8,16 @@
 
 package org.cloudbus.cloudsim.power;
 
+import java.util.Arrays;
 import java.util.List;
 
 import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.VmScheduler;
 import org.cloudbus.cloudsim.power.models.PowerModel;
 import org.cloudbus.cloudsim.provisioners.BwProvisioner;
 import org.cloudbus.cloudsim.provisioners.RamProvisioner;
+import org.cloudbus.cloudsim.util.DoubleRingBuffer;
 import org.cloudbus.cloudsim.util.MathUtil;
 
 /**
@@ -34,6 +37,21 @@ import org.cloudbus.cloudsim.util.MathUtil;
  */
 public class PowerHostUtilizationHistory extends PowerHost {
 
+	/** The sum of the utilization histories of the aggregated vms, as fractions of the host MIPS. */
+	private final double[] aggregatedHistory = new double[PowerVm.HISTORY_LENGTH];
+
+	/** The aggregated vms, which are the first vms of the host. */
+	private Vm[] aggregatedVms = new Vm[0];
+
+	/** The versions of the histories of the aggregated vms when they were aggregated. */
+	private int[] aggregatedVersions = new int[0];
+
+	/** The number of aggregated vms. */
+	private int aggregatedCount;
+
+	/** The host MIPS of the aggregated histories. */
+	private double aggregatedMips;
+
 	/**
 	 * Instantiates a new power host utilization history.
 	 * 
@@ -62,14 +80,95 @@ public class PowerHostUtilizationHistory extends PowerHost {
 	 * @return the host utilization history
 	 */
 	protected double[] getUtilizationHistory() {
-		double[] utilizationHistory = new double[PowerVm.HISTORY_LENGTH];
+		return getUtilizationHistory(getVmList());
+	}
+
+	/**
+	 * Gets the utilization history the host would have if it ran the given vms. The histories of
+	 * the vms of the host are summed once, and the sum is only extended as vms are added to the
+	 * host; it is summed again when a vm is removed or when the history of a vm changes. The
+	 * history of vms that start with the vms of the host is computed from that sum.
+	 * 
+	 * @param vmList the vms
+	 * @return the host utilization history
+	 */
+	protected synchronized double[] getUtilizationHistory(List<? extends Vm> vmList) {
 		double hostMips = getTotalMips();
-		for (PowerVm vm : this.<PowerVm> getVmList()) {
-			for (int i = 0; i < vm.getUtilizationHistory().size(); i++) {
-				utilizationHistory[i] += vm.getUtilizationHistory().get(i) * vm.getMips() / hostMips;
-			}
+		List<? extends Vm> hostVmList = getVmList();
+		if (aggregatedMips != hostMips || !isAggregated(hostVmList)) {
+			Arrays.fill(aggregatedHistory, 0);
+			aggregatedCount = 0;
+			aggregatedMips = hostMips;
+		}
+		for (int i = aggregatedCount; i < hostVmList.size(); i++) {
+			aggregate((PowerVm) hostVmList.get(i));
+		}
+
+		double[] utilizationHistory;
+		int start;
+		if (isAggregated(vmList)) {
+			utilizationHistory = aggregatedHistory.clone();
+			start = aggregatedCount;
+		} else {
+			utilizationHistory = new double[PowerVm.HISTORY_LENGTH];
+			start = 0;
+		}
+		for (int i = start; i < vmList.size(); i++) {
+			addUtilizationHistory(utilizationHistory, (PowerVm) vmList.get(i), hostMips);
 		}
 		return MathUtil.trimZeroTail(utilizationHistory);
 	}
 
+	/**
+	 * Checks if a list of vms starts with the aggregated vms, with the histories they had when they
+	 * were aggregated.
+	 * 
+	 * @param vmList the vms
+	 * @return true, if the aggregated vms are the first vms of the list
+	 */
+	private boolean isAggregated(List<? extends Vm> vmList) {
+		if (vmList.size() < aggregatedCount) {
+			return false;
+		}
+		for (int i = 0; i < aggregatedCount; i++) {
+			Vm vm = vmList.get(i);
+			if (vm != aggregatedVms[i]
+					|| ((PowerVm) vm).getUtilizationHistory().getVersion() != aggregatedVersions[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Adds the history of a vm to the aggregated histories.
+	 * 
+	 * @param vm the vm
+	 */
+	private void aggregate(PowerVm vm) {
+		if (aggregatedCount == aggregatedVms.length) {
+			aggregatedVms = Arrays.copyOf(aggregatedVms, aggregatedCount * 2 + 1);
+			aggregatedVersions = Arrays.copyOf(aggregatedVersions, aggregatedCount * 2 + 1);
+		}
+		aggregatedVms[aggregatedCount] = vm;
+		aggregatedVersions[aggregatedCount] = vm.getUtilizationHistory().getVersion();
+		aggregatedCount++;
+		addUtilizationHistory(aggregatedHistory, vm, aggregatedMips);
+	}
+
+	/**
+	 * Adds the history of a vm, as a fraction of the MIPS of the host, to a host utilization
+	 * history.
+	 * 
+	 * @param utilizationHistory the host utilization history
+	 * @param vm the vm
+	 * @param hostMips the MIPS of the host
+	 */
+	private static void addUtilizationHistory(double[] utilizationHistory, PowerVm vm, double hostMips) {
+		DoubleRingBuffer vmHistory = vm.getUtilizationHistory();
+		for (int i = 0; i < vmHistory.size(); i++) {
+			utilizationHistory[i] += vmHistory.getDouble(i) * vm.getMips() / hostMips;
+		}
+	}
+
 }
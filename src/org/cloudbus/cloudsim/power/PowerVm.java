@@ -8,12 +8,12 @@
 
 package org.cloudbus.cloudsim.power;
 
-import java.util.LinkedList;
 import java.util.List;
 
 import org.cloudbus.cloudsim.CloudletScheduler;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.util.DoubleRingBuffer;
 import org.cloudbus.cloudsim.util.MathUtil;
 
 /**
@@ -37,7 +37,34 @@ public class PowerVm extends Vm {
 	public static final int HISTORY_LENGTH = 30;
 
 	/** The utilization history. */
-	private final List<Double> utilizationHistory = new LinkedList<Double>();
+	private final DoubleRingBuffer utilizationHistory = new DoubleRingBuffer(HISTORY_LENGTH);
+
+	/** The version of the history from which the mean and the variance were computed. */
+	private int meanStatisticsVersion = -1;
+
+	/** The mips for which the mean and the variance were computed. */
+	private double meanStatisticsMips;
+
+	/** The utilization mean in MIPS. */
+	private double utilizationMean;
+
+	/** The utilization variance in MIPS. */
+	private double utilizationVariance;
+
+	/** The version of the history from which the median statistics were computed. */
+	private int medianStatisticsVersion = -1;
+
+	/** The mips for which the median statistics were computed. */
+	private double medianStatisticsMips;
+
+	/** The utilization median in MIPS. */
+	private double utilizationMedian;
+
+	/** The utilization MAD. */
+	private double utilizationMad;
+
+	/** The utilization variance from the median in MIPS. */
+	private double utilizationVarianceFromMedian;
 
 	/** The previous time. */
 	private double previousTime;
@@ -106,52 +133,24 @@ public class PowerVm extends Vm {
 	 * 
 	 * @return the utilization mean in MIPS
 	 */
-	public double getUtilizationMad() {
-		double mad = 0;
-		if (!getUtilizationHistory().isEmpty()) {
-			int n = HISTORY_LENGTH;
-			if (HISTORY_LENGTH > getUtilizationHistory().size()) {
-				n = getUtilizationHistory().size();
-			}
-			double median = MathUtil.median(getUtilizationHistory());
-			double[] deviationSum = new double[n];
-			for (int i = 0; i < n; i++) {
-				deviationSum[i] = Math.abs(median - getUtilizationHistory().get(i));
-			}
-			mad = MathUtil.median(deviationSum);
-		}
-		return mad;
+	public synchronized double getUtilizationMad() {
+		updateMedianStatistics();
+		return utilizationMad;
 	}
-        
-	public double getUtilizationMedian() {
-		double median = 0;
-		if (!getUtilizationHistory().isEmpty()) {
-			int n = HISTORY_LENGTH;
-			if (HISTORY_LENGTH > getUtilizationHistory().size()) {
-				n = getUtilizationHistory().size();
-			}
-			median = MathUtil.median(getUtilizationHistory());
-		}
-		return median*getMips();
+
+	public synchronized double getUtilizationMedian() {
+		updateMedianStatistics();
+		return utilizationMedian;
 	}
+
 	/**
 	 * Gets the utilization mean in percents.
 	 * 
 	 * @return the utilization mean in MIPS
 	 */
-	public double getUtilizationMean() {
-		double mean = 0;
-		if (!getUtilizationHistory().isEmpty()) {
-			int n = HISTORY_LENGTH;
-			if (HISTORY_LENGTH > getUtilizationHistory().size()) {
-				n = getUtilizationHistory().size();
-			}
-			for (int i = 0; i < n; i++) {
-				mean += getUtilizationHistory().get(i);
-			}
-			mean /= n;
-		}
-		return mean * getMips();
+	public synchronized double getUtilizationMean() {
+		updateMeanStatistics();
+		return utilizationMean;
 	}
 
 	/**
@@ -159,38 +158,75 @@ public class PowerVm extends Vm {
 	 * 
 	 * @return the utilization variance in MIPS
 	 */
-	public double getUtilizationVariance() {
-		double mean = getUtilizationMean();
+	public synchronized double getUtilizationVariance() {
+		updateMeanStatistics();
+		return utilizationVariance;
+	}
+
+        public synchronized double getUtilizationVarianceFromMedian() {
+		updateMedianStatistics();
+		return utilizationVarianceFromMedian;
+	}
+
+	/**
+	 * Computes the mean and the variance of the utilization, if the history or the mips have
+	 * changed since they were last computed.
+	 */
+	private void updateMeanStatistics() {
+		DoubleRingBuffer history = getUtilizationHistory();
+		if (meanStatisticsVersion == history.getVersion() && meanStatisticsMips == getMips()) {
+			return;
+		}
+		double mean = 0;
 		double variance = 0;
-		if (!getUtilizationHistory().isEmpty()) {
-			int n = HISTORY_LENGTH;
-			if (HISTORY_LENGTH > getUtilizationHistory().size()) {
-				n = getUtilizationHistory().size();
-			}
+		int n = history.size();
+		if (n > 0) {
+			mean = history.getSum() / n * getMips();
 			for (int i = 0; i < n; i++) {
-				double tmp = getUtilizationHistory().get(i) * getMips() - mean;
+				double tmp = history.getDouble(i) * getMips() - mean;
 				variance += tmp * tmp;
 			}
 			variance /= n;
 		}
-		return variance;
+		utilizationMean = mean;
+		utilizationVariance = variance;
+		meanStatisticsVersion = history.getVersion();
+		meanStatisticsMips = getMips();
 	}
 
-        public double getUtilizationVarianceFromMedian() {
-		double median = getUtilizationMedian();
+	/**
+	 * Computes the median, the MAD and the variance from the median of the utilization, if the
+	 * history or the mips have changed since they were last computed.
+	 */
+	private void updateMedianStatistics() {
+		DoubleRingBuffer history = getUtilizationHistory();
+		if (medianStatisticsVersion == history.getVersion() && medianStatisticsMips == getMips()) {
+			return;
+		}
+		double median = 0;
+		double mad = 0;
 		double variance = 0;
-		if (!getUtilizationHistory().isEmpty()) {
-			int n = HISTORY_LENGTH;
-			if (HISTORY_LENGTH > getUtilizationHistory().size()) {
-				n = getUtilizationHistory().size();
+		int n = history.size();
+		if (n > 0) {
+			double[] data = history.toDoubleArray();
+			double medianUtilization = MathUtil.median(data);
+			double[] deviationSum = new double[n];
+			for (int i = 0; i < n; i++) {
+				deviationSum[i] = Math.abs(medianUtilization - data[i]);
 			}
+			mad = MathUtil.median(deviationSum);
+			median = medianUtilization * getMips();
 			for (int i = 0; i < n; i++) {
-				double tmp = getUtilizationHistory().get(i) * getMips() - median;
+				double tmp = data[i] * getMips() - median;
 				variance += tmp * tmp;
 			}
 			variance /= n;
 		}
-		return variance;
+		utilizationMedian = median;
+		utilizationMad = mad;
+		utilizationVarianceFromMedian = variance;
+		medianStatisticsVersion = history.getVersion();
+		medianStatisticsMips = getMips();
 	}
 
 	/**
@@ -198,19 +234,16 @@ public class PowerVm extends Vm {
 	 * 
 	 * @param utilization the utilization
 	 */
-	public void addUtilizationHistoryValue(final double utilization) {
-		getUtilizationHistory().add(0, utilization);
-		if (getUtilizationHistory().size() > HISTORY_LENGTH) {
-			getUtilizationHistory().remove(HISTORY_LENGTH);
-		}
+	public synchronized void addUtilizationHistoryValue(final double utilization) {
+		getUtilizationHistory().push(utilization);
 	}
 
 	/**
-	 * Gets the utilization history.
+	 * Gets the utilization history, the newest value first.
 	 * 
 	 * @return the utilization history
 	 */
-	protected List<Double> getUtilizationHistory() {
+	protected DoubleRingBuffer getUtilizationHistory() {
 		return utilizationHistory;
 	}
 
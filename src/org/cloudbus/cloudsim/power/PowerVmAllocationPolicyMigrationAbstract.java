@@ -9,19 +9,28 @@
 package org.cloudbus.cloudsim.power;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.cloudbus.cloudsim.Host;
 import org.cloudbus.cloudsim.HostDynamicWorkload;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Vm;
-import org.cloudbus.cloudsim.VmStateHistoryEntry;
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.cloudbus.cloudsim.examples.power.planetlab.PlanetLabConstants;
 import org.cloudbus.cloudsim.power.lists.PowerVmList;
 import org.cloudbus.cloudsim.util.ExecutionTimeMeasurer;
@@ -45,6 +54,9 @@ import org.cloudbus.cloudsim.util.MathUtil;
  */
 public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAllocationPolicyAbstract {
 
+	/** The line separator of the log. */
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
 	/** The vm selection policy. */
 	private PowerVmSelectionPolicy vmSelectionPolicy;
 
@@ -76,6 +88,84 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
         public double numberofdoublepass=0;
         public double numberofnewactivehost=0;
 
+	/**
+	 * The number of vms placed by the single pass, over all the optimizations of this policy. It is
+	 * only accumulated with the statistics printed at the end of an optimization, which are
+	 * commented out, so it stays 0 as the total it replaces did.
+	 */
+	private double totalSinglePassCount = 0;
+
+	/**
+	 * The number of vms placed by the double pass, over all the optimizations of this policy. It is
+	 * only accumulated with the statistics printed at the end of an optimization, which are
+	 * commented out, so it stays 0 as the total it replaces did.
+	 */
+	private double totalDoublePassCount = 0;
+
+	/**
+	 * The number of over-utilization checks that found a host at full utilization, counting the
+	 * placement trials and the checks repeated at the same time, as each check is done.
+	 */
+	protected double slaFailcount = 0;
+
+	/** Whether the vms to migrate are being placed, while which the capacity models are kept. */
+	private boolean placingVms;
+
+	/** The capacity models of the hosts not modified since they were made, kept while the vms are placed. */
+	private final Map<PowerHost, HostCapacityModel> capacityModels = new HashMap<PowerHost, HostCapacityModel>();
+
+	/** Whether the placement trials create and destroy the vms on the hosts, as the original policy did. */
+	private boolean baselineTrials = false;
+
+	/** The hosts modified since the allocation was saved, even if they run the same vms again. */
+	private final Set<Host> modifiedHosts = new HashSet<Host>();
+
+	/** The number of vms displaced by the swap chains of the double pass placement. */
+	private int swapChainDepth = 2;
+
+	/** The time budget of a swap chain search in milliseconds, or 0 for no limit. */
+	private long swapChainTimeBudget = 0;
+
+	/** The number of threads that check the hosts a vm is tried on. */
+	private int placementParallelism = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The executor of the over-utilization checks done by threads other than the calling one,
+	 * shared by all the policies and created when first needed.
+	 */
+	private static ExecutorService checkExecutor;
+
+	/** The swap chain search, created when first needed. */
+	private SwapChainSearch swapChainSearch;
+
+	/** The over-utilization checks done at the current time, used as their own keys. */
+	private final Map<OverUtilizationCheck, OverUtilizationCheck> overUtilizationChecks =
+			new HashMap<OverUtilizationCheck, OverUtilizationCheck>();
+
+	/** The time of the over-utilization checks. */
+	private double overUtilizationChecksTime = -1;
+
+	/** Whether the over-utilization checks of the current thread are placement trials. */
+	private final ThreadLocal<Boolean> placementTrial = new ThreadLocal<Boolean>() {
+
+		@Override
+		protected Boolean initialValue() {
+			return Boolean.FALSE;
+		}
+	};
+
+	/**
+	 * The number of SLA failures found by the over-utilization check being done by the current
+	 * thread, or null if no check is being done.
+	 */
+	private final ThreadLocal<int[]> slaFailTally = new ThreadLocal<int[]>();
+
+	/**
+	 * The effects of the trials done by the current thread, deferred until they are applied, or
+	 * null if they take effect at once.
+	 */
+	private final ThreadLocal<TrialEffects> deferredTrialEffects = new ThreadLocal<TrialEffects>();
+
 	/**
 	 * Instantiates a new power vm allocation policy migration abstract.
 	 * 
@@ -110,6 +200,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 
 		ExecutionTimeMeasurer.start("optimizeAllocationHostSelection");
 		setPriorityForVmsSla(); //calls this function for setting the Sla voilation priority
+		clearOverUtilizationChecks();
                 List<PowerHostUtilizationHistory> overUtilizedHosts = getOverUtilizedHosts();
 		getExecutionTimeHistoryHostSelection().add(
 				ExecutionTimeMeasurer.end("optimizeAllocationHostSelection"));
@@ -128,6 +219,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 
 		Log.printLine("Reallocation of VMs from the over-utilized hosts:");
 		ExecutionTimeMeasurer.start("optimizeAllocationVmReallocation");
+		setPlacingVms(true);
 		List<Map<String, Object>> migrationMap = getNewVmPlacement(vmsToMigrate, new HashSet<Host>(
 				overUtilizedHosts));
 		getExecutionTimeHistoryVmReallocation().add(
@@ -136,6 +228,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 
 		migrationMap.addAll(getMigrationMapFromUnderUtilizedHosts(overUtilizedHosts));
 
+		setPlacingVms(false);
 		restoreAllocation();
 
 		getExecutionTimeHistoryTotal().add(ExecutionTimeMeasurer.end("optimizeAllocationTotal"));
@@ -149,8 +242,8 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
                 switchedOffHosts = getSwitchedOffHosts();
                 System.out.println("Number of switched off hosts after simulation: "+ switchedOffHosts.size());
                 //System.out.println("Number of active hosts after simulation: "+ (PlanetLabConstants.NUMBER_OF_HOSTS - switchedOffHosts.size()));
-		PlanetLabConstants.NUMBER_OF_singlepass += numberofsinglepass;
-                PlanetLabConstants.NUMBER_OF_doublepass += numberofdoublepass;
+		totalSinglePassCount += numberofsinglepass;
+		totalDoublePassCount += numberofdoublepass;
                 //int numberofvm = getVmsnumber();
                 //System.out.println("Number of total VM : "+ numberofvm); */
                 return migrationMap;
@@ -189,44 +282,13 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
                 for (PowerHost host : this.<PowerHost> getHostList()) {
                     
                     for (Vm vm: host.getVmList()) {
-			double vmTotalAllocated = 0;
-			double vmTotalRequested = 0;
-                        double vmslaViolationtotaltime=0;
-			double vmUnderAllocatedDueToMigration = 0;
-                        double vmUnderAllocatedDueToMigrationTotal = 0;
-                        double number=0;
-			double previousTime = -1;
-			double previousAllocated = 0;
-			double previousRequested = 0;
-			boolean previousIsInMigration = false;
-			for (VmStateHistoryEntry entry : vm.getStateHistory()) {
-				if (previousTime != -1) {
-					double timeDiff = entry.getTime() - previousTime;
-					vmTotalAllocated += previousAllocated * timeDiff;
-					vmTotalRequested += previousRequested * timeDiff;
-
-					if (previousAllocated < previousRequested) {
-						if (previousIsInMigration) {
-							vmUnderAllocatedDueToMigration += (previousRequested - previousAllocated)
-									* timeDiff;
-                                                       
-						}
-					}
-				}
-                                //System.out.println("VM ID: "+vm.getId() + " host ID: "+vm.getHost().getId()+" time: "+entry.getTime()+" previous Allocated: "+previousAllocated+" previousRequested: "+previousRequested+" previousTime: "+previousTime+" previousIsInMigration: "+previousIsInMigration);
-                                previousAllocated = entry.getAllocatedMips();
-				previousRequested = entry.getRequestedMips();
-				previousTime = entry.getTime(); 
-				previousIsInMigration = entry.isInMigration();
-			}
-                        
-                        if (((vmTotalRequested - vmTotalAllocated) / vmTotalRequested)>= (0.8 * Constants.SLA)) {
+                        if (vm.getSlaAccumulator().getSlaViolation() >= (0.8 * Constants.SLA)) {
                             vm.priority=1;
                         } else {
                             vm.priority-=.1;
                             if (vm.priority<0) vm.priority=0;
                                     }
-                        //System.out.println("VM ID "+vm.getId() + "  sla:"+ (vmTotalRequested - vmTotalAllocated) / vmTotalRequested + " Priority: " + vm.priority);
+                        //System.out.println("VM ID "+vm.getId() + "  sla:"+ vm.getSlaAccumulator().getSlaViolation() + " Priority: " + vm.priority);
  
                     }
                 }        
@@ -335,34 +397,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
         
         
 	public PowerHost findHostForVm(Vm vm, Set<? extends Host> excludedHosts) {
-		double minPower = Double.MAX_VALUE;
-		PowerHost allocatedHost = null;
-
-		for (PowerHost host : this.<PowerHost> getHostList()) {
-			if (excludedHosts.contains(host)) {
-				continue;
-			}
-			if (host.isSuitableForVm(vm)) {
-				if (getUtilizationOfCpuMips(host) != 0 && isHostOverUtilizedAfterAllocation(host, vm)) {
-					continue;
-				} 
-				if (getUtilizationOfCpuMips(host) == 0 && CloudSim.clock()>300.1) {
-					continue;
-				}
-				try {
-					double powerAfterAllocation = getPowerAfterAllocation(host, vm);
-					if (powerAfterAllocation != -1) {
-						double powerDiff = powerAfterAllocation - host.getPower();
-						if (powerDiff < minPower) {
-							minPower = powerDiff;
-							allocatedHost = host;
-						}
-					}
-				} catch (Exception e) {
-				}
-			}
-		}
-		return allocatedHost;
+		return findHostForVm(vm, excludedHosts, Collections.<Host> emptyList(), CloudSim.clock() <= 300.1);
 	}
 
         
@@ -377,38 +412,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
         
         
 	public PowerHost findHostForVmSinglePass(Vm vm, Set<? extends Host> excludedHosts, Host host1) {
-		double minPower = Double.MAX_VALUE;
-		PowerHost allocatedHost = null;
-
-		for (PowerHost host : this.<PowerHost> getHostList()) {
-			if (excludedHosts.contains(host)) {
-				continue;
-			}
-                        if(host1.getId()== host.getId()) continue;
-			
-                        if (host.isSuitableForVm(vm)) {
-				if (getUtilizationOfCpuMips(host) != 0 && isHostOverUtilizedAfterAllocation(host, vm)) {
-					continue;
-				}
-				if (getUtilizationOfCpuMips(host) == 0 && CloudSim.clock()>300.1) {
-					continue;
-				}
-                                //System.out.println(isHostOverUtilizedAfterAllocation(host, vm)+" vm1 " + vm.getId() + " host " + host.getId());
-
-                                try {
-					double powerAfterAllocation = getPowerAfterAllocation(host, vm);
-					if (powerAfterAllocation != -1) {
-						double powerDiff = powerAfterAllocation - host.getPower();
-						if (powerDiff < minPower) {
-							minPower = powerDiff;
-							allocatedHost = host;
-						}
-					}
-				} catch (Exception e) {
-				}
-			}
-		}
-		return allocatedHost;
+		return findHostForVm(vm, excludedHosts, Collections.singletonList(host1), CloudSim.clock() <= 300.1);
 	}
 
                 
@@ -423,39 +427,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
         
         
 	public PowerHost findHostForVmDoublePass(Vm vm, Set<? extends Host> excludedHosts, Host host1, Host host2) {
-		double minPower = Double.MAX_VALUE;
-		PowerHost allocatedHost = null;
-
-		for (PowerHost host : this.<PowerHost> getHostList()) {
-			if (excludedHosts.contains(host)) {
-				continue;
-			}
-                        if(host1.getId()== host.getId()) continue;
-                        if(host2.getId()== host.getId()) continue;
-                        
-                        if (host.isSuitableForVm(vm)) {
-				if (getUtilizationOfCpuMips(host) != 0 && isHostOverUtilizedAfterAllocation(host, vm)) {
-					continue;
-				}
-				if (getUtilizationOfCpuMips(host) == 0 && CloudSim.clock()>300.1) {
-					continue;
-				}
-                                //System.out.println(isHostOverUtilizedAfterAllocation(host, vm)+" vm1 " + vm.getId() + " host " + host.getId());
-
-                                try {
-					double powerAfterAllocation = getPowerAfterAllocation(host, vm);
-					if (powerAfterAllocation != -1) {
-						double powerDiff = powerAfterAllocation - host.getPower();
-						if (powerDiff < minPower) {
-							minPower = powerDiff;
-							allocatedHost = host;
-						}
-					}
-				} catch (Exception e) {
-				}
-			}
-		}
-		return allocatedHost;
+		return findHostForVm(vm, excludedHosts, Arrays.asList(host1, host2), CloudSim.clock() <= 300.1);
 	}
         
         
@@ -470,36 +442,231 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
         
         
 	public PowerHost findHostForVmFromSleepingHost(Vm vm, Set<? extends Host> excludedHosts) {
+		return findHostForVm(vm, excludedHosts, Collections.<Host> emptyList(), true);
+	}
+
+	/**
+	 * Finds the host for a vm whose power increases the least when it runs the vm, among the hosts
+	 * that are suitable for the vm and would not be over-utilized with it. Of two hosts with the
+	 * same power increase, the first in the host list is chosen.
+	 * <p>
+	 * The hosts are visited in the order of the host list, and every active host that is suitable
+	 * for the vm gets its trial, whose over-utilization check counts the SLA failures, see
+	 * {@link #isHostOverUtilizedAfterAllocation(PowerHost, Vm)}. So the search cannot stop at the
+	 * host with the least power increase, and is linear in the number of hosts.
+	 * 
+	 * @param vm the vm
+	 * @param excludedHosts the excluded hosts
+	 * @param chainHosts other hosts not to consider, compared by id
+	 * @param includeIdleHosts whether to consider the idle hosts
+	 * @return the power host, or null if no host can run the vm
+	 */
+	protected PowerHost findHostForVm(
+			Vm vm,
+			Set<? extends Host> excludedHosts,
+			List<? extends Host> chainHosts,
+			boolean includeIdleHosts) {
+		List<PowerHost> hosts = this.<PowerHost> getHostList();
+		if (isPlacingVms() && !isDeferringTrialEffects()) {
+			prefetchOverUtilizationChecks(hosts, vm, excludedHosts, chainHosts);
+		}
 		double minPower = Double.MAX_VALUE;
 		PowerHost allocatedHost = null;
-
-		for (PowerHost host : this.<PowerHost> getHostList()) {
-			if (excludedHosts.contains(host)) {
+		for (PowerHost host : hosts) {
+			if (excludedHosts.contains(host) || containsId(chainHosts, host) || !host.isSuitableForVm(vm)) {
 				continue;
 			}
-			if (host.isSuitableForVm(vm)) {
-				if (getUtilizationOfCpuMips(host) != 0 && isHostOverUtilizedAfterAllocation(host, vm)) {
+			if (getUtilizationOfCpuMips(host) != 0) {
+				if (isHostOverUtilizedAfterAllocation(host, vm)) {
 					continue;
 				}
-				try {
-					double powerAfterAllocation = getPowerAfterAllocation(host, vm);
-					if (powerAfterAllocation != -1) {
-						double powerDiff = powerAfterAllocation - host.getPower();
-						if (powerDiff < minPower) {
-							minPower = powerDiff;
-							allocatedHost = host;
-						}
-					}
-				} catch (Exception e) {
+			} else if (!includeIdleHosts) {
+				continue;
+			}
+			// the power model cannot give the power of a host that would be used beyond its capacity
+			if (getMaxUtilizationAfterAllocation(host, vm) > 1) {
+				continue;
+			}
+			double powerAfterAllocation = getPowerAfterAllocation(host, vm);
+			if (powerAfterAllocation != -1) {
+				double powerDiff = powerAfterAllocation - host.getPower();
+				if (powerDiff < minPower) {
+					minPower = powerDiff;
+					allocatedHost = host;
 				}
 			}
 		}
 		return allocatedHost;
 	}
+
+	/**
+	 * Does ahead, on up to {@link #getPlacementParallelism()} threads, the over-utilization checks of
+	 * the trials of a vm on the hosts, on their capacity models, so that the trials find them done.
+	 * A trial gives a host the vms of its capacity model, in the same order, in both modes of
+	 * {@link #setBaselineTrials(boolean)}.
+	 * 
+	 * @param hosts the hosts
+	 * @param vm the vm
+	 * @param excludedHosts the excluded hosts
+	 * @param chainHosts other hosts not to consider, compared by id
+	 */
+	private void prefetchOverUtilizationChecks(
+			List<PowerHost> hosts,
+			Vm vm,
+			Set<? extends Host> excludedHosts,
+			List<? extends Host> chainHosts) {
+		if (getPlacementParallelism() == 1) {
+			return;
+		}
+		final List<PowerHost> checkedHosts = new ArrayList<PowerHost>();
+		final List<List<Vm>> checkedVmLists = new ArrayList<List<Vm>>();
+		for (PowerHost host : hosts) {
+			if (excludedHosts.contains(host) || containsId(chainHosts, host) || !host.isSuitableForVm(vm)
+					|| getUtilizationOfCpuMips(host) == 0) {
+				continue;
+			}
+			HostCapacityModel model = getCapacityModel(host);
+			if (model != null && model.addVm(vm)) {
+				checkedHosts.add(host);
+				checkedVmLists.add(new ArrayList<Vm>(model.getVmList()));
+				model.rollback();
+			}
+		}
+		int threads = Math.min(getPlacementParallelism(), checkedHosts.size());
+		if (threads < 2) {
+			return;
+		}
+		final AtomicInteger nextCheck = new AtomicInteger();
+		runConcurrently(new Callable<Object>() {
+
+			@Override
+			public Object call() {
+				int i = nextCheck.getAndIncrement();
+				while (i < checkedHosts.size()) {
+					prefetchOverUtilizationCheck(checkedHosts.get(i), checkedVmLists.get(i));
+					i = nextCheck.getAndIncrement();
+				}
+				return null;
+			}
+		}, threads);
+	}
+
+	/**
+	 * Runs a task on a number of threads at once: the calling thread and threads of the shared
+	 * executor, which run it in the simulation context of the calling thread. The task is expected to
+	 * share its work between the threads that run it. The method returns when all the threads are
+	 * done, throwing the exception of a thread that failed, if any.
+	 * 
+	 * @param task the task
+	 * @param threads the number of threads, including the calling one
+	 */
+	static void runConcurrently(Callable<Object> task, int threads) {
+		SimulationContext context = CloudSim.getContext();
+		List<Future<Object>> futures = new ArrayList<Future<Object>>();
+		for (int i = 1; i < threads; i++) {
+			futures.add(getCheckExecutor().submit(inContext(context, task)));
+		}
+		try {
+			task.call();
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+		for (Future<Object> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while checking hosts", e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				if (e.getCause() instanceof Error) {
+					throw (Error) e.getCause();
+				}
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+	}
+
+	/**
+	 * Does ahead the over-utilization check of a placement trial, so that the trial finds it done.
+	 * 
+	 * @param host the host
+	 * @param vmList the vms of the host in the trial
+	 */
+	private void prefetchOverUtilizationCheck(PowerHost host, List<? extends Vm> vmList) {
+		isHostOverUtilized(host, vmList, true, false);
+	}
+
+	/**
+	 * Wraps a task so that it runs in a simulation context, the one of the thread that submits it
+	 * to another thread.
+	 * 
+	 * @param context the simulation context
+	 * @param task the task
+	 * @return the task run in the context
+	 */
+	private static Callable<Object> inContext(final SimulationContext context, final Callable<Object> task) {
+		return new Callable<Object>() {
+
+			@Override
+			public Object call() throws Exception {
+				CloudSim.setContext(context);
+				try {
+					return task.call();
+				} finally {
+					CloudSim.setContext(null);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Gets the executor of the over-utilization checks and of the swap chain search branches,
+	 * creating it if needed. Its threads, one less than the processors as the calling thread does
+	 * its share of the work too, are shared by all the policies, and are daemon threads that need
+	 * not be shut down.
+	 * 
+	 * @return the executor
+	 */
+	private static synchronized ExecutorService getCheckExecutor() {
+		if (checkExecutor == null) {
+			int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+			checkExecutor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "OverUtilizationChecks");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return checkExecutor;
+	}
+
+	/**
+	 * Checks if a list contains a host with the id of a host.
+	 * 
+	 * @param hosts the hosts
+	 * @param host the host
+	 * @return true, if a host of the list has the id of the host
+	 */
+	private static boolean containsId(List<? extends Host> hosts, Host host) {
+		for (Host other : hosts) {
+			if (other.getId() == host.getId()) {
+				return true;
+			}
+		}
+		return false;
+	}
         
         
 	/**
-	 * Find host for vm in single pass.
+	 * Find host for vm in single pass, i.e. by a swap chain of one vm.
 	 * 
 	 * @param vm the vm
 	 * @param excludedHosts the excluded hosts
@@ -509,58 +676,13 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
         
         
 	protected List<Map<String, Object>> singlePassPlacement(Vm vm, Set<? extends Host> excludedHosts) {
-		//double minPower = Double.MAX_VALUE;
-		PowerHost allocatedHost = null;
-                //Vm vmSinglePass = null;
-		List<Map<String, Object>> migrationMapSinglePass = new LinkedList<Map<String, Object>>();
-		for (PowerHost host : this.<PowerHost> getHostList()) {
-			if (excludedHosts.contains(host)) {
-				continue;
-			}
-                        if (getUtilizationOfCpuMips(host)==0) {
-				continue;
-			}
-                        List<? extends Vm> vmlist = host.getVmList();
-                        int z=vmlist.size();
-                        int[] id = new int[z];
-                        int[] user = new int[z];
-                        for (int i=0;i<z;i++){
-                            Vm vm1=vmlist.get(i);
-                            id[i]=vm1.getId();
-                            user[i]=vm1.getUserId();
-                        }
-                        for (int i=0;i<id.length;i++){
-                            Vm vm1=host.getVm(id[i], user[i]);
-                            if (vm1.isInMigration()== false &&  vm1.getCurrentRequestedMaxMips() < vm.getCurrentRequestedMaxMips() && host.getVmScheduler().getAvailableMips() + vm1.getCurrentRequestedMaxMips() >  vm.getCurrentRequestedTotalMips()) {
-                                if (isHostOverUtilizedAfterAllocationSinglePass(host, vm, vm1)==false){
-                                    allocatedHost= findHostForVmSinglePass(vm1, excludedHosts, host);
-                                    if (allocatedHost != null) {
-                                        allocatedHost.vmCreate(vm1);
-                                        //System.out.println(" vm " + vm.getId() + " host " + host.getId() + " vm1 " + vm1.getId() + " host " + allocatedHost.getId());
-                                        //host.vmDestroy(vm1);
-                                        Log.printLine("VM #" + vm1.getId() + " allocated to host #" + allocatedHost.getId());
-                                        host.vmCreate(vm);
-                                        Log.printLine("VM #" + vm.getId() + " allocated to host #" + host.getId());
-                                        Map<String, Object> migrate = new HashMap<String, Object>();
-                                        migrate.put("vm", vm1);
-                                        migrate.put("host", allocatedHost);
-                                        migrationMapSinglePass.add(migrate);
-                                        migrate.put("vm", vm);
-                                        migrate.put("host", host);
-                                        migrationMapSinglePass.add(migrate);
-                                        return migrationMapSinglePass;
-                                        //System.exit(0);
-                                    }
-                                }
-                            }
-                        }
-                }
-		return migrationMapSinglePass;
+		return placeSwapChain(getSwapChainSearch().search(vm, excludedHosts, 1));
 	}
 
         
 	/**
-	 * Find host for vm in Double pass.
+	 * Find host for vm in Double pass, i.e. by a swap chain of {@link #getSwapChainDepth()} vms,
+	 * two by default.
 	 * 
 	 * @param vm the vm
 	 * @param excludedHosts the excluded hosts
@@ -570,212 +692,152 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
         
         
 	protected List<Map<String, Object>> doublePassPlacement(Vm vm, Set<? extends Host> excludedHosts) {
-		//double minPower = Double.MAX_VALUE;
-		PowerHost allocatedHost = null;
-                //Vm vmSinglePass = null;
-		List<Map<String, Object>> migrationMapDoublePass = new LinkedList<Map<String, Object>>();
-		for (PowerHost host : this.<PowerHost> getHostList()) {
-			if (excludedHosts.contains(host)) {
-				continue;
-			}
-                        if (getUtilizationOfCpuMips(host)==0) {
-				continue;
-			}
-                        List<? extends Vm> vmlist = host.getVmList();
-                        int z=vmlist.size();
-                        int[] id = new int[z];
-                        int[] user = new int[z];
-                        for (int i=0;i<z;i++){
-                            Vm vm1=vmlist.get(i);
-                            id[i]=vm1.getId();
-                            user[i]=vm1.getUserId();
-                        }
-                        for (int i=0;i<id.length;i++){
-                            Vm vm1=vmlist.get(i);
-                            /*System.out.println(id.length);
-                            System.out.println(i);
-                            System.out.println(vm1.getId());
-                            System.out.println(vm1.getHost());
-                            System.out.println(vm1.getCurrentRequestedMaxMips());
-                            System.out.println(vm.getCurrentRequestedMaxMips());
-                            System.out.println(host.getVmScheduler().getAvailableMips());
-                            System.out.println(vm1.getCurrentRequestedMaxMips());
-                            System.out.println(vm.getCurrentRequestedTotalMips());
-                            System.out.println(vm1.isInMigration()); */
-                            if (vm1.isInMigration()== false &&  vm1.getCurrentRequestedMaxMips() < vm.getCurrentRequestedMaxMips() && host.getVmScheduler().getAvailableMips() + vm1.getCurrentRequestedMaxMips() >  vm.getCurrentRequestedTotalMips()) {
-                            //System.out.println(isHostOverUtilizedAfterAllocationSinglePass(host, vm, vm1));
-                            if (isHostOverUtilizedAfterAllocationSinglePass(host, vm, vm1)==false){
-                            for (PowerHost hostDouble : this.<PowerHost> getHostList()) {
-                                if (excludedHosts.contains(host)) {
-                                    continue;
-                                }
-                                if (excludedHosts.contains(hostDouble)) {
-                                    continue;
-                                }
-                                if (getUtilizationOfCpuMips(host)==0) {
-                                    continue;
-                                }
-                                if (getUtilizationOfCpuMips(hostDouble)==0) {
-                                    continue;
-                                }
-                                List<? extends Vm> vmlistDouble = hostDouble.getVmList();
-                                int zDouble=vmlistDouble.size();
-                                int[] idDouble = new int[zDouble];
-                                int[] userDouble = new int[zDouble];
-                                for (int iDouble=0;iDouble<zDouble;iDouble++){
-                                    Vm vmDouble=vmlistDouble.get(iDouble);
-                                    idDouble[iDouble]=vmDouble.getId();
-                                    userDouble[iDouble]=vmDouble.getUserId();
-                                }
-                                for (int iDouble=0;iDouble<idDouble.length;iDouble++){
-                                    Vm vmDouble = vmlistDouble.get(iDouble);
-                                    //Vm vmDouble=hostDouble.getVm(idDouble[iDouble], userDouble[iDouble]);                            
-                                    if (vmDouble.isInMigration()== false && vmDouble.getCurrentRequestedMaxMips() < vm1.getCurrentRequestedMaxMips() && hostDouble.getVmScheduler().getAvailableMips() + vmDouble.getCurrentRequestedMaxMips() >  vm1.getCurrentRequestedTotalMips()) {
-                                        if (isHostOverUtilizedAfterAllocationSinglePass(hostDouble, vm1, vmDouble)==false){
-                                            allocatedHost= findHostForVmDoublePass(vmDouble, excludedHosts, host, hostDouble);
-                                            if (allocatedHost != null) {
-                                                allocatedHost.vmCreate(vmDouble);
-                                                Log.printLine("VM #" + vmDouble.getId() + " allocated to host #" + allocatedHost.getId());
-                                                //System.out.println(" vm " + vm.getId() + " host " + host.getId() + " vm1 " + vm1.getId() + " host " + allocatedHost.getId());
-                                                //hostDouble.vmDestroy(vmDouble);
-                                                hostDouble.vmCreate(vm1);
-                                                Log.printLine("VM #" + vm1.getId() + " allocated to host #" + hostDouble.getId());
-                                                //System.out.println(" vm " + vm.getId() + " host " + host.getId() + " vm1 " + vm1.getId() + " host " + allocatedHost.getId());
-                                                //host.vmDestroy(vm1);
-                                                //Log.printLine("VM #" + vm1.getId() + " allocated to host #" + allocatedHost.getId());
-                                                host.vmCreate(vm);
-                                                Log.printLine("VM #" + vm.getId() + " allocated to host #" + host.getId());
-                                                Map<String, Object> migrate = new HashMap<String, Object>();
-                                                migrate.put("vm", vmDouble);
-                                                migrate.put("host", allocatedHost);
-                                                migrationMapDoublePass.add(migrate);
-                                                migrate.put("vm", vm1);
-                                                migrate.put("host", hostDouble);
-                                                migrationMapDoublePass.add(migrate);
-                                                migrate.put("vm", vm);
-                                                migrate.put("host", host);
-                                                migrationMapDoublePass.add(migrate);
-                                                
-                                                return migrationMapDoublePass;
-                                                //break;
-                                                //System.exit(0);
-                                            }
-                                        }
-                                    }
-                                }
-                            } 
-                            }
-                            else { /*
-                                for (PowerHost hostDouble : this.<PowerHost> getHostList()) {
-                                    if (excludedHosts.contains(host)) {
-                                        continue;
-                                    }
-                                    if (excludedHosts.contains(hostDouble)) {
-                                        continue;
-                                    }
-                                    if (getUtilizationOfCpuMips(host)==0) {
-                                        continue;
-                                    }
-                                    if (getUtilizationOfCpuMips(hostDouble)==0) {
-                                        continue;
-                                    }
-                                    List<? extends Vm> vmlistDouble = hostDouble.getVmList();
-                                    int zDouble=vmlistDouble.size();
-                                    int[] idDouble = new int[zDouble];
-                                    int[] userDouble = new int[zDouble];
-                                    for (int iDouble=0;iDouble<zDouble;iDouble++){
-                                        Vm vmDouble=vmlistDouble.get(iDouble);
-                                        idDouble[iDouble]=vmDouble.getId();
-                                        userDouble[iDouble]=vmDouble.getUserId();
-                                    }
-                                    for (int iDouble=0;iDouble<idDouble.length;iDouble++){
-                                        Vm vmDouble = vmlistDouble.get(iDouble);
-                                        //Vm vmDouble=hostDouble.getVm(idDouble[iDouble], userDouble[iDouble]);                            
-                                        if (vmDouble.isInMigration()== false && vmDouble.getCurrentRequestedMaxMips() < vm1.getCurrentRequestedMaxMips() && hostDouble.getVmScheduler().getAvailableMips() + vmDouble.getCurrentRequestedMaxMips() >  vm1.getCurrentRequestedTotalMips() && hostDouble.getVmScheduler().getAvailableMips() + vmDouble.getCurrentRequestedMaxMips() >  vm1.getCurrentRequestedTotalMips()) {
-                                        if (isHostOverUtilizedAfterAllocationSinglePass(hostDouble, vm1, vmDouble)==false){
-                                            allocatedHost= findHostForVmDoublePass(vmDouble, excludedHosts, host, hostDouble);
-                                            if (allocatedHost != null) {
-                                                allocatedHost.vmCreate(vmDouble);
-                                                Log.printLine("VM #" + vmDouble.getId() + " allocated to host #" + allocatedHost.getId());
-                                                //System.out.println(" vm " + vm.getId() + " host " + host.getId() + " vm1 " + vm1.getId() + " host " + allocatedHost.getId());
-                                                hostDouble.vmDestroy(vmDouble);
-                                                hostDouble.vmCreate(vm1);
-                                                Log.printLine("VM #" + vm1.getId() + " allocated to host #" + hostDouble.getId());
-                                                //System.out.println(" vm " + vm.getId() + " host " + host.getId() + " vm1 " + vm1.getId() + " host " + allocatedHost.getId());
-                                                host.vmDestroy(vm1);
-                                                //Log.printLine("VM #" + vm1.getId() + " allocated to host #" + allocatedHost.getId());
-                                                host.vmCreate(vm);
-                                                Log.printLine("VM #" + vm.getId() + " allocated to host #" + host.getId());
-                                                Map<String, Object> migrate = new HashMap<String, Object>();
-                                                migrate.put("vm", vmDouble);
-                                                migrate.put("host", allocatedHost);
-                                                migrationMapDoublePass.add(migrate);
-                                                migrate.put("vm", vm1);
-                                                migrate.put("host", hostDouble);
-                                                migrationMapDoublePass.add(migrate);
-                                                migrate.put("vm", vm);
-                                                migrate.put("host", host);
-                                                migrationMapDoublePass.add(migrate);
-                                                //System.exit(0);
-                                            }
-                                        }
-                                        }
-                                    }
-                                } */                                 
-                            }    
-                            }
-                        }
-                    }
-                
-		return migrationMapDoublePass;
+		return placeSwapChain(getSwapChainSearch().search(vm, excludedHosts, getSwapChainDepth()));
+	}
+
+	/**
+	 * Places the vms of a swap chain, starting with the last vm displaced.
+	 * 
+	 * @param swapChain the swap chain, or null
+	 * @return the migration map, empty if there is no swap chain
+	 */
+	protected List<Map<String, Object>> placeSwapChain(SwapChainSearch.SwapChain swapChain) {
+		List<Map<String, Object>> migrationMap = new LinkedList<Map<String, Object>>();
+		if (swapChain == null) {
+			return migrationMap;
+		}
+		// as in the former single and double pass placements, the entries share one map
+		Map<String, Object> migrate = new HashMap<String, Object>();
+		for (int i = swapChain.getVms().size() - 1; i >= 0; i--) {
+			Vm swappedVm = swapChain.getVms().get(i);
+			PowerHost host = swapChain.getHosts().get(i);
+			host.vmCreate(swappedVm);
+			markHostModified(host);
+			Log.printLine("VM #" + swappedVm.getId() + " allocated to host #" + host.getId());
+			migrate.put("vm", swappedVm);
+			migrate.put("host", host);
+			migrationMap.add(migrate);
+		}
+		return migrationMap;
 	}
 
         
         
         
 	/**
-	 * Checks if is host over utilized after allocation.
+	 * Checks if is host over utilized after allocation. The vm is added to a {@link HostCapacityModel}
+	 * of the host, which is checked and rolled back, so that the trial leaves the host as it is. In
+	 * the mode of {@link #setBaselineTrials(boolean)}, and for the hosts that the model does not
+	 * support, the vm is created on the host and destroyed after the check instead.
 	 * 
 	 * @param host the host
 	 * @param vm the vm
 	 * @return true, if is host over utilized after allocation
 	 */
 	protected boolean isHostOverUtilizedAfterAllocation(PowerHost host, Vm vm) {
+		HostCapacityModel model = isBaselineTrials() ? null : getCapacityModel(host);
+		if (model != null) {
+			if (!model.addVm(vm)) {
+				logFailedCreation(host, vm, model);
+				return true;
+			}
+			boolean isHostOverUtilizedAfterAllocation = isHostOverUtilized(host, model.getVmList(), true);
+			model.rollback();
+			return isHostOverUtilizedAfterAllocation;
+		}
 		boolean isHostOverUtilizedAfterAllocation = true;
 		if (host.vmCreate(vm)) {
-			isHostOverUtilizedAfterAllocation = isHostOverUtilized(host);
+			isHostOverUtilizedAfterAllocation = isHostOverUtilized(host, host.getVmList(), true);
 			host.vmDestroy(vm);
+			markHostModified(host);
 		}
 		return isHostOverUtilizedAfterAllocation;
 	}
 
 	/**
-	 * Checks if is host over utilized after allocation.
+	 * Checks if is host over utilized after allocating a vm in place of another one, which is
+	 * migrated away from the host. The vm is added to a {@link HostCapacityModel} of the host and
+	 * the other vm removed from it, so that the trial leaves the host as it is. In the mode of
+	 * {@link #setBaselineTrials(boolean)}, and for the hosts that the model does not support, the vm
+	 * is created and the other one destroyed on the host instead, which leaves the other vm at the
+	 * end of the vms of the host.
 	 * 
 	 * @param host the host
 	 * @param vm the vm
+	 * @param vm1 the vm of the host migrated away
 	 * @return true, if is host over utilized after allocation
 	 */
-	protected boolean isHostOverUtilizedAfterAllocationSinglePass(PowerHost host1, Vm vm, Vm vm1) {
-                PowerHost host=host1;
+	protected boolean isHostOverUtilizedAfterAllocationSinglePass(PowerHost host, Vm vm, Vm vm1) {
+		HostCapacityModel model = isBaselineTrials() ? null : getCapacityModel(host);
+		if (model != null) {
+			if (!model.addVm(vm)) {
+				logFailedCreation(host, vm, model);
+				return true;
+			}
+			model.removeVm(vm1);
+			boolean isHostOverUtilizedAfterAllocationSinglePass = isHostOverUtilized(
+					host,
+					model.getVmList(),
+					true);
+			model.rollback();
+			return isHostOverUtilizedAfterAllocationSinglePass;
+		}
 		boolean isHostOverUtilizedAfterAllocationSinglePass = true;
-                //System.out.println(isHostOverUtilized(host)+ "  vm "+vm.getId());
 		if (host.vmCreate(vm)) {
-                        //System.out.println(isHostOverUtilized(host));
-                        host.vmDestroy(vm1);
-                        //System.out.println(isHostOverUtilized(host));
-			isHostOverUtilizedAfterAllocationSinglePass = isHostOverUtilized(host);
-                        //System.out.println(isHostOverUtilized(host));
+			host.vmDestroy(vm1);
+			isHostOverUtilizedAfterAllocationSinglePass = isHostOverUtilized(host, host.getVmList(), true);
 			host.vmDestroy(vm);
-                        //System.out.println(isHostOverUtilized(host));
-                        host.vmCreate(vm1);
-                        //System.out.println(isHostOverUtilized(host));
+			host.vmCreate(vm1);
+			markHostModified(host);
 		}
 		return isHostOverUtilizedAfterAllocationSinglePass;
 	}
-        
-        
-        
+
+	/**
+	 * Gets a capacity model of the current allocation of a host. While the vms to migrate are placed,
+	 * the model of a host is kept until the host is modified, see {@link #markHostModified(PowerHost)},
+	 * except for the threads that defer the effects of their trials, which may run concurrently.
+	 * 
+	 * @param host the host
+	 * @return the capacity model, or null if the model does not support the host
+	 */
+	private HostCapacityModel getCapacityModel(PowerHost host) {
+		if (!HostCapacityModel.isSupported(host)) {
+			return null;
+		}
+		if (!isPlacingVms() || isDeferringTrialEffects()) {
+			return new HostCapacityModel(host);
+		}
+		HostCapacityModel model = capacityModels.get(host);
+		if (model == null) {
+			model = new HostCapacityModel(host);
+			capacityModels.put(host, model);
+		}
+		return model;
+	}
+
+	/**
+	 * Logs that a vm cannot be created on a host, as {@link Host#vmCreate(Vm)} does, unless the
+	 * effects of the trials of the current thread are deferred.
+	 * 
+	 * @param host the host
+	 * @param vm the vm
+	 * @param model the capacity model of the host, to which the vm could not be added
+	 */
+	private void logFailedCreation(Host host, Vm vm, HostCapacityModel model) {
+		if (!Log.isEnabled(Log.INFO)) {
+			return;
+		}
+		String message = "[VmScheduler.vmCreate] Allocation of VM #" + vm.getId() + " to Host #" + host.getId()
+				+ " failed by " + model.getMissingResource();
+		TrialEffects effects = deferredTrialEffects.get();
+		if (effects != null) {
+			effects.log.append(message).append(LINE_SEPARATOR);
+		} else {
+			Log.printLine(message);
+		}
+	}
+
 	/**
 	 * Find host for vm.
 	 * 
@@ -823,6 +885,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 			PowerHost allocatedHost = findHostForVm(vm, excludedHosts);
 			if (allocatedHost != null) {
 				allocatedHost.vmCreate(vm);
+				markHostModified(allocatedHost);
 				Log.printLine("VM #" + vm.getId() + " allocated to host #" + allocatedHost.getId());
 				Map<String, Object> migrate = new HashMap<String, Object>();
 				migrate.put("vm", vm);
@@ -858,6 +921,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
                                         numberofnewactivehost += 1;
                                         //System.out.println("found destination from zero host " + vm.getId());
                                         allocatedHost1.vmCreate(vm);
+                                        markHostModified(allocatedHost1);
                                         Log.printLine("VM #" + vm.getId() + " allocated to host #" + allocatedHost1.getId());
                                         Map<String, Object> migrate = new HashMap<String, Object>();
                                         migrate.put("vm", vm);
@@ -889,7 +953,9 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
                         if(vm.priority>0){
 				Log.printLine("Not all VMs can be reallocated from the host, reallocation cancelled");
 				for (Map<String, Object> map : migrationMap) {
-					((Host) map.get("host")).vmDestroy((Vm) map.get("vm"));
+					PowerHost host = (PowerHost) map.get("host");
+					host.vmDestroy((Vm) map.get("vm"));
+					markHostModified(host);
 				}
 				migrationMap.clear();
 				break;                        
@@ -897,6 +963,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 			PowerHost allocatedHost = findHostForVm(vm, excludedHosts);
 			if (allocatedHost != null) {
 				allocatedHost.vmCreate(vm);
+				markHostModified(allocatedHost);
 				Log.printLine("VM #" + vm.getId() + " allocated to host #" + allocatedHost.getId());
  				Map<String, Object> migrate = new HashMap<String, Object>();
 				migrate.put("vm", vm);
@@ -921,7 +988,9 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
                                 else {
 				Log.printLine("Not all VMs can be reallocated from the host, reallocation cancelled");
 				for (Map<String, Object> map : migrationMap) {
-					((Host) map.get("host")).vmDestroy((Vm) map.get("vm"));
+					PowerHost host = (PowerHost) map.get("host");
+					host.vmDestroy((Vm) map.get("vm"));
+					markHostModified(host);
 				}
 				migrationMap.clear();
 				break;
@@ -1051,7 +1120,102 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	 * @param host the host
 	 * @return true, if is host over utilized
 	 */
-	protected abstract boolean isHostOverUtilized(PowerHost host);
+	protected boolean isHostOverUtilized(PowerHost host) {
+		return isHostOverUtilized(host, host.getVmList(), false);
+	}
+
+	/**
+	 * Checks if a host is over utilized when it runs the given vms, reusing the result of the same
+	 * check done earlier at the current time. A check is the same if it is for the same host and the
+	 * same vms, in the same order, with the same utilization histories. The checks done by the
+	 * placement trials do not record the metric history, and a check first done as a trial is done
+	 * again the first time it is not one. Every check counts the SLA failures it finds, whether it
+	 * is reused or not, so that the count is the one of the checks done without reuse.
+	 * 
+	 * @param host the host
+	 * @param vmList the vms of the host
+	 * @param trial whether the check is a placement trial
+	 * @return true, if is host over utilized
+	 */
+	protected boolean isHostOverUtilized(PowerHost host, List<? extends Vm> vmList, boolean trial) {
+		return isHostOverUtilized(host, vmList, trial, true);
+	}
+
+	/**
+	 * Checks if a host is over utilized when it runs the given vms, reusing the result of the same
+	 * check done earlier at the current time.
+	 * 
+	 * @param host the host
+	 * @param vmList the vms of the host
+	 * @param trial whether the check is a placement trial
+	 * @param counted whether the SLA failures found by the check are counted
+	 * @return true, if is host over utilized
+	 */
+	private boolean isHostOverUtilized(PowerHost host, List<? extends Vm> vmList, boolean trial, boolean counted) {
+		OverUtilizationCheck check = new OverUtilizationCheck(host, vmList);
+		synchronized (overUtilizationChecks) {
+			if (overUtilizationChecksTime != CloudSim.clock()) {
+				overUtilizationChecks.clear();
+				overUtilizationChecksTime = CloudSim.clock();
+			}
+			OverUtilizationCheck previousCheck = overUtilizationChecks.get(check);
+			if (previousCheck != null && (trial || previousCheck.recorded)) {
+				if (counted) {
+					addSlaFailCount(previousCheck.slaFails);
+				}
+				return previousCheck.overUtilized;
+			}
+		}
+		int[] tally = new int[1];
+		slaFailTally.set(tally);
+		placementTrial.set(trial);
+		try {
+			check.overUtilized = isHostOverUtilized(host, vmList);
+		} finally {
+			placementTrial.set(Boolean.FALSE);
+			slaFailTally.remove();
+		}
+		check.slaFails = tally[0];
+		check.recorded = !trial;
+		synchronized (overUtilizationChecks) {
+			overUtilizationChecks.put(check, check);
+		}
+		if (counted) {
+			addSlaFailCount(check.slaFails);
+		}
+		return check.overUtilized;
+	}
+
+	/**
+	 * Forgets the over-utilization checks done at the current time, as the state they depend on,
+	 * such as the priorities of the vms, has changed.
+	 */
+	protected void clearOverUtilizationChecks() {
+		synchronized (overUtilizationChecks) {
+			overUtilizationChecks.clear();
+		}
+	}
+
+	/**
+	 * Checks if the over-utilization check being done by the current thread is a placement trial,
+	 * which must not record the metric history.
+	 * 
+	 * @return true, if the check is a placement trial
+	 */
+	protected boolean isPlacementTrial() {
+		return placementTrial.get();
+	}
+
+	/**
+	 * Checks if a host is over utilized when it runs the given vms, which may differ from the vms it
+	 * is running. The placement trials use it to check a host as it would be after a placement,
+	 * without creating the vms on the host.
+	 * 
+	 * @param host the host
+	 * @param vmList the vms of the host
+	 * @return true, if is host over utilized
+	 */
+	protected abstract boolean isHostOverUtilized(PowerHost host, List<? extends Vm> vmList);
 
 	/**
 	 * Adds the history value.
@@ -1059,7 +1223,10 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	 * @param host the host
 	 * @param metric the metric
 	 */
-	protected void addHistoryEntry(HostDynamicWorkload host, double metric) {
+	protected synchronized void addHistoryEntry(HostDynamicWorkload host, double metric) {
+		if (isPlacementTrial()) {
+			return;
+		}
 		int hostId = host.getId();
 		if (!getTimeHistory().containsKey(hostId)) {
 			getTimeHistory().put(hostId, new LinkedList<Double>());
@@ -1070,8 +1237,10 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 		if (!getMetricHistory().containsKey(hostId)) {
 			getMetricHistory().put(hostId, new LinkedList<Double>());
 		}
-		if (!getTimeHistory().get(hostId).contains(CloudSim.clock())) {
-			getTimeHistory().get(hostId).add(CloudSim.clock());
+		// the times are added in order, so only the last one can be the current time
+		List<Double> times = getTimeHistory().get(hostId);
+		if (times.isEmpty() || times.get(times.size() - 1) != CloudSim.clock()) {
+			times.add(CloudSim.clock());
 			getUtilizationHistory().get(hostId).add(host.getUtilizationOfCpu());
 			getMetricHistory().get(hostId).add(metric);
 		}
@@ -1082,6 +1251,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	 */
 	protected void saveAllocation() {
 		getSavedAllocation().clear();
+		modifiedHosts.clear();
 		for (Host host : getHostList()) {
 			for (Vm vm : host.getVmList()) {
 				if (host.getVmsMigratingIn().contains(vm)) {
@@ -1096,19 +1266,48 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	}
 
 	/**
-	 * Restore allocation.
+	 * Restore allocation. Only the hosts that have been modified since the allocation was saved are
+	 * emptied and get their vms back, as the others have the allocation that this would give them.
 	 */
 	protected void restoreAllocation() {
-		for (Host host : getHostList()) {
-			host.vmDestroyAll();
-			host.reallocateMigratingInVms();
+		Map<Host, List<Vm>> savedVmLists = new HashMap<Host, List<Vm>>();
+		for (Map<String, Object> map : getSavedAllocation()) {
+			Host host = (Host) map.get("host");
+			List<Vm> savedVmList = savedVmLists.get(host);
+			if (savedVmList == null) {
+				savedVmList = new ArrayList<Vm>();
+				savedVmLists.put(host, savedVmList);
+			}
+			savedVmList.add((Vm) map.get("vm"));
 		}
+		// emptying a host detaches its vms, which may change the allocation of another host
+		// running one of them, so the hosts are checked again until none has changed
+		Set<Host> changedHosts = new HashSet<Host>();
+		int numberOfChangedHosts;
+		do {
+			numberOfChangedHosts = changedHosts.size();
+			for (Host host : getHostList()) {
+				if (changedHosts.contains(host)) {
+					continue;
+				}
+				List<Vm> savedVmList = savedVmLists.get(host);
+				if (savedVmList == null) {
+					savedVmList = Collections.emptyList();
+				}
+				if (modifiedHosts.contains(host) || !HostCapacityModel.isAllocationOf(host, savedVmList)) {
+					host.vmDestroyAll();
+					host.reallocateMigratingInVms();
+					changedHosts.add(host);
+				}
+			}
+		} while (changedHosts.size() > numberOfChangedHosts);
 		for (Map<String, Object> map : getSavedAllocation()) {
 			Vm vm = (Vm) map.get("vm");
 			PowerHost host = (PowerHost) map.get("host");
-			if (!host.vmCreate(vm)) {
+			if (changedHosts.contains(host) && !host.vmCreate(vm)) {
 				Log.printLine("Couldn't restore VM #" + vm.getId() + " on host #" + host.getId());
-				System.exit(0);
+				throw new IllegalStateException("Couldn't restore VM #" + vm.getId() + " on host #"
+						+ host.getId());
 			}
 			getVmTable().put(vm.getUid(), host);
 		}
@@ -1121,16 +1320,29 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	 * @param vm the vm
 	 * 
 	 * @return the power after allocation
+	 * @throws IllegalArgumentException if the utilization after allocation is out of the range of
+	 *             the power model
 	 */
 	protected double getPowerAfterAllocation(PowerHost host, Vm vm) {
-		double power = 0;
-		try {
-			power = host.getPowerModel().getPower(getMaxUtilizationAfterAllocation(host, vm));
-		} catch (Exception e) {
-			e.printStackTrace();
-			System.exit(0);
+		return host.getPowerModel().getPower(getMaxUtilizationAfterAllocation(host, vm));
+	}
+
+	/**
+	 * Gets the powers of many hosts after the allocation of a vm to each of them. The hosts that
+	 * share a power model are evaluated together, see
+	 * {@link PowerHost#getPower(List, double[], double[])}.
+	 * 
+	 * @param hosts the hosts
+	 * @param vm the vm
+	 * @param powers the array in which the powers after allocation are put, in the order of the
+	 *            hosts
+	 */
+	protected void getPowerAfterAllocation(List<PowerHost> hosts, Vm vm, double[] powers) {
+		double[] utilizations = new double[hosts.size()];
+		for (int i = 0; i < utilizations.length; i++) {
+			utilizations[i] = getMaxUtilizationAfterAllocation(hosts.get(i), vm);
 		}
-		return power;
+		PowerHost.getPower(hosts, utilizations, powers);
 	}
 
 	/**
@@ -1152,9 +1364,9 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	
 	/**
 	 * Gets the utilization of the CPU in MIPS for the current potentially allocated VMs.
-	 *
+	 * 
 	 * @param host the host
-	 *
+	 * 
 	 * @return the utilization of the CPU in MIPS
 	 */
 	protected double getUtilizationOfCpuMips(PowerHost host) {
@@ -1169,6 +1381,156 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 		return hostUtilizationMips;
 	}
 
+	/**
+	 * Records that vms have been created on or destroyed from a host while the vms to migrate are
+	 * placed: its capacity model is forgotten, and the host gets the saved allocation back when the
+	 * allocation is restored.
+	 * 
+	 * @param host the host
+	 */
+	protected void markHostModified(PowerHost host) {
+		if (isPlacingVms()) {
+			capacityModels.remove(host);
+			modifiedHosts.add(host);
+		}
+	}
+
+	/**
+	 * Sets whether the vms to migrate are being placed. The capacity models of the placement trials
+	 * are kept meanwhile, and vms created on or destroyed from the hosts have to be followed by
+	 * {@link #markHostModified(PowerHost)}.
+	 * 
+	 * @param placingVms whether the vms are being placed
+	 */
+	protected void setPlacingVms(boolean placingVms) {
+		this.placingVms = placingVms;
+		capacityModels.clear();
+	}
+
+	/**
+	 * Checks whether the vms to migrate are being placed.
+	 * 
+	 * @return true, if the vms are being placed
+	 */
+	protected boolean isPlacingVms() {
+		return placingVms;
+	}
+
+	/**
+	 * Gets the swap chain search, creating it if needed.
+	 * 
+	 * @return the swap chain search
+	 */
+	protected synchronized SwapChainSearch getSwapChainSearch() {
+		if (swapChainSearch == null) {
+			swapChainSearch = new SwapChainSearch(this, getSwapChainTimeBudget());
+		}
+		return swapChainSearch;
+	}
+
+	/**
+	 * Drops the swap chain search, so that it is created again with the current settings.
+	 */
+	private synchronized void resetSwapChainSearch() {
+		swapChainSearch = null;
+	}
+
+	/**
+	 * Sets the number of vms displaced by the swap chains of the double pass placement.
+	 * 
+	 * @param swapChainDepth the new swap chain depth, at least 1
+	 */
+	public void setSwapChainDepth(int swapChainDepth) {
+		if (swapChainDepth < 1) {
+			throw new IllegalArgumentException("The swap chain depth must be positive");
+		}
+		this.swapChainDepth = swapChainDepth;
+	}
+
+	/**
+	 * Gets the number of vms displaced by the swap chains of the double pass placement.
+	 * 
+	 * @return the swap chain depth
+	 */
+	public int getSwapChainDepth() {
+		return swapChainDepth;
+	}
+
+	/**
+	 * Sets the time budget of a swap chain search. Once it is spent, the search returns the first
+	 * chain of the branches it has searched, so that the chain found may depend on the speed of the
+	 * machine.
+	 * 
+	 * @param swapChainTimeBudget the new time budget in milliseconds, or 0 for no limit
+	 */
+	public void setSwapChainTimeBudget(long swapChainTimeBudget) {
+		if (swapChainTimeBudget < 0) {
+			throw new IllegalArgumentException("The swap chain time budget must not be negative");
+		}
+		this.swapChainTimeBudget = swapChainTimeBudget;
+		resetSwapChainSearch();
+	}
+
+	/**
+	 * Gets the time budget of a swap chain search.
+	 * 
+	 * @return the time budget in milliseconds, or 0 for no limit
+	 */
+	public long getSwapChainTimeBudget() {
+		return swapChainTimeBudget;
+	}
+
+	/**
+	 * Sets the number of threads that check the hosts a vm is tried on, and that search the first
+	 * level branches of the swap chains when the trials do not modify the hosts. With more than one
+	 * thread, the over-utilization checks of the policy are called concurrently; the results do not
+	 * depend on the number of threads.
+	 * 
+	 * @param placementParallelism the new number of threads, at least 1
+	 */
+	public void setPlacementParallelism(int placementParallelism) {
+		if (placementParallelism < 1) {
+			throw new IllegalArgumentException("The placement parallelism must be positive");
+		}
+		this.placementParallelism = placementParallelism;
+	}
+
+	/**
+	 * Gets the number of threads that check the hosts a vm is tried on, by default the number of
+	 * processors.
+	 * 
+	 * @return the placement parallelism
+	 */
+	public int getPlacementParallelism() {
+		return placementParallelism;
+	}
+
+	/**
+	 * Sets whether the placement trials are done as in the original policy, a bug-compatible mode.
+	 * By default a trial checks a host with the vm on a {@link HostCapacityModel} of the host, and
+	 * the hosts are only modified by the placements of the migration map. In the bug-compatible
+	 * mode, a trial creates the vm on the host and destroys it after the check. This has side
+	 * effects: destroying a vm makes the vm scheduler allocate the MIPS of the other vms again,
+	 * which may change them slightly, and the trial of a swap moves the displaced vm to the end of
+	 * the vms of its host. Later trials and placements see these changes, so that the mode is only
+	 * needed to reproduce the results of the original policy exactly; the examples use the default.
+	 * 
+	 * @param baselineTrials whether the trials create and destroy the vms on the hosts
+	 */
+	public void setBaselineTrials(boolean baselineTrials) {
+		this.baselineTrials = baselineTrials;
+	}
+
+	/**
+	 * Checks whether the placement trials are done as in the original policy, by creating and
+	 * destroying the vms on the hosts.
+	 * 
+	 * @return true, if the trials create and destroy the vms on the hosts
+	 */
+	public boolean isBaselineTrials() {
+		return baselineTrials;
+	}
+
 	/**
 	 * Gets the saved allocation.
 	 * 
@@ -1259,4 +1621,199 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 		return executionTimeHistoryTotal;
 	}
 
+	/**
+	 * Counts an over-utilization check that found a host at full utilization. During a check done
+	 * through {@link #isHostOverUtilized(PowerHost, List, boolean)}, the failure is kept with the
+	 * check and counted each time the check is done or reused. The checks of the trials may be done
+	 * by several threads.
+	 */
+	protected void incrementSlaFailCount() {
+		int[] tally = slaFailTally.get();
+		if (tally != null) {
+			tally[0]++;
+		} else {
+			addSlaFailCount(1);
+		}
+	}
+
+	/**
+	 * Adds SLA failures to the count, unless the effects of the trials of the current thread are
+	 * deferred.
+	 * 
+	 * @param slaFails the number of SLA failures
+	 */
+	private void addSlaFailCount(int slaFails) {
+		TrialEffects effects = deferredTrialEffects.get();
+		if (effects != null) {
+			effects.slaFails += slaFails;
+			return;
+		}
+		synchronized (this) {
+			slaFailcount += slaFails;
+		}
+	}
+
+	/**
+	 * Starts deferring the effects of the trials done by the current thread: the SLA failures they
+	 * count and the failed creations they log. The swap chain search defers them for the branches it
+	 * searches concurrently, so that it can apply them in the order of the branches, and drop the
+	 * ones of the branches after the chain it returns. Meanwhile the thread does not share the
+	 * capacity models of the hosts, nor does it check hosts ahead on other threads.
+	 * 
+	 * @return the effects deferred until {@link #stopDeferringTrialEffects()}
+	 */
+	TrialEffects deferTrialEffects() {
+		TrialEffects effects = new TrialEffects();
+		deferredTrialEffects.set(effects);
+		return effects;
+	}
+
+	/**
+	 * Stops deferring the effects of the trials done by the current thread.
+	 */
+	void stopDeferringTrialEffects() {
+		deferredTrialEffects.remove();
+	}
+
+	/**
+	 * Checks if the effects of the trials done by the current thread are deferred.
+	 * 
+	 * @return true, if they are deferred
+	 */
+	boolean isDeferringTrialEffects() {
+		return deferredTrialEffects.get() != null;
+	}
+
+	/**
+	 * Applies deferred effects of trials, as if the trials were done by the current thread.
+	 * 
+	 * @param effects the effects
+	 */
+	void applyTrialEffects(TrialEffects effects) {
+		addSlaFailCount(effects.slaFails);
+		if (effects.log.length() > 0) {
+			Log.print(effects.log.toString());
+		}
+	}
+
+	/**
+	 * Gets the number of over-utilization checks that found a host at full utilization.
+	 * 
+	 * @return the sla fail count
+	 */
+	public double getSlaFailCount() {
+		return slaFailcount;
+	}
+
+	/**
+	 * Gets the number of vms placed by the single pass, over all the optimizations of this policy.
+	 * 
+	 * @return the single pass count
+	 */
+	public double getTotalSinglePassCount() {
+		return totalSinglePassCount;
+	}
+
+	/**
+	 * Gets the number of vms placed by the double pass, over all the optimizations of this policy.
+	 * 
+	 * @return the double pass count
+	 */
+	public double getTotalDoublePassCount() {
+		return totalDoublePassCount;
+	}
+
+	/**
+	 * The effects of placement trials deferred by a thread.
+	 */
+	static class TrialEffects {
+
+		/** The number of SLA failures counted. */
+		private int slaFails;
+
+		/** The messages logged. */
+		private final StringBuilder log = new StringBuilder();
+
+	}
+
+	/**
+	 * An over-utilization check of a host running some vms, and its result. The checks are equal if
+	 * they are for the same host and the same vms, in the same order, with the same utilization
+	 * histories.
+	 */
+	private static class OverUtilizationCheck {
+
+		/** The host. */
+		private final PowerHost host;
+
+		/** The vms. */
+		private final Vm[] vms;
+
+		/** The versions of the utilization histories of the vms, 0 for the vms that have none. */
+		private final int[] versions;
+
+		/** The hash code. */
+		private final int hashCode;
+
+		/** Whether the host is over utilized. */
+		private boolean overUtilized;
+
+		/** Whether the check has recorded the metric history. */
+		private boolean recorded;
+
+		/** The number of SLA failures found by the check. */
+		private int slaFails;
+
+		/**
+		 * Instantiates a new over-utilization check.
+		 * 
+		 * @param host the host
+		 * @param vmList the vms
+		 */
+		public OverUtilizationCheck(PowerHost host, List<? extends Vm> vmList) {
+			this.host = host;
+			vms = vmList.toArray(new Vm[vmList.size()]);
+			versions = new int[vms.length];
+			int hash = System.identityHashCode(host);
+			for (int i = 0; i < vms.length; i++) {
+				if (vms[i] instanceof PowerVm) {
+					versions[i] = ((PowerVm) vms[i]).getUtilizationHistory().getVersion();
+				}
+				hash = 31 * hash + System.identityHashCode(vms[i]);
+				hash = 31 * hash + versions[i];
+			}
+			hashCode = hash;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(Object object) {
+			if (!(object instanceof OverUtilizationCheck)) {
+				return false;
+			}
+			OverUtilizationCheck check = (OverUtilizationCheck) object;
+			if (host != check.host || vms.length != check.vms.length) {
+				return false;
+			}
+			for (int i = 0; i < vms.length; i++) {
+				if (vms[i] != check.vms[i] || versions[i] != check.versions[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+	}
 }
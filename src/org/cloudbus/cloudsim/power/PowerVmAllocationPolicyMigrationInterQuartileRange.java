@@ -48,8 +48,6 @@ public class PowerVmAllocationPolicyMigrationInterQuartileRange extends
 	 * @param safetyParameter the safety parameter
 	 * @param utilizationThreshold the utilization threshold
 	 */
-        public static double slaFailcount=0;
-
         public PowerVmAllocationPolicyMigrationInterQuartileRange(
 			List<? extends Host> hostList,
 			PowerVmSelectionPolicy vmSelectionPolicy,
@@ -81,24 +79,25 @@ public class PowerVmAllocationPolicyMigrationInterQuartileRange extends
 	/**
 	 * Checks if is host over utilized.
 	 * 
-	 * @param _host the _host
+	 * @param host the host
+	 * @param vmList the vms of the host
 	 * @return true, if is host over utilized
 	 */
 	@Override
-	protected boolean isHostOverUtilized(PowerHost host) {
+	protected boolean isHostOverUtilized(PowerHost host, List<? extends Vm> vmList) {
 		PowerHostUtilizationHistory _host = (PowerHostUtilizationHistory) host;
 		double upperThreshold = 0;
 		try {
-			upperThreshold = 1 - getSafetyParameter() * getHostUtilizationIqr(_host);
+			upperThreshold = 1 - getSafetyParameter() * getHostUtilizationIqr(_host, vmList);
                         //System.out.println("upperthre"+upperThreshold+ "getHostUtilizationIqr(_host): " + getHostUtilizationIqr(_host) );
 		} catch (IllegalArgumentException e) {
-			return getFallbackVmAllocationPolicy().isHostOverUtilized(host);
+			return getFallbackVmAllocationPolicy().isHostOverUtilized(host, vmList);
 		}
 		addHistoryEntry(host, upperThreshold);
 		double totalRequestedMips = 0;
                 double totalPredictedMips=0;
                 double stddev=0;
-		for (Vm vm : host.getVmList()) {
+		for (Vm vm : vmList) {
                         if (vm.priority>0) totalRequestedMips += vm.getMips();
                         else totalRequestedMips += vm.getCurrentRequestedTotalMips();
                         PowerVm _vm=(PowerVm) vm;
@@ -107,7 +106,7 @@ public class PowerVmAllocationPolicyMigrationInterQuartileRange extends
 		}
                 
 		double utilization = totalRequestedMips / host.getTotalMips();
-                if(utilization >=1)  slaFailcount+=1;
+                if(utilization >=1)  incrementSlaFailCount();
                 double utilizationPrediction = totalPredictedMips / host.getTotalMips();
                 if ((utilization > upperThreshold && utilizationPrediction >=1) || (utilization>=1))
                 {
@@ -129,7 +128,19 @@ public class PowerVmAllocationPolicyMigrationInterQuartileRange extends
 	 * @return the host utilization iqr
 	 */
 	protected double getHostUtilizationIqr(PowerHostUtilizationHistory host) throws IllegalArgumentException {
-		double[] data = host.getUtilizationHistory();
+		return getHostUtilizationIqr(host, host.getVmList());
+	}
+
+	/**
+	 * Gets the host utilization iqr.
+	 * 
+	 * @param host the host
+	 * @param vmList the vms of the host
+	 * @return the host utilization iqr
+	 */
+	protected double getHostUtilizationIqr(PowerHostUtilizationHistory host, List<? extends Vm> vmList)
+			throws IllegalArgumentException {
+		double[] data = host.getUtilizationHistory(vmList);
 		if (MathUtil.countNonZeroBeginning(data) >= 12) { // 12 has been suggested as a safe value
 			return MathUtil.iqr(data);
 		}
@@ -145,7 +156,7 @@ public class PowerVmAllocationPolicyMigrationInterQuartileRange extends
 		if (safetyParameter < 0) {
 			Log.printLine("The safety parameter cannot be less than zero. The passed value is: "
 					+ safetyParameter);
-			System.exit(0);
+			throw new IllegalArgumentException("The safety parameter cannot be less than zero");
 		}
 		this.safetyParameter = safetyParameter;
 	}
@@ -38,7 +38,6 @@ public class PowerVmAllocationPolicyMigrationLocalRegression extends PowerVmAllo
 
 	/** The fallback vm allocation policy. */
 	private PowerVmAllocationPolicyMigrationAbstract fallbackVmAllocationPolicy;
-        public static double slaFailcount=0;
 	/**
 	 * Instantiates a new power vm allocation policy migration local regression.
 	 * 
@@ -85,15 +84,16 @@ public class PowerVmAllocationPolicyMigrationLocalRegression extends PowerVmAllo
 	 * Checks if is host over utilized.
 	 * 
 	 * @param host the host
+	 * @param vmList the vms of the host
 	 * @return true, if is host over utilized
 	 */
 	@Override
-	protected boolean isHostOverUtilized(PowerHost host) {
+	protected boolean isHostOverUtilized(PowerHost host, List<? extends Vm> vmList) {
 		PowerHostUtilizationHistory _host = (PowerHostUtilizationHistory) host;
-		double[] utilizationHistory = _host.getUtilizationHistory();
+		double[] utilizationHistory = _host.getUtilizationHistory(vmList);
 		int length = 10; // we use 10 to make the regression responsive enough to latest values
 		if (utilizationHistory.length < length) {
-			return getFallbackVmAllocationPolicy().isHostOverUtilized(host);
+			return getFallbackVmAllocationPolicy().isHostOverUtilized(host, vmList);
 		}
 		double[] utilizationHistoryReversed = new double[length];
 		for (int i = 0; i < length; i++) {
@@ -103,9 +103,9 @@ public class PowerVmAllocationPolicyMigrationLocalRegression extends PowerVmAllo
 		try {
 			estimates = getParameterEstimates(utilizationHistoryReversed);
 		} catch (IllegalArgumentException e) {
-			return getFallbackVmAllocationPolicy().isHostOverUtilized(host);
+			return getFallbackVmAllocationPolicy().isHostOverUtilized(host, vmList);
 		}
-		double migrationIntervals = Math.ceil(getMaximumVmMigrationTime(_host) / getSchedulingInterval());
+		double migrationIntervals = Math.ceil(getMaximumVmMigrationTime(_host, vmList) / getSchedulingInterval());
 		double predictedUtilization = estimates[0] + estimates[1] * (length + migrationIntervals);
 		predictedUtilization *= getSafetyParameter();
 
@@ -114,7 +114,7 @@ public class PowerVmAllocationPolicyMigrationLocalRegression extends PowerVmAllo
                 double totalPredictedMips=0;
                 double stddev=0;
                 //public static double slaFailcount=0;
-		for (Vm vm : host.getVmList()) {
+		for (Vm vm : vmList) {
 			totalRequestedMips += vm.getCurrentRequestedTotalMips();
                         PowerVm _vm=(PowerVm) vm;
                         totalPredictedMips+=_vm.getUtilizationMean()+Math.sqrt(_vm.getUtilizationVariance());
@@ -122,7 +122,7 @@ public class PowerVmAllocationPolicyMigrationLocalRegression extends PowerVmAllo
 		}
                 
 		double utilization = totalRequestedMips / host.getTotalMips();
-                if(utilization >=1)  slaFailcount+=1;
+                if(utilization >=1)  incrementSlaFailCount();
                 double utilizationPrediction = totalPredictedMips / host.getTotalMips();
                 if ((predictedUtilization >= 1 && utilizationPrediction >=1) || (utilization>=1))
                 {
@@ -150,8 +150,19 @@ public class PowerVmAllocationPolicyMigrationLocalRegression extends PowerVmAllo
 	 * @return the maximum vm migration time
 	 */
 	protected double getMaximumVmMigrationTime(PowerHost host) {
+		return getMaximumVmMigrationTime(host, host.getVmList());
+	}
+
+	/**
+	 * Gets the maximum vm migration time.
+	 * 
+	 * @param host the host
+	 * @param vmList the vms of the host
+	 * @return the maximum vm migration time
+	 */
+	protected double getMaximumVmMigrationTime(PowerHost host, List<? extends Vm> vmList) {
 		int maxRam = Integer.MIN_VALUE;
-		for (Vm vm : host.getVmList()) {
+		for (Vm vm : vmList) {
 			int ram = vm.getRam();
 			if (ram > maxRam) {
 				maxRam = ram;
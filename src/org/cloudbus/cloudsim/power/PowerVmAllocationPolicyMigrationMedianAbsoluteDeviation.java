@@ -34,8 +34,6 @@ public class PowerVmAllocationPolicyMigrationMedianAbsoluteDeviation extends
 
 	/** The safety parameter. */
 	private double safetyParameter = 0;
-        public static double slaFailcount=0;
-
 	/** The fallback vm allocation policy. */
 	private PowerVmAllocationPolicyMigrationAbstract fallbackVmAllocationPolicy;
 	/**
@@ -77,21 +75,22 @@ public class PowerVmAllocationPolicyMigrationMedianAbsoluteDeviation extends
 	/**
 	 * Checks if is host over utilized.
 	 * 
-	 * @param _host the _host
+	 * @param host the host
+	 * @param vmList the vms of the host
 	 * @return true, if is host over utilized
 	 */
 	@Override
-	protected boolean isHostOverUtilized(PowerHost host) {
+	protected boolean isHostOverUtilized(PowerHost host, List<? extends Vm> vmList) {
 		PowerHostUtilizationHistory _host = (PowerHostUtilizationHistory) host;
 		double upperThreshold = 0;
 		try {
-			upperThreshold = 1 - getSafetyParameter() * getHostUtilizationMad(_host);
+			upperThreshold = 1 - getSafetyParameter() * getHostUtilizationMad(_host, vmList);
 		} catch (IllegalArgumentException e) {
-			return getFallbackVmAllocationPolicy().isHostOverUtilized(host);
+			return getFallbackVmAllocationPolicy().isHostOverUtilized(host, vmList);
 		}
 		addHistoryEntry(host, upperThreshold);
 		/*double totalRequestedMips = 0;
-		for (Vm vm : host.getVmList()) {
+		for (Vm vm : vmList) {
 			totalRequestedMips += vm.getCurrentRequestedTotalMips();
 		}
 		double utilization = totalRequestedMips / host.getTotalMips();*/
@@ -100,7 +99,7 @@ public class PowerVmAllocationPolicyMigrationMedianAbsoluteDeviation extends
                 double totalPredictedMips=0;
                 double stddev=0;
                 //public static double slaFailcount=0;
-		for (Vm vm : host.getVmList()) {
+		for (Vm vm : vmList) {
 			totalRequestedMips += vm.getCurrentRequestedTotalMips();
                         PowerVm _vm=(PowerVm) vm;
                         totalPredictedMips+=_vm.getUtilizationMean()+Math.sqrt(_vm.getUtilizationVariance());
@@ -108,7 +107,7 @@ public class PowerVmAllocationPolicyMigrationMedianAbsoluteDeviation extends
 		}
                 
 		double utilization = totalRequestedMips / host.getTotalMips();
-                if(utilization >=1)  slaFailcount+=1;
+                if(utilization >=1)  incrementSlaFailCount();
                 double utilizationPrediction = totalPredictedMips / host.getTotalMips();
                 if ((utilization > upperThreshold && utilizationPrediction >=1) || (utilization>=1))
                 {
@@ -127,7 +126,19 @@ public class PowerVmAllocationPolicyMigrationMedianAbsoluteDeviation extends
 	 * @return the host utilization mad
 	 */
 	protected double getHostUtilizationMad(PowerHostUtilizationHistory host) throws IllegalArgumentException {
-		double[] data = host.getUtilizationHistory();
+		return getHostUtilizationMad(host, host.getVmList());
+	}
+
+	/**
+	 * Gets the host utilization mad.
+	 * 
+	 * @param host the host
+	 * @param vmList the vms of the host
+	 * @return the host utilization mad
+	 */
+	protected double getHostUtilizationMad(PowerHostUtilizationHistory host, List<? extends Vm> vmList)
+			throws IllegalArgumentException {
+		double[] data = host.getUtilizationHistory(vmList);
 		if (MathUtil.countNonZeroBeginning(data) >= 12) { // 12 has been suggested as a safe value
 			return MathUtil.mad(data);
 		}
@@ -143,7 +154,7 @@ public class PowerVmAllocationPolicyMigrationMedianAbsoluteDeviation extends
 		if (safetyParameter < 0) {
 			Log.printLine("The safety parameter cannot be less than zero. The passed value is: "
 					+ safetyParameter);
-			System.exit(0);
+			throw new IllegalArgumentException("The safety parameter cannot be less than zero");
 		}
 		this.safetyParameter = safetyParameter;
 	}
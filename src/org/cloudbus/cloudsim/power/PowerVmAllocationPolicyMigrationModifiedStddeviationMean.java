@@ -48,8 +48,6 @@ public class PowerVmAllocationPolicyMigrationModifiedStddeviationMean extends
 	 * @param safetyParameter the safety parameter
 	 * @param utilizationThreshold the utilization threshold
 	 */
-        public static double slaFailcount=0;
-
         public PowerVmAllocationPolicyMigrationModifiedStddeviationMean(
 			List<? extends Host> hostList,
 			PowerVmSelectionPolicy vmSelectionPolicy,
@@ -81,18 +79,19 @@ public class PowerVmAllocationPolicyMigrationModifiedStddeviationMean extends
 	/**
 	 * Checks if is host over utilized.
 	 * 
-	 * @param _host the _host
+	 * @param host the host
+	 * @param vmList the vms of the host
 	 * @return true, if is host over utilized
 	 */
 	@Override
-	protected boolean isHostOverUtilized(PowerHost host) {
+	protected boolean isHostOverUtilized(PowerHost host, List<? extends Vm> vmList) {
 		PowerHostUtilizationHistory _host = (PowerHostUtilizationHistory) host;
                 
 		
 		double totalRequestedMips = 0;
                 double totalPredictedMips=0;
                 double stddev=0;
-		for (Vm vm : host.getVmList()) {
+		for (Vm vm : vmList) {
 			totalRequestedMips += vm.getCurrentRequestedTotalMips();
                         PowerVm _vm=(PowerVm) vm;
                         totalPredictedMips+=_vm.getUtilizationMean()+Math.sqrt(_vm.getUtilizationVariance());
@@ -103,7 +102,7 @@ public class PowerVmAllocationPolicyMigrationModifiedStddeviationMean extends
                 double utilizationPrediction = totalPredictedMips / host.getTotalMips();
                 double upperThreshold=utilizationPrediction;
                 addHistoryEntry(host, upperThreshold);
-                if(utilization >=1)  slaFailcount+=1;
+                if(utilization >=1)  incrementSlaFailCount();
                 if (utilizationPrediction >=1 || (utilization>=1))
                 {
                  return true;                
@@ -140,7 +139,7 @@ public class PowerVmAllocationPolicyMigrationModifiedStddeviationMean extends
 		if (safetyParameter < 0) {
 			Log.printLine("The safety parameter cannot be less than zero. The passed value is: "
 					+ safetyParameter);
-			System.exit(0);
+			throw new IllegalArgumentException("The safety parameter cannot be less than zero");
 		}
 		this.safetyParameter = safetyParameter;
 	}
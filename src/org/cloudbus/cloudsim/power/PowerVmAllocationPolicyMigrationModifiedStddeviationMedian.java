@@ -48,8 +48,6 @@ public class PowerVmAllocationPolicyMigrationModifiedStddeviationMedian extends
 	 * @param safetyParameter the safety parameter
 	 * @param utilizationThreshold the utilization threshold
 	 */
-        public static double slaFailcount=0;
-
         public PowerVmAllocationPolicyMigrationModifiedStddeviationMedian(
 			List<? extends Host> hostList,
 			PowerVmSelectionPolicy vmSelectionPolicy,
@@ -81,11 +79,12 @@ public class PowerVmAllocationPolicyMigrationModifiedStddeviationMedian extends
 	/**
 	 * Checks if is host over utilized.
 	 * 
-	 * @param _host the _host
+	 * @param host the host
+	 * @param vmList the vms of the host
 	 * @return true, if is host over utilized
 	 */
 	@Override
-	protected boolean isHostOverUtilized(PowerHost host) {
+	protected boolean isHostOverUtilized(PowerHost host, List<? extends Vm> vmList) {
 		PowerHostUtilizationHistory _host = (PowerHostUtilizationHistory) host;
                 
 		
@@ -93,7 +92,7 @@ public class PowerVmAllocationPolicyMigrationModifiedStddeviationMedian extends
                 double totalPredictedMips=0;
                 //double totalPredictedMips1=0;
                 double stddev=0;
-		for (Vm vm : host.getVmList()) {
+		for (Vm vm : vmList) {
 			totalRequestedMips += vm.getCurrentRequestedTotalMips();
                         PowerVm _vm=(PowerVm) vm;
                         stddev=Math.sqrt(_vm.getUtilizationVariance());
@@ -107,7 +106,7 @@ public class PowerVmAllocationPolicyMigrationModifiedStddeviationMedian extends
                 double utilizationPrediction = totalPredictedMips / host.getTotalMips();
                 double upperThreshold=utilizationPrediction;
                 addHistoryEntry(host, upperThreshold);
-                if(utilization >=1)  slaFailcount+=1;
+                if(utilization >=1)  incrementSlaFailCount();
                 if (utilizationPrediction >=1 || (utilization>=1))
                 {
                  return true;                
@@ -144,7 +143,7 @@ public class PowerVmAllocationPolicyMigrationModifiedStddeviationMedian extends
 		if (safetyParameter < 0) {
 			Log.printLine("The safety parameter cannot be less than zero. The passed value is: "
 					+ safetyParameter);
-			System.exit(0);
+			throw new IllegalArgumentException("The safety parameter cannot be less than zero");
 		}
 		this.safetyParameter = safetyParameter;
 	}
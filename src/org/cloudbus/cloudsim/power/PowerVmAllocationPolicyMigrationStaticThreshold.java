@@ -31,7 +31,6 @@ public class PowerVmAllocationPolicyMigrationStaticThreshold extends PowerVmAllo
 
 	/** The utilization threshold. */
 	private double utilizationThreshold = 0.9;
-        public static double slaFailcount=0;
 	/**
 	 * Instantiates a new power vm allocation policy migration mad.
 	 * 
@@ -50,18 +49,19 @@ public class PowerVmAllocationPolicyMigrationStaticThreshold extends PowerVmAllo
 	/**
 	 * Checks if is host over utilized.
 	 * 
-	 * @param _host the _host
+	 * @param host the host
+	 * @param vmList the vms of the host
 	 * @return true, if is host over utilized
 	 */
 	@Override
-	protected boolean isHostOverUtilized(PowerHost host) {
+	protected boolean isHostOverUtilized(PowerHost host, List<? extends Vm> vmList) {
 		addHistoryEntry(host, getUtilizationThreshold());
                 
                 double totalRequestedMips = 0;
                 double totalPredictedMips=0;
                 double stddev=0;
                 //public static double slaFailcount=0;
-		for (Vm vm : host.getVmList()) {
+		for (Vm vm : vmList) {
 			totalRequestedMips += vm.getCurrentRequestedTotalMips();
                         PowerVm _vm=(PowerVm) vm;
                         totalPredictedMips+=_vm.getUtilizationMean()+Math.sqrt(_vm.getUtilizationVariance());
@@ -69,7 +69,7 @@ public class PowerVmAllocationPolicyMigrationStaticThreshold extends PowerVmAllo
 		}
                 
 		double utilization = totalRequestedMips / host.getTotalMips();
-                if(utilization >=1)  slaFailcount+=1;
+                if(utilization >=1)  incrementSlaFailCount();
                 double utilizationPrediction = totalPredictedMips / host.getTotalMips();
                 if ((utilization > getUtilizationThreshold() && utilizationPrediction >=1) || (utilization>=1))
                 {
@@ -77,7 +77,7 @@ public class PowerVmAllocationPolicyMigrationStaticThreshold extends PowerVmAllo
                 }
                 else return false;
 		/*double totalRequestedMips = 0;
-		for (Vm vm : host.getVmList()) {
+		for (Vm vm : vmList) {
 			totalRequestedMips += vm.getCurrentRequestedTotalMips();
 		}
 		double utilization = totalRequestedMips / host.getTotalMips();*/
@@ -9,10 +9,8 @@
 package org.cloudbus.cloudsim.power;
 
 import org.cloudbus.cloudsim.core.CloudSim;
-import java.util.LinkedList;
 import java.util.List;
 
-import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.util.MathUtil;
 
@@ -152,25 +150,7 @@ public class PowerVmSelectionPolicyMaximumCorrelationWithMigrationControl extend
 	 * @return the correlation coefficients
 	 */
 	protected List<Double> getCorrelationCoefficients(final double[][] data) {
-		int n = data.length;
-		int m = data[0].length;
-		List<Double> correlationCoefficients = new LinkedList<Double>();
-		for (int i = 0; i < n; i++) {
-			double[][] x = new double[n - 1][m];
-			int k = 0;
-			for (int j = 0; j < n; j++) {
-				if (j != i) {
-					x[k++] = data[j];
-				}
-			}
-
-			// Transpose the matrix so that it fits the linear model
-			double[][] xT = new Array2DRowRealMatrix(x).transpose().getData();
-
-			// RSquare is the "coefficient of determination"
-			correlationCoefficients.add(MathUtil.createLinearRegression(xT,	data[i]).calculateRSquared());
-		}
-		return correlationCoefficients;
+		return MathUtil.getCoefficientsOfDetermination(data);
 	}
 
 	/**
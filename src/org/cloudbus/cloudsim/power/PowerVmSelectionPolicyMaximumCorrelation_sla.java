@@ -9,13 +9,10 @@
 package org.cloudbus.cloudsim.power;
 
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
-import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.cloudbus.cloudsim.Vm;
-import org.cloudbus.cloudsim.VmStateHistoryEntry;
 import org.cloudbus.cloudsim.util.MathUtil;
 
 /**
@@ -110,40 +107,7 @@ public class PowerVmSelectionPolicyMaximumCorrelation_sla extends PowerVmSelecti
 	 * @return the utilization matrix
 	 */
         protected double getSlaViolation(Vm vm) {
-
-			double vmTotalAllocated = 0;
-			double vmTotalRequested = 0;
-                        double vmslaViolationtotaltime=0;
-			double vmUnderAllocatedDueToMigration = 0;
-                        double vmUnderAllocatedDueToMigrationTotal = 0;
-                        double number=0;
-			double previousTime = -1;
-			double previousAllocated = 0;
-			double previousRequested = 0;
-			boolean previousIsInMigration = false;
-			for (VmStateHistoryEntry entry : vm.getStateHistory()) {
-				if (previousTime != -1) {
-					double timeDiff = entry.getTime() - previousTime;
-					vmTotalAllocated += previousAllocated * timeDiff;
-					vmTotalRequested += previousRequested * timeDiff;
-
-					if (previousAllocated < previousRequested) {
-						if (previousIsInMigration) {
-							vmUnderAllocatedDueToMigration += (previousRequested - previousAllocated)
-									* timeDiff;
-                                                        number+=1;
-						}
-					}
-				}
-                                //System.out.println("VM ID: "+vm.getId() + " host ID: "+vm.getHost().getId()+" time: "+entry.getTime()+" previous Allocated: "+previousAllocated+" previousRequested: "+previousRequested+" previousTime: "+previousTime+" previousIsInMigration: "+previousIsInMigration);
-                                previousAllocated = entry.getAllocatedMips();
-				previousRequested = entry.getRequestedMips();
-				previousTime = entry.getTime(); 
-				previousIsInMigration = entry.isInMigration();
-			}
-                        
-
-		return number;
+		return vm.getSlaAccumulator().getUnderAllocationDueToMigrationCount();
 	}
         
 	/**
@@ -189,25 +153,7 @@ public class PowerVmSelectionPolicyMaximumCorrelation_sla extends PowerVmSelecti
 	 * @return the correlation coefficients
 	 */
 	protected List<Double> getCorrelationCoefficients(final double[][] data) {
-		int n = data.length;
-		int m = data[0].length;
-		List<Double> correlationCoefficients = new LinkedList<Double>();
-		for (int i = 0; i < n; i++) {
-			double[][] x = new double[n - 1][m];
-			int k = 0;
-			for (int j = 0; j < n; j++) {
-				if (j != i) {
-					x[k++] = data[j];
-				}
-			}
-
-			// Transpose the matrix so that it fits the linear model
-			double[][] xT = new Array2DRowRealMatrix(x).transpose().getData();
-
-			// RSquare is the "coefficient of determination"
-			correlationCoefficients.add(MathUtil.createLinearRegression(xT,	data[i]).calculateRSquared());
-		}
-		return correlationCoefficients;
+		return MathUtil.getCoefficientsOfDetermination(data);
 	}
 
 	/**
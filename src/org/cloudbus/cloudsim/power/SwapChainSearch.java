@@ -0,0 +1,445 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.power;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.CloudSim;
+
+/**
+ * The search of the swap chains that the single and double pass placements of
+ * {@link PowerVmAllocationPolicyMigrationAbstract} use to place a vm that no host can take as it is.
+ * A swap chain of depth d places the vm on a host in place of one of its vms, which is placed on
+ * another host in place of one of its vms, and so on d times, the last vm displaced being placed on
+ * a host that can take it. A vm can only displace a vm of a host that is not in migration, requests
+ * less MIPS per PE, and frees enough MIPS on the host together with its available MIPS, and the host
+ * must not be over-utilized after the swap.
+ * <p>
+ * The chains are searched in the order of the hosts and of their vms, and the first chain found in
+ * this order is returned. The search makes the same trials, in the same order, as the single pass
+ * (depth 1) and double pass (depth 2) loops it replaces, so that it finds the same chains. By
+ * default the trials leave the hosts as they are. In the bug-compatible mode of the policy, see
+ * {@link PowerVmAllocationPolicyMigrationAbstract#setBaselineTrials(boolean)}, the trial of a swap
+ * moves the displaced vm to the end of the vms of its host, and the vms of a host are visited by
+ * their position in its vm list while it changes, except at the first level of a single pass,
+ * which visits the vms the host had when the level started, as the loops did.
+ * <p>
+ * A host is skipped at once when the largest vm it could release, i.e. its largest vm not in
+ * migration capped to the MIPS per PE of the displacing vm, does not free the MIPS it lacks, as none
+ * of its vms can then be displaced. When the trials leave the hosts as they are and the policy has
+ * a placement parallelism above one, see
+ * {@link PowerVmAllocationPolicyMigrationAbstract#setPlacementParallelism(int)}, the first level
+ * branches are searched concurrently on the executor of the policy. The chain of the first branch
+ * that has one is returned, and the SLA failures counted and the messages logged by the trials are
+ * the ones of the branches up to it, so that the results do not depend on the number of threads.
+ * <p>
+ * The search can be given a time budget, in which case it gives up once the budget is spent, so
+ * that whether a chain is found may depend on the speed of the machine.
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public class SwapChainSearch {
+
+	/** The policy. */
+	private final PowerVmAllocationPolicyMigrationAbstract policy;
+
+	/** The time budget of a search in milliseconds, or 0 for no limit. */
+	private final long timeBudget;
+
+	/**
+	 * Instantiates a new swap chain search.
+	 * 
+	 * @param policy the policy that checks and places the vms
+	 * @param timeBudget the time budget of a search in milliseconds, or 0 for no limit
+	 * @throws IllegalArgumentException if the time budget is negative
+	 */
+	public SwapChainSearch(PowerVmAllocationPolicyMigrationAbstract policy, long timeBudget) {
+		if (timeBudget < 0) {
+			throw new IllegalArgumentException("The time budget must not be negative");
+		}
+		this.policy = policy;
+		this.timeBudget = timeBudget;
+	}
+
+	/**
+	 * Searches a swap chain placing a vm.
+	 * 
+	 * @param vm the vm
+	 * @param excludedHosts the hosts that the chain must not use
+	 * @param depth the number of vms displaced by the chain
+	 * @return the first swap chain found, or null if there is none
+	 * @throws IllegalArgumentException if the depth is not positive
+	 */
+	public SwapChain search(Vm vm, Set<? extends Host> excludedHosts, int depth) {
+		if (depth < 1) {
+			throw new IllegalArgumentException("The depth must be positive");
+		}
+		Search search = new Search(vm, excludedHosts, depth);
+		if (policy.isBaselineTrials() || policy.getPlacementParallelism() == 1) {
+			return search.run();
+		}
+		return search.run(policy.getPlacementParallelism());
+	}
+
+	/**
+	 * Gets the time budget of a search.
+	 * 
+	 * @return the time budget in milliseconds, or 0 for no limit
+	 */
+	public long getTimeBudget() {
+		return timeBudget;
+	}
+
+	/**
+	 * A swap chain: the vm placed and the vms it displaces, with the hosts they are placed on.
+	 */
+	public static class SwapChain {
+
+		/** The vms, starting with the vm placed. */
+		private final List<Vm> vms;
+
+		/** The hosts of the vms. */
+		private final List<PowerHost> hosts;
+
+		/**
+		 * Instantiates a new swap chain.
+		 * 
+		 * @param vms the vms, starting with the vm placed
+		 * @param hosts the hosts of the vms
+		 */
+		public SwapChain(List<Vm> vms, List<PowerHost> hosts) {
+			this.vms = vms;
+			this.hosts = hosts;
+		}
+
+		/**
+		 * Gets the vms, starting with the vm placed. Each vm but the last is placed in place of the
+		 * next one.
+		 * 
+		 * @return the vms
+		 */
+		public List<Vm> getVms() {
+			return vms;
+		}
+
+		/**
+		 * Gets the hosts the vms are placed on.
+		 * 
+		 * @return the hosts
+		 */
+		public List<PowerHost> getHosts() {
+			return hosts;
+		}
+
+	}
+
+	/**
+	 * A search of a swap chain placing a vm.
+	 */
+	private class Search {
+
+		/** The excluded hosts. */
+		private final Set<? extends Host> excludedHosts;
+
+		/** The depth. */
+		private final int depth;
+
+		/** Whether the last vm of a chain can be placed on an idle host. */
+		private final boolean includeIdleHosts;
+
+		/** The time at which the search stops in nanoseconds, or Long.MAX_VALUE. */
+		private final long deadline;
+
+		/** The hosts of the policy. */
+		private final List<PowerHost> hostList;
+
+		/**
+		 * The largest MIPS per PE requested by a vm not in migration of each host, by position in the
+		 * host list, or 0 if the host has no such vm.
+		 */
+		private final double[] largestMips;
+
+		/** The vms of the chain, starting with the vm placed. */
+		private final Vm[] vms;
+
+		/** The hosts of the vms of the chain. */
+		private final PowerHost[] hosts;
+
+		/** The index of the first level branch searched, or -1 if the search is not split. */
+		private final int branch;
+
+		/** The index of the first branch in which a chain has been found, or null if not split. */
+		private final AtomicInteger firstChainBranch;
+
+		/**
+		 * Instantiates a new search.
+		 * 
+		 * @param vm the vm
+		 * @param excludedHosts the excluded hosts
+		 * @param depth the depth
+		 */
+		public Search(Vm vm, Set<? extends Host> excludedHosts, int depth) {
+			deadline = timeBudget == 0 ? Long.MAX_VALUE : System.nanoTime() + timeBudget * 1000000L;
+			this.excludedHosts = excludedHosts;
+			this.depth = depth;
+			includeIdleHosts = CloudSim.clock() <= 300.1;
+			hostList = policy.<PowerHost> getHostList();
+			largestMips = new double[hostList.size()];
+			for (int h = 0; h < largestMips.length; h++) {
+				for (Vm hostVm : hostList.get(h).getVmList()) {
+					if (!hostVm.isInMigration()) {
+						largestMips[h] = Math.max(largestMips[h], hostVm.getCurrentRequestedMaxMips());
+					}
+				}
+			}
+			vms = new Vm[depth + 1];
+			hosts = new PowerHost[depth + 1];
+			vms[0] = vm;
+			branch = -1;
+			firstChainBranch = null;
+		}
+
+		/**
+		 * Instantiates the search of a first level branch of a search.
+		 * 
+		 * @param search the search
+		 * @param branch the index of the branch
+		 * @param firstChainBranch the index of the first branch in which a chain has been found
+		 */
+		private Search(Search search, int branch, AtomicInteger firstChainBranch) {
+			deadline = search.deadline;
+			excludedHosts = search.excludedHosts;
+			depth = search.depth;
+			includeIdleHosts = search.includeIdleHosts;
+			hostList = search.hostList;
+			largestMips = search.largestMips;
+			vms = search.vms.clone();
+			hosts = search.hosts.clone();
+			this.branch = branch;
+			this.firstChainBranch = firstChainBranch;
+		}
+
+		/**
+		 * Searches the chain.
+		 * 
+		 * @return the first chain found, or null
+		 */
+		public SwapChain run() {
+			if (!searchLevel(0)) {
+				return null;
+			}
+			return getChain();
+		}
+
+		/**
+		 * Searches the chain on up to the given number of threads, the first level branches being
+		 * searched concurrently. The branches are taken in order, and a branch is given up once a
+		 * chain is found in an earlier one, so that all the branches before the first chain found are
+		 * searched. The effects of their trials are then applied in order, and the ones of the
+		 * branches after it dropped.
+		 * 
+		 * @param threads the number of threads
+		 * @return the first chain found, or null
+		 */
+		public SwapChain run(int threads) {
+			final Vm vm = vms[0];
+			final List<PowerHost> branchHosts = new ArrayList<PowerHost>();
+			final List<Vm> branchVms = new ArrayList<Vm>();
+			for (int h = 0; h < hostList.size(); h++) {
+				PowerHost host = hostList.get(h);
+				if (excludedHosts.contains(host) || !isActive(host, 0) || !canRelease(host, h, vm)) {
+					continue;
+				}
+				for (Vm displacedVm : host.getVmList()) {
+					if (canDisplace(host, displacedVm, vm)) {
+						branchHosts.add(host);
+						branchVms.add(displacedVm);
+					}
+				}
+			}
+			final int branches = branchHosts.size();
+			if (Math.min(threads, branches) < 2) {
+				return run();
+			}
+			final AtomicInteger nextBranch = new AtomicInteger();
+			final AtomicInteger firstChainBranch = new AtomicInteger(Integer.MAX_VALUE);
+			final SwapChain[] chains = new SwapChain[branches];
+			final PowerVmAllocationPolicyMigrationAbstract.TrialEffects[] effects =
+					new PowerVmAllocationPolicyMigrationAbstract.TrialEffects[branches];
+			PowerVmAllocationPolicyMigrationAbstract.runConcurrently(new Callable<Object>() {
+
+				@Override
+				public Object call() {
+					int i = nextBranch.getAndIncrement();
+					while (i < branches && i < firstChainBranch.get()) {
+						effects[i] = policy.deferTrialEffects();
+						try {
+							Search search = new Search(Search.this, i, firstChainBranch);
+							chains[i] = search.searchBranch(branchHosts.get(i), branchVms.get(i));
+						} finally {
+							policy.stopDeferringTrialEffects();
+						}
+						if (chains[i] != null) {
+							int first = firstChainBranch.get();
+							while (i < first && !firstChainBranch.compareAndSet(first, i)) {
+								first = firstChainBranch.get();
+							}
+						}
+						i = nextBranch.getAndIncrement();
+					}
+					return null;
+				}
+			}, Math.min(threads, branches));
+			int first = firstChainBranch.get();
+			for (int i = 0; i < branches && i <= first; i++) {
+				policy.applyTrialEffects(effects[i]);
+			}
+			return first < branches ? chains[first] : null;
+		}
+
+		/**
+		 * Searches the chain in a first level branch, in which the vm placed displaces the given vm.
+		 * 
+		 * @param host the host of the displaced vm
+		 * @param displacedVm the displaced vm
+		 * @return the chain, or null if there is none in the branch or it has been given up
+		 */
+		private SwapChain searchBranch(PowerHost host, Vm displacedVm) {
+			if (isGivenUp() || policy.isHostOverUtilizedAfterAllocationSinglePass(host, vms[0], displacedVm)) {
+				return null;
+			}
+			hosts[0] = host;
+			vms[1] = displacedVm;
+			if (!searchLevel(1)) {
+				return null;
+			}
+			return getChain();
+		}
+
+		/**
+		 * Searches the rest of the chain from the vm placed at a level: a host on which it displaces
+		 * a vm, or at the depth, a host that can take it.
+		 * 
+		 * @param level the level, from 0 to the depth
+		 * @return true, if the chain has been completed
+		 */
+		private boolean searchLevel(int level) {
+			Vm vm = vms[level];
+			if (level == depth) {
+				PowerHost host = policy.findHostForVm(
+						vm,
+						excludedHosts,
+						Arrays.asList(hosts).subList(0, level),
+						includeIdleHosts);
+				hosts[level] = host;
+				return host != null;
+			}
+			for (int h = 0; h < hostList.size(); h++) {
+				PowerHost host = hostList.get(h);
+				if (excludedHosts.contains(host) || !isActive(host, level) || !canRelease(host, h, vm)) {
+					continue;
+				}
+				List<? extends Vm> vmList = host.getVmList();
+				int size = vmList.size();
+				Vm[] startVms = level == 0 && depth == 1 ? vmList.toArray(new Vm[size]) : null;
+				for (int i = 0; i < size && (startVms != null || i < vmList.size()); i++) {
+					if (isGivenUp()) {
+						return false;
+					}
+					Vm displacedVm = startVms != null ? startVms[i] : vmList.get(i);
+					if (canDisplace(host, displacedVm, vm)
+							&& !policy.isHostOverUtilizedAfterAllocationSinglePass(host, vm, displacedVm)) {
+						hosts[level] = host;
+						vms[level + 1] = displacedVm;
+						if (searchLevel(level + 1)) {
+							return true;
+						}
+					}
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Gets the chain completed by the search.
+		 * 
+		 * @return the chain
+		 */
+		private SwapChain getChain() {
+			return new SwapChain(Arrays.asList(vms), Arrays.asList(hosts));
+		}
+
+		/**
+		 * Checks if the search is given up, as the time budget is spent or, for a branch, a chain has
+		 * been found in an earlier branch.
+		 * 
+		 * @return true, if the search is given up
+		 */
+		private boolean isGivenUp() {
+			return deadline != Long.MAX_VALUE && System.nanoTime() >= deadline || firstChainBranch != null
+					&& firstChainBranch.get() < branch;
+		}
+
+		/**
+		 * Checks if a host and the hosts of the chain before a level are active.
+		 * 
+		 * @param host the host
+		 * @param level the level
+		 * @return true, if none of the hosts is idle
+		 */
+		private boolean isActive(PowerHost host, int level) {
+			for (int i = 0; i < level; i++) {
+				if (policy.getUtilizationOfCpuMips(hosts[i]) == 0) {
+					return false;
+				}
+			}
+			return policy.getUtilizationOfCpuMips(host) != 0;
+		}
+
+		/**
+		 * Checks if the largest vm that a host can release for a vm may free the MIPS the host lacks
+		 * to run the vm. A vm of the host can only be released if it requests less MIPS per PE than
+		 * the vm, so that if this fails, no vm of the host can be displaced by the vm.
+		 * 
+		 * @param host the host
+		 * @param position the position of the host in the host list
+		 * @param vm the displacing vm
+		 * @return false, if no vm of the host frees enough MIPS
+		 */
+		private boolean canRelease(PowerHost host, int position, Vm vm) {
+			double releasedMips = Math.min(largestMips[position], vm.getCurrentRequestedMaxMips());
+			return host.getVmScheduler().getAvailableMips() + releasedMips > vm.getCurrentRequestedTotalMips();
+		}
+
+		/**
+		 * Checks if a vm of a host can be displaced by a vm, as far as MIPS are concerned.
+		 * 
+		 * @param host the host
+		 * @param displacedVm the vm of the host
+		 * @param vm the displacing vm
+		 * @return true, if the vm of the host is not in migration, requests less MIPS per PE, and
+		 *         frees enough MIPS
+		 */
+		private boolean canDisplace(PowerHost host, Vm displacedVm, Vm vm) {
+			return !displacedVm.isInMigration()
+					&& displacedVm.getCurrentRequestedMaxMips() < vm.getCurrentRequestedMaxMips()
+					&& host.getVmScheduler().getAvailableMips() + displacedVm.getCurrentRequestedMaxMips() > vm
+							.getCurrentRequestedTotalMips();
+		}
+
+	}
+
+}
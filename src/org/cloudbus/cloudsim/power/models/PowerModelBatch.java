@@ -0,0 +1,31 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.power.models;
+
+/**
+ * A power model that can give the power consumption for many utilization values at once, such as
+ * the utilizations of all the hosts of a data center that share the model. The powers must be
+ * equal to the ones given by {@link #getPower(double)} for each of the values.
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public interface PowerModelBatch extends PowerModel {
+
+	/**
+	 * Gets the power consumption for the first values of an array of utilizations.
+	 * 
+	 * @param utilizations the utilizations
+	 * @param powers the array in which the power consumptions are put, at the indices of their
+	 *            utilizations
+	 * @param length the number of utilizations
+	 * @throws IllegalArgumentException if a utilization is out of [0, 1]
+	 */
+	void getPower(double[] utilizations, double[] powers, int length) throws IllegalArgumentException;
+
+}
@@ -23,7 +23,16 @@ package org.cloudbus.cloudsim.power.models;
  * @author Anton Beloglazov
  * @since CloudSim Toolkit 3.0
  */
-public abstract class PowerModelSpecPower implements PowerModel {
+public abstract class PowerModelSpecPower implements PowerModelBatch {
+
+	/** The number of utilization steps of the power data. */
+	private static final int STEPS = 10;
+
+	/** The power data, read once from {@link #getPowerData(int)}. */
+	private volatile double[] powerTable;
+
+	/** The power increase per utilization percent between each two consecutive power data. */
+	private volatile double[] slopeTable;
 
 	/*
 	 * (non-Javadoc)
@@ -34,16 +43,35 @@ public abstract class PowerModelSpecPower implements PowerModel {
 		if (utilization < 0 || utilization > 1) {
 			throw new IllegalArgumentException("Utilization value must be between 0 and 1");
 		}
-		if (utilization % 0.1 == 0) {
-			return getPowerData((int) (utilization * 10));
+		double[] powerTable = getPowerTableInternal();
+		return getPower(utilization, powerTable, slopeTable);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.power.models.PowerModelBatch#getPower(double[], double[], int)
+	 */
+	@Override
+	public void getPower(double[] utilizations, double[] powers, int length)
+			throws IllegalArgumentException {
+		double[] powerTable = getPowerTableInternal();
+		double[] slopeTable = this.slopeTable;
+		for (int i = 0; i < length; i++) {
+			double utilization = utilizations[i];
+			if (utilization < 0 || utilization > 1) {
+				throw new IllegalArgumentException("Utilization value must be between 0 and 1");
+			}
+			powers[i] = getPower(utilization, powerTable, slopeTable);
 		}
-		int utilization1 = (int) Math.floor(utilization * 10);
-		int utilization2 = (int) Math.ceil(utilization * 10);
-		double power1 = getPowerData(utilization1);
-		double power2 = getPowerData(utilization2);
-		double delta = (power2 - power1) / 10;
-		double power = power1 + delta * (utilization - (double) utilization1 / 10) * 100;
-		return power;
+	}
+
+	/**
+	 * Gets the power data at each tenth of the utilization, from 0 to 1.
+	 * 
+	 * @return a copy of the power data
+	 */
+	public double[] getPowerTable() {
+		return getPowerTableInternal().clone();
 	}
 
 	/**
@@ -54,4 +82,48 @@ public abstract class PowerModelSpecPower implements PowerModel {
 	 */
 	protected abstract double getPowerData(int index);
 
+	/**
+	 * Interpolates the power linearly between the two power data around the utilization. The
+	 * arithmetic is the one of the interpolation between two calls of {@link #getPowerData(int)}
+	 * that the model used to do, so that the power is the same to the last bit. At the points of
+	 * the power data, the power data is returned.
+	 * 
+	 * @param utilization the utilization, in [0, 1]
+	 * @param powerTable the power table
+	 * @param slopeTable the slope table
+	 * @return the power
+	 */
+	private static double getPower(double utilization, double[] powerTable, double[] slopeTable) {
+		double step = utilization * STEPS;
+		int index = (int) step;
+		if (index == step) {
+			return powerTable[index];
+		}
+		return powerTable[index] + slopeTable[index] * (utilization - (double) index / STEPS) * 100;
+	}
+
+	/**
+	 * Gets the power table, reading the power data the first time. The power data cannot be read
+	 * in the constructor, as the subclasses have not initialized it yet at that point.
+	 * 
+	 * @return the power table
+	 */
+	private double[] getPowerTableInternal() {
+		double[] powerTable = this.powerTable;
+		if (powerTable == null) {
+			powerTable = new double[STEPS + 1];
+			double[] slopeTable = new double[STEPS];
+			for (int i = 0; i <= STEPS; i++) {
+				powerTable[i] = getPowerData(i);
+			}
+			for (int i = 0; i < STEPS; i++) {
+				slopeTable[i] = (powerTable[i + 1] - powerTable[i]) / STEPS;
+			}
+			// the slopes are published first, as they are read once the power table is seen
+			this.slopeTable = slopeTable;
+			this.powerTable = powerTable;
+		}
+		return powerTable;
+	}
+
 }
@@ -0,0 +1,110 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.provisioners;
+
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.util.VmSlotTable;
+
+/**
+ * A bandwidth provisioner with the policy of {@link BwProvisionerSimple}, which keeps the bandwidth
+ * allocated to each vm in a primitive array, by vm slot, instead of in a map keyed by vm uid.
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public class BwProvisionerIndexed extends BwProvisioner {
+
+	/** The vms, by slot. */
+	private final VmSlotTable vms = new VmSlotTable(4);
+
+	/** The bandwidth allocated to the vms, by slot. */
+	private long[] allocatedBw = new long[4];
+
+	/**
+	 * Instantiates a new bw provisioner indexed.
+	 * 
+	 * @param bw the bw
+	 */
+	public BwProvisionerIndexed(long bw) {
+		super(bw);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.provisioners.BwProvisioner#allocateBwForVm(org.cloudbus.cloudsim.Vm, long)
+	 */
+	@Override
+	public boolean allocateBwForVm(Vm vm, long bw) {
+		deallocateBwForVm(vm);
+
+		if (getAvailableBw() >= bw) {
+			setAvailableBw(getAvailableBw() - bw);
+			int slot = vms.add(vm.getUserId(), vm.getId());
+			if (allocatedBw.length < vms.getCapacity()) {
+				long[] grown = new long[vms.getCapacity()];
+				System.arraycopy(allocatedBw, 0, grown, 0, allocatedBw.length);
+				allocatedBw = grown;
+			}
+			allocatedBw[slot] = bw;
+			vm.setCurrentAllocatedBw(getAllocatedBwForVm(vm));
+			return true;
+		}
+
+		vm.setCurrentAllocatedBw(getAllocatedBwForVm(vm));
+
+		return false;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.provisioners.BwProvisioner#getAllocatedBwForVm(org.cloudbus.cloudsim.Vm)
+	 */
+	@Override
+	public long getAllocatedBwForVm(Vm vm) {
+		int slot = vms.find(vm);
+		if (slot != VmSlotTable.NONE) {
+			return allocatedBw[slot];
+		}
+		return 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.provisioners.BwProvisioner#deallocateBwForVm(org.cloudbus.cloudsim.Vm)
+	 */
+	@Override
+	public void deallocateBwForVm(Vm vm) {
+		int slot = vms.find(vm);
+		if (slot != VmSlotTable.NONE) {
+			setAvailableBw(getAvailableBw() + allocatedBw[slot]);
+			vms.remove(slot);
+			vm.setCurrentAllocatedBw(0);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.provisioners.BwProvisioner#deallocateBwForAllVms()
+	 */
+	@Override
+	public void deallocateBwForAllVms() {
+		super.deallocateBwForAllVms();
+		vms.clear();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.provisioners.BwProvisioner#isSuitableForVm(org.cloudbus.cloudsim.Vm, long)
+	 */
+	@Override
+	public boolean isSuitableForVm(Vm vm, long bw) {
+		// what allocateBwForVm() would check, without allocating and releasing the bandwidth
+		return getAvailableBw() + getAllocatedBwForVm(vm) >= bw;
+	}
+
+}
@@ -98,13 +98,8 @@ public class BwProvisionerSimple extends BwProvisioner {
 	 */
 	@Override
 	public boolean isSuitableForVm(Vm vm, long bw) {
-		long allocatedBw = getAllocatedBwForVm(vm);
-		boolean result = allocateBwForVm(vm, bw);
-		deallocateBwForVm(vm);
-		if (allocatedBw > 0) {
-			allocateBwForVm(vm, allocatedBw);
-		}
-		return result;
+		// what allocateBwForVm() would check, without allocating and releasing the bandwidth
+		return getAvailableBw() + getAllocatedBwForVm(vm) >= bw;
 	}
 
 	/**
@@ -0,0 +1,238 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.provisioners;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.util.VmSlotTable;
+
+/**
+ * A PE provisioner with the policy of {@link PeProvisionerSimple}, which keeps the MIPS allocated
+ * to each vm in primitive arrays, by vm slot, instead of in a map of lists keyed by vm uid.
+ * Allocating and deallocating MIPS does not allocate memory once the arrays are large enough.
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public class PeProvisionerIndexed extends PeProvisioner {
+
+	/** The vms, by slot. */
+	private final VmSlotTable vms = new VmSlotTable(4);
+
+	/** The MIPS allocated to the vms, in the order of allocation, by slot. */
+	private double[][] allocatedMips = new double[4][];
+
+	/** The number of MIPS allocated to the vms, by slot. */
+	private int[] allocatedCount = new int[4];
+
+	/**
+	 * Creates the PeProvisionerIndexed object.
+	 * 
+	 * @param availableMips the available mips
+	 */
+	public PeProvisionerIndexed(double availableMips) {
+		super(availableMips);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.provisioners.PeProvisioner#allocateMipsForVm(org.cloudbus.cloudsim.Vm, double)
+	 */
+	@Override
+	public boolean allocateMipsForVm(Vm vm, double mips) {
+		return allocateMipsForVm(vm.getUserId(), vm.getId(), mips);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.provisioners.PeProvisioner#allocateMipsForVm(java.lang.String, double)
+	 */
+	@Override
+	public boolean allocateMipsForVm(String vmUid, double mips) {
+		if (getAvailableMips() < mips) {
+			return false;
+		}
+		int slot = vms.find(vmUid);
+		if (slot == VmSlotTable.NONE) {
+			int separator = vmUid.indexOf('-', 1);
+			slot = addVm(
+					Integer.parseInt(vmUid.substring(0, separator)),
+					Integer.parseInt(vmUid.substring(separator + 1)));
+		}
+		addMips(slot, mips);
+		setAvailableMips(getAvailableMips() - mips);
+		return true;
+	}
+
+	/**
+	 * Allocates MIPS for a vm, adding them to the MIPS the vm already has on the PE.
+	 * 
+	 * @param userId the user id of the vm
+	 * @param vmId the id of the vm
+	 * @param mips the mips
+	 * @return true, if successful
+	 */
+	public boolean allocateMipsForVm(int userId, int vmId, double mips) {
+		if (getAvailableMips() < mips) {
+			return false;
+		}
+		addMips(addVm(userId, vmId), mips);
+		setAvailableMips(getAvailableMips() - mips);
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.provisioners.PeProvisioner#allocateMipsForVm(org.cloudbus.cloudsim.Vm,
+	 * java.util.List)
+	 */
+	@Override
+	public boolean allocateMipsForVm(Vm vm, List<Double> mips) {
+		// the total is truncated at each step, as in PeProvisionerSimple
+		int totalMipsToAllocate = 0;
+		for (double _mips : mips) {
+			totalMipsToAllocate += _mips;
+		}
+
+		if (getAvailableMips() + getTotalAllocatedMipsForVm(vm) < totalMipsToAllocate) {
+			return false;
+		}
+
+		setAvailableMips(getAvailableMips() + getTotalAllocatedMipsForVm(vm) - totalMipsToAllocate);
+
+		int slot = addVm(vm.getUserId(), vm.getId());
+		allocatedCount[slot] = 0;
+		for (double _mips : mips) {
+			addMips(slot, _mips);
+		}
+
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.provisioners.PeProvisioner#deallocateMipsForAllVms()
+	 */
+	@Override
+	public void deallocateMipsForAllVms() {
+		super.deallocateMipsForAllVms();
+		vms.clear();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.provisioners.PeProvisioner#getAllocatedMipsForVmByVirtualPeId(org.cloudbus.cloudsim.Vm, int)
+	 */
+	@Override
+	public double getAllocatedMipsForVmByVirtualPeId(Vm vm, int peId) {
+		int slot = vms.find(vm);
+		if (slot != VmSlotTable.NONE && peId >= 0 && peId < allocatedCount[slot]) {
+			return allocatedMips[slot][peId];
+		}
+		return 0;
+	}
+
+	/**
+	 * Gets the MIPS allocated to a vm, in a new list.
+	 * 
+	 * @param vm the vm
+	 * @return the allocated mips, or null if the vm has no MIPS on the PE
+	 */
+	@Override
+	public List<Double> getAllocatedMipsForVm(Vm vm) {
+		int slot = vms.find(vm);
+		if (slot == VmSlotTable.NONE) {
+			return null;
+		}
+		List<Double> mips = new ArrayList<Double>(allocatedCount[slot]);
+		for (int i = 0; i < allocatedCount[slot]; i++) {
+			mips.add(allocatedMips[slot][i]);
+		}
+		return mips;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.provisioners.PeProvisioner#getTotalAllocatedMipsForVm(org.cloudbus.cloudsim.Vm)
+	 */
+	@Override
+	public double getTotalAllocatedMipsForVm(Vm vm) {
+		int slot = vms.find(vm);
+		if (slot == VmSlotTable.NONE) {
+			return 0;
+		}
+		double totalAllocatedMips = 0.0;
+		for (int i = 0; i < allocatedCount[slot]; i++) {
+			totalAllocatedMips += allocatedMips[slot][i];
+		}
+		return totalAllocatedMips;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.provisioners.PeProvisioner#deallocateMipsForVm(org.cloudbus.cloudsim.Vm)
+	 */
+	@Override
+	public void deallocateMipsForVm(Vm vm) {
+		int slot = vms.find(vm);
+		if (slot != VmSlotTable.NONE) {
+			for (int i = 0; i < allocatedCount[slot]; i++) {
+				setAvailableMips(getAvailableMips() + allocatedMips[slot][i]);
+			}
+			vms.remove(slot);
+		}
+	}
+
+	/**
+	 * Adds a vm to the table, with no MIPS if it is not in the table yet.
+	 * 
+	 * @param userId the user id
+	 * @param vmId the vm id
+	 * @return the slot of the vm
+	 */
+	private int addVm(int userId, int vmId) {
+		int size = vms.size();
+		int slot = vms.add(userId, vmId);
+		if (vms.size() != size) {
+			if (allocatedCount.length < vms.getCapacity()) {
+				int capacity = vms.getCapacity();
+				double[][] mips = new double[capacity][];
+				System.arraycopy(allocatedMips, 0, mips, 0, allocatedMips.length);
+				allocatedMips = mips;
+				int[] count = new int[capacity];
+				System.arraycopy(allocatedCount, 0, count, 0, allocatedCount.length);
+				allocatedCount = count;
+			}
+			allocatedCount[slot] = 0;
+		}
+		return slot;
+	}
+
+	/**
+	 * Adds MIPS to the MIPS allocated to the vm of a slot.
+	 * 
+	 * @param slot the slot
+	 * @param mips the mips
+	 */
+	private void addMips(int slot, double mips) {
+		double[] slotMips = allocatedMips[slot];
+		int count = allocatedCount[slot];
+		if (slotMips == null || slotMips.length == count) {
+			double[] grown = new double[Math.max(4, count * 2)];
+			if (slotMips != null) {
+				System.arraycopy(slotMips, 0, grown, 0, count);
+			}
+			allocatedMips[slot] = slotMips = grown;
+		}
+		slotMips[count] = mips;
+		allocatedCount[slot] = count + 1;
+	}
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.provisioners;
+
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.util.VmSlotTable;
+
+/**
+ * A RAM provisioner with the best-effort policy of {@link RamProvisionerSimple}, which keeps the
+ * RAM allocated to each vm in a primitive array, by vm slot, instead of in a map keyed by vm uid.
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public class RamProvisionerIndexed extends RamProvisioner {
+
+	/** The vms, by slot. */
+	private final VmSlotTable vms = new VmSlotTable(4);
+
+	/** The RAM allocated to the vms, by slot. */
+	private int[] allocatedRam = new int[4];
+
+	/**
+	 * Instantiates a new ram provisioner indexed.
+	 * 
+	 * @param availableRam the available ram
+	 */
+	public RamProvisionerIndexed(int availableRam) {
+		super(availableRam);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.provisioners.RamProvisioner#allocateRamForVm(org.cloudbus.cloudsim.Vm, int)
+	 */
+	@Override
+	public boolean allocateRamForVm(Vm vm, int ram) {
+		int maxRam = vm.getRam();
+		if (ram >= maxRam) {
+			ram = maxRam;
+		}
+
+		deallocateRamForVm(vm);
+
+		if (getAvailableRam() >= ram) {
+			setAvailableRam(getAvailableRam() - ram);
+			int slot = vms.add(vm.getUserId(), vm.getId());
+			if (allocatedRam.length < vms.getCapacity()) {
+				int[] grown = new int[vms.getCapacity()];
+				System.arraycopy(allocatedRam, 0, grown, 0, allocatedRam.length);
+				allocatedRam = grown;
+			}
+			allocatedRam[slot] = ram;
+			vm.setCurrentAllocatedRam(getAllocatedRamForVm(vm));
+			return true;
+		}
+
+		vm.setCurrentAllocatedRam(getAllocatedRamForVm(vm));
+
+		return false;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.provisioners.RamProvisioner#getAllocatedRamForVm(org.cloudbus.cloudsim.Vm)
+	 */
+	@Override
+	public int getAllocatedRamForVm(Vm vm) {
+		int slot = vms.find(vm);
+		if (slot != VmSlotTable.NONE) {
+			return allocatedRam[slot];
+		}
+		return 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.provisioners.RamProvisioner#deallocateRamForVm(org.cloudbus.cloudsim.Vm)
+	 */
+	@Override
+	public void deallocateRamForVm(Vm vm) {
+		int slot = vms.find(vm);
+		if (slot != VmSlotTable.NONE) {
+			setAvailableRam(getAvailableRam() + allocatedRam[slot]);
+			vms.remove(slot);
+			vm.setCurrentAllocatedRam(0);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.provisioners.RamProvisioner#deallocateRamForAllVms()
+	 */
+	@Override
+	public void deallocateRamForAllVms() {
+		super.deallocateRamForAllVms();
+		vms.clear();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.cloudbus.cloudsim.provisioners.RamProvisioner#isSuitableForVm(org.cloudbus.cloudsim.Vm, int)
+	 */
+	@Override
+	public boolean isSuitableForVm(Vm vm, int ram) {
+		// what allocateRamForVm() would check, without allocating and releasing the ram
+		return getAvailableRam() + getAllocatedRamForVm(vm) >= Math.min(ram, vm.getRam());
+	}
+
+}
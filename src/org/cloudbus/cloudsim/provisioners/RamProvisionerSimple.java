@@ -103,13 +103,8 @@ public class RamProvisionerSimple extends RamProvisioner {
 	 */
 	@Override
 	public boolean isSuitableForVm(Vm vm, int ram) {
-		int allocatedRam = getAllocatedRamForVm(vm);
-		boolean result = allocateRamForVm(vm, ram);
-		deallocateRamForVm(vm);
-		if (allocatedRam > 0) {
-			allocateRamForVm(vm, allocatedRam);
-		}
-		return result;
+		// what allocateRamForVm() would check, without allocating and releasing the ram
+		return getAvailableRam() + getAllocatedRamForVm(vm) >= Math.min(ram, vm.getRam());
 	}
 
 	/**
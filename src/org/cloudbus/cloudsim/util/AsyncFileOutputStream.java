@@ -0,0 +1,282 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * An output stream to a file that collects the written bytes in batches, which a background thread
+ * writes to the file. It is meant as the output of the {@link org.cloudbus.cloudsim.Log}, so that a
+ * simulation writing many small messages does not wait for the file system. When the writer falls
+ * behind, the simulation waits only once a number of batches are pending, which bounds the memory
+ * used. An error of the writer is thrown by the next call to the stream.
+ * <p>
+ * The pending batches are written when the stream is flushed or closed. If the stream is not
+ * closed, e.g. because the simulation calls System.exit(), it is closed when the JVM shuts down.
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public class AsyncFileOutputStream extends OutputStream {
+
+	/** The size of a batch in bytes. */
+	public static final int BATCH_SIZE = 64 * 1024;
+
+	/** The number of batches that can be pending before the writes wait for the writer. */
+	public static final int MAX_PENDING_BATCHES = 16;
+
+	/** The batch that tells the writer to stop. */
+	private static final byte[] END = new byte[0];
+
+	/** The file. */
+	private final FileOutputStream file;
+
+	/** The batches waiting to be written to the file. */
+	private final BlockingQueue<byte[]> pending = new ArrayBlockingQueue<byte[]>(MAX_PENDING_BATCHES);
+
+	/** The writer thread. */
+	private final Thread writer;
+
+	/** The hook closing the stream when the JVM shuts down. */
+	private final Thread shutdownHook;
+
+	/** The current batch. */
+	private byte[] batch = new byte[BATCH_SIZE];
+
+	/** The number of bytes in the current batch. */
+	private int count;
+
+	/** The number of batches handed to the writer. */
+	private long submitted;
+
+	/** The number of batches written by the writer. */
+	private long written;
+
+	/** The error of the writer, or null. */
+	private volatile IOException error;
+
+	/** The closed flag. */
+	private boolean closed;
+
+	/**
+	 * Opens a file for writing, replacing its content.
+	 * 
+	 * @param file the file
+	 * @throws FileNotFoundException if the file cannot be opened
+	 */
+	public AsyncFileOutputStream(File file) throws FileNotFoundException {
+		this.file = new FileOutputStream(file);
+		writer = new Thread("AsyncFileOutputStream " + file.getName()) {
+
+			@Override
+			public void run() {
+				writeBatches();
+			}
+		};
+		writer.setDaemon(true);
+		writer.start();
+		shutdownHook = new Thread() {
+
+			@Override
+			public void run() {
+				try {
+					close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		};
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+	}
+
+	/**
+	 * Opens a file for writing, replacing its content.
+	 * 
+	 * @param path the path of the file
+	 * @throws FileNotFoundException if the file cannot be opened
+	 */
+	public AsyncFileOutputStream(String path) throws FileNotFoundException {
+		this(new File(path));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.io.OutputStream#write(int)
+	 */
+	@Override
+	public synchronized void write(int b) throws IOException {
+		checkOpen();
+		if (count == batch.length) {
+			submit(batch);
+			batch = new byte[BATCH_SIZE];
+			count = 0;
+		}
+		batch[count++] = (byte) b;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.io.OutputStream#write(byte[], int, int)
+	 */
+	@Override
+	public synchronized void write(byte[] b, int off, int len) throws IOException {
+		checkOpen();
+		while (len > 0) {
+			if (count == batch.length) {
+				submit(batch);
+				batch = new byte[BATCH_SIZE];
+				count = 0;
+			}
+			int n = Math.min(len, batch.length - count);
+			System.arraycopy(b, off, batch, count, n);
+			count += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * Hands the current batch to the writer and waits until all the batches are written to the
+	 * file.
+	 * 
+	 * @throws IOException if the writer has failed
+	 */
+	@Override
+	public synchronized void flush() throws IOException {
+		checkOpen();
+		if (count > 0) {
+			submit(Arrays.copyOf(batch, count));
+			count = 0;
+		}
+		waitForWriter();
+	}
+
+	/**
+	 * Writes the pending batches, stops the writer and closes the file.
+	 * 
+	 * @throws IOException if the writer has failed or the file cannot be closed
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		try {
+			flush();
+		} finally {
+			closed = true;
+			try {
+				pending.put(END);
+				writer.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			file.close();
+			try {
+				Runtime.getRuntime().removeShutdownHook(shutdownHook);
+			} catch (IllegalStateException e) {
+				// the JVM is shutting down, this is the hook
+			}
+		}
+	}
+
+	/**
+	 * Hands a batch to the writer, waiting if too many batches are pending.
+	 * 
+	 * @param b the batch
+	 * @throws IOException if the thread is interrupted while waiting
+	 */
+	private void submit(byte[] b) throws IOException {
+		try {
+			pending.put(b);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while writing to the file");
+		}
+		submitted++;
+	}
+
+	/**
+	 * Waits until the writer has written all the submitted batches.
+	 * 
+	 * @throws IOException if the writer has failed or the thread is interrupted
+	 */
+	private void waitForWriter() throws IOException {
+		synchronized (pending) {
+			while (written < submitted && error == null) {
+				try {
+					pending.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while writing to the file");
+				}
+			}
+		}
+		checkError();
+	}
+
+	/**
+	 * Writes the batches to the file until the end batch is received. Runs in the writer thread.
+	 */
+	private void writeBatches() {
+		while (true) {
+			byte[] b;
+			try {
+				b = pending.take();
+			} catch (InterruptedException e) {
+				return;
+			}
+			if (b == END) {
+				return;
+			}
+			if (error == null) {
+				try {
+					file.write(b);
+				} catch (IOException e) {
+					error = e;
+				}
+			}
+			synchronized (pending) {
+				written++;
+				pending.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Checks that the stream is open and the writer has not failed.
+	 * 
+	 * @throws IOException if the stream is closed or the writer has failed
+	 */
+	private void checkOpen() throws IOException {
+		if (closed) {
+			throw new IOException("The stream is closed");
+		}
+		checkError();
+	}
+
+	/**
+	 * Throws the error of the writer, if any.
+	 * 
+	 * @throws IOException the error of the writer
+	 */
+	private void checkError() throws IOException {
+		IOException e = error;
+		if (e != null) {
+			throw e;
+		}
+	}
+
+}
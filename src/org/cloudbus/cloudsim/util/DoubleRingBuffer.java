@@ -0,0 +1,151 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import java.util.AbstractList;
+
+/**
+ * A fixed-capacity history of primitive doubles, the newest value first. Pushing a value is O(1):
+ * the values are kept in a ring, and once the history is full the oldest value is dropped. The
+ * history is also a read-only list of its values, from the newest to the oldest.
+ * <p>
+ * The sum of the values is computed when it is first asked for after a push, and kept until the
+ * next push. It is summed from the newest value to the oldest, so that it is exactly the sum a
+ * loop over the list would give; a running sum, adding the pushed value and subtracting the
+ * dropped one, would drift from it by rounding errors. Getting the sum is thus O(n) once per push
+ * and O(1) after.
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public class DoubleRingBuffer extends AbstractList<Double> {
+
+	/** The values, in a ring. */
+	private final double[] values;
+
+	/** The index in the ring of the newest value. */
+	private int head;
+
+	/** The number of values. */
+	private int size;
+
+	/** The sum of the values. */
+	private double sum;
+
+	/** The version of the history for which the sum was computed, or -1. */
+	private int sumVersion = -1;
+
+	/**
+	 * Instantiates a new empty history.
+	 * 
+	 * @param capacity the maximum number of values
+	 * @throws IllegalArgumentException if the capacity is not positive
+	 */
+	public DoubleRingBuffer(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("The capacity must be positive");
+		}
+		values = new double[capacity];
+	}
+
+	/**
+	 * Pushes a value as the newest one, dropping the oldest value if the history is full.
+	 * 
+	 * @param value the value
+	 */
+	public void push(double value) {
+		head = head == 0 ? values.length - 1 : head - 1;
+		values[head] = value;
+		if (size < values.length) {
+			size++;
+		}
+		modCount++;
+	}
+
+	/**
+	 * Gets a value.
+	 * 
+	 * @param index the index of the value, 0 being the newest
+	 * @return the value
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 */
+	public double getDouble(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		int i = head + index;
+		return values[i < values.length ? i : i - values.length];
+	}
+
+	/**
+	 * Copies the values into a new array, from the newest to the oldest.
+	 * 
+	 * @return the values
+	 */
+	public double[] toDoubleArray() {
+		double[] array = new double[size];
+		int tail = Math.min(size, values.length - head);
+		System.arraycopy(values, head, array, 0, tail);
+		System.arraycopy(values, 0, array, tail, size - tail);
+		return array;
+	}
+
+	/**
+	 * Gets the sum of the values.
+	 * 
+	 * @return the sum
+	 */
+	public double getSum() {
+		if (sumVersion != modCount) {
+			double sum = 0;
+			for (int i = 0; i < size; i++) {
+				sum += getDouble(i);
+			}
+			this.sum = sum;
+			sumVersion = modCount;
+		}
+		return sum;
+	}
+
+	/**
+	 * Gets the maximum number of values.
+	 * 
+	 * @return the capacity
+	 */
+	public int getCapacity() {
+		return values.length;
+	}
+
+	/**
+	 * Gets the version of the history, which changes at each push.
+	 * 
+	 * @return the version
+	 */
+	public int getVersion() {
+		return modCount;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.AbstractList#get(int)
+	 */
+	@Override
+	public Double get(int index) {
+		return getDouble(index);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.util.AbstractCollection#size()
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+}
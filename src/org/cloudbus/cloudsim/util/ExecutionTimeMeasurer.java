@@ -8,20 +8,19 @@
 
 package org.cloudbus.cloudsim.util;
 
-import java.util.HashMap;
 import java.util.Map;
 
+import org.cloudbus.cloudsim.core.CloudSim;
+
 /**
- * The class for measuring the execution time.
+ * The class for measuring the execution time. The measurements belong to the simulation context of
+ * the current thread.
  * 
  * @author Anton Beloglazov
  * @since CloudSim Toolkit 3.0
  */
 public class ExecutionTimeMeasurer {
 
-	/** The execution times. */
-	private final static Map<String, Long> executionTimes = new HashMap<String, Long>();
-
 	/**
 	 * Start.
 	 * 
@@ -49,7 +48,7 @@ public class ExecutionTimeMeasurer {
 	 * @return the execution times
 	 */
 	public static Map<String, Long> getExecutionTimes() {
-		return executionTimes;
+		return CloudSim.getContext().getExecutionTimes();
 	}
 
 }
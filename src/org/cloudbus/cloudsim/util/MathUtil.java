@@ -7,9 +7,14 @@
  */
 
 package org.cloudbus.cloudsim.util;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.CholeskyDecomposition;
+import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.apache.commons.math3.stat.regression.OLSMultipleLinearRegression;
 import org.apache.commons.math3.stat.regression.SimpleRegression;
@@ -259,6 +264,79 @@ public class MathUtil {
 		return regression;
 	}
 
+	/**
+	 * Gets the coefficients of determination (R<sup>2</sup>) of the regressions of each row of the
+	 * data on all the other rows, with an intercept. The coefficients are read from the inverse of
+	 * the covariance matrix of the rows, as R<sup>2</sup><sub>i</sub> = 1 - 1 / (S<sub>ii</sub>
+	 * (S<sup>-1</sup>)<sub>ii</sub>), which takes one O(n<sup>2</sup>m + n<sup>3</sup>) pass
+	 * instead of one regression per row. With two rows, or when the covariance matrix is close to
+	 * singular, e.g. when the rows are not much longer than there are rows, the regressions are
+	 * computed one at a time.
+	 * 
+	 * @param data the rows, which must have the same length
+	 * @return the coefficients of determination
+	 * @throws IllegalArgumentException if there are fewer than two rows, or fewer columns than rows
+	 */
+	public static List<Double> getCoefficientsOfDetermination(final double[][] data) {
+		int n = data.length;
+		if (n < 2 || data[0].length < n) {
+			throw new IllegalArgumentException("Not enough data for the number of predictors");
+		}
+		int m = data[0].length;
+		List<Double> coefficients = new ArrayList<Double>(n);
+		// with two rows, both coefficients are the squared correlation of the rows, and the
+		// regressions keep the rounding that tells them apart
+		if (n > 2 && m > n + 1) {
+			double[][] covariance = new double[n][n];
+			double[][] centered = new double[n][m];
+			for (int i = 0; i < n; i++) {
+				double mean = 0;
+				for (int t = 0; t < m; t++) {
+					mean += data[i][t];
+				}
+				mean /= m;
+				for (int t = 0; t < m; t++) {
+					centered[i][t] = data[i][t] - mean;
+				}
+			}
+			for (int i = 0; i < n; i++) {
+				for (int j = 0; j <= i; j++) {
+					double sum = 0;
+					for (int t = 0; t < m; t++) {
+						sum += centered[i][t] * centered[j][t];
+					}
+					covariance[i][j] = covariance[j][i] = sum;
+				}
+			}
+			try {
+				RealMatrix inverse = new CholeskyDecomposition(
+						new Array2DRowRealMatrix(covariance, false)).getSolver().getInverse();
+				for (int i = 0; i < n; i++) {
+					coefficients.add(1 - 1 / (covariance[i][i] * inverse.getEntry(i, i)));
+				}
+				return coefficients;
+			} catch (MathIllegalArgumentException e) {
+				// not positive definite: regress the rows one at a time
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			double[][] x = new double[n - 1][m];
+			int k = 0;
+			for (int j = 0; j < n; j++) {
+				if (j != i) {
+					x[k++] = data[j];
+				}
+			}
+
+			// Transpose the matrix so that it fits the linear model
+			double[][] xT = new Array2DRowRealMatrix(x).transpose().getData();
+
+			// RSquare is the "coefficient of determination"
+			coefficients.add(createLinearRegression(xT, data[i]).calculateRSquared());
+		}
+		return coefficients;
+	}
+
 	public static SimpleRegression createWeigthedLinearRegression(
 			final double[] x, final double[] y, final double[] weigths) {
 		double[] xW = new double[x.length];
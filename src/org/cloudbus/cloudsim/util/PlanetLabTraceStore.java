@@ -0,0 +1,283 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A read-only store of the CPU utilization traces of a PlanetLab workload, kept in a binary file
+ * that is mapped in memory. The store is created once from a workload folder by
+ * {@link #convert(String, String)}, and then opened with {@link #open(String)}, which maps the file
+ * instead of parsing the text traces. An opened store is shared by all the utilization models that
+ * read it, in all the simulations of the JVM. The store keeps a fingerprint of the names, sizes and
+ * modification times of the text traces it was converted from, so that
+ * {@link #openUpToDate(String, String)} converts the workload again when the traces have changed.
+ * <p>
+ * The file starts with a header of four ints and a long: the magic number, the format version, the
+ * number of traces, the number of samples per trace and the fingerprint. It is followed by the samples of each trace, one
+ * after another in the order of the sorted trace file names, each sample being the utilization in
+ * percent stored in one unsigned byte. As in the text traces read by
+ * {@link org.cloudbus.cloudsim.UtilizationModelPlanetLabInMemory}, the last sample repeats the one
+ * before it.
+ * 
+ * @since CloudSim Toolkit 3.0
+ * @see org.cloudbus.cloudsim.UtilizationModelPlanetLabMapped
+ */
+public class PlanetLabTraceStore {
+
+	/** The extension of the store files. */
+	public static final String FILE_EXTENSION = ".trace";
+
+	/** The magic number at the start of the store files. */
+	private static final int MAGIC = 0x504C5452;
+
+	/** The format version. */
+	private static final int VERSION = 2;
+
+	/** The size of the header in bytes. */
+	private static final int HEADER_SIZE = 24;
+
+	/** The number of samples of a PlanetLab trace (5 min * 288 = 24 hours, plus one). */
+	private static final int NUMBER_OF_SAMPLES = 289;
+
+	/** The stores that have been opened, by canonical path. */
+	private static final Map<String, PlanetLabTraceStore> stores = new ConcurrentHashMap<String, PlanetLabTraceStore>();
+
+	/** The mapped file. */
+	private final ByteBuffer buffer;
+
+	/** The number of traces. */
+	private final int numberOfTraces;
+
+	/** The number of samples per trace. */
+	private final int numberOfSamples;
+
+	/** The fingerprint of the text traces the store was converted from. */
+	private final long sourceFingerprint;
+
+	/** The modification time of the file when it was mapped. */
+	private final long lastModified;
+
+	/**
+	 * Instantiates a new PlanetLab trace store.
+	 * 
+	 * @param buffer the mapped file
+	 * @param path the path of the file, for the error messages
+	 * @param lastModified the modification time of the file
+	 * @throws IOException if the file is not a trace store
+	 */
+	private PlanetLabTraceStore(ByteBuffer buffer, String path, long lastModified) throws IOException {
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IOException(path + " is not a PlanetLab trace store");
+		}
+		if (buffer.getInt(4) != VERSION) {
+			throw new IOException(path + " has an unsupported version: " + buffer.getInt(4));
+		}
+		this.buffer = buffer;
+		numberOfTraces = buffer.getInt(8);
+		numberOfSamples = buffer.getInt(12);
+		sourceFingerprint = buffer.getLong(16);
+		this.lastModified = lastModified;
+		if (buffer.capacity() < HEADER_SIZE + (long) numberOfTraces * numberOfSamples) {
+			throw new IOException(path + " is truncated");
+		}
+	}
+
+	/**
+	 * Opens a trace store, mapping its file in memory. A store that has already been opened is
+	 * returned without mapping the file again, unless the file has been modified since.
+	 * 
+	 * @param path the path of the store file
+	 * @return the store
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static PlanetLabTraceStore open(String path) throws IOException {
+		File storeFile = new File(path).getCanonicalFile();
+		String key = storeFile.getPath();
+		long lastModified = storeFile.lastModified();
+		PlanetLabTraceStore store = stores.get(key);
+		if (store == null || store.lastModified != lastModified) {
+			RandomAccessFile file = new RandomAccessFile(key, "r");
+			try {
+				FileChannel channel = file.getChannel();
+				store = new PlanetLabTraceStore(
+						channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()),
+						key,
+						lastModified);
+			} finally {
+				file.close();
+			}
+			stores.put(key, store);
+		}
+		return store;
+	}
+
+	/**
+	 * Opens the trace store of a workload folder, converting the folder again first if the store is
+	 * missing, has an older format, or was converted from traces that have changed since. If the
+	 * workload folder does not exist, the store is opened as it is.
+	 * 
+	 * @param inputFolderName the workload folder
+	 * @param path the path of the store file
+	 * @return the store
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static synchronized PlanetLabTraceStore openUpToDate(String inputFolderName, String path)
+			throws IOException {
+		if (!new File(inputFolderName).isDirectory()) {
+			return open(path);
+		}
+		long fingerprint = getFingerprint(inputFolderName);
+		if (new File(path).exists()) {
+			try {
+				PlanetLabTraceStore store = open(path);
+				if (store.getSourceFingerprint() == fingerprint) {
+					return store;
+				}
+			} catch (IOException e) {
+				// an older format or a damaged file, which is converted again
+			}
+		}
+		convert(inputFolderName, path);
+		return open(path);
+	}
+
+	/**
+	 * Gets the fingerprint of the text traces of a workload folder, computed from the names, sizes
+	 * and modification times of the files.
+	 * 
+	 * @param inputFolderName the workload folder
+	 * @return the fingerprint
+	 * @throws FileNotFoundException if the folder does not exist
+	 */
+	public static long getFingerprint(String inputFolderName) throws FileNotFoundException {
+		File[] files = new File(inputFolderName).listFiles();
+		if (files == null) {
+			throw new FileNotFoundException(inputFolderName);
+		}
+		Arrays.sort(files);
+		long fingerprint = files.length;
+		for (File file : files) {
+			fingerprint = 31 * fingerprint + file.getName().hashCode();
+			fingerprint = 31 * fingerprint + file.length();
+			fingerprint = 31 * fingerprint + file.lastModified();
+		}
+		return fingerprint;
+	}
+
+	/**
+	 * Converts the text traces of a workload folder into a trace store file. The traces are stored
+	 * in the order of their sorted file names. The file is written under a temporary name and then
+	 * renamed, so that the simulations that have mapped a previous version keep reading it.
+	 * 
+	 * @param inputFolderName the workload folder
+	 * @param outputPath the path of the store file
+	 * @return the number of traces
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static int convert(String inputFolderName, String outputPath) throws IOException {
+		File[] files = new File(inputFolderName).listFiles();
+		if (files == null) {
+			throw new FileNotFoundException(inputFolderName);
+		}
+		Arrays.sort(files);
+		long fingerprint = getFingerprint(inputFolderName);
+
+		File temporaryFile = new File(outputPath + ".tmp");
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(
+				temporaryFile)));
+		try {
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeInt(files.length);
+			output.writeInt(NUMBER_OF_SAMPLES);
+			output.writeLong(fingerprint);
+			for (File file : files) {
+				BufferedReader input = new BufferedReader(new FileReader(file));
+				try {
+					int sample = 0;
+					for (int i = 0; i < NUMBER_OF_SAMPLES - 1; i++) {
+						sample = Integer.parseInt(input.readLine().trim());
+						if (sample < 0 || sample > 255) {
+							throw new IOException("Utilization out of range in " + file + ": " + sample);
+						}
+						output.writeByte(sample);
+					}
+					output.writeByte(sample);
+				} finally {
+					input.close();
+				}
+			}
+		} finally {
+			output.close();
+		}
+		File outputFile = new File(outputPath);
+		if (!temporaryFile.renameTo(outputFile)
+				&& !(outputFile.delete() && temporaryFile.renameTo(outputFile))) {
+			throw new IOException("Cannot rename " + temporaryFile + " to " + outputFile);
+		}
+		return files.length;
+	}
+
+	/**
+	 * Gets the number of traces.
+	 * 
+	 * @return the number of traces
+	 */
+	public int getNumberOfTraces() {
+		return numberOfTraces;
+	}
+
+	/**
+	 * Gets the number of samples per trace.
+	 * 
+	 * @return the number of samples
+	 */
+	public int getNumberOfSamples() {
+		return numberOfSamples;
+	}
+
+	/**
+	 * Gets the fingerprint of the text traces the store was converted from.
+	 * 
+	 * @return the fingerprint
+	 * @see #getFingerprint(String)
+	 */
+	public long getSourceFingerprint() {
+		return sourceFingerprint;
+	}
+
+	/**
+	 * Gets a sample of a trace.
+	 * 
+	 * @param trace the index of the trace
+	 * @param sample the index of the sample
+	 * @return the utilization, from 0 to 1
+	 */
+	public double getUtilization(int trace, int sample) {
+		if (sample < 0 || sample >= numberOfSamples) {
+			throw new IndexOutOfBoundsException("Sample " + sample + " of " + numberOfSamples);
+		}
+		return (buffer.get(HEADER_SIZE + trace * numberOfSamples + sample) & 0xFF) / 100.0;
+	}
+
+}
@@ -0,0 +1,343 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.util;
+
+import java.util.List;
+
+import org.cloudbus.cloudsim.Vm;
+
+/**
+ * A table of vms, keyed by user id and vm id, that gives each vm a slot: a small int under which
+ * the owner of the table keeps the resources of the vm in primitive arrays. A slot stays the same
+ * while its vm is in the table, and is reused once the vm is removed. The vms are iterated in the
+ * order in which they were added, with {@link #first()} and {@link #next(int)}.
+ * <p>
+ * The table does not allocate, except to grow its arrays. The owner is expected to grow its own
+ * arrays to {@link #getCapacity()} after adding a vm. The vms are found by a linear search, as a
+ * table holds the vms of one host or one PE.
+ * 
+ * @since CloudSim Toolkit 3.0
+ */
+public class VmSlotTable {
+
+	/** The end of the iteration, or an absent vm. */
+	public static final int NONE = -1;
+
+	/** The user ids, by slot. */
+	private int[] userIds;
+
+	/** The vm ids, by slot. */
+	private int[] vmIds;
+
+	/** The next slot in the order of the vms, or in the free list for the free slots. */
+	private int[] next;
+
+	/** The previous slot in the order of the vms. */
+	private int[] previous;
+
+	/** The first slot. */
+	private int head = NONE;
+
+	/** The last slot. */
+	private int tail = NONE;
+
+	/** The first free slot below the high water mark. */
+	private int free = NONE;
+
+	/** The number of slots ever used since the table was cleared. */
+	private int highWater;
+
+	/** The number of vms. */
+	private int size;
+
+	/**
+	 * Instantiates a new empty table.
+	 * 
+	 * @param capacity the initial capacity
+	 */
+	public VmSlotTable(int capacity) {
+		capacity = Math.max(capacity, 1);
+		userIds = new int[capacity];
+		vmIds = new int[capacity];
+		next = new int[capacity];
+		previous = new int[capacity];
+	}
+
+	/**
+	 * Finds the slot of a vm.
+	 * 
+	 * @param userId the user id
+	 * @param vmId the vm id
+	 * @return the slot, or {@link #NONE} if the vm is not in the table
+	 */
+	public int find(int userId, int vmId) {
+		for (int slot = head; slot != NONE; slot = next[slot]) {
+			if (vmIds[slot] == vmId && userIds[slot] == userId) {
+				return slot;
+			}
+		}
+		return NONE;
+	}
+
+	/**
+	 * Finds the slot of a vm.
+	 * 
+	 * @param vm the vm
+	 * @return the slot, or {@link #NONE} if the vm is not in the table
+	 */
+	public int find(Vm vm) {
+		return find(vm.getUserId(), vm.getId());
+	}
+
+	/**
+	 * Finds the slot of a vm by its uid, as given by {@link Vm#getUid(int, int)}.
+	 * 
+	 * @param vmUid the vm uid
+	 * @return the slot, or {@link #NONE} if the vm is not in the table
+	 */
+	public int find(String vmUid) {
+		int separator = getSeparator(vmUid);
+		if (separator < 0) {
+			return NONE;
+		}
+		for (int slot = head; slot != NONE; slot = next[slot]) {
+			if (isUid(vmUid, separator, userIds[slot], vmIds[slot])) {
+				return slot;
+			}
+		}
+		return NONE;
+	}
+
+	/**
+	 * Adds a vm after the other vms, unless it is in the table already.
+	 * 
+	 * @param userId the user id
+	 * @param vmId the vm id
+	 * @return the slot of the vm
+	 */
+	public int add(int userId, int vmId) {
+		int slot = find(userId, vmId);
+		if (slot != NONE) {
+			return slot;
+		}
+		if (free != NONE) {
+			slot = free;
+			free = next[slot];
+		} else {
+			if (highWater == userIds.length) {
+				int capacity = userIds.length * 2;
+				userIds = grow(userIds, capacity);
+				vmIds = grow(vmIds, capacity);
+				next = grow(next, capacity);
+				previous = grow(previous, capacity);
+			}
+			slot = highWater++;
+		}
+		userIds[slot] = userId;
+		vmIds[slot] = vmId;
+		next[slot] = NONE;
+		previous[slot] = tail;
+		if (tail == NONE) {
+			head = slot;
+		} else {
+			next[tail] = slot;
+		}
+		tail = slot;
+		size++;
+		return slot;
+	}
+
+	/**
+	 * Removes the vm of a slot, whose slot becomes free.
+	 * 
+	 * @param slot the slot
+	 */
+	public void remove(int slot) {
+		if (previous[slot] == NONE) {
+			head = next[slot];
+		} else {
+			next[previous[slot]] = next[slot];
+		}
+		if (next[slot] == NONE) {
+			tail = previous[slot];
+		} else {
+			previous[next[slot]] = previous[slot];
+		}
+		next[slot] = free;
+		free = slot;
+		size--;
+	}
+
+	/**
+	 * Removes all the vms.
+	 */
+	public void clear() {
+		head = NONE;
+		tail = NONE;
+		free = NONE;
+		highWater = 0;
+		size = 0;
+	}
+
+	/**
+	 * Gets the slot of the first vm.
+	 * 
+	 * @return the slot, or {@link #NONE} if the table is empty
+	 */
+	public int first() {
+		return head;
+	}
+
+	/**
+	 * Gets the slot of the vm after the vm of a slot.
+	 * 
+	 * @param slot the slot
+	 * @return the next slot, or {@link #NONE} if the vm is the last one
+	 */
+	public int next(int slot) {
+		return next[slot];
+	}
+
+	/**
+	 * Gets the number of vms.
+	 * 
+	 * @return the size
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the number of slots, to which the owner of the table grows its arrays.
+	 * 
+	 * @return the capacity
+	 */
+	public int getCapacity() {
+		return userIds.length;
+	}
+
+	/**
+	 * Gets the user id of the vm of a slot.
+	 * 
+	 * @param slot the slot
+	 * @return the user id
+	 */
+	public int getUserId(int slot) {
+		return userIds[slot];
+	}
+
+	/**
+	 * Gets the vm id of the vm of a slot.
+	 * 
+	 * @param slot the slot
+	 * @return the vm id
+	 */
+	public int getVmId(int slot) {
+		return vmIds[slot];
+	}
+
+	/**
+	 * Gets the uid of the vm of a slot, which is built at each call.
+	 * 
+	 * @param slot the slot
+	 * @return the vm uid
+	 */
+	public String getUid(int slot) {
+		return Vm.getUid(userIds[slot], vmIds[slot]);
+	}
+
+	/**
+	 * Checks if a list of vm uids contains the uid of a vm, without building the uid.
+	 * 
+	 * @param vmUids the vm uids
+	 * @param userId the user id
+	 * @param vmId the vm id
+	 * @return true, if the list contains the uid
+	 */
+	public static boolean containsUid(List<String> vmUids, int userId, int vmId) {
+		for (int i = 0; i < vmUids.size(); i++) {
+			String vmUid = vmUids.get(i);
+			if (isUid(vmUid, getSeparator(vmUid), userId, vmId)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the index of the separator of the user id and the vm id in a vm uid.
+	 * 
+	 * @param vmUid the vm uid
+	 * @return the index of the separator, or -1 if there is none
+	 */
+	private static int getSeparator(String vmUid) {
+		// the user id may be negative, so the separator is looked for after its first character
+		return vmUid.length() < 3 ? -1 : vmUid.indexOf('-', 1);
+	}
+
+	/**
+	 * Checks if a vm uid is the uid of a vm.
+	 * 
+	 * @param vmUid the vm uid
+	 * @param separator the index of the separator in the uid
+	 * @param userId the user id
+	 * @param vmId the vm id
+	 * @return true, if the uid is the one of the vm
+	 */
+	private static boolean isUid(String vmUid, int separator, int userId, int vmId) {
+		return separator > 0
+				&& isNumber(vmUid, 0, separator, userId)
+				&& isNumber(vmUid, separator + 1, vmUid.length(), vmId);
+	}
+
+	/**
+	 * Checks if a part of a string is the decimal representation of a number.
+	 * 
+	 * @param string the string
+	 * @param start the start of the part
+	 * @param end the end of the part, exclusive
+	 * @param number the number
+	 * @return true, if the part represents the number
+	 */
+	private static boolean isNumber(String string, int start, int end, int number) {
+		if (start == end) {
+			return false;
+		}
+		boolean negative = string.charAt(start) == '-';
+		if (negative != number < 0) {
+			return false;
+		}
+		int i = end;
+		long value = Math.abs((long) number);
+		do {
+			if (--i < (negative ? start + 1 : start)) {
+				return false;
+			}
+			if (string.charAt(i) != (char) ('0' + value % 10)) {
+				return false;
+			}
+			value /= 10;
+		} while (value != 0);
+		return i == (negative ? start + 1 : start);
+	}
+
+	/**
+	 * Grows an array.
+	 * 
+	 * @param array the array
+	 * @param capacity the new capacity
+	 * @return the grown array
+	 */
+	private static int[] grow(int[] array, int capacity) {
+		int[] grown = new int[capacity];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+
+}